@@ -0,0 +1,27 @@
+package meyn.util.benchmark;
+
+import java.beans.Introspector;
+
+import meyn.util.contexto.ContextoEmMemoria;
+
+/**
+ * Rotinas de preparação comuns aos benchmarks.
+ */
+final class Ambiente {
+	private Ambiente() {
+	}
+
+	/**
+	 * Descarta o contexto associado ao <i>context class loader</i>, com todos os
+	 * seus caches, e os metadados guardados pelo {@link Introspector
+	 * Introspector}, de forma que a próxima execução parta do estado inicial da
+	 * aplicação (execução "fria").
+	 */
+	static void descartarContexto() {
+		ClassLoader carregador = Thread.currentThread().getContextClassLoader();
+		if (ContextoEmMemoria.isDefinido(carregador)) {
+			ContextoEmMemoria.remover(carregador);
+		}
+		Introspector.flushCaches();
+	}
+}
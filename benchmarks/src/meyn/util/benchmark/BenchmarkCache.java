@@ -0,0 +1,104 @@
+package meyn.util.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import meyn.util.Cache;
+import meyn.util.cache.ConfiguracaoCache;
+
+/**
+ * Vazão de <tt>get</tt> e <tt>put</tt> em {@link Cache Cache}, comparada com um
+ * {@link ConcurrentHashMap ConcurrentHashMap} puro, com 1, 8 e 32
+ * <i>threads</i> (subclasses {@link UmaThread}, {@link OitoThreads} e
+ * {@link TrintaEDuasThreads}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class BenchmarkCache {
+
+	private static final int TAMANHO = 1 << 16;
+	private static final int MASCARA = TAMANHO - 1;
+
+	@SuppressWarnings("serial")
+	public static class CacheIlimitado extends Cache<Integer, Integer> {
+	}
+
+	@SuppressWarnings("serial")
+	public static class CacheLimitado extends Cache<Integer, Integer> {
+		public CacheLimitado() {
+			super(new ConfiguracaoCache().setMaximoEntradas(TAMANHO));
+		}
+	}
+
+	/**
+	 * <tt>MAPA</tt>: <tt>ConcurrentHashMap</tt> puro (referência);
+	 * <tt>CACHE</tt>: cache ilimitado; <tt>CACHE_LIMITADO</tt>: cache limitado
+	 * com a política padrão.
+	 */
+	@Param({ "MAPA", "CACHE", "CACHE_LIMITADO" })
+	public String tipo;
+
+	private Map<Integer, Integer> mapa;
+	private Integer[] chaves;
+
+	@Setup
+	public void preparar() {
+		switch (tipo) {
+		case "MAPA":
+			mapa = new ConcurrentHashMap<Integer, Integer>();
+			break;
+		case "CACHE":
+			mapa = new CacheIlimitado();
+			break;
+		default:
+			mapa = new CacheLimitado();
+		}
+		chaves = new Integer[TAMANHO];
+		for (int i = 0; i < TAMANHO; i++) {
+			chaves[i] = i;
+			mapa.put(chaves[i], chaves[i]);
+		}
+	}
+
+	@Benchmark
+	public Integer get() {
+		return mapa.get(chaves[ThreadLocalRandom.current().nextInt() & MASCARA]);
+	}
+
+	@Benchmark
+	public Integer put() {
+		Integer chave = chaves[ThreadLocalRandom.current().nextInt() & MASCARA];
+		return mapa.put(chave, chave);
+	}
+
+	@Threads(1)
+	public static class UmaThread extends BenchmarkCache {
+	}
+
+	@Threads(8)
+	public static class OitoThreads extends BenchmarkCache {
+	}
+
+	@Threads(32)
+	public static class TrintaEDuasThreads extends BenchmarkCache {
+	}
+}
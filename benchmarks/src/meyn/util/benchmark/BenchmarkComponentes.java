@@ -0,0 +1,110 @@
+package meyn.util.benchmark;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import meyn.util.beans.Componentes;
+import meyn.util.modelo.entidade.FabricaEntidade;
+
+/**
+ * Custo da extração dos valores das propriedades de um JavaBean por
+ * {@link Componentes#getValoresPropriedades(Object)
+ * Componentes.getValoresPropriedades}, com e sem checagem de compatibilidade de
+ * tipos, e da cópia das propriedades para outro JavaBean e para uma entidade
+ * tipada por {@link Componentes#copiarPropriedades(Object, Object)
+ * Componentes.copiarPropriedades}, com 1 e 8 <i>threads</i> (subclasses {@link UmaThread} e
+ * {@link OitoThreads}). A execução "fria" ({@link Frio}) parte de metadados
+ * vazios.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class BenchmarkComponentes {
+
+	static PessoaBean criarBean() {
+		PessoaBean bean = new PessoaBean();
+		bean.setId(1L);
+		bean.setNome("Fulano de Tal");
+		bean.setEmail("fulano@meyn");
+		bean.setNascimento(new Date(0));
+		bean.setAtivo(true);
+		return bean;
+	}
+
+	private PessoaBean bean;
+	private PessoaBean copia;
+	private Pessoa entidade;
+
+	@Setup
+	public void preparar() {
+		bean = criarBean();
+		copia = new PessoaBean();
+		entidade = FabricaEntidade.getInstancia(Pessoa.class);
+	}
+
+	@Benchmark
+	public Map<String, Object> getValoresPropriedades() {
+		return Componentes.getValoresPropriedades(bean);
+	}
+
+	@Benchmark
+	public Map<String, Object> getValoresPropriedadesTipo() {
+		return Componentes.getValoresPropriedades(PessoaBean.class, bean);
+	}
+
+	@Benchmark
+	public PessoaBean copiarPropriedades() {
+		return Componentes.copiarPropriedades(bean, copia);
+	}
+
+	@Benchmark
+	public Pessoa copiarPropriedadesEntidade() {
+		return Componentes.copiarPropriedades(bean, entidade);
+	}
+
+	@Threads(1)
+	public static class UmaThread extends BenchmarkComponentes {
+	}
+
+	@Threads(8)
+	public static class OitoThreads extends BenchmarkComponentes {
+	}
+
+	@State(Scope.Thread)
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 5)
+	@Measurement(iterations = 20)
+	@Fork(1)
+	public static class Frio {
+
+		private PessoaBean bean = criarBean();
+
+		@Setup(Level.Invocation)
+		public void preparar() {
+			Ambiente.descartarContexto();
+		}
+
+		@Benchmark
+		public Map<String, Object> getValoresPropriedades() {
+			return Componentes.getValoresPropriedades(bean);
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package meyn.util.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import meyn.util.Cache;
+import meyn.util.ChaveCache;
+import meyn.util.contexto.ContextoEmMemoria;
+import meyn.util.modelo.CacheModelo;
+
+/**
+ * Custo da recuperação de um cache por {@link Cache#getCache(Class)
+ * Cache.getCache}, que passa por
+ * {@link ContextoEmMemoria#getContextoCarregador()
+ * ContextoEmMemoria.getContextoCarregador}, e pela {@link ChaveCache chave
+ * tipada} do cache, com 1 e 8 <i>threads</i>
+ * (subclasses {@link UmaThread} e {@link OitoThreads}). A execução "fria"
+ * ({@link Frio}) inclui a criação do contexto e do cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class BenchmarkContexto {
+
+	private static final ChaveCache<CacheModelo> CHAVE = ChaveCache.getChave(CacheModelo.class);
+
+	@Setup
+	public void preparar() {
+		CacheModelo.getCacheModelo();
+	}
+
+	@Benchmark
+	public ContextoEmMemoria getContextoCarregador() {
+		return ContextoEmMemoria.getContextoCarregador();
+	}
+
+	@Benchmark
+	public Cache<Object, Object> getCache() {
+		return Cache.getCache(CacheModelo.class);
+	}
+
+	@Benchmark
+	public CacheModelo getCacheChave() {
+		return CHAVE.getCache();
+	}
+
+	@Threads(1)
+	public static class UmaThread extends BenchmarkContexto {
+	}
+
+	@Threads(8)
+	public static class OitoThreads extends BenchmarkContexto {
+	}
+
+	@State(Scope.Thread)
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 5)
+	@Measurement(iterations = 20)
+	@Fork(1)
+	public static class Frio {
+
+		@Setup(Level.Invocation)
+		public void preparar() {
+			Ambiente.descartarContexto();
+		}
+
+		@Benchmark
+		public Cache<Object, Object> getCache() {
+			return Cache.getCache(CacheModelo.class);
+		}
+	}
+}
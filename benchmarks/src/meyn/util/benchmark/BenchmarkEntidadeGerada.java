@@ -0,0 +1,96 @@
+package meyn.util.benchmark;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import meyn.util.modelo.entidade.EntidadeGerada;
+import meyn.util.modelo.entidade.FabricaEntidade;
+
+/**
+ * Custo das chamadas aos métodos de acesso de uma entidade cuja classe é gerada
+ * na compilação ({@link EntidadeGerada EntidadeGerada}), com os mesmos
+ * métodos e <i>threads</i> de {@link BenchmarkEntidadeTipada}, para
+ * comparação com os <i>proxies</i>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class BenchmarkEntidadeGerada {
+
+	private PessoaGerada pessoa;
+
+	@Setup
+	public void preparar() {
+		pessoa = FabricaEntidade.getInstancia(PessoaGerada.class);
+		pessoa.setId(1L);
+		pessoa.setNome("Fulano de Tal");
+		pessoa.setEmail("fulano@meyn");
+		pessoa.setNascimento(new Date(0));
+		pessoa.setAtivo(true);
+	}
+
+	@Benchmark
+	public String getNome() {
+		return pessoa.getNome();
+	}
+
+	@Benchmark
+	public boolean isAtivo() {
+		return pessoa.isAtivo();
+	}
+
+	@Benchmark
+	public void setNome() {
+		pessoa.setNome("Beltrano");
+	}
+
+	@Benchmark
+	public Object get() {
+		return pessoa.get("nome");
+	}
+
+	@Threads(1)
+	public static class UmaThread extends BenchmarkEntidadeGerada {
+	}
+
+	@Threads(8)
+	public static class OitoThreads extends BenchmarkEntidadeGerada {
+	}
+
+	@State(Scope.Thread)
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 5)
+	@Measurement(iterations = 20)
+	@Fork(1)
+	public static class Frio {
+
+		@Setup(Level.Invocation)
+		public void preparar() {
+			Ambiente.descartarContexto();
+		}
+
+		@Benchmark
+		public String criar() {
+			PessoaGerada pessoa = FabricaEntidade.getInstancia(PessoaGerada.class);
+			pessoa.setNome("Fulano de Tal");
+			return pessoa.getNome();
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package meyn.util.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import meyn.util.beans.Componentes;
+import meyn.util.modelo.entidade.Entidade;
+import meyn.util.modelo.entidade.EntidadeMapeada;
+import meyn.util.modelo.entidade.EntidadeTipada;
+import meyn.util.modelo.entidade.FabricaEntidade;
+
+/**
+ * Custo das chamadas aos métodos de acesso de uma entidade tipada, tratadas por
+ * {@link EntidadeTipada#invoke(Object, java.lang.reflect.Method, Object[])
+ * EntidadeTipada.invoke}, com 1 e 8 <i>threads</i> (subclasses
+ * {@link UmaThread} e {@link OitoThreads}), cada uma com a sua entidade,
+ * comparando a tabela de despacho com o tratamento anterior
+ * ({@link DespachoLegado}). A
+ * execução "fria" ({@link Frio}) mede a criação da entidade e o primeiro
+ * acesso a partir de um contexto vazio.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class BenchmarkEntidadeTipada {
+
+	/**
+	 * Tratamento das chamadas: <tt>tabela</tt> para a tabela de despacho de
+	 * <tt>EntidadeTipada</tt> e <tt>legado</tt> para a análise do método a cada
+	 * chamada ({@link DespachoLegado}).
+	 */
+	@Param({ "tabela", "legado" })
+	public String despacho;
+
+	private Pessoa pessoa;
+
+	@Setup
+	public void preparar() {
+		pessoa = criar();
+		pessoa.setId(1L);
+		pessoa.setNome("Fulano de Tal");
+		pessoa.setEmail("fulano@meyn");
+		pessoa.setNascimento(new Date(0));
+		pessoa.setAtivo(true);
+	}
+
+	@Benchmark
+	public String getNome() {
+		return pessoa.getNome();
+	}
+
+	@Benchmark
+	public boolean isAtivo() {
+		return pessoa.isAtivo();
+	}
+
+	@Benchmark
+	public void setNome() {
+		pessoa.setNome("Beltrano");
+	}
+
+	@Benchmark
+	public Object get() {
+		return pessoa.get("nome");
+	}
+
+	/**
+	 * Cria uma entidade com todas as propriedades de {@link Pessoa Pessoa}. Com o
+	 * tratamento anterior, repete a criação feita por <tt>FabricaEntidade</tt>
+	 * antes de guardar a classe do <i>proxy</i> e o seu construtor.
+	 */
+	@Benchmark
+	public Pessoa criar() {
+		if (despacho.equals("legado")) {
+			Set<Class<?>> stTipos = new HashSet<Class<?>>();
+			stTipos.add(Entidade.class);
+			stTipos.add(Pessoa.class);
+			stTipos.addAll(Arrays.asList(Pessoa.class.getInterfaces()));
+			EntidadeMapeada entidade = new EntidadeMapeada(new ArrayList<String>(Componentes.getDescritoresPropriedades(Pessoa.class).keySet()));
+			return (Pessoa) Proxy.newProxyInstance(Thread.currentThread().getContextClassLoader(), stTipos.toArray(new Class<?>[0]),
+			        new DespachoLegado(entidade));
+		}
+		return FabricaEntidade.getInstancia(Pessoa.class);
+	}
+
+	@Threads(1)
+	public static class UmaThread extends BenchmarkEntidadeTipada {
+	}
+
+	@Threads(8)
+	public static class OitoThreads extends BenchmarkEntidadeTipada {
+	}
+
+	@State(Scope.Thread)
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 5)
+	@Measurement(iterations = 20)
+	@Fork(1)
+	public static class Frio {
+
+		@Setup(Level.Invocation)
+		public void preparar() {
+			Ambiente.descartarContexto();
+		}
+
+		@Benchmark
+		public String criar() {
+			Pessoa pessoa = FabricaEntidade.getInstancia(Pessoa.class);
+			pessoa.setNome("Fulano de Tal");
+			return pessoa.getNome();
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package meyn.util.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import meyn.util.modelo.cadastro.Cadastro;
+import meyn.util.modelo.cadastro.ErroCadastro;
+import meyn.util.modelo.cadastro.FabricaCadastro;
+
+/**
+ * Custo da obtenção de um cadastro por
+ * {@link FabricaCadastro#getCadastro(String) FabricaCadastro.getCadastro}, pelo
+ * nome do modelo ou pela classe do cadastro, com 1 e 8 <i>threads</i> (subclasses {@link UmaThread} e {@link OitoThreads}). A
+ * execução "fria" ({@link Frio}) inclui a montagem do mapa dos cadastros, a
+ * partir do índice das classes anotadas com {@link meyn.util.modelo.Modelo
+ * Modelo} gerado na compilação, e a montagem do registro dos cadastros a partir
+ * de um contexto vazio. A varredura usada na falta do índice é medida em
+ * {@link BenchmarkVarreduraModelos}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class BenchmarkFabricaCadastro {
+
+	@Setup
+	public void preparar() throws ErroCadastro {
+		FabricaCadastro.getCadastro(CadastroPessoa.MODELO);
+	}
+
+	@Benchmark
+	public Cadastro<?, ?> getCadastro() throws ErroCadastro {
+		return FabricaCadastro.getCadastro(CadastroPessoa.MODELO);
+	}
+
+	@Benchmark
+	public Cadastro<?, ?> getCadastroPorTipo() throws ErroCadastro {
+		return FabricaCadastro.getCadastro(CadastroPessoa.class);
+	}
+
+	@Threads(1)
+	public static class UmaThread extends BenchmarkFabricaCadastro {
+	}
+
+	@Threads(8)
+	public static class OitoThreads extends BenchmarkFabricaCadastro {
+	}
+
+	@State(Scope.Thread)
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 3)
+	@Measurement(iterations = 10)
+	@Fork(1)
+	public static class Frio {
+
+		@Setup(Level.Invocation)
+		public void preparar() {
+			Ambiente.descartarContexto();
+		}
+
+		@Benchmark
+		public Cadastro<?, ?> getCadastro() throws ErroCadastro {
+			return FabricaCadastro.getCadastro(CadastroPessoa.MODELO);
+		}
+	}
+}
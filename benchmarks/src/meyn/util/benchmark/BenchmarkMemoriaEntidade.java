@@ -0,0 +1,82 @@
+package meyn.util.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import meyn.util.beans.Componentes;
+import meyn.util.modelo.entidade.Entidade;
+import meyn.util.modelo.entidade.EntidadeCompacta;
+import meyn.util.modelo.entidade.EntidadeMapeada;
+
+/**
+ * Memória ocupada por uma entidade preenchida com as propriedades de
+ * {@link Lancamento Lancamento} e custo dos métodos de acesso tipados de
+ * <tt>AcessoPropriedades</tt>: <tt>compacta</tt> para {@link EntidadeCompacta
+ * EntidadeCompacta}, base dos <i>proxies</i>, que guarda as propriedades
+ * primitivas sem objetos intermediários, e <tt>mapeada</tt> para
+ * {@link EntidadeMapeada EntidadeMapeada}. Todos os objetos alocados em
+ * <tt>criar</tt> ficam retidos pela entidade, de forma que a alocação por
+ * operação (<tt>-prof gc</tt>, <tt>gc.alloc.rate.norm</tt>) mede a memória por
+ * entidade.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchmarkMemoriaEntidade {
+
+	@Param({ "compacta", "mapeada" })
+	public String armazenamento;
+
+	private List<String> lsNomes;
+	private EntidadeCompacta.Esquema esquema;
+	private Entidade lancamento;
+	private long sequencia = 100000;
+
+	@Setup
+	public void preparar() {
+		lsNomes = new ArrayList<String>(Componentes.getDescritoresPropriedades(Lancamento.class).keySet());
+		esquema = EntidadeCompacta.Esquema.getEsquema(lsNomes, Lancamento.class);
+		lancamento = criar();
+	}
+
+	@Benchmark
+	public Entidade criar() {
+		Entidade ent = armazenamento.equals("mapeada") ? new EntidadeMapeada(lsNomes) : new EntidadeCompacta(esquema);
+		long id = sequencia++;
+		ent.setLong("id", id);
+		ent.setLong("conta", id * 7);
+		ent.setInt("quantidade", (int) id);
+		ent.setDouble("valor", id * 1.5);
+		ent.set("descricao", "Lançamento");
+		return ent;
+	}
+
+	@Benchmark
+	public void escrever() {
+		long id = sequencia++;
+		lancamento.setLong("id", id);
+		lancamento.setInt("quantidade", (int) id);
+		lancamento.setDouble("valor", id * 1.5);
+	}
+
+	@Benchmark
+	public double ler() {
+		return lancamento.getLong("id") + lancamento.getInt("quantidade") + lancamento.getDouble("valor");
+	}
+}
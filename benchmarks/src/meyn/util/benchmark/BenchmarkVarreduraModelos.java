@@ -0,0 +1,165 @@
+package meyn.util.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.reflections.Reflections;
+
+import meyn.util.modelo.Modelo;
+import meyn.util.modelo.cadastro.FabricaCadastro.MapaCadastros;
+
+/**
+ * Custo da varredura das classes anotadas com {@link Modelo Modelo}, usada por
+ * {@link MapaCadastros MapaCadastros} na ausência do índice gerado na
+ * compilação, sobre um <i>classpath</i> sintético com <tt>pacotes</tt> pacotes
+ * distribuídos em <tt>jars</tt> arquivos, cada pacote com uma classe de
+ * cadastro e algumas classes comuns. Compara a varredura antiga, com um
+ * {@link Reflections} por pacote ({@link #porPacote()}), com a varredura em
+ * uma única passagem ({@link #passagemUnica()}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BenchmarkVarreduraModelos {
+
+	private static final int CLASSES_POR_PACOTE = 5;
+
+	@Param("300")
+	public int pacotes;
+
+	@Param("30")
+	public int jars;
+
+	private Path diretorio;
+	private URLClassLoader carregador;
+	private List<String> lsPacotes;
+	private ClassLoader carregadorAnterior;
+
+	@Setup(Level.Trial)
+	public void gerarClasspath() throws IOException {
+		diretorio = Files.createTempDirectory("varredura");
+		Path fontes = Files.createDirectories(diretorio.resolve("fontes"));
+		Path classes = Files.createDirectories(diretorio.resolve("classes"));
+		List<String> lsArquivos = new ArrayList<String>();
+		lsPacotes = new ArrayList<String>();
+		for (int p = 0; p < pacotes; p++) {
+			String pacote = "sintetico.modulo" + p % jars + ".pacote" + p;
+			lsPacotes.add(pacote);
+			Path dirPacote = Files.createDirectories(fontes.resolve(pacote.replace('.', File.separatorChar)));
+			for (int c = 0; c < CLASSES_POR_PACOTE; c++) {
+				lsArquivos.add(gravar(dirPacote.resolve("Classe" + c + ".java"),
+				        "package " + pacote + ";\npublic class Classe" + c + " {\n}\n"));
+			}
+			lsArquivos.add(gravar(dirPacote.resolve("Cadastro" + p + ".java"), "package " + pacote + ";\n@" + Modelo.class.getName()
+			        + "(\"sintetico." + p + "\")\npublic class Cadastro" + p + " {\n}\n"));
+		}
+		JavaCompiler compilador = ToolProvider.getSystemJavaCompiler();
+		List<String> lsArgumentos = new ArrayList<String>(Arrays.asList("-proc:none", "-nowarn", "-cp",
+		        System.getProperty("java.class.path"), "-d", classes.toString()));
+		lsArgumentos.addAll(lsArquivos);
+		if (compilador.run(null, null, null, lsArgumentos.toArray(new String[lsArgumentos.size()])) != 0) {
+			throw new IllegalStateException("Erro compilando o classpath sintético");
+		}
+		URL[] urls = new URL[jars];
+		for (int j = 0; j < jars; j++) {
+			Path jar = diretorio.resolve("modulo" + j + ".jar");
+			empacotar(classes.resolve("sintetico").resolve("modulo" + j), "sintetico/modulo" + j + "/", jar);
+			urls[j] = jar.toUri().toURL();
+		}
+		carregador = new URLClassLoader(urls, getClass().getClassLoader());
+	}
+
+	private static String gravar(Path arquivo, String conteudo) throws IOException {
+		Files.write(arquivo, conteudo.getBytes(StandardCharsets.UTF_8));
+		return arquivo.toString();
+	}
+
+	private static void empacotar(Path raiz, String prefixo, Path jar) throws IOException {
+		try (JarOutputStream saida = new JarOutputStream(Files.newOutputStream(jar)); Stream<Path> arquivos = Files.walk(raiz)) {
+			saida.putNextEntry(new JarEntry("sintetico/"));
+			saida.putNextEntry(new JarEntry(prefixo));
+			for (Path arquivo : (Iterable<Path>) arquivos.sorted()::iterator) {
+				if (arquivo.equals(raiz)) {
+					continue;
+				}
+				String nome = prefixo + raiz.relativize(arquivo).toString().replace(File.separatorChar, '/');
+				if (Files.isDirectory(arquivo)) {
+					saida.putNextEntry(new JarEntry(nome + '/'));
+				} else {
+					saida.putNextEntry(new JarEntry(nome));
+					Files.copy(arquivo, saida);
+				}
+			}
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void descartarClasspath() throws IOException {
+		carregador.close();
+		try (Stream<Path> arquivos = Files.walk(diretorio)) {
+			for (Path arquivo : (Iterable<Path>) arquivos.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(arquivo);
+			}
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void definirCarregador() {
+		carregadorAnterior = Thread.currentThread().getContextClassLoader();
+		Thread.currentThread().setContextClassLoader(carregador);
+	}
+
+	@TearDown(Level.Invocation)
+	public void restaurarCarregador() {
+		Thread.currentThread().setContextClassLoader(carregadorAnterior);
+	}
+
+	@Benchmark
+	public Set<Class<?>> porPacote() {
+		Set<Class<?>> tiposCadastro = new HashSet<Class<?>>();
+		for (String pacote : lsPacotes) {
+			tiposCadastro.addAll(new Reflections(pacote).getTypesAnnotatedWith(Modelo.class));
+		}
+		return tiposCadastro;
+	}
+
+	@Benchmark
+	public Map<String, Class<?>> passagemUnica() {
+		return MapaCadastros.varrerModelos(carregador, lsPacotes);
+	}
+}
@@ -0,0 +1,20 @@
+package meyn.util.benchmark;
+
+import meyn.util.modelo.Modelo;
+import meyn.util.modelo.cadastro.CadastroImpl;
+import meyn.util.modelo.cadastro.ErroCadastro;
+import meyn.util.modelo.entidade.Entidade;
+
+/**
+ * Cadastro vazio registrado para o modelo {@value #MODELO}, usado nos
+ * benchmarks de {@link meyn.util.modelo.cadastro.FabricaCadastro
+ * FabricaCadastro}.
+ */
+@Modelo(CadastroPessoa.MODELO)
+public class CadastroPessoa extends CadastroImpl<Entidade, Pessoa> {
+
+	public static final String MODELO = "benchmark.pessoa";
+
+	public CadastroPessoa() throws ErroCadastro {
+	}
+}
@@ -0,0 +1,74 @@
+package meyn.util.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+
+import meyn.util.modelo.entidade.EntidadeMapeada;
+
+/**
+ * Cópia do tratamento das chamadas feito por
+ * {@link meyn.util.modelo.entidade.EntidadeTipada EntidadeTipada} antes da
+ * tabela de despacho, que analisava o método a cada chamada, usada como
+ * referência em {@link BenchmarkEntidadeTipada}. As propriedades são guardadas
+ * em uma {@link EntidadeMapeada EntidadeMapeada}, como em
+ * <tt>EntidadeTipada</tt>.
+ */
+class DespachoLegado implements InvocationHandler {
+
+	private final EntidadeMapeada entidade;
+
+	DespachoLegado(EntidadeMapeada entidade) {
+		this.entidade = entidade;
+	}
+
+	private String getNomePropriedade(String nomeMetodo) {
+		return Character.isLowerCase(nomeMetodo.charAt(1)) ? Character.toLowerCase(nomeMetodo.charAt(0)) + nomeMetodo.substring(1)
+		        : nomeMetodo;
+	}
+
+	@SuppressWarnings("unchecked")
+	public Object invoke(Object proxy, Method method, Object[] args) {
+		String nomeMetodo = method.getName();
+		Class<?>[] tiposParams = method.getParameterTypes();
+		Class<?> tipoRetorno = method.getReturnType();
+		if (tiposParams.length == 0) {
+			if (nomeMetodo.equals("hashCode")) {
+				return entidade.hashCode();
+			}
+			if (nomeMetodo.startsWith("is") && tipoRetorno.equals(boolean.class)) {
+				return entidade.get(getNomePropriedade(nomeMetodo.substring(2)));
+			}
+		}
+		if (tiposParams.length == 1) {
+			if (nomeMetodo.equals("equals")) {
+				return proxy == args[0];
+			}
+		}
+		if (nomeMetodo.startsWith("get")) {
+			if (nomeMetodo.length() > 3) {
+				return entidade.get(getNomePropriedade(nomeMetodo.substring(3)));
+			}
+			if (tiposParams.length == 1) {
+				if (String.class.isAssignableFrom(args[0].getClass())) {
+					return entidade.get((String) args[0]);
+				}
+				return entidade.get((Collection<String>) args[0]);
+			}
+		}
+		if (nomeMetodo.startsWith("set")) {
+			if (nomeMetodo.length() > 3) {
+				entidade.set(getNomePropriedade(nomeMetodo.substring(3)), args[0]);
+				return null;
+			}
+			if (tiposParams.length == 2) {
+				entidade.set((String) args[0], args[1]);
+				return null;
+			}
+			entidade.set((Map<String, Object>) args[0]);
+			return null;
+		}
+		throw new UnsupportedOperationException(proxy.getClass() + ": " + nomeMetodo);
+	}
+}
@@ -0,0 +1,29 @@
+package meyn.util.benchmark;
+
+import meyn.util.modelo.entidade.Entidade;
+
+/**
+ * Interface de acesso de uma entidade com propriedades numéricas primitivas,
+ * usada nos benchmarks de memória e de acesso tipado.
+ */
+public interface Lancamento extends Entidade {
+	long getId();
+
+	void setId(long id);
+
+	long getConta();
+
+	void setConta(long conta);
+
+	int getQuantidade();
+
+	void setQuantidade(int quantidade);
+
+	double getValor();
+
+	void setValor(double valor);
+
+	String getDescricao();
+
+	void setDescricao(String descricao);
+}
@@ -0,0 +1,31 @@
+package meyn.util.benchmark;
+
+import java.util.Date;
+
+import meyn.util.modelo.entidade.Entidade;
+
+/**
+ * Interface de acesso da entidade usada nos benchmarks.
+ */
+public interface Pessoa extends Entidade {
+
+	Long getId();
+
+	void setId(Long id);
+
+	String getNome();
+
+	void setNome(String nome);
+
+	String getEmail();
+
+	void setEmail(String email);
+
+	Date getNascimento();
+
+	void setNascimento(Date nascimento);
+
+	boolean isAtivo();
+
+	void setAtivo(boolean ativo);
+}
@@ -0,0 +1,56 @@
+package meyn.util.benchmark;
+
+import java.util.Date;
+
+/**
+ * JavaBean com as mesmas propriedades de {@link Pessoa Pessoa}, usado nos
+ * benchmarks de {@link meyn.util.beans.Componentes Componentes}.
+ */
+public class PessoaBean {
+
+	private Long id;
+	private String nome;
+	private String email;
+	private Date nascimento;
+	private boolean ativo;
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getNome() {
+		return nome;
+	}
+
+	public void setNome(String nome) {
+		this.nome = nome;
+	}
+
+	public String getEmail() {
+		return email;
+	}
+
+	public void setEmail(String email) {
+		this.email = email;
+	}
+
+	public Date getNascimento() {
+		return nascimento;
+	}
+
+	public void setNascimento(Date nascimento) {
+		this.nascimento = nascimento;
+	}
+
+	public boolean isAtivo() {
+		return ativo;
+	}
+
+	public void setAtivo(boolean ativo) {
+		this.ativo = ativo;
+	}
+}
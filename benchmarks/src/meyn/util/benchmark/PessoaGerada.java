@@ -0,0 +1,11 @@
+package meyn.util.benchmark;
+
+import meyn.util.modelo.entidade.EntidadeGerada;
+
+/**
+ * Interface de acesso com as mesmas propriedades de {@link Pessoa Pessoa}, cuja
+ * classe de entidade é gerada na compilação.
+ */
+@EntidadeGerada
+public interface PessoaGerada extends Pessoa {
+}
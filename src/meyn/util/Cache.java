@@ -1,120 +1,1100 @@
-package meyn.util;
-
-import java.lang.reflect.InvocationTargetException;
-import java.util.Collection;
-import java.util.concurrent.ConcurrentHashMap;
-
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-
-import meyn.util.contexto.ContextoEmMemoria;
-
-/**
- * Suporte para a implementao de caches guardados no <a href="Contexto.html">
- * contexto de execuo</a> mantido pela <i>framework</i>. Os caches so
- * armazenados no contexto usando como chave o nome do tipo do cache (subclasses
- * de <tt>Cache</tt>).
- * 
- * 
- * @see ContextoEmMemoria
- */
-@SuppressWarnings("serial")
-public abstract class Cache<TipoChave, TipoValor> extends ConcurrentHashMap<TipoChave, TipoValor> {
-
-	/**
-	 * Retorna uma instncia de cache deste tipo armazenado no contexto da
-	 * aplicao. Caso ainda no exista, cria a instncia e guarda no contexto.
-	 *
-	 * @param tipo tipo do cache
-	 *
-	 * @return cache mantido no contexto da aplicao
-	 */
-	public final static <TipoChave, TipoValor> Cache<TipoChave, TipoValor> getCache(Class<? extends Cache<TipoChave, TipoValor>> tipo) {
-		return getCache(ContextoEmMemoria.getContextoCarregador(), tipo);
-	}
-
-	/**
-	 * Retorna uma instncia de cache deste tipo armazenado neste contexto. Caso
-	 * ainda no exista, cria a instncia e guarda no contexto.
-	 *
-	 * @param contexto contexto
-	 * @param tipo     tipo do cache
-	 *
-	 * @return cache mantido no contexto da aplicao
-	 */
-	@SuppressWarnings("unchecked")
-	public final static <TipoChave, TipoValor> Cache<TipoChave, TipoValor> getCache(ContextoEmMemoria contexto,
-	        Class<? extends Cache<TipoChave, TipoValor>> tipo) {
-		String nomeCache = tipo.getName();
-		if (!contexto.containsKey(nomeCache)) {
-			try {
-				Cache<?, ?> cache = (Cache<?, ?>) FabricaObjetoLocal.getInstancia(nomeCache);
-				contexto.put(nomeCache, cache);
-				cache.setContexto(contexto);
-			} catch (ClassNotFoundException | InstantiationException | IllegalAccessException | InvocationTargetException
-			        | NoSuchMethodException | SecurityException e) {
-				throw new ErroExecucao("Erro instanciando cache: " + nomeCache, e);
-			}
-		}
-		return (Cache<TipoChave, TipoValor>) contexto.get(nomeCache);
-	}
-
-	private ContextoEmMemoria contexto;
-	public boolean atualizado = false;
-
-	private Logger logger = LogManager.getLogger();
-
-	protected ContextoEmMemoria getContexto() {
-		return contexto;
-	}
-
-	protected void setContexto(ContextoEmMemoria contexto) {
-		this.contexto = contexto;
-	}
-
-	public boolean isAtualizado() {
-		return atualizado;
-	}
-
-	public void setAtualizado(boolean atualizado) {
-		this.atualizado = atualizado;
-		if (!atualizado) {
-			getLogger().debug("cache desatualizado");
-		}
-	}
-
-	public void desatualizar() {
-		setAtualizado(false);
-	}
-
-	protected Logger getLogger() {
-		return logger;
-	}
-
-	protected void setLogger(Logger logger) {
-		this.logger = logger;
-	}
-
-	@Override
-	public TipoValor put(TipoChave chave, TipoValor valor) {
-		TipoValor res = super.put(chave, valor);
-		logger.trace("carregado (cache): {}, {}", chave, valor.getClass().getName());
-		return res;
-	}
-
-	@Override
-	public String toString() {
-		StringBuffer sb = new StringBuffer();
-		Collection<Entry<TipoChave, TipoValor>> itens = entrySet();
-		int cont = 1;
-		String desc = getClass().getName() + '@' + Integer.toHexString(hashCode());
-		sb.append("--- INICIO CACHE: ").append(desc).append(" ---\n");
-		for (Entry<TipoChave, TipoValor> item : itens) {
-			sb.append("Chave ").append(cont).append(":\n").append(item.getKey()).append("\nValor ").append(cont).append(":\n")
-			        .append(item.getValue()).append("\n");
-			cont++;
-		}
-		sb.append("------ FIM CACHE: ").append(desc).append(" ---");
-		return sb.toString();
-	}
-}
+package meyn.util;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import meyn.util.cache.CamadaForaHeap;
+import meyn.util.cache.CarregadorCache;
+import meyn.util.cache.ConfiguracaoCache;
+import meyn.util.cache.ControleExpiracao;
+import meyn.util.cache.ControleExpulsao;
+import meyn.util.cache.ErroCargaCache;
+import meyn.util.cache.EstatisticasCache;
+import meyn.util.cache.InstantaneoCache;
+import meyn.util.cache.MonitoresJMX;
+import meyn.util.cache.PoliticaExpulsao;
+import meyn.util.cache.RegistroEstatisticas;
+import meyn.util.contexto.ContextoEmMemoria;
+
+/**
+ * Suporte para a implementação de caches guardados no <a href="Contexto.html">
+ * contexto de execução</a> mantido pela <i>framework</i>. Os caches são
+ * armazenados no contexto usando como chave o nome do tipo do cache (subclasses
+ * de <tt>Cache</tt>).
+ * <p>
+ * Por padrão o cache é ilimitado. As subclasses podem limitar o número de
+ * entradas ou o peso total do cache passando uma {@link ConfiguracaoCache
+ * configuração} para o construtor. Neste modo, as operações <tt>put</tt>,
+ * <tt>putIfAbsent</tt>, <tt>putAll</tt>, <tt>replace</tt>, <tt>remove</tt> e
+ * <tt>clear</tt> são acompanhadas por uma {@link PoliticaExpulsao política de
+ * expulsão}, que escolhe as entradas a serem descartadas quando um limite é
+ * ultrapassado. As leituras continuam sem travas. Alterações feitas através
+ * das visões do mapa (<tt>keySet</tt>, <tt>entrySet</tt>, <tt>values</tt>) ou
+ * dos métodos <tt>compute</tt> e <tt>merge</tt> não são acompanhadas. O método
+ * <tt>containsKey</tt> considera ausentes as entradas expiradas e presentes as
+ * guardadas na camada fora do <i>heap</i>, sem registrar um acesso.
+ * <p>
+ * As entradas também podem expirar individualmente após um prazo contado da
+ * última escrita ou do último acesso, deixando de ser retornadas. Se o cache
+ * possuir um {@link CarregadorCache carregador}, as entradas podem ainda ser
+ * recarregadas em segundo plano após um prazo contado da última escrita: a
+ * leitura que percebe o fim do prazo dispara a recarga no executor configurado
+ * e continua recebendo o valor antigo até que a recarga termine.
+ * <p>
+ * Os métodos {@link #obter(Object, CarregadorCache) obter} e
+ * {@link #obterTodos(Collection, CarregadorCache) obterTodos} carregam os
+ * valores ausentes garantindo uma única carga em andamento por chave: as
+ * <i>threads</i> que pedem uma chave que já está sendo carregada aguardam o
+ * resultado desta carga. Uma carga que falha não é guardada, e o próximo
+ * pedido pela chave faz uma nova tentativa. Um carregador que pede a mesma
+ * chave que está carregando, na mesma <i>thread</i>, recebe um
+ * {@link ErroCargaCache erro} de carga recursiva, assim como em
+ * {@link ConcurrentHashMap#computeIfAbsent(Object, java.util.function.Function)
+ * computeIfAbsent}. O mesmo erro é lançado quando a espera fecharia um ciclo
+ * entre <i>threads</i>, como o de duas cargas que pedem uma à outra, mesmo que
+ * em caches diferentes.
+ * <p>
+ * Um cache limitado pode ainda ter uma {@link CamadaForaHeap camada fora do
+ * heap}: as entradas expulsas da memória são serializadas e transbordam para
+ * ela, e a leitura de uma chave que está na camada promove a entrada de volta
+ * ao cache. A serialização e a desserialização são feitas fora da trava de
+ * escrita do cache; uma remoção da chave feita enquanto a entrada transborda
+ * ou é promovida prevalece sobre o transbordo ou a promoção.
+ * <p>
+ * O conteúdo de um cache pode ser gravado em um {@link InstantaneoCache
+ * instantâneo} com {@link #gravarInstantaneo()}, tipicamente ao fim da
+ * aplicação (ver {@link #gravarInstantaneos(ContextoEmMemoria)}). Se o cache
+ * possuir um arquivo de instantâneo configurado, o instantâneo válido é
+ * carregado quando o cache é criado no contexto.
+ * <p>
+ * Cada cache registra {@link EstatisticasCache estatísticas} de acertos,
+ * faltas, cargas e expulsões, expostas por {@link #getEstatisticas()} e, se
+ * configurado ({@link ConfiguracaoCache#setMonitorJMX(boolean)}), via JMX,
+ * junto com as estatísticas somadas de cada contexto (ver
+ * {@link MonitoresJMX MonitoresJMX}).
+ * 
+ * @see ContextoEmMemoria
+ * @see ConfiguracaoCache
+ */
+@SuppressWarnings("serial")
+public abstract class Cache<TipoChave, TipoValor> extends ConcurrentHashMap<TipoChave, TipoValor> {
+
+	/**
+	 * Retorna uma instância de cache deste tipo armazenado no contexto da
+	 * aplicação. Caso ainda não exista, cria a instância e guarda no contexto.
+	 *
+	 * @param tipo tipo do cache
+	 *
+	 * @return cache mantido no contexto da aplicação
+	 */
+	public final static <TipoChave, TipoValor> Cache<TipoChave, TipoValor> getCache(Class<? extends Cache<TipoChave, TipoValor>> tipo) {
+		return getCache(ContextoEmMemoria.getContextoCarregador(), tipo);
+	}
+
+	/**
+	 * Retorna uma instância de cache deste tipo armazenado neste contexto. Caso
+	 * ainda não exista, cria a instância e guarda no contexto. Para acessos
+	 * frequentes, prefira guardar a {@link ChaveCache chave} do tipo de cache.
+	 *
+	 * @param contexto contexto
+	 * @param tipo     tipo do cache
+	 *
+	 * @return cache mantido no contexto da aplicação
+	 */
+	public final static <TipoChave, TipoValor> Cache<TipoChave, TipoValor> getCache(ContextoEmMemoria contexto,
+	        Class<? extends Cache<TipoChave, TipoValor>> tipo) {
+		return ChaveCache.getChave(tipo).getCache(contexto);
+	}
+
+	/**
+	 * Retorna o cache deste tipo guardado no contexto sob o nome do tipo, criando
+	 * e registrando a instância caso ainda não exista. Deve ser chamado com a
+	 * trava do contexto.
+	 */
+	static Cache<?, ?> buscarOuCriar(ContextoEmMemoria contexto, Class<?> tipo) {
+		String nomeCache = tipo.getName();
+		Object cache = contexto.get(nomeCache);
+		if (cache == null) {
+			try {
+				Cache<?, ?> novoCache = (Cache<?, ?>) FabricaObjetoLocal.getInstancia(nomeCache);
+				novoCache.setContexto(contexto);
+				if (novoCache.getArquivoInstantaneo() != null) {
+					novoCache.carregarInstantaneo();
+				}
+				contexto.put(nomeCache, novoCache);
+				if (novoCache.monitorJMX) {
+					MonitoresJMX.registrar(contexto, novoCache);
+				}
+				cache = novoCache;
+			} catch (ClassNotFoundException | InstantiationException | IllegalAccessException | InvocationTargetException
+			        | NoSuchMethodException | SecurityException e) {
+				throw new ErroExecucao("Erro instanciando cache: " + nomeCache, e);
+			}
+		}
+		return (Cache<?, ?>) cache;
+	}
+
+	/**
+	 * Grava os instantâneos dos caches deste contexto que possuem arquivo de
+	 * instantâneo configurado. Os erros são registrados no <i>log</i> sem
+	 * interromper a gravação dos demais caches.
+	 *
+	 * @param contexto contexto
+	 */
+	public static void gravarInstantaneos(ContextoEmMemoria contexto) {
+		for (Object valor : contexto.values()) {
+			if (valor instanceof Cache<?, ?> && ((Cache<?, ?>) valor).getArquivoInstantaneo() != null) {
+				try {
+					((Cache<?, ?>) valor).gravarInstantaneo();
+				} catch (ErroExecucao e) {
+					((Cache<?, ?>) valor).getLogger().warn("erro gravando instantâneo", e);
+				}
+			}
+		}
+	}
+
+	private ContextoEmMemoria contexto;
+	public boolean atualizado = false;
+
+	private Logger logger = LogManager.getLogger(getClass());
+
+	private ControleExpulsao<TipoChave> controleExpulsao;
+	private ControleExpiracao<TipoChave> controleExpiracao;
+	private CarregadorCache<TipoChave, TipoValor> carregador;
+	private Executor executor;
+	private RegistroEstatisticas estatisticas;
+	private boolean monitorJMX;
+	private CamadaForaHeap<TipoChave> camadaForaHeap;
+	// chaves sendo promovidas da camada fora do heap ou transbordando para ela,
+	// fora da trava do controle de expulsão; guardadas com a trava
+	private final Set<TipoChave> stPromocoes = new HashSet<TipoChave>();
+	private final Map<TipoChave, Vitima<TipoChave, TipoValor>> mpTransbordos = new HashMap<TipoChave, Vitima<TipoChave, TipoValor>>();
+	private Path arquivoInstantaneo;
+	private final Map<TipoChave, Carga<TipoValor>> mpCargas = new ConcurrentHashMap<TipoChave, Carga<TipoValor>>();
+	// carga alheia aguardada por cada thread, de todos os caches, para detectar
+	// ciclos de espera entre threads
+	private static final Map<Thread, Carga<?>> MP_ESPERAS = new ConcurrentHashMap<Thread, Carga<?>>();
+
+	/**
+	 * Carga em andamento de uma chave, com a <i>thread</i> que a executa.
+	 */
+	private static final class Carga<TipoValor> extends CompletableFuture<TipoValor> {
+		final Thread dono = Thread.currentThread();
+
+		boolean isRecursiva() {
+			return dono == Thread.currentThread();
+		}
+	}
+
+	/**
+	 * Cria um cache configurado pelas propriedades de sistema deste tipo de cache
+	 * (ver {@link ConfiguracaoCache ConfiguracaoCache}), ilimitado se nenhuma
+	 * estiver definida.
+	 */
+	protected Cache() {
+		this(new ConfiguracaoCache());
+	}
+
+	/**
+	 * Cria um cache com esta configuração, que pode ser sobreposta pelas
+	 * propriedades de sistema deste tipo de cache.
+	 *
+	 * @param config configuração do cache
+	 */
+	protected Cache(ConfiguracaoCache config) {
+		config.aplicarPropriedadesSistema(getClass());
+		if (config.isLimitado()) {
+			// limitado apenas pelo peso, o número de entradas não é conhecido
+			long capacidade = Math.max(0, config.getMaximoEntradas());
+			controleExpulsao = new ControleExpulsao<TipoChave>(criarPoliticaExpulsao(config, capacidade), config.getMaximoEntradas(),
+			        config.getMaximoPeso());
+		}
+		if (config.isTemporario()) {
+			controleExpiracao = new ControleExpiracao<TipoChave>(config.getExpiracaoAposEscrita(), config.getExpiracaoAposAcesso(),
+			        config.getAtualizacaoAposEscrita());
+		}
+		executor = config.getExecutor();
+		if (config.isRegistrarEstatisticas()) {
+			estatisticas = new RegistroEstatisticas();
+			monitorJMX = config.isMonitorJMX();
+		}
+		arquivoInstantaneo = config.getArquivoInstantaneo();
+		if (config.isForaHeap()) {
+			camadaForaHeap = new CamadaForaHeap<TipoChave>(config.getCapacidadeForaHeap(), estatisticas);
+		}
+	}
+
+	/**
+	 * Cria a política de expulsão usada quando o cache é limitado. Por padrão, cria
+	 * a política definida na configuração. Subclasses podem sobrepor este método
+	 * para usar outras políticas.
+	 *
+	 * @param config     configuração do cache
+	 * @param capacidade número esperado de entradas no cache, ou zero se o cache é
+	 *                   limitado apenas pelo peso
+	 *
+	 * @return política de expulsão
+	 */
+	protected PoliticaExpulsao<TipoChave> criarPoliticaExpulsao(ConfiguracaoCache config, long capacidade) {
+		return config.getPoliticaExpulsao().criar(capacidade);
+	}
+
+	/**
+	 * Retorna o peso desta entrada, usado quando o cache é limitado por peso. Por
+	 * padrão, todas as entradas têm peso 1. O peso de uma entrada não deve mudar
+	 * enquanto ela estiver no cache.
+	 *
+	 * @param chave chave da entrada
+	 * @param valor valor da entrada
+	 *
+	 * @return peso da entrada
+	 */
+	protected long getPeso(TipoChave chave, TipoValor valor) {
+		return 1;
+	}
+
+	/**
+	 * Testa se o número de entradas ou o peso do cache é limitado.
+	 *
+	 * @return <tt>true</tt> se o cache é limitado
+	 */
+	public final boolean isLimitado() {
+		return controleExpulsao != null;
+	}
+
+	/**
+	 * Retorna um retrato das estatísticas de uso do cache. Se o registro de
+	 * estatísticas estiver desligado, retorna estatísticas zeradas.
+	 *
+	 * @return estatísticas do cache
+	 */
+	public EstatisticasCache getEstatisticas() {
+		return estatisticas != null ? estatisticas.getEstatisticas() : EstatisticasCache.VAZIA;
+	}
+
+	/**
+	 * Retorna a camada fora do <i>heap</i> do cache.
+	 *
+	 * @return camada fora do <i>heap</i> ou <tt>null</tt> se o cache não possuir
+	 *         esta camada
+	 */
+	public CamadaForaHeap<TipoChave> getCamadaForaHeap() {
+		return camadaForaHeap;
+	}
+
+	public Path getArquivoInstantaneo() {
+		return arquivoInstantaneo;
+	}
+
+	/**
+	 * Grava o conteúdo do cache no arquivo de instantâneo configurado. As entradas
+	 * que estão na camada fora do <i>heap</i> não são gravadas.
+	 *
+	 * @return número de entradas gravadas
+	 */
+	public int gravarInstantaneo() {
+		if (arquivoInstantaneo == null) {
+			throw new ErroExecucao("Cache sem arquivo de instantâneo: " + getClass().getName());
+		}
+		try {
+			return InstantaneoCache.gravar(this, arquivoInstantaneo);
+		} catch (IOException e) {
+			throw new ErroExecucao("Erro gravando instantâneo do cache: " + arquivoInstantaneo, e);
+		}
+	}
+
+	/**
+	 * Carrega no cache o instantâneo gravado no arquivo configurado, se existir e
+	 * ainda for válido.
+	 *
+	 * @return número de entradas carregadas ou <tt>-1</tt> se não havia
+	 *         instantâneo válido
+	 */
+	public int carregarInstantaneo() {
+		if (arquivoInstantaneo == null) {
+			throw new ErroExecucao("Cache sem arquivo de instantâneo: " + getClass().getName());
+		}
+		return InstantaneoCache.carregar(this, arquivoInstantaneo);
+	}
+
+	protected ContextoEmMemoria getContexto() {
+		return contexto;
+	}
+
+	protected void setContexto(ContextoEmMemoria contexto) {
+		this.contexto = contexto;
+	}
+
+	public boolean isAtualizado() {
+		return atualizado;
+	}
+
+	public void setAtualizado(boolean atualizado) {
+		this.atualizado = atualizado;
+		if (!atualizado) {
+			getLogger().debug("cache desatualizado");
+		}
+	}
+
+	public void desatualizar() {
+		setAtualizado(false);
+	}
+
+	/**
+	 * Desatualiza a entrada desta chave. Se o cache possuir um carregador, a
+	 * entrada é recarregada em segundo plano e o valor antigo continua sendo
+	 * retornado até o fim da recarga. Caso contrário, a entrada é removida.
+	 *
+	 * @param chave chave da entrada
+	 */
+	public void desatualizar(TipoChave chave) {
+		TipoValor valor = super.get(chave);
+		if (valor == null) {
+			return;
+		}
+		if (carregador == null) {
+			remove(chave, valor);
+		} else if (controleExpiracao == null || controleExpiracao.iniciarAtualizacao(chave)) {
+			atualizar(chave, valor);
+		}
+	}
+
+	public CarregadorCache<TipoChave, TipoValor> getCarregador() {
+		return carregador;
+	}
+
+	/**
+	 * Define o carregador usado para recarregar as entradas desatualizadas.
+	 *
+	 * @param carregador carregador dos valores do cache
+	 */
+	public void setCarregador(CarregadorCache<TipoChave, TipoValor> carregador) {
+		this.carregador = carregador;
+	}
+
+	protected Logger getLogger() {
+		return logger;
+	}
+
+	protected void setLogger(Logger logger) {
+		this.logger = logger;
+	}
+
+	/**
+	 * Retorna o valor desta chave, carregando-o com o carregador do cache se
+	 * necessário. Ver {@link #obter(Object, CarregadorCache)}.
+	 *
+	 * @param chave chave do valor
+	 *
+	 * @return valor da chave ou <tt>null</tt> se não existir valor para a chave
+	 */
+	public TipoValor obter(TipoChave chave) {
+		if (carregador == null) {
+			throw new ErroExecucao("Cache sem carregador: " + getClass().getName());
+		}
+		return obter(chave, carregador);
+	}
+
+	/**
+	 * Retorna o valor desta chave. Se o valor não estiver no cache, carrega-o com
+	 * este carregador e o insere no cache. Se a chave já estiver sendo carregada
+	 * por outra <i>thread</i>, aguarda o fim desta carga.
+	 *
+	 * @param chave      chave do valor
+	 * @param carregador carregador do valor
+	 *
+	 * @return valor da chave ou <tt>null</tt> se não existir valor para a chave
+	 *
+	 * @throws ErroCargaCache se a carga falhar ou se a chave já estiver sendo
+	 *                        carregada pela própria <i>thread</i> ou por uma
+	 *                        <i>thread</i> que aguarda esta
+	 */
+	public TipoValor obter(TipoChave chave, CarregadorCache<? super TipoChave, ? extends TipoValor> carregador) {
+		TipoValor valor = get(chave);
+		if (valor != null) {
+			return valor;
+		}
+		Carga<TipoValor> carga = new Carga<TipoValor>();
+		Carga<TipoValor> cargaEmAndamento = mpCargas.putIfAbsent(chave, carga);
+		if (cargaEmAndamento != null) {
+			if (cargaEmAndamento.isRecursiva()) {
+				throw getErroCargaRecursiva(chave);
+			}
+			return aguardar(chave, cargaEmAndamento);
+		}
+		long inicio = 0;
+		try {
+			valor = super.get(chave);
+			if (valor == null) {
+				inicio = System.nanoTime();
+				valor = carregador.carregar(chave);
+				if (estatisticas != null) {
+					estatisticas.registrarCargaSucesso(System.nanoTime() - inicio);
+				}
+				if (valor != null) {
+					put(chave, valor);
+				}
+			}
+			carga.complete(valor);
+			return valor;
+		} catch (Exception e) {
+			if (estatisticas != null && inicio != 0) {
+				estatisticas.registrarCargaFalha(System.nanoTime() - inicio);
+			}
+			ErroCargaCache erro = new ErroCargaCache(chave, e);
+			carga.completeExceptionally(erro);
+			throw erro;
+		} finally {
+			mpCargas.remove(chave, carga);
+			carga.cancel(false);
+		}
+	}
+
+	/**
+	 * Retorna os valores destas chaves. Os valores que não estiverem no cache nem
+	 * estiverem sendo carregados por outras <i>threads</i> são carregados de uma
+	 * só vez através de
+	 * {@link CarregadorCache#carregarTodos(Collection) carregarTodos}.
+	 *
+	 * @param clChaves   chaves dos valores
+	 * @param carregador carregador dos valores
+	 *
+	 * @return mapa com os valores das chaves, sem as chaves que não possuem valor
+	 *
+	 * @throws ErroCargaCache se a carga falhar
+	 */
+	public Map<TipoChave, TipoValor> obterTodos(Collection<? extends TipoChave> clChaves,
+	        CarregadorCache<? super TipoChave, ? extends TipoValor> carregador) {
+		Map<TipoChave, TipoValor> mpValores = new HashMap<TipoChave, TipoValor>();
+		Map<TipoChave, Carga<TipoValor>> mpCargasProprias = new HashMap<TipoChave, Carga<TipoValor>>();
+		Map<TipoChave, Carga<TipoValor>> mpCargasAlheias = new HashMap<TipoChave, Carga<TipoValor>>();
+		for (TipoChave chave : clChaves) {
+			TipoValor valor = get(chave);
+			if (valor != null) {
+				mpValores.put(chave, valor);
+			} else if (!mpCargasProprias.containsKey(chave) && !mpCargasAlheias.containsKey(chave)) {
+				Carga<TipoValor> carga = new Carga<TipoValor>();
+				Carga<TipoValor> cargaEmAndamento = mpCargas.putIfAbsent(chave, carga);
+				if (cargaEmAndamento == null) {
+					mpCargasProprias.put(chave, carga);
+				} else if (cargaEmAndamento.isRecursiva()) {
+					ErroCargaCache erro = getErroCargaRecursiva(chave);
+					liberar(mpCargasProprias, erro);
+					throw erro;
+				} else {
+					mpCargasAlheias.put(chave, cargaEmAndamento);
+				}
+			}
+		}
+		if (!mpCargasProprias.isEmpty()) {
+			long inicio = 0;
+			try {
+				List<TipoChave> lsChaves = new ArrayList<TipoChave>();
+				for (Map.Entry<TipoChave, Carga<TipoValor>> item : mpCargasProprias.entrySet()) {
+					TipoValor valor = super.get(item.getKey());
+					if (valor == null) {
+						lsChaves.add(item.getKey());
+					} else {
+						mpValores.put(item.getKey(), valor);
+						item.getValue().complete(valor);
+					}
+				}
+				Map<? super TipoChave, ? extends TipoValor> mpCarregados = null;
+				if (!lsChaves.isEmpty()) {
+					inicio = System.nanoTime();
+					mpCarregados = carregador.carregarTodos(lsChaves);
+					if (estatisticas != null) {
+						estatisticas.registrarCargaSucesso(System.nanoTime() - inicio);
+					}
+				}
+				for (TipoChave chave : lsChaves) {
+					TipoValor valor = mpCarregados.get(chave);
+					if (valor != null) {
+						put(chave, valor);
+						mpValores.put(chave, valor);
+					}
+					mpCargasProprias.get(chave).complete(valor);
+				}
+			} catch (Exception e) {
+				if (estatisticas != null && inicio != 0) {
+					estatisticas.registrarCargaFalha(System.nanoTime() - inicio);
+				}
+				ErroCargaCache erro = new ErroCargaCache(mpCargasProprias.keySet(), e);
+				liberar(mpCargasProprias, erro);
+				throw erro;
+			} finally {
+				liberar(mpCargasProprias, null);
+			}
+		}
+		for (Map.Entry<TipoChave, Carga<TipoValor>> item : mpCargasAlheias.entrySet()) {
+			TipoValor valor = aguardar(item.getKey(), item.getValue());
+			if (valor != null) {
+				mpValores.put(item.getKey(), valor);
+			}
+		}
+		return mpValores;
+	}
+
+	/**
+	 * Encerra estas cargas próprias, com este erro se não for nulo, e as retira
+	 * das cargas em andamento.
+	 */
+	private void liberar(Map<TipoChave, Carga<TipoValor>> mpCargasProprias, ErroCargaCache erro) {
+		for (Map.Entry<TipoChave, Carga<TipoValor>> item : mpCargasProprias.entrySet()) {
+			if (erro != null) {
+				item.getValue().completeExceptionally(erro);
+			}
+			mpCargas.remove(item.getKey(), item.getValue());
+			item.getValue().cancel(false);
+		}
+	}
+
+	private static ErroCargaCache getErroCargaRecursiva(Object chave) {
+		return new ErroCargaCache(chave, new IllegalStateException("carga recursiva: " + chave));
+	}
+
+	private TipoValor aguardar(TipoChave chave, Carga<TipoValor> carga) {
+		// a espera é publicada antes da verificação: se duas threads fecham um
+		// ciclo ao mesmo tempo, ao menos uma delas o encontra
+		Thread thread = Thread.currentThread();
+		Carga<?> esperaAnterior = MP_ESPERAS.put(thread, carga);
+		try {
+			if (isCicloEspera(carga)) {
+				throw getErroCargaRecursiva(chave);
+			}
+			return carga.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof ErroCargaCache) {
+				throw (ErroCargaCache) e.getCause();
+			}
+			throw new ErroCargaCache(chave, e.getCause());
+		} catch (CancellationException e) {
+			throw new ErroCargaCache(chave, e);
+		} finally {
+			if (esperaAnterior == null) {
+				MP_ESPERAS.remove(thread, carga);
+			} else {
+				MP_ESPERAS.put(thread, esperaAnterior);
+			}
+		}
+	}
+
+	/**
+	 * Indica se a espera por esta carga fecha um ciclo: se o dono da carga, ou a
+	 * <i>thread</i> cuja carga ele aguarda, e assim por diante, aguarda uma carga
+	 * da <i>thread</i> atual.
+	 */
+	private static boolean isCicloEspera(Carga<?> carga) {
+		Thread thread = Thread.currentThread();
+		// o limite evita percorrer para sempre um ciclo alheio
+		for (int i = MP_ESPERAS.size(); carga != null && !carga.isDone() && i >= 0; i--) {
+			if (carga.dono == thread) {
+				return true;
+			}
+			carga = MP_ESPERAS.get(carga.dono);
+		}
+		return false;
+	}
+
+	/**
+	 * Indica se esta chave possui um valor no cache ou na camada fora do
+	 * <i>heap</i>, sem registrar um acesso nem promover o valor. Uma entrada
+	 * expirada é considerada ausente.
+	 */
+	@Override
+	public boolean containsKey(Object chave) {
+		if (super.get(chave) != null) {
+			return controleExpiracao == null || !controleExpiracao.isExpirada(chave);
+		}
+		if (camadaForaHeap == null) {
+			return false;
+		}
+		// a chave pode estar sendo promovida ou transbordando, fora da trava
+		controleExpulsao.travar();
+		try {
+			return super.get(chave) != null || stPromocoes.contains(chave) || mpTransbordos.containsKey(chave) || camadaForaHeap.contem(chave);
+		} finally {
+			controleExpulsao.destravar();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public TipoValor get(Object chave) {
+		TipoValor valor = super.get(chave);
+		if (valor == null) {
+			if (camadaForaHeap != null) {
+				return promover((TipoChave) chave);
+			}
+			if (estatisticas != null) {
+				estatisticas.registrarFalta();
+			}
+			return null;
+		}
+		if (controleExpiracao != null) {
+			switch (controleExpiracao.verificarLeitura(chave, carregador != null)) {
+			case ControleExpiracao.EXPIRADO:
+				if (remove(chave, valor) && estatisticas != null) {
+					estatisticas.registrarExpulsao();
+				}
+				if (estatisticas != null) {
+					estatisticas.registrarFalta();
+				}
+				return null;
+			case ControleExpiracao.ATUALIZAR:
+				atualizar((TipoChave) chave, valor);
+				break;
+			}
+		}
+		if (controleExpulsao != null) {
+			controleExpulsao.registrarLeitura((TipoChave) chave);
+		}
+		if (estatisticas != null) {
+			estatisticas.registrarAcerto();
+		}
+		return valor;
+	}
+
+	/**
+	 * Traz de volta ao cache o valor desta chave guardado na camada fora do
+	 * <i>heap</i>, se existir.
+	 */
+	@SuppressWarnings("unchecked")
+	private TipoValor promover(TipoChave chave) {
+		byte[] bytes;
+		controleExpulsao.travar();
+		try {
+			bytes = camadaForaHeap.retirarSerializado(chave);
+			if (bytes != null) {
+				stPromocoes.add(chave);
+			}
+		} finally {
+			controleExpulsao.destravar();
+		}
+		TipoValor valor = bytes != null ? (TipoValor) camadaForaHeap.desserializar(chave, bytes) : null;
+		TipoValor atual = null;
+		List<Vitima<TipoChave, TipoValor>> lsTransbordos = null;
+		if (bytes != null) {
+			controleExpulsao.travar();
+			try {
+				// a chave removida durante a desserialização não volta ao cache
+				if (stPromocoes.remove(chave) && valor != null) {
+					atual = super.putIfAbsent(chave, valor);
+					if (atual == null) {
+						lsTransbordos = registrarEscrita(chave, null, valor);
+					}
+				}
+			} finally {
+				controleExpulsao.destravar();
+			}
+			transbordar(lsTransbordos);
+		}
+		if (valor == null) {
+			if (estatisticas != null) {
+				estatisticas.registrarFalta();
+			}
+			return null;
+		}
+		if (estatisticas != null) {
+			estatisticas.registrarAcerto();
+		}
+		return atual != null ? atual : valor;
+	}
+
+	/**
+	 * Guarda este valor no cache. Valores nulos não são guardados: guardar um
+	 * valor nulo equivale a remover a entrada da chave.
+	 */
+	@Override
+	public TipoValor put(TipoChave chave, TipoValor valor) {
+		if (valor == null) {
+			return remove(chave);
+		}
+		TipoValor res = controleExpulsao == null && controleExpiracao == null ? super.put(chave, valor) : putControlado(chave, valor);
+		if (logger.isTraceEnabled()) {
+			logger.trace("carregado (cache): {}, {}", chave, valor.getClass().getName());
+		}
+		return res;
+	}
+
+	private TipoValor putControlado(TipoChave chave, TipoValor valor) {
+		TipoValor res;
+		if (controleExpulsao == null) {
+			res = super.put(chave, valor);
+			if (controleExpiracao != null) {
+				controleExpiracao.registrarEscrita(chave);
+			}
+		} else {
+			List<Vitima<TipoChave, TipoValor>> lsTransbordos;
+			controleExpulsao.travar();
+			try {
+				if (camadaForaHeap != null) {
+					camadaForaHeap.remover(chave);
+				}
+				res = super.put(chave, valor);
+				// a marca é registrada depois do valor, para não ser descartada por uma remoção concorrente
+				if (controleExpiracao != null) {
+					controleExpiracao.registrarEscrita(chave);
+				}
+				lsTransbordos = registrarEscrita(chave, res, valor);
+			} finally {
+				controleExpulsao.destravar();
+			}
+			transbordar(lsTransbordos);
+		}
+		limparExpiradosSeNecessario();
+		return res;
+	}
+
+	@Override
+	public TipoValor putIfAbsent(TipoChave chave, TipoValor valor) {
+		TipoValor res;
+		if (controleExpulsao == null) {
+			res = super.putIfAbsent(chave, valor);
+		} else {
+			List<Vitima<TipoChave, TipoValor>> lsTransbordos = null;
+			controleExpulsao.travar();
+			try {
+				res = super.putIfAbsent(chave, valor);
+				if (res == null) {
+					if (camadaForaHeap != null) {
+						camadaForaHeap.remover(chave);
+					}
+					lsTransbordos = registrarEscrita(chave, null, valor);
+				}
+			} finally {
+				controleExpulsao.destravar();
+			}
+			transbordar(lsTransbordos);
+		}
+		if (res == null && controleExpiracao != null) {
+			controleExpiracao.registrarEscrita(chave);
+			limparExpiradosSeNecessario();
+		}
+		return res;
+	}
+
+	@Override
+	public void putAll(Map<? extends TipoChave, ? extends TipoValor> mp) {
+		if (controleExpulsao == null && controleExpiracao == null) {
+			super.putAll(mp);
+			return;
+		}
+		for (Map.Entry<? extends TipoChave, ? extends TipoValor> item : mp.entrySet()) {
+			put(item.getKey(), item.getValue());
+		}
+	}
+
+	@Override
+	public boolean replace(TipoChave chave, TipoValor valorAnterior, TipoValor valor) {
+		boolean res;
+		if (controleExpulsao == null) {
+			res = super.replace(chave, valorAnterior, valor);
+		} else {
+			List<Vitima<TipoChave, TipoValor>> lsTransbordos = null;
+			controleExpulsao.travar();
+			try {
+				res = super.replace(chave, valorAnterior, valor);
+				if (res) {
+					lsTransbordos = registrarEscrita(chave, valorAnterior, valor);
+				}
+			} finally {
+				controleExpulsao.destravar();
+			}
+			transbordar(lsTransbordos);
+		}
+		if (res && controleExpiracao != null) {
+			controleExpiracao.registrarEscrita(chave);
+		}
+		return res;
+	}
+
+	@Override
+	public TipoValor replace(TipoChave chave, TipoValor valor) {
+		TipoValor res;
+		if (controleExpulsao == null) {
+			res = super.replace(chave, valor);
+		} else {
+			List<Vitima<TipoChave, TipoValor>> lsTransbordos = null;
+			controleExpulsao.travar();
+			try {
+				res = super.replace(chave, valor);
+				if (res != null) {
+					lsTransbordos = registrarEscrita(chave, res, valor);
+				}
+			} finally {
+				controleExpulsao.destravar();
+			}
+			transbordar(lsTransbordos);
+		}
+		if (res != null && controleExpiracao != null) {
+			controleExpiracao.registrarEscrita(chave);
+		}
+		return res;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public TipoValor remove(Object chave) {
+		TipoValor res;
+		if (controleExpulsao == null) {
+			res = super.remove(chave);
+		} else {
+			controleExpulsao.travar();
+			try {
+				res = super.remove(chave);
+				if (res != null) {
+					controleExpulsao.registrarRemocao((TipoChave) chave, getPeso((TipoChave) chave, res));
+				}
+				if (camadaForaHeap != null) {
+					stPromocoes.remove(chave);
+					mpTransbordos.remove(chave);
+					if (res == null) {
+						camadaForaHeap.remover(chave);
+					}
+				}
+			} finally {
+				controleExpulsao.destravar();
+			}
+		}
+		if (res != null && controleExpiracao != null) {
+			controleExpiracao.registrarRemocao(chave);
+		}
+		return res;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean remove(Object chave, Object valor) {
+		boolean res;
+		if (controleExpulsao == null) {
+			res = super.remove(chave, valor);
+		} else {
+			controleExpulsao.travar();
+			try {
+				res = super.remove(chave, valor);
+				if (res) {
+					controleExpulsao.registrarRemocao((TipoChave) chave, getPeso((TipoChave) chave, (TipoValor) valor));
+				}
+			} finally {
+				controleExpulsao.destravar();
+			}
+		}
+		if (res && controleExpiracao != null) {
+			controleExpiracao.registrarRemocao(chave);
+		}
+		return res;
+	}
+
+	@Override
+	public void clear() {
+		if (controleExpulsao == null) {
+			super.clear();
+		} else {
+			controleExpulsao.travar();
+			try {
+				super.clear();
+				controleExpulsao.limpar();
+				if (camadaForaHeap != null) {
+					stPromocoes.clear();
+					mpTransbordos.clear();
+					camadaForaHeap.limpar();
+				}
+			} finally {
+				controleExpulsao.destravar();
+			}
+		}
+		if (controleExpiracao != null) {
+			controleExpiracao.limpar();
+		}
+	}
+
+	/**
+	 * Remove as entradas expiradas. As entradas expiradas deixam de ser retornadas
+	 * assim que expiram, mas só são removidas quando lidas ou quando este método é
+	 * chamado, o que é feito periodicamente durante as escritas.
+	 */
+	public void limparExpirados() {
+		if (controleExpiracao == null) {
+			return;
+		}
+		for (TipoChave chave : controleExpiracao.getChavesExpiradas()) {
+			TipoValor valor = super.get(chave);
+			if (valor == null) {
+				controleExpiracao.registrarRemocao(chave);
+			} else if (controleExpiracao.verificarLeitura(chave, false) == ControleExpiracao.EXPIRADO && remove(chave, valor)
+			        && estatisticas != null) {
+				estatisticas.registrarExpulsao();
+			}
+		}
+	}
+
+	private void limparExpiradosSeNecessario() {
+		if (controleExpiracao != null && controleExpiracao.isLimpezaNecessaria()) {
+			limparExpirados();
+		}
+	}
+
+	/**
+	 * Recarrega em segundo plano o valor desta chave, substituindo o valor atual
+	 * se ele ainda estiver no cache ao fim da recarga.
+	 */
+	private void atualizar(final TipoChave chave, final TipoValor valorAtual) {
+		try {
+			executor.execute(() -> {
+				long inicio = System.nanoTime();
+				try {
+					TipoValor valor = carregador.carregar(chave);
+					if (estatisticas != null) {
+						estatisticas.registrarCargaSucesso(System.nanoTime() - inicio);
+					}
+					if (valor == null) {
+						remove(chave, valorAtual);
+					} else {
+						replace(chave, valorAtual, valor);
+					}
+				} catch (Exception e) {
+					if (estatisticas != null) {
+						estatisticas.registrarCargaFalha(System.nanoTime() - inicio);
+					}
+					logger.warn("erro recarregando (cache): " + chave, e);
+				} finally {
+					if (controleExpiracao != null) {
+						controleExpiracao.concluirAtualizacao(chave);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			logger.warn("recarga rejeitada (cache): " + chave, e);
+			if (controleExpiracao != null) {
+				controleExpiracao.concluirAtualizacao(chave);
+			}
+		}
+	}
+
+	/**
+	 * Entrada expulsa da memória que deve transbordar para a camada fora do
+	 * <i>heap</i>.
+	 */
+	private static final class Vitima<TipoChave, TipoValor> {
+		final TipoChave chave;
+		final TipoValor valor;
+
+		Vitima(TipoChave chave, TipoValor valor) {
+			this.chave = chave;
+			this.valor = valor;
+		}
+	}
+
+	/**
+	 * Repassa uma escrita para o controle de expulsão e expulsa as entradas
+	 * necessárias para manter o cache dentro dos limites. Deve ser chamado com a
+	 * trava do controle obtida. As entradas expulsas que devem transbordar para
+	 * a camada fora do <i>heap</i> são retornadas, para serem serializadas por
+	 * {@link #transbordar(List)} depois de liberada a trava.
+	 *
+	 * @return entradas a transbordar ou <tt>null</tt> se não houver
+	 */
+	private List<Vitima<TipoChave, TipoValor>> registrarEscrita(TipoChave chave, TipoValor valorAnterior, TipoValor valor) {
+		if (valorAnterior == null) {
+			controleExpulsao.registrarInclusao(chave, getPeso(chave, valor));
+		} else {
+			controleExpulsao.registrarAlteracao(chave, getPeso(chave, valorAnterior), getPeso(chave, valor));
+		}
+		List<Vitima<TipoChave, TipoValor>> lsTransbordos = null;
+		TipoChave vitima;
+		while ((vitima = controleExpulsao.selecionarVitima(mappingCount())) != null) {
+			TipoValor valorVitima = super.remove(vitima);
+			if (valorVitima != null) {
+				controleExpulsao.registrarExpulsao(getPeso(vitima, valorVitima));
+				if (controleExpiracao != null) {
+					controleExpiracao.registrarRemocao(vitima);
+				}
+				if (camadaForaHeap != null) {
+					if (lsTransbordos == null) {
+						lsTransbordos = new ArrayList<Vitima<TipoChave, TipoValor>>();
+					}
+					Vitima<TipoChave, TipoValor> transbordo = new Vitima<TipoChave, TipoValor>(vitima, valorVitima);
+					lsTransbordos.add(transbordo);
+					mpTransbordos.put(vitima, transbordo);
+					continue;
+				}
+				registrarExpulsao(vitima);
+			}
+		}
+		return lsTransbordos;
+	}
+
+	/**
+	 * Serializa estas entradas expulsas, fora da trava do controle de expulsão,
+	 * e as guarda na camada fora do <i>heap</i>. Não são guardadas as entradas
+	 * cujas chaves foram removidas, voltaram ao cache ou foram expulsas de novo
+	 * durante a serialização.
+	 */
+	private void transbordar(List<Vitima<TipoChave, TipoValor>> lsTransbordos) {
+		if (lsTransbordos == null) {
+			return;
+		}
+		for (Vitima<TipoChave, TipoValor> vitima : lsTransbordos) {
+			byte[] bytes = camadaForaHeap.serializar(vitima.chave, vitima.valor);
+			boolean guardado = false;
+			controleExpulsao.travar();
+			try {
+				if (mpTransbordos.remove(vitima.chave, vitima) && bytes != null && super.get(vitima.chave) == null) {
+					guardado = camadaForaHeap.guardarSerializado(vitima.chave, bytes);
+				}
+			} finally {
+				controleExpulsao.destravar();
+			}
+			if (guardado) {
+				if (logger.isTraceEnabled()) {
+					logger.trace("transbordado (cache): {}", vitima.chave);
+				}
+			} else {
+				registrarExpulsao(vitima.chave);
+			}
+		}
+	}
+
+	private void registrarExpulsao(TipoChave vitima) {
+		if (estatisticas != null) {
+			estatisticas.registrarExpulsao();
+		}
+		if (logger.isTraceEnabled()) {
+			logger.trace("expulso (cache): {}", vitima);
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuffer sb = new StringBuffer();
+		Collection<Entry<TipoChave, TipoValor>> itens = entrySet();
+		int cont = 1;
+		String desc = getClass().getName() + '@' + Integer.toHexString(hashCode());
+		sb.append("--- INICIO CACHE: ").append(desc).append(" ---\n");
+		for (Entry<TipoChave, TipoValor> item : itens) {
+			sb.append("Chave ").append(cont).append(":\n").append(item.getKey()).append("\nValor ").append(cont).append(":\n")
+			        .append(item.getValue()).append("\n");
+			cont++;
+		}
+		sb.append("------ FIM CACHE: ").append(desc).append(" ---");
+		return sb.toString();
+	}
+}
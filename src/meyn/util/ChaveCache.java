@@ -0,0 +1,90 @@
+package meyn.util;
+
+import meyn.util.contexto.ContextoEmMemoria;
+
+/**
+ * Chave tipada de acesso a um tipo de {@link Cache cache}. Cada tipo de cache
+ * possui uma única chave, que reserva uma posição nos contextos de execução:
+ * o cache é resolvido pelo nome do tipo apenas no primeiro acesso em cada
+ * contexto, e os acessos seguintes leem diretamente a posição reservada, sem
+ * cálculo de <i>hash</i> nem conversão de tipo.
+ * <p>
+ * Uso típico, guardando a chave em uma constante:
+ *
+ * <pre>
+ * private static final ChaveCache&lt;CacheModelo&gt; CHAVE = ChaveCache.getChave(CacheModelo.class);
+ * ...
+ * CacheModelo cache = CHAVE.getCache();
+ * </pre>
+ *
+ * @param <TipoCache> tipo do cache
+ *
+ * @see ContextoEmMemoria#getVinculoIndexado(int)
+ */
+public final class ChaveCache<TipoCache extends Cache<?, ?>> {
+
+	private static final ClassValue<ChaveCache<?>> CHAVES = new ClassValue<ChaveCache<?>>() {
+		@Override
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		protected ChaveCache<?> computeValue(Class<?> tipo) {
+			return new ChaveCache(tipo);
+		}
+	};
+
+	/**
+	 * Retorna a chave deste tipo de cache.
+	 *
+	 * @param tipo tipo do cache
+	 *
+	 * @return chave do tipo de cache
+	 */
+	@SuppressWarnings("unchecked")
+	public static <TipoCache extends Cache<?, ?>> ChaveCache<TipoCache> getChave(Class<TipoCache> tipo) {
+		return (ChaveCache<TipoCache>) CHAVES.get(tipo);
+	}
+
+	private final Class<TipoCache> tipo;
+	private final int indice;
+
+	private ChaveCache(Class<TipoCache> tipo) {
+		this.tipo = tipo;
+		this.indice = ContextoEmMemoria.reservarVinculoIndexado(tipo);
+	}
+
+	public Class<TipoCache> getTipo() {
+		return tipo;
+	}
+
+	/**
+	 * Retorna o cache deste tipo armazenado no contexto da aplicação. Ver
+	 * {@link Cache#getCache(Class) Cache.getCache(Class)}.
+	 *
+	 * @return cache mantido no contexto da aplicação
+	 */
+	public TipoCache getCache() {
+		return getCache(ContextoEmMemoria.getContextoCarregador());
+	}
+
+	/**
+	 * Retorna o cache deste tipo armazenado neste contexto. Caso ainda não
+	 * exista, cria a instância e guarda no contexto. Ver
+	 * {@link Cache#getCache(ContextoEmMemoria, Class) Cache.getCache(ContextoEmMemoria, Class)}.
+	 *
+	 * @param contexto contexto
+	 *
+	 * @return cache mantido no contexto
+	 */
+	@SuppressWarnings("unchecked")
+	public TipoCache getCache(ContextoEmMemoria contexto) {
+		Object cache = contexto.getVinculoIndexado(indice);
+		if (cache == null) {
+			// primeiro acesso no contexto: resolve pelo nome e reserva a posição
+			synchronized (contexto) {
+				cache = Cache.buscarOuCriar(contexto, tipo);
+				contexto.setVinculoIndexado(indice, cache);
+			}
+		}
+		// a posição só recebe caches deste tipo
+		return (TipoCache) cache;
+	}
+}
@@ -1,83 +1,121 @@
-package meyn.util;
-
-import java.lang.reflect.InvocationTargetException;
-import java.util.*;
-
-/**
- * Fbrica de objetos genrica. Esta classe cria objetos dinamicamente a partir
- * do nome de uma classe e de um <i>class loader</i>, podendo tambm mant-los
- * em um cache de objetos.
- */
-public class FabricaObjetoLocal {
-	protected FabricaObjetoLocal() {
-	}
-
-	/**
-	 * Retorna um objeto guardado neste cache a partir desta chave. Se o objeto no
-	 * existir, cria um objeto desta classe e o insere no cache usando a chave
-	 * informada. O novo objeto  ento retornado. Este mtodo usa o <i>context
-	 * class loader</i> para carregar a classe.
-	 *
-	 * @param cache  cache de objetos
-	 * @param chave  chave do objeto guardado no cache
-	 * @param classe classe do objeto
-	 *
-	 * @return objeto guardado no cache
-	 */
-	public final static Object getInstanciaEmCache(Map<Object, Object> cache, Object chave, String classe) throws ClassNotFoundException,
-	        InstantiationException, IllegalAccessException, InvocationTargetException, NoSuchMethodException, SecurityException {
-		return getInstanciaEmCache(cache, chave, Thread.currentThread().getContextClassLoader(), classe);
-	}
-
-	/**
-	 * Retorna um objeto guardado neste cache a partir desta chave. Se o objeto no
-	 * existir, carrega esta classe usando este <i>class loader</i>, cria um objeto
-	 * da classe carregada e o insere no cache usando a chave informada.
-	 *
-	 * @param cache      cache de objetos
-	 * @param chave      chave do objeto guardado no cache
-	 * @param carregador <i>class loader</i>
-	 * @param classe     classe do objeto
-	 *
-	 * @return objeto guardado no cache
-	 */
-	public final static Object getInstanciaEmCache(Map<Object, Object> cache, Object chave, ClassLoader carregador, String classe)
-	        throws ClassNotFoundException, InstantiationException, IllegalAccessException, InvocationTargetException, NoSuchMethodException,
-	        SecurityException {
-
-		Object obj = cache.get(chave);
-		if (obj == null) {
-			if (!cache.containsKey(chave)) {
-				obj = getInstancia(carregador, classe);
-				cache.put(chave, obj);
-			}
-		}
-		return obj;
-	}
-
-	/**
-	 * Cria um objeto desta classe. Este mtodo usa o <i>context class loader</i>
-	 * para carregar a classe.
-	 *
-	 * @param classe classe do objeto
-	 *
-	 * @return objeto instanciado
-	 */
-	public final static Object getInstancia(String classe) throws ClassNotFoundException, InstantiationException, IllegalAccessException,
-	        InvocationTargetException, NoSuchMethodException, SecurityException {
-		return getInstancia(Thread.currentThread().getContextClassLoader(), classe);
-	}
-
-	/**
-	 * Cria um objeto desta classe usando este <i>class loader</i> .
-	 *
-	 * @param classe     classe do objeto
-	 * @param carregador <i>class loader</i>
-	 *
-	 * @return objeto instanciado
-	 */
-	public final static Object getInstancia(ClassLoader carregador, String classe) throws ClassNotFoundException, InstantiationException,
-	        IllegalAccessException, InvocationTargetException, NoSuchMethodException, SecurityException {
-		return carregador.loadClass(classe).getDeclaredConstructor().newInstance();
-	}
-}
+package meyn.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.*;
+
+import meyn.util.cache.ErroCargaCache;
+
+/**
+ * Fábrica de objetos genérica. Esta classe cria objetos dinamicamente a partir
+ * do nome de uma classe e de um <i>class loader</i>, podendo também mantê-los
+ * em um cache de objetos. Quando o cache é uma instância de {@link Cache
+ * Cache}, é garantida uma única instanciação por chave mesmo com acessos
+ * concorrentes.
+ */
+public class FabricaObjetoLocal {
+	protected FabricaObjetoLocal() {
+	}
+
+	/**
+	 * Retorna um objeto guardado neste cache a partir desta chave. Se o objeto não
+	 * existir, cria um objeto desta classe e o insere no cache usando a chave
+	 * informada. O novo objeto é então retornado. Este método usa o <i>context
+	 * class loader</i> para carregar a classe.
+	 *
+	 * @param cache  cache de objetos
+	 * @param chave  chave do objeto guardado no cache
+	 * @param classe classe do objeto
+	 *
+	 * @return objeto guardado no cache
+	 */
+	public final static Object getInstanciaEmCache(Map<Object, Object> cache, Object chave, String classe) throws ClassNotFoundException,
+	        InstantiationException, IllegalAccessException, InvocationTargetException, NoSuchMethodException, SecurityException {
+		return getInstanciaEmCache(cache, chave, Thread.currentThread().getContextClassLoader(), classe);
+	}
+
+	/**
+	 * Retorna um objeto guardado neste cache a partir desta chave. Se o objeto não
+	 * existir, carrega esta classe usando este <i>class loader</i>, cria um objeto
+	 * da classe carregada e o insere no cache usando a chave informada.
+	 *
+	 * @param cache      cache de objetos
+	 * @param chave      chave do objeto guardado no cache
+	 * @param carregador <i>class loader</i>
+	 * @param classe     classe do objeto
+	 *
+	 * @return objeto guardado no cache
+	 */
+	public final static Object getInstanciaEmCache(Map<Object, Object> cache, Object chave, ClassLoader carregador, String classe)
+	        throws ClassNotFoundException, InstantiationException, IllegalAccessException, InvocationTargetException, NoSuchMethodException,
+	        SecurityException {
+
+		if (cache instanceof Cache<?, ?>) {
+			@SuppressWarnings("unchecked")
+			Cache<Object, Object> cacheObjetos = (Cache<Object, Object>) cache;
+			try {
+				return cacheObjetos.obter(chave, c -> getInstancia(carregador, classe));
+			} catch (ErroCargaCache e) {
+				throw relancar(e);
+			}
+		}
+		Object obj = cache.get(chave);
+		if (obj == null) {
+			obj = getInstancia(carregador, classe);
+			Object objExistente = cache.putIfAbsent(chave, obj);
+			if (objExistente != null) {
+				obj = objExistente;
+			}
+		}
+		return obj;
+	}
+
+	private static RuntimeException relancar(ErroCargaCache e) throws ClassNotFoundException, InstantiationException,
+	        IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+		Throwable causa = e.getCause();
+		if (causa instanceof ClassNotFoundException) {
+			throw (ClassNotFoundException) causa;
+		}
+		if (causa instanceof InstantiationException) {
+			throw (InstantiationException) causa;
+		}
+		if (causa instanceof IllegalAccessException) {
+			throw (IllegalAccessException) causa;
+		}
+		if (causa instanceof InvocationTargetException) {
+			throw (InvocationTargetException) causa;
+		}
+		if (causa instanceof NoSuchMethodException) {
+			throw (NoSuchMethodException) causa;
+		}
+		if (causa instanceof RuntimeException) {
+			throw (RuntimeException) causa;
+		}
+		return e;
+	}
+
+	/**
+	 * Cria um objeto desta classe. Este método usa o <i>context class loader</i>
+	 * para carregar a classe.
+	 *
+	 * @param classe classe do objeto
+	 *
+	 * @return objeto instanciado
+	 */
+	public final static Object getInstancia(String classe) throws ClassNotFoundException, InstantiationException, IllegalAccessException,
+	        InvocationTargetException, NoSuchMethodException, SecurityException {
+		return getInstancia(Thread.currentThread().getContextClassLoader(), classe);
+	}
+
+	/**
+	 * Cria um objeto desta classe usando este <i>class loader</i> .
+	 *
+	 * @param classe     classe do objeto
+	 * @param carregador <i>class loader</i>
+	 *
+	 * @return objeto instanciado
+	 */
+	public final static Object getInstancia(ClassLoader carregador, String classe) throws ClassNotFoundException, InstantiationException,
+	        IllegalAccessException, InvocationTargetException, NoSuchMethodException, SecurityException {
+		return carregador.loadClass(classe).getDeclaredConstructor().newInstance();
+	}
+}
@@ -1,45 +1,140 @@
-package meyn.util.beans;
-
-import java.io.*;
-import java.util.*;
-
-/**
- * Define mtodos genricos para acesso s propriedades de um componente
- * JavaBean, tratado aqui como um simples repositrio de propriedades. A chave
- * de acesso  sempre uma String contendo o nome da propriedade, que deve
- * comear com letra minscula.
- */
-public interface AcessoPropriedades extends Serializable {
-	/**
-	 * Retorna os valores destas propriedades.
-	 * 
-	 * @param clNomes nomes das propriedades selecionadas
-	 *
-	 * @return mapa com os valores das propriedades selecionadas
-	 */
-	Map<String, Object> get(Collection<String> clNomes);
-
-	/**
-	 * Define os valores destas propriedades.
-	 * 
-	 * @param mpVals mapa com os valores das propriedades selecionadas
-	 */
-	void set(Map<String, Object> mpValores);
-
-	/**
-	 * Retorna o valor desta propriedade.
-	 *
-	 * @param nome nome da propriedade
-	 *
-	 * @return valor da propriedade
-	 */
-	Object get(String nome);
-
-	/**
-	 * Define o valor desta propriedade.
-	 *
-	 * @param nome  nome da propriedade
-	 * @param valor valor da propriedade
-	 */
-	void set(String nome, Object valor);
-}
+package meyn.util.beans;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Define métodos genéricos para acesso às propriedades de um componente
+ * JavaBean, tratado aqui como um simples repositório de propriedades. A chave
+ * de acesso é sempre uma String contendo o nome da propriedade, que deve
+ * começar com letra minúscula.
+ * <p>
+ * Os métodos de acesso tipados, como <tt>getLong(String)</tt> e
+ * <tt>setLong(String,long)</tt>, leem e escrevem propriedades numéricas e
+ * lógicas sem a conversão para objeto nas implementações que guardam estas
+ * propriedades em campos primitivos. A implementação padrão passa pelos
+ * métodos genéricos, e a leitura de uma propriedade nula retorna o valor
+ * padrão do tipo.
+ */
+public interface AcessoPropriedades extends Serializable {
+	/**
+	 * Retorna os valores destas propriedades.
+	 * 
+	 * @param clNomes nomes das propriedades selecionadas
+	 *
+	 * @return mapa com os valores das propriedades selecionadas
+	 */
+	Map<String, Object> get(Collection<String> clNomes);
+
+	/**
+	 * Define os valores destas propriedades.
+	 * 
+	 * @param mpVals mapa com os valores das propriedades selecionadas
+	 */
+	void set(Map<String, Object> mpValores);
+
+	/**
+	 * Retorna o valor desta propriedade.
+	 *
+	 * @param nome nome da propriedade
+	 *
+	 * @return valor da propriedade
+	 */
+	Object get(String nome);
+
+	/**
+	 * Define o valor desta propriedade.
+	 *
+	 * @param nome  nome da propriedade
+	 * @param valor valor da propriedade
+	 */
+	void set(String nome, Object valor);
+
+	/**
+	 * Retorna o valor desta propriedade inteira.
+	 *
+	 * @param nome nome da propriedade
+	 *
+	 * @return valor da propriedade, ou <tt>0</tt> se for nulo
+	 */
+	default int getInt(String nome) {
+		Object valor = get(nome);
+		return valor == null ? 0 : ((Number) valor).intValue();
+	}
+
+	/**
+	 * Retorna o valor desta propriedade inteira longa.
+	 *
+	 * @param nome nome da propriedade
+	 *
+	 * @return valor da propriedade, ou <tt>0</tt> se for nulo
+	 */
+	default long getLong(String nome) {
+		Object valor = get(nome);
+		return valor == null ? 0L : ((Number) valor).longValue();
+	}
+
+	/**
+	 * Retorna o valor desta propriedade de ponto flutuante.
+	 *
+	 * @param nome nome da propriedade
+	 *
+	 * @return valor da propriedade, ou <tt>0</tt> se for nulo
+	 */
+	default double getDouble(String nome) {
+		Object valor = get(nome);
+		return valor == null ? 0D : ((Number) valor).doubleValue();
+	}
+
+	/**
+	 * Retorna o valor desta propriedade lógica.
+	 *
+	 * @param nome nome da propriedade
+	 *
+	 * @return valor da propriedade, ou <tt>false</tt> se for nulo
+	 */
+	default boolean getBoolean(String nome) {
+		Object valor = get(nome);
+		return valor == null ? false : (Boolean) valor;
+	}
+
+	/**
+	 * Define o valor desta propriedade inteira.
+	 *
+	 * @param nome  nome da propriedade
+	 * @param valor valor da propriedade
+	 */
+	default void setInt(String nome, int valor) {
+		set(nome, valor);
+	}
+
+	/**
+	 * Define o valor desta propriedade inteira longa.
+	 *
+	 * @param nome  nome da propriedade
+	 * @param valor valor da propriedade
+	 */
+	default void setLong(String nome, long valor) {
+		set(nome, valor);
+	}
+
+	/**
+	 * Define o valor desta propriedade de ponto flutuante.
+	 *
+	 * @param nome  nome da propriedade
+	 * @param valor valor da propriedade
+	 */
+	default void setDouble(String nome, double valor) {
+		set(nome, valor);
+	}
+
+	/**
+	 * Define o valor desta propriedade lógica.
+	 *
+	 * @param nome  nome da propriedade
+	 * @param valor valor da propriedade
+	 */
+	default void setBoolean(String nome, boolean valor) {
+		set(nome, valor);
+	}
+}
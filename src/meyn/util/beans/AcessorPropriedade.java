@@ -0,0 +1,110 @@
+package meyn.util.beans;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import meyn.util.ErroExecucao;
+
+/**
+ * Acesso compilado a uma propriedade de um componente JavaBean. Os métodos
+ * <tt>get</tt> e <tt>set</tt> da propriedade são convertidos uma única vez em
+ * {@link MethodHandle MethodHandles} com assinatura genérica, evitando a
+ * introspecção e a criação do vetor de parâmetros de
+ * {@link Method#invoke(Object, Object...) Method.invoke} a cada acesso.
+ *
+ * @see TabelaAcessores
+ */
+public final class AcessorPropriedade {
+
+	private static final MethodType TIPO_LEITOR = MethodType.methodType(Object.class, Object.class);
+	private static final MethodType TIPO_ESCRITOR = MethodType.methodType(void.class, Object.class, Object.class);
+
+	private static MethodHandle compilar(Method metodo, MethodType tipo) throws IllegalAccessException {
+		if (metodo == null) {
+			return null;
+		}
+		if (!Modifier.isPublic(metodo.getDeclaringClass().getModifiers())) {
+			try {
+				metodo.setAccessible(true);
+			} catch (RuntimeException e) {
+				// mantém o acesso padrão, que pode ser suficiente
+			}
+		}
+		return MethodHandles.lookup().unreflect(metodo).asType(tipo);
+	}
+
+	private final String nome;
+	private final Class<?> tipo;
+	private final MethodHandle leitor;
+	private final MethodHandle escritor;
+
+	AcessorPropriedade(PropertyDescriptor descritor) throws IllegalAccessException {
+		nome = descritor.getName();
+		tipo = descritor.getPropertyType();
+		leitor = compilar(descritor.getReadMethod(), TIPO_LEITOR);
+		escritor = compilar(descritor.getWriteMethod(), TIPO_ESCRITOR);
+	}
+
+	public String getNome() {
+		return nome;
+	}
+
+	public Class<?> getTipo() {
+		return tipo;
+	}
+
+	/**
+	 * Testa se a propriedade possui método <tt>get</tt>.
+	 *
+	 * @return <tt>true</tt> se a propriedade pode ser lida
+	 */
+	public boolean isLeitura() {
+		return leitor != null;
+	}
+
+	/**
+	 * Testa se a propriedade possui método <tt>set</tt>.
+	 *
+	 * @return <tt>true</tt> se a propriedade pode ser escrita
+	 */
+	public boolean isEscrita() {
+		return escritor != null;
+	}
+
+	/**
+	 * Lê o valor da propriedade neste <i>bean</i>.
+	 *
+	 * @param bean JavaBean
+	 *
+	 * @return valor da propriedade
+	 */
+	public Object ler(Object bean) {
+		try {
+			return (Object) leitor.invokeExact(bean);
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new ErroExecucao("Erro obtendo valor da propriedade '" + nome + "': " + bean.getClass().getName(), t);
+		}
+	}
+
+	/**
+	 * Escreve o valor da propriedade neste <i>bean</i>.
+	 *
+	 * @param bean  JavaBean
+	 * @param valor valor da propriedade
+	 */
+	public void escrever(Object bean, Object valor) {
+		try {
+			escritor.invokeExact(bean, valor);
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new ErroExecucao("Erro definindo valor da propriedade '" + nome + "': " + bean.getClass().getName(), t);
+		}
+	}
+}
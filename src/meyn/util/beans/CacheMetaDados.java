@@ -1,21 +1,27 @@
-package meyn.util.beans;
-
-import meyn.util.*;
-
-/**
- * Cache de metadados de componentes JavaBean.
- * 
- * @see meyn.util.contexto.ContextoEmMemoria
- */
-@SuppressWarnings("serial")
-public final class CacheMetaDados extends Cache<String, Object> {
-
-	/**
-	 * Retorna o cache de metadados de componentes JavaBeans.
-	 *
-	 * @return cache de metadados
-	 */
-	public static CacheMetaDados getCacheMetaDados() {
-		return (CacheMetaDados) getCache(CacheMetaDados.class);
-	}
-}
+package meyn.util.beans;
+
+import meyn.util.*;
+
+/**
+ * Cache de metadados de componentes JavaBean.
+ * 
+ * @see meyn.util.contexto.ContextoEmMemoria
+ *
+ * @deprecated os metadados passaram a ser associados às próprias classes (ver
+ *             {@link Componentes#getDescritoresPropriedades(Class)} e
+ *             {@link TabelaAcessores}), que são liberados junto com elas; este
+ *             cache não é mais usado pela <i>framework</i>.
+ */
+@Deprecated
+@SuppressWarnings("serial")
+public final class CacheMetaDados extends Cache<String, Object> {
+
+	/**
+	 * Retorna o cache de metadados de componentes JavaBeans.
+	 *
+	 * @return cache de metadados
+	 */
+	public static CacheMetaDados getCacheMetaDados() {
+		return (CacheMetaDados) getCache(CacheMetaDados.class);
+	}
+}
@@ -1,157 +1,188 @@
-package meyn.util.beans;
-
-import java.util.*;
-
-import meyn.util.*;
-
-import java.beans.*;
-import java.lang.reflect.*;
-
-/**
- * Classe com rotinas para a manipulao de componentes JavaBean via
- * introspeco.
- */
-public final class Componentes {
-	private Componentes() {
-	}
-
-	private static void getDescritoresPropriedades(Class<?> tipo, Map<String, PropertyDescriptor> mpInfoProps)
-	        throws IntrospectionException {
-		PropertyDescriptor clInfoProp[] = Introspector.getBeanInfo(tipo).getPropertyDescriptors();
-		for (PropertyDescriptor infoProp : clInfoProp) {
-			mpInfoProps.put(infoProp.getName(), infoProp);
-		}
-		if (tipo.isInterface()) {
-			Class<?> clItfs[] = tipo.getInterfaces();
-			for (Class<?> itf : clItfs) {
-				getDescritoresPropriedades(itf, mpInfoProps);
-			}
-		}
-	}
-
-	/**
-	 * Para as propriedades definidas neste tipo, mapeia os descritores das
-	 * propriedades deste <i>bean</i>. Cada entrada no mapa retornado associa o nome
-	 * da propriedade a uma instancia de {@link java.beans.PropertyDescriptor
-	 * PropertyDescriptor}.
-	 *
-	 * @param tipo tipo que define as propriedades a serem mapeadas
-	 *
-	 * @return mapa com os nomes e descritores das propriedades do JavaBean
-	 */
-	@SuppressWarnings("unchecked")
-	public static Map<String, PropertyDescriptor> getDescritoresPropriedades(Class<?> tipo) {
-		CacheMetaDados cache = CacheMetaDados.getCacheMetaDados();
-		Map<String, PropertyDescriptor> mpInfoProps = (Map<String, PropertyDescriptor>) cache.get(tipo.getName());
-		if (mpInfoProps == null) {
-			try {
-				mpInfoProps = new HashMap<String, PropertyDescriptor>();
-				getDescritoresPropriedades(tipo, mpInfoProps);
-				cache.put(tipo.getName(), mpInfoProps);
-			} catch (IntrospectionException ie) {
-				throw new ErroExecucao("Erro obtendo metadados", ie);
-			}
-		}
-		return mpInfoProps;
-	}
-
-	/**
-	 * Mapeia os valores armazenados nas propriedades deste <i>bean</i>. Equivale a
-	 * uma chamada a <tt>getValoresPropriedades(bean.getClass(), bean, false)</tt>.
-	 *
-	 *
-	 * @param tipo tipo que define as propriedades a serem mapeadas
-	 * @param bean JavaBean cujas propriedades sero mapeadas
-	 * @return mapa com os nomes e valores das propriedades do JavaBean
-	 */
-	public static Map<String, Object> getValoresPropriedades(Object bean) {
-		return getValoresPropriedades(bean.getClass(), bean, false);
-	}
-
-	/**
-	 * Para as propriedades definidas neste tipo, mapeia os valores armazenados
-	 * neste <i>bean</i>. Equivale a uma chamada a
-	 * <tt>getValoresPropriedades(tipo, bean, true)</tt>.
-	 *
-	 *
-	 * @param tipo tipo que define as propriedades a serem mapeadas
-	 * @param bean JavaBean cujas propriedades sero mapeadas
-	 * @return mapa com os nomes e valores das propriedades do JavaBean
-	 */
-	public static Map<String, Object> getValoresPropriedades(Class<?> tipo, Object bean) {
-		return getValoresPropriedades(tipo, bean, true);
-	}
-
-	/**
-	 * Para as propriedades definidas neste tipo, mapeia os valores armazenados
-	 * neste <i>bean</i>, checando a compatibilidade do <i>bean</i> com o tipo. Cada
-	 * entrada no mapa retornado associa o nome da propriedade ao seu valor. Se
-	 * <tt>tipoCompativel</tt> for <tt>true</tt>, o JavaBean deve ser compatvel com
-	 * o tipo que define as propriedades a serem extradas, seno um erro de
-	 * execuo ser gerado. O seguinte teste garante a execuo segura do mtodo:
-	 * 
-	 * <pre>
-	 *   Map&lt;String, Object&gt; mpValores = null;
-	 *   Bean2 bean2 = new Bean2(...);
-	 *   if (Bean1.class.isAssignableFrom(Bean2.class)) {
-	 *      mpValores = Componentes.getValoresPropriedades(Bean1.class, bean2, true);
-	 *   }
-	 * </pre>
-	 * 
-	 * Se o parmetro <tt>tipoCompativel</tt> for <tt>false</tt>, nenhuma checagem
-	 * ser feita e, para cada propriedade definida no tipo,
-	 * <tt>getValoresPropriedades</tt> vai procurar no <i>bean</i> um mtodo
-	 * <tt>get</tt> correspondente para tentar extrair o valor da propriedade,
-	 * <b>baseando-se apenas no nome da mesma</b>. Caso no encontre um mtodo
-	 * <tt>get</tt>, ser retornado o valor <tt>null</tt> para a propriedade.
-	 * 
-	 * 
-	 * @param tipo           tipo que define as propriedades a serem mapeadas
-	 * @param bean           JavaBean cujas propriedades sero mapeadas
-	 * @param tipoCompativel define se o tipo passado deve ser compatvel com o tipo
-	 *                       do JavaBean
-	 * @return mapa com os nomes e valores das propriedades do JavaBean
-	 */
-	public static Map<String, Object> getValoresPropriedades(Class<?> tipo, Object bean, boolean tipoCompativel) {
-		Class<? extends Object> tipoBean = bean.getClass();
-		if (tipoCompativel && !tipo.isAssignableFrom(tipoBean)) {
-			throw new ErroExecucao("Bean no possui tipo compatvel com '" + tipo + "': " + tipoBean);
-		}
-		Map<String, Object> mpValores = new HashMap<String, Object>();
-		String nome = null;
-		Object valor = null;
-		try {
-			PropertyDescriptor clInfoPropTipo[] = Introspector.getBeanInfo(tipo).getPropertyDescriptors();
-			if (tipoCompativel) {
-				for (PropertyDescriptor infoPropTipo : clInfoPropTipo) {
-					if (infoPropTipo.getReadMethod() != null) {
-						nome = infoPropTipo.getName();
-						valor = infoPropTipo.getReadMethod().invoke(bean, new Object[] {});
-						mpValores.put(nome, valor);
-					}
-				}
-			} else {
-				PropertyDescriptor clInfoPropBean[] = Introspector.getBeanInfo(bean.getClass()).getPropertyDescriptors();
-				Map<String, PropertyDescriptor> mpInfoPropBean = new HashMap<String, PropertyDescriptor>();
-				for (PropertyDescriptor infoProp : clInfoPropBean) {
-					mpInfoPropBean.put(infoProp.getName(), infoProp);
-				}
-				for (PropertyDescriptor infoPropTipo : clInfoPropTipo) {
-					PropertyDescriptor infoPropBean = mpInfoPropBean.get(infoPropTipo.getName());
-					if (infoPropBean != null && infoPropBean.getReadMethod() != null) {
-						nome = infoPropBean.getName();
-						valor = infoPropBean.getReadMethod().invoke(bean, new Object[] {});
-						mpValores.put(nome, valor);
-					}
-				}
-			}
-		} catch (IntrospectionException ie) {
-			throw new ErroExecucao("Erro obtendo metadados", ie);
-		} catch (InvocationTargetException ite) {
-			throw new ErroExecucao("Erro obtendo valor da propriedade '" + nome + "': " + tipoBean.getName(), ite.getTargetException());
-		} catch (IllegalAccessException e) {
-			throw new ErroExecucao("Erro obtendo valor da propriedade '" + nome + "': " + tipoBean.getName(), e);
-		}
-		return mpValores;
-	}
-}
+package meyn.util.beans;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+import meyn.util.*;
+
+import java.beans.*;
+
+/**
+ * Classe com rotinas para a manipulação de componentes JavaBean via
+ * introspecção. A leitura e a escrita dos valores das propriedades usam as
+ * {@link TabelaAcessores tabelas de acessores} compiladas para cada tipo.
+ */
+public final class Componentes {
+
+	private static final ClassValue<Map<String, PropertyDescriptor>> DESCRITORES = new ClassValue<Map<String, PropertyDescriptor>>() {
+		@Override
+		protected Map<String, PropertyDescriptor> computeValue(Class<?> tipo) {
+			try {
+				Map<String, PropertyDescriptor> mpInfoProps = new HashMap<String, PropertyDescriptor>();
+				getDescritoresPropriedades(tipo, mpInfoProps);
+				return Collections.unmodifiableMap(mpInfoProps);
+			} catch (IntrospectionException ie) {
+				throw new ErroExecucao("Erro obtendo metadados", ie);
+			}
+		}
+	};
+
+	private Componentes() {
+	}
+
+	private static void getDescritoresPropriedades(Class<?> tipo, Map<String, PropertyDescriptor> mpInfoProps)
+	        throws IntrospectionException {
+		PropertyDescriptor clInfoProp[] = Introspector.getBeanInfo(tipo).getPropertyDescriptors();
+		for (PropertyDescriptor infoProp : clInfoProp) {
+			mpInfoProps.put(infoProp.getName(), infoProp);
+		}
+		if (tipo.isInterface()) {
+			Class<?> clItfs[] = tipo.getInterfaces();
+			for (Class<?> itf : clItfs) {
+				getDescritoresPropriedades(itf, mpInfoProps);
+			}
+		}
+	}
+
+	/**
+	 * Para as propriedades definidas neste tipo, mapeia os descritores das
+	 * propriedades deste <i>bean</i>. Cada entrada no mapa retornado associa o nome
+	 * da propriedade a uma instancia de {@link java.beans.PropertyDescriptor
+	 * PropertyDescriptor}. O mapa é calculado uma única vez por tipo e fica
+	 * associado à própria classe, sendo descartado junto com ela.
+	 *
+	 * @param tipo tipo que define as propriedades a serem mapeadas
+	 *
+	 * @return mapa imutável com os nomes e descritores das propriedades do
+	 *         JavaBean
+	 */
+	public static Map<String, PropertyDescriptor> getDescritoresPropriedades(Class<?> tipo) {
+		return DESCRITORES.get(tipo);
+	}
+
+	/**
+	 * Mapeia os valores armazenados nas propriedades deste <i>bean</i>. Equivale a
+	 * uma chamada a <tt>getValoresPropriedades(bean.getClass(), bean, false)</tt>.
+	 *
+	 *
+	 * @param tipo tipo que define as propriedades a serem mapeadas
+	 * @param bean JavaBean cujas propriedades serão mapeadas
+	 * @return mapa com os nomes e valores das propriedades do JavaBean
+	 */
+	public static Map<String, Object> getValoresPropriedades(Object bean) {
+		return getValoresPropriedades(bean.getClass(), bean, false);
+	}
+
+	/**
+	 * Para as propriedades definidas neste tipo, mapeia os valores armazenados
+	 * neste <i>bean</i>. Equivale a uma chamada a
+	 * <tt>getValoresPropriedades(tipo, bean, true)</tt>.
+	 *
+	 *
+	 * @param tipo tipo que define as propriedades a serem mapeadas
+	 * @param bean JavaBean cujas propriedades serão mapeadas
+	 * @return mapa com os nomes e valores das propriedades do JavaBean
+	 */
+	public static Map<String, Object> getValoresPropriedades(Class<?> tipo, Object bean) {
+		return getValoresPropriedades(tipo, bean, true);
+	}
+
+	/**
+	 * Para as propriedades definidas neste tipo, mapeia os valores armazenados
+	 * neste <i>bean</i>, checando a compatibilidade do <i>bean</i> com o tipo. Cada
+	 * entrada no mapa retornado associa o nome da propriedade ao seu valor. Se
+	 * <tt>tipoCompativel</tt> for <tt>true</tt>, o JavaBean deve ser compatível com
+	 * o tipo que define as propriedades a serem extraídas, senão um erro de
+	 * execução será gerado. O seguinte teste garante a execução segura do método:
+	 * 
+	 * <pre>
+	 *   Map&lt;String, Object&gt; mpValores = null;
+	 *   Bean2 bean2 = new Bean2(...);
+	 *   if (Bean1.class.isAssignableFrom(Bean2.class)) {
+	 *      mpValores = Componentes.getValoresPropriedades(Bean1.class, bean2, true);
+	 *   }
+	 * </pre>
+	 * 
+	 * Se o parâmetro <tt>tipoCompativel</tt> for <tt>false</tt>, nenhuma checagem
+	 * será feita e, para cada propriedade definida no tipo,
+	 * <tt>getValoresPropriedades</tt> vai procurar no <i>bean</i> um método
+	 * <tt>get</tt> correspondente para tentar extrair o valor da propriedade,
+	 * <b>baseando-se apenas no nome da mesma</b>. Caso não encontre um método
+	 * <tt>get</tt>, será retornado o valor <tt>null</tt> para a propriedade.
+	 * 
+	 * 
+	 * @param tipo           tipo que define as propriedades a serem mapeadas
+	 * @param bean           JavaBean cujas propriedades serão mapeadas
+	 * @param tipoCompativel define se o tipo passado deve ser compatível com o tipo
+	 *                       do JavaBean
+	 * @return mapa com os nomes e valores das propriedades do JavaBean
+	 */
+	public static Map<String, Object> getValoresPropriedades(Class<?> tipo, Object bean, boolean tipoCompativel) {
+		Class<? extends Object> tipoBean = bean.getClass();
+		if (tipoCompativel && !tipo.isAssignableFrom(tipoBean)) {
+			throw new ErroExecucao("Bean não possui tipo compatível com '" + tipo + "': " + tipoBean);
+		}
+		TabelaAcessores tabela = TabelaAcessores.getTabela(tipo);
+		return tipoCompativel ? tabela.lerValores(bean) : tabela.lerValoresPorNome(bean);
+	}
+
+	/**
+	 * Define os valores das propriedades deste <i>bean</i> a partir deste mapa.
+	 * As entradas do mapa que não correspondem a propriedades do <i>bean</i> com
+	 * método <tt>set</tt> são ignoradas.
+	 *
+	 * @param bean      JavaBean cujas propriedades serão definidas
+	 * @param mpValores mapa com os nomes e valores das propriedades
+	 */
+	public static void setValoresPropriedades(Object bean, Map<String, ?> mpValores) {
+		TabelaAcessores.getTabela(bean.getClass()).escreverValores(bean, mpValores);
+	}
+
+	/**
+	 * Copia os valores das propriedades deste objeto de origem para este objeto de
+	 * destino, sem mapa intermediário. São copiadas as propriedades de mesmo nome
+	 * e tipos compatíveis que podem ser lidas da origem e escritas no destino. A
+	 * origem e o destino podem ser JavaBeans ou entidades; no caso de entidades
+	 * mapeadas, que não possuem métodos de acesso específicos, são copiadas as
+	 * propriedades definidas pelo outro objeto, que devem estar definidas também
+	 * na entidade. O plano de cópia é calculado uma única vez para cada par de
+	 * tipos.
+	 *
+	 * @param origem  objeto de origem
+	 * @param destino objeto de destino
+	 *
+	 * @return objeto de destino
+	 */
+	public static <TipoDestino> TipoDestino copiarPropriedades(Object origem, TipoDestino destino) {
+		PlanoCopia.getPlano(origem.getClass(), destino.getClass()).copiar(origem, destino);
+		return destino;
+	}
+
+	/**
+	 * Copia os valores das propriedades de cada objeto desta coleção para um novo
+	 * objeto criado por esta fábrica. Ver {@link #copiarPropriedades(Object, Object)
+	 * copiarPropriedades(Object, Object)}.
+	 *
+	 * @param clOrigens objetos de origem
+	 * @param fabrica   fábrica dos objetos de destino
+	 *
+	 * @return lista com os objetos de destino, na ordem dos objetos de origem
+	 */
+	public static <TipoDestino> List<TipoDestino> copiarPropriedades(Collection<?> clOrigens, Supplier<? extends TipoDestino> fabrica) {
+		List<TipoDestino> lsDestinos = new ArrayList<TipoDestino>(clOrigens.size());
+		PlanoCopia plano = null;
+		Class<?> tipoOrigem = null;
+		Class<?> tipoDestino = null;
+		for (Object origem : clOrigens) {
+			TipoDestino destino = fabrica.get();
+			if (origem.getClass() != tipoOrigem || destino.getClass() != tipoDestino) {
+				tipoOrigem = origem.getClass();
+				tipoDestino = destino.getClass();
+				plano = PlanoCopia.getPlano(tipoOrigem, tipoDestino);
+			}
+			plano.copiar(origem, destino);
+			lsDestinos.add(destino);
+		}
+		return lsDestinos;
+	}
+}
@@ -0,0 +1,133 @@
+package meyn.util.beans;
+
+import java.lang.invoke.MethodType;
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import meyn.util.ErroExecucao;
+
+/**
+ * Plano de cópia das propriedades de objetos de um tipo para objetos de outro
+ * tipo, calculado uma única vez por par de tipos. O plano relaciona as
+ * propriedades de mesmo nome e tipos compatíveis que podem ser lidas da origem
+ * e escritas no destino.
+ * <p>
+ * Objetos que implementam {@link AcessoPropriedades AcessoPropriedades} sem
+ * métodos de acesso específicos (como as entidades mapeadas) são tratados como
+ * repositórios dinâmicos de propriedades: como origem, fornecem as
+ * propriedades que o destino pode escrever; como destino, recebem todas as
+ * propriedades que a origem pode ler. Proxies que implementam interfaces de
+ * acesso (como as entidades tipadas) são tratados como <i>beans</i>.
+ * <p>
+ * Os planos ficam associados ao tipo de origem, em um mapa de chaves fracas
+ * pelo tipo de destino; assim, um tipo de destino da <i>framework</i> não
+ * mantém em memória os tipos de origem da aplicação. Como o plano referencia
+ * os acessores do destino, ele é guardado no mapa por uma referência
+ * <i>soft</i>, que não impede que o tipo de destino seja descartado.
+ */
+final class PlanoCopia {
+
+	private static final ClassValue<Map<Class<?>, SoftReference<PlanoCopia>>> PLANOS = new ClassValue<Map<Class<?>, SoftReference<PlanoCopia>>>() {
+		@Override
+		protected Map<Class<?>, SoftReference<PlanoCopia>> computeValue(Class<?> tipoOrigem) {
+			return Collections.synchronizedMap(new WeakHashMap<Class<?>, SoftReference<PlanoCopia>>());
+		}
+	};
+
+	/**
+	 * Retorna o plano de cópia entre estes tipos.
+	 *
+	 * @param tipoOrigem  tipo dos objetos de origem
+	 * @param tipoDestino tipo dos objetos de destino
+	 *
+	 * @return plano de cópia
+	 */
+	static PlanoCopia getPlano(Class<?> tipoOrigem, Class<?> tipoDestino) {
+		Map<Class<?>, SoftReference<PlanoCopia>> mpPlanos = PLANOS.get(tipoOrigem);
+		SoftReference<PlanoCopia> referencia = mpPlanos.get(tipoDestino);
+		PlanoCopia plano = referencia != null ? referencia.get() : null;
+		if (plano == null) {
+			// calculado em concorrência: os planos são equivalentes
+			plano = new PlanoCopia(tipoOrigem, tipoDestino);
+			mpPlanos.put(tipoDestino, new SoftReference<PlanoCopia>(plano));
+		}
+		return plano;
+	}
+
+	private static boolean isDinamico(Class<?> tipo) {
+		return AcessoPropriedades.class.isAssignableFrom(tipo) && !Proxy.isProxyClass(tipo);
+	}
+
+	private static Class<?> getTipoObjeto(Class<?> tipo) {
+		return tipo.isPrimitive() ? MethodType.methodType(tipo).wrap().returnType() : tipo;
+	}
+
+	private static boolean isCompativel(AcessorPropriedade leitor, AcessorPropriedade escritor) {
+		return getTipoObjeto(escritor.getTipo()).isAssignableFrom(getTipoObjeto(leitor.getTipo()));
+	}
+
+	private final String[] nomes;
+	// vetores nulos indicam acesso dinâmico, via AcessoPropriedades
+	private final AcessorPropriedade[] leitores;
+	private final AcessorPropriedade[] escritores;
+
+	private PlanoCopia(Class<?> tipoOrigem, Class<?> tipoDestino) {
+		boolean origemDinamica = isDinamico(tipoOrigem);
+		boolean destinoDinamico = isDinamico(tipoDestino);
+		if (origemDinamica && destinoDinamico) {
+			throw new ErroExecucao("Cópia de propriedades requer tipo de origem ou de destino com métodos de acesso: " + tipoOrigem.getName()
+			        + " -> " + tipoDestino.getName());
+		}
+		TabelaAcessores tabelaOrigem = origemDinamica ? null : TabelaAcessores.getTabela(tipoOrigem);
+		TabelaAcessores tabelaDestino = destinoDinamico ? null : TabelaAcessores.getTabela(tipoDestino);
+		List<String> lsNomes = new ArrayList<String>();
+		List<AcessorPropriedade> lsLeitores = new ArrayList<AcessorPropriedade>();
+		List<AcessorPropriedade> lsEscritores = new ArrayList<AcessorPropriedade>();
+		if (destinoDinamico) {
+			for (AcessorPropriedade leitor : tabelaOrigem.getAcessores().values()) {
+				if (leitor.isLeitura() && !leitor.getNome().equals("class")) {
+					lsNomes.add(leitor.getNome());
+					lsLeitores.add(leitor);
+				}
+			}
+		} else {
+			for (AcessorPropriedade escritor : tabelaDestino.getAcessores().values()) {
+				if (!escritor.isEscrita()) {
+					continue;
+				}
+				AcessorPropriedade leitor = origemDinamica ? null : tabelaOrigem.getAcessor(escritor.getNome());
+				if (origemDinamica || leitor != null && leitor.isLeitura() && isCompativel(leitor, escritor)) {
+					lsNomes.add(escritor.getNome());
+					lsLeitores.add(leitor);
+					lsEscritores.add(escritor);
+				}
+			}
+		}
+		nomes = lsNomes.toArray(new String[lsNomes.size()]);
+		leitores = origemDinamica ? null : lsLeitores.toArray(new AcessorPropriedade[lsLeitores.size()]);
+		escritores = destinoDinamico ? null : lsEscritores.toArray(new AcessorPropriedade[lsEscritores.size()]);
+	}
+
+	/**
+	 * Copia as propriedades do plano deste objeto de origem para este objeto de
+	 * destino.
+	 *
+	 * @param origem  objeto de origem
+	 * @param destino objeto de destino
+	 */
+	void copiar(Object origem, Object destino) {
+		for (int i = 0; i < nomes.length; i++) {
+			Object valor = leitores != null ? leitores[i].ler(origem) : ((AcessoPropriedades) origem).get(nomes[i]);
+			if (escritores != null) {
+				escritores[i].escrever(destino, valor);
+			} else {
+				((AcessoPropriedades) destino).set(nomes[i], valor);
+			}
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package meyn.util.beans;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import meyn.util.ErroExecucao;
+
+/**
+ * Tabela imutável com os {@link AcessorPropriedade acessores} das propriedades
+ * definidas em um tipo, na ordem retornada pelo {@link Introspector
+ * Introspector}. Cada tipo é introspectado uma única vez; as tabelas ficam
+ * associadas à própria classe, sendo descartadas junto com ela.
+ * <p>
+ * Para a leitura das propriedades de um tipo em <i>beans</i> de outro tipo,
+ * casadas apenas pelo nome, a tabela também guarda, por tipo de <i>bean</i>, a
+ * lista dos acessores do <i>bean</i> correspondentes às suas propriedades.
+ */
+public final class TabelaAcessores {
+
+	private static final ClassValue<TabelaAcessores> TABELAS = new ClassValue<TabelaAcessores>() {
+		@Override
+		protected TabelaAcessores computeValue(Class<?> tipo) {
+			return new TabelaAcessores(tipo);
+		}
+	};
+
+	/**
+	 * Retorna a tabela de acessores das propriedades definidas neste tipo.
+	 *
+	 * @param tipo tipo que define as propriedades
+	 *
+	 * @return tabela de acessores
+	 */
+	public static TabelaAcessores getTabela(Class<?> tipo) {
+		return TABELAS.get(tipo);
+	}
+
+	private final Class<?> tipo;
+	private final AcessorPropriedade[] acessores;
+	private final AcessorPropriedade[] leitores;
+	private final Map<String, AcessorPropriedade> mpAcessores;
+	private final ClassValue<AcessorPropriedade[]> leitoresPorTipoBean = new ClassValue<AcessorPropriedade[]>() {
+		@Override
+		protected AcessorPropriedade[] computeValue(Class<?> tipoBean) {
+			TabelaAcessores tabelaBean = getTabela(tipoBean);
+			List<AcessorPropriedade> lsLeitores = new ArrayList<AcessorPropriedade>();
+			for (AcessorPropriedade acessor : acessores) {
+				AcessorPropriedade acessorBean = tabelaBean.getAcessor(acessor.getNome());
+				if (acessorBean != null && acessorBean.isLeitura()) {
+					lsLeitores.add(acessorBean);
+				}
+			}
+			return lsLeitores.toArray(new AcessorPropriedade[lsLeitores.size()]);
+		}
+	};
+
+	private TabelaAcessores(Class<?> tipo) {
+		this.tipo = tipo;
+		try {
+			PropertyDescriptor clInfoProps[] = Introspector.getBeanInfo(tipo).getPropertyDescriptors();
+			acessores = new AcessorPropriedade[clInfoProps.length];
+			Map<String, AcessorPropriedade> mpAcessores = new HashMap<String, AcessorPropriedade>();
+			List<AcessorPropriedade> lsLeitores = new ArrayList<AcessorPropriedade>();
+			for (int i = 0; i < clInfoProps.length; i++) {
+				acessores[i] = new AcessorPropriedade(clInfoProps[i]);
+				mpAcessores.put(acessores[i].getNome(), acessores[i]);
+				if (acessores[i].isLeitura()) {
+					lsLeitores.add(acessores[i]);
+				}
+			}
+			this.mpAcessores = Collections.unmodifiableMap(mpAcessores);
+			leitores = lsLeitores.toArray(new AcessorPropriedade[lsLeitores.size()]);
+		} catch (IntrospectionException | IllegalAccessException e) {
+			throw new ErroExecucao("Erro obtendo metadados", e);
+		}
+	}
+
+	public Class<?> getTipo() {
+		return tipo;
+	}
+
+	/**
+	 * Retorna o acessor desta propriedade.
+	 *
+	 * @param nome nome da propriedade
+	 *
+	 * @return acessor da propriedade ou <tt>null</tt> se a propriedade não estiver
+	 *         definida no tipo
+	 */
+	public AcessorPropriedade getAcessor(String nome) {
+		return mpAcessores.get(nome);
+	}
+
+	/**
+	 * Retorna os acessores de todas as propriedades do tipo.
+	 *
+	 * @return mapa imutável com os nomes e acessores das propriedades
+	 */
+	public Map<String, AcessorPropriedade> getAcessores() {
+		return mpAcessores;
+	}
+
+	/**
+	 * Mapeia os valores das propriedades deste tipo que possuem método
+	 * <tt>get</tt>. Ver {@link Componentes#getValoresPropriedades(Class, Object)
+	 * Componentes.getValoresPropriedades(Class, Object)}.
+	 *
+	 * @param bean JavaBean compatível com o tipo
+	 *
+	 * @return mapa com os nomes e valores das propriedades
+	 */
+	public Map<String, Object> lerValores(Object bean) {
+		return lerValores(leitores, bean);
+	}
+
+	/**
+	 * Mapeia os valores das propriedades deste tipo lidas deste <i>bean</i> de
+	 * tipo qualquer, casando as propriedades apenas pelo nome. Ver
+	 * {@link Componentes#getValoresPropriedades(Class, Object, boolean)
+	 * Componentes.getValoresPropriedades(Class, Object, false)}.
+	 *
+	 * @param bean JavaBean
+	 *
+	 * @return mapa com os nomes e valores das propriedades
+	 */
+	public Map<String, Object> lerValoresPorNome(Object bean) {
+		Class<?> tipoBean = bean.getClass();
+		return lerValores(tipoBean == tipo ? leitores : leitoresPorTipoBean.get(tipoBean), bean);
+	}
+
+	private static Map<String, Object> lerValores(AcessorPropriedade[] leitores, Object bean) {
+		Map<String, Object> mpValores = new HashMap<String, Object>((int) (leitores.length / 0.75f) + 1);
+		for (AcessorPropriedade leitor : leitores) {
+			mpValores.put(leitor.getNome(), leitor.ler(bean));
+		}
+		return mpValores;
+	}
+
+	/**
+	 * Escreve neste <i>bean</i> os valores deste mapa, ignorando as propriedades
+	 * que não estão definidas no tipo ou que não possuem método <tt>set</tt>.
+	 *
+	 * @param bean      JavaBean compatível com o tipo
+	 * @param mpValores mapa com os nomes e valores das propriedades
+	 */
+	public void escreverValores(Object bean, Map<String, ?> mpValores) {
+		for (Map.Entry<String, ?> item : mpValores.entrySet()) {
+			AcessorPropriedade acessor = mpAcessores.get(item.getKey());
+			if (acessor != null && acessor.isEscrita()) {
+				acessor.escrever(bean, item.getValue());
+			}
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package meyn.util.cache;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Buffer de leituras dividido em faixas, usado para registrar os acessos às
+ * chaves sem travas. Cada <i>thread</i> escreve na faixa escolhida a partir do
+ * seu identificador. Quando uma faixa está cheia os novos registros são
+ * descartados até a próxima drenagem, o que é aceitável para políticas de
+ * expulsão, que trabalham com amostras dos acessos. Pelo mesmo motivo, apenas
+ * uma em cada {@value #AMOSTRAGEM} leituras é registrada, o que preserva a
+ * frequência relativa das chaves e divide o custo de repassá-las à política.
+ */
+final class BufferLeitura<TipoChave> {
+
+	static final int AMOSTRAGEM = 8;
+	private static final int TAMANHO_FAIXA = 16;
+	// distância entre contadores, para evitar compartilhamento de linhas de cache
+	private static final int ESPACAMENTO = 16;
+
+	private final int mascara;
+	private final AtomicReferenceArray<TipoChave> registros;
+	private final AtomicIntegerArray contadores;
+
+	BufferLeitura() {
+		int faixas = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 4 - 1)) << 1;
+		mascara = faixas - 1;
+		registros = new AtomicReferenceArray<TipoChave>(faixas * TAMANHO_FAIXA);
+		contadores = new AtomicIntegerArray(faixas * ESPACAMENTO);
+	}
+
+	private int getFaixa() {
+		long id = Thread.currentThread().getId();
+		int hash = (int) (id ^ (id >>> 32)) * 0x9e3779b9;
+		return (hash ^ (hash >>> 16)) & mascara;
+	}
+
+	/**
+	 * Registra um acesso a esta chave, se ele fizer parte da amostra.
+	 *
+	 * @return <tt>true</tt> se a faixa usada ficou cheia e o buffer deve ser
+	 *         drenado
+	 */
+	boolean registrar(TipoChave chave) {
+		if ((ThreadLocalRandom.current().nextInt() & (AMOSTRAGEM - 1)) != 0) {
+			return false;
+		}
+		int faixa = getFaixa();
+		int pos = contadores.getAndIncrement(faixa * ESPACAMENTO);
+		if (pos >= 0 && pos < TAMANHO_FAIXA) {
+			registros.lazySet(faixa * TAMANHO_FAIXA + pos, chave);
+			return pos == TAMANHO_FAIXA - 1;
+		}
+		return true;
+	}
+
+	/**
+	 * Repassa os acessos registrados para este consumidor, esvaziando o buffer.
+	 * Deve ser chamado por uma única <i>thread</i> de cada vez.
+	 */
+	void drenar(Consumer<TipoChave> consumidor) {
+		for (int faixa = 0; faixa <= mascara; faixa++) {
+			int qtd = Math.min(contadores.get(faixa * ESPACAMENTO), TAMANHO_FAIXA);
+			int base = faixa * TAMANHO_FAIXA;
+			for (int i = 0; i < Math.max(qtd, 0); i++) {
+				TipoChave chave = registros.getAndSet(base + i, null);
+				if (chave != null) {
+					consumidor.accept(chave);
+				}
+			}
+			contadores.set(faixa * ESPACAMENTO, 0);
+		}
+	}
+}
@@ -0,0 +1,342 @@
+package meyn.util.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Camada de armazenamento fora do <i>heap</i> de um {@link meyn.util.Cache
+ * cache} limitado. As entradas expulsas da memória do cache são serializadas e
+ * transbordam para esta camada, de onde são promovidas de volta ao cache,
+ * desserializadas, quando lidas novamente. Assim, o <i>heap</i> guarda apenas
+ * as entradas mais usadas, e o coletor de lixo não precisa percorrer as demais.
+ * <p>
+ * Os valores são gravados em um registro circular dividido em segmentos de
+ * memória direta ({@link ByteBuffer#allocateDirect(int)}), alocados à medida
+ * que são necessários. As entradas removidas ou promovidas apenas deixam de
+ * ser indexadas; o espaço é recuperado quando o registro dá a volta e reutiliza
+ * o segmento, descartando as entradas que ainda estavam nele. Só transbordam
+ * valores {@link Serializable serializáveis}.
+ * <p>
+ * A desserialização resolve as classes pelo <i>context class loader</i> da
+ * <i>thread</i>, de modo que entidades da aplicação possam ser recuperadas
+ * mesmo que a <i>framework</i> seja carregada por outro <i>class loader</i>.
+ *
+ * @param <TipoChave> tipo das chaves do cache
+ */
+public final class CamadaForaHeap<TipoChave> {
+
+	private static final int TAMANHO_MAXIMO_SEGMENTO = 64 * 1024 * 1024;
+	// ao reutilizar um segmento, descarta no máximo 1/8 das entradas
+	private static final int MINIMO_SEGMENTOS = 8;
+
+	private static final class Registro {
+		final int segmento;
+		final int posicao;
+		final int tamanho;
+
+		Registro(int segmento, int posicao, int tamanho) {
+			this.segmento = segmento;
+			this.posicao = posicao;
+			this.tamanho = tamanho;
+		}
+	}
+
+	private final Logger logger = LogManager.getLogger(getClass());
+
+	private final long capacidade;
+	private final int tamanhoSegmento;
+	private final ByteBuffer[] segmentos;
+	private final List<List<TipoChave>> chavesSegmentos;
+	private final Map<TipoChave, Registro> mpRegistros = new HashMap<TipoChave, Registro>();
+	private final ReentrantLock trava = new ReentrantLock();
+	private final RegistroEstatisticas estatisticas;
+	private int segmentoAtual;
+	private int posicaoAtual;
+	private long bytesOcupados;
+
+	/**
+	 * Cria a camada com esta capacidade. A memória é alocada por segmentos, à
+	 * medida que as entradas transbordam.
+	 *
+	 * @param capacidade   capacidade total, em bytes
+	 * @param estatisticas registro de estatísticas do cache ou <tt>null</tt> se o
+	 *                     registro estiver desligado
+	 */
+	public CamadaForaHeap(long capacidade, RegistroEstatisticas estatisticas) {
+		this.tamanhoSegmento = (int) Math.min((capacidade + MINIMO_SEGMENTOS - 1) / MINIMO_SEGMENTOS, TAMANHO_MAXIMO_SEGMENTO);
+		int numSegmentos = (int) ((capacidade + tamanhoSegmento - 1) / tamanhoSegmento);
+		this.capacidade = (long) numSegmentos * tamanhoSegmento;
+		this.segmentos = new ByteBuffer[numSegmentos];
+		this.chavesSegmentos = new ArrayList<List<TipoChave>>(numSegmentos);
+		for (int i = 0; i < numSegmentos; i++) {
+			chavesSegmentos.add(new ArrayList<TipoChave>());
+		}
+		this.estatisticas = estatisticas;
+	}
+
+	/**
+	 * Serializa e guarda o valor desta chave, substituindo o valor anterior.
+	 *
+	 * @param chave chave da entrada
+	 * @param valor valor da entrada
+	 *
+	 * @return <tt>true</tt> se o valor foi guardado, <tt>false</tt> se o valor
+	 *         não é serializável ou não cabe em um segmento
+	 */
+	public boolean guardar(TipoChave chave, Object valor) {
+		byte[] bytes = serializar(chave, valor);
+		return bytes != null && guardarSerializado(chave, bytes);
+	}
+
+	/**
+	 * Serializa o valor desta chave para ser guardado depois com
+	 * {@link #guardarSerializado(Object, byte[]) guardarSerializado}. Não usa a
+	 * trava da camada, podendo ser chamado fora das travas do cache.
+	 *
+	 * @param chave chave da entrada
+	 * @param valor valor da entrada
+	 *
+	 * @return valor serializado ou <tt>null</tt> se o valor não é serializável ou
+	 *         não cabe em um segmento
+	 */
+	public byte[] serializar(TipoChave chave, Object valor) {
+		if (!(valor instanceof Serializable)) {
+			return null;
+		}
+		byte[] bytes;
+		try {
+			ByteArrayOutputStream saida = new ByteArrayOutputStream(256);
+			try (ObjectOutputStream saidaObjetos = new ObjectOutputStream(saida)) {
+				saidaObjetos.writeObject(valor);
+			}
+			bytes = saida.toByteArray();
+		} catch (IOException e) {
+			logger.debug("valor não serializável (cache): {}", chave, e);
+			return null;
+		}
+		return bytes.length > tamanhoSegmento ? null : bytes;
+	}
+
+	/**
+	 * Guarda o valor desta chave já serializado por
+	 * {@link #serializar(Object, Object) serializar}, substituindo o valor
+	 * anterior.
+	 *
+	 * @param chave chave da entrada
+	 * @param bytes valor serializado
+	 *
+	 * @return <tt>true</tt> se o valor foi guardado, <tt>false</tt> se não cabe em
+	 *         um segmento
+	 */
+	public boolean guardarSerializado(TipoChave chave, byte[] bytes) {
+		if (bytes.length > tamanhoSegmento) {
+			return false;
+		}
+		trava.lock();
+		try {
+			descartar(mpRegistros.remove(chave));
+			if (posicaoAtual + bytes.length > tamanhoSegmento) {
+				avancarSegmento();
+			}
+			ByteBuffer segmento = segmentos[segmentoAtual];
+			if (segmento == null) {
+				segmento = segmentos[segmentoAtual] = ByteBuffer.allocateDirect(tamanhoSegmento);
+			}
+			segmento.position(posicaoAtual);
+			segmento.put(bytes);
+			mpRegistros.put(chave, new Registro(segmentoAtual, posicaoAtual, bytes.length));
+			chavesSegmentos.get(segmentoAtual).add(chave);
+			posicaoAtual += bytes.length;
+			bytesOcupados += bytes.length;
+		} finally {
+			trava.unlock();
+		}
+		if (estatisticas != null) {
+			estatisticas.registrarTransbordo();
+		}
+		return true;
+	}
+
+	/**
+	 * Passa a gravar no próximo segmento do registro circular, descartando as
+	 * entradas que ainda estavam nele. Deve ser chamado com a trava obtida.
+	 */
+	private void avancarSegmento() {
+		segmentoAtual = (segmentoAtual + 1) % segmentos.length;
+		posicaoAtual = 0;
+		List<TipoChave> chaves = chavesSegmentos.get(segmentoAtual);
+		for (TipoChave chave : chaves) {
+			Registro registro = mpRegistros.get(chave);
+			if (registro != null && registro.segmento == segmentoAtual) {
+				mpRegistros.remove(chave);
+				descartar(registro);
+				if (estatisticas != null) {
+					estatisticas.registrarExpulsao();
+				}
+			}
+		}
+		chaves.clear();
+	}
+
+	private void descartar(Registro registro) {
+		if (registro != null) {
+			bytesOcupados -= registro.tamanho;
+		}
+	}
+
+	/**
+	 * Retira desta camada o valor desta chave, para ser promovido ao cache.
+	 *
+	 * @param chave chave da entrada
+	 *
+	 * @return valor desserializado ou <tt>null</tt> se a chave não estiver na
+	 *         camada
+	 */
+	public Object retirar(Object chave) {
+		byte[] bytes = retirarSerializado(chave);
+		return bytes != null ? desserializar(chave, bytes) : null;
+	}
+
+	/**
+	 * Retira desta camada o valor desta chave sem desserializá-lo (ver
+	 * {@link #desserializar(Object, byte[]) desserializar}).
+	 *
+	 * @param chave chave da entrada
+	 *
+	 * @return valor serializado ou <tt>null</tt> se a chave não estiver na camada
+	 */
+	public byte[] retirarSerializado(Object chave) {
+		trava.lock();
+		try {
+			Registro registro = mpRegistros.remove(chave);
+			if (registro == null) {
+				return null;
+			}
+			descartar(registro);
+			byte[] bytes = new byte[registro.tamanho];
+			ByteBuffer segmento = segmentos[registro.segmento];
+			segmento.position(registro.posicao);
+			segmento.get(bytes);
+			return bytes;
+		} finally {
+			trava.unlock();
+		}
+	}
+
+	/**
+	 * Desserializa o valor desta chave retirado por
+	 * {@link #retirarSerializado(Object) retirarSerializado}. Não usa a trava da
+	 * camada.
+	 *
+	 * @param chave chave da entrada
+	 * @param bytes valor serializado
+	 *
+	 * @return valor desserializado ou <tt>null</tt> se houver erro na
+	 *         desserialização
+	 */
+	public Object desserializar(Object chave, byte[] bytes) {
+		try (ObjectInputStream entrada = new EntradaObjetosContexto(new ByteArrayInputStream(bytes))) {
+			Object valor = entrada.readObject();
+			if (estatisticas != null) {
+				estatisticas.registrarPromocao();
+			}
+			return valor;
+		} catch (IOException | ClassNotFoundException e) {
+			// a entrada é perdida, como se tivesse sido expulsa
+			logger.warn("erro desserializando (cache): " + chave, e);
+			if (estatisticas != null) {
+				estatisticas.registrarExpulsao();
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Indica se esta camada guarda o valor desta chave.
+	 *
+	 * @param chave chave da entrada
+	 *
+	 * @return <tt>true</tt> se a chave estiver na camada
+	 */
+	public boolean contem(Object chave) {
+		trava.lock();
+		try {
+			return mpRegistros.containsKey(chave);
+		} finally {
+			trava.unlock();
+		}
+	}
+
+	/**
+	 * Remove desta camada o valor desta chave.
+	 *
+	 * @param chave chave da entrada
+	 */
+	public void remover(Object chave) {
+		trava.lock();
+		try {
+			descartar(mpRegistros.remove(chave));
+		} finally {
+			trava.unlock();
+		}
+	}
+
+	/**
+	 * Remove todas as entradas, mantendo a memória já alocada.
+	 */
+	public void limpar() {
+		trava.lock();
+		try {
+			mpRegistros.clear();
+			for (List<TipoChave> chaves : chavesSegmentos) {
+				chaves.clear();
+			}
+			segmentoAtual = 0;
+			posicaoAtual = 0;
+			bytesOcupados = 0;
+		} finally {
+			trava.unlock();
+		}
+	}
+
+	/**
+	 * Retorna a capacidade total da camada, em bytes.
+	 */
+	public long getCapacidade() {
+		return capacidade;
+	}
+
+	public long getEntradas() {
+		trava.lock();
+		try {
+			return mpRegistros.size();
+		} finally {
+			trava.unlock();
+		}
+	}
+
+	/**
+	 * Retorna o tamanho somado dos valores guardados na camada, em bytes.
+	 */
+	public long getBytesOcupados() {
+		trava.lock();
+		try {
+			return bytesOcupados;
+		} finally {
+			trava.unlock();
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package meyn.util.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Carrega o valor associado a uma chave de um {@link meyn.util.Cache cache}.
+ *
+ * @param <TipoChave> tipo das chaves do cache
+ * @param <TipoValor> tipo dos valores do cache
+ */
+@FunctionalInterface
+public interface CarregadorCache<TipoChave, TipoValor> {
+	/**
+	 * Carrega o valor associado a esta chave.
+	 *
+	 * @param chave chave do valor
+	 *
+	 * @return valor carregado ou <tt>null</tt> se não existir valor para a chave
+	 *
+	 * @throws Exception se ocorrer um erro durante a carga
+	 */
+	TipoValor carregar(TipoChave chave) throws Exception;
+
+	/**
+	 * Carrega os valores associados a estas chaves. Por padrão, chama
+	 * {@link #carregar(Object)} para cada chave. Implementações que podem obter
+	 * vários valores de uma só vez devem sobrepor este método.
+	 *
+	 * @param clChaves chaves dos valores
+	 *
+	 * @return mapa com os valores carregados, sem as chaves que não possuem valor
+	 *
+	 * @throws Exception se ocorrer um erro durante a carga
+	 */
+	default Map<TipoChave, TipoValor> carregarTodos(Collection<? extends TipoChave> clChaves) throws Exception {
+		Map<TipoChave, TipoValor> mpValores = new HashMap<TipoChave, TipoValor>();
+		for (TipoChave chave : clChaves) {
+			TipoValor valor = carregar(chave);
+			if (valor != null) {
+				mpValores.put(chave, valor);
+			}
+		}
+		return mpValores;
+	}
+}
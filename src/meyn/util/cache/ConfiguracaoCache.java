@@ -0,0 +1,270 @@
+package meyn.util.cache;
+
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import meyn.util.ErroExecucao;
+
+/**
+ * Configuração de um {@link meyn.util.Cache cache}. Por padrão os caches são
+ * ilimitados. Um cache passa a ser limitado quando um número máximo de
+ * entradas ou um peso máximo é definido, sendo então aplicada a política de
+ * expulsão configurada.
+ * <p>
+ * Os valores definidos pelas subclasses de <tt>Cache</tt> podem ser
+ * sobrepostos na implantação através das propriedades de sistema
+ * <tt>&lt;nome da classe do cache&gt;.maximoEntradas</tt>,
+ * <tt>&lt;nome da classe do cache&gt;.maximoPeso</tt> e
+ * <tt>&lt;nome da classe do cache&gt;.politicaExpulsao</tt> (<tt>LRU</tt> ou
+ * <tt>TINY_LFU</tt>).
+ * <p>
+ * As entradas também podem ser temporárias, expirando após um prazo contado
+ * da última escrita ou do último acesso, ou sendo recarregadas em segundo plano
+ * após um prazo contado da última escrita. Os prazos podem ser sobrepostos, em
+ * milissegundos, pelas propriedades de sistema
+ * <tt>&lt;nome da classe do cache&gt;.expiracaoAposEscrita</tt>,
+ * <tt>&lt;nome da classe do cache&gt;.expiracaoAposAcesso</tt> e
+ * <tt>&lt;nome da classe do cache&gt;.atualizacaoAposEscrita</tt>.
+ * <p>
+ * Um cache limitado pode ainda ter uma {@link CamadaForaHeap camada fora do
+ * heap}, para onde transbordam, serializadas, as entradas expulsas da memória.
+ * A capacidade da camada, em bytes, pode ser sobreposta pela propriedade de
+ * sistema <tt>&lt;nome da classe do cache&gt;.capacidadeForaHeap</tt>. A
+ * camada não é usada em caches com entradas temporárias.
+ * <p>
+ * O conteúdo do cache pode ser gravado em um {@link InstantaneoCache
+ * instantâneo}, carregado quando o cache é criado na próxima partida da
+ * aplicação. O arquivo do instantâneo pode ser definido pela propriedade de
+ * sistema <tt>&lt;nome da classe do cache&gt;.instantaneo</tt>.
+ * <p>
+ * O registro de {@link EstatisticasCache estatísticas} é habilitado por
+ * padrão e pode ser desligado pela propriedade de sistema
+ * <tt>&lt;nome da classe do cache&gt;.estatisticas=false</tt>. A exposição das
+ * estatísticas via JMX ({@link MonitoresJMX MonitoresJMX}) é desligada por
+ * padrão, pois o <i>MBean server</i> da plataforma mantém os monitores, e pode
+ * ser ligada pela propriedade de sistema
+ * <tt>&lt;nome da classe do cache&gt;.monitorJMX=true</tt>. Ela não tem efeito
+ * se as estatísticas estiverem desligadas.
+ */
+public class ConfiguracaoCache {
+
+	private long maximoEntradas;
+	private long maximoPeso;
+	private TipoPoliticaExpulsao politicaExpulsao = TipoPoliticaExpulsao.TINY_LFU;
+	private long expiracaoAposEscrita;
+	private long expiracaoAposAcesso;
+	private long atualizacaoAposEscrita;
+	private Executor executor = ForkJoinPool.commonPool();
+	private boolean registrarEstatisticas = true;
+	private boolean monitorJMX;
+	private long capacidadeForaHeap;
+	private Path arquivoInstantaneo;
+
+	public long getMaximoEntradas() {
+		return maximoEntradas;
+	}
+
+	public ConfiguracaoCache setMaximoEntradas(long maximoEntradas) {
+		this.maximoEntradas = maximoEntradas;
+		return this;
+	}
+
+	public long getMaximoPeso() {
+		return maximoPeso;
+	}
+
+	public ConfiguracaoCache setMaximoPeso(long maximoPeso) {
+		this.maximoPeso = maximoPeso;
+		return this;
+	}
+
+	public TipoPoliticaExpulsao getPoliticaExpulsao() {
+		return politicaExpulsao;
+	}
+
+	public ConfiguracaoCache setPoliticaExpulsao(TipoPoliticaExpulsao politicaExpulsao) {
+		this.politicaExpulsao = politicaExpulsao;
+		return this;
+	}
+
+	/**
+	 * Testa se o número de entradas ou o peso do cache é limitado.
+	 *
+	 * @return <tt>true</tt> se o cache é limitado
+	 */
+	public boolean isLimitado() {
+		return maximoEntradas > 0 || maximoPeso > 0;
+	}
+
+	public long getExpiracaoAposEscrita() {
+		return expiracaoAposEscrita;
+	}
+
+	/**
+	 * Define o prazo após a escrita de uma entrada a partir do qual ela é
+	 * descartada.
+	 */
+	public ConfiguracaoCache setExpiracaoAposEscrita(long duracao, TimeUnit unidade) {
+		this.expiracaoAposEscrita = unidade.toNanos(duracao);
+		return this;
+	}
+
+	public long getExpiracaoAposAcesso() {
+		return expiracaoAposAcesso;
+	}
+
+	/**
+	 * Define o prazo após o último acesso a uma entrada a partir do qual ela é
+	 * descartada.
+	 */
+	public ConfiguracaoCache setExpiracaoAposAcesso(long duracao, TimeUnit unidade) {
+		this.expiracaoAposAcesso = unidade.toNanos(duracao);
+		return this;
+	}
+
+	public long getAtualizacaoAposEscrita() {
+		return atualizacaoAposEscrita;
+	}
+
+	/**
+	 * Define o prazo após a escrita de uma entrada a partir do qual ela é
+	 * recarregada em segundo plano na próxima leitura. Só tem efeito se o cache
+	 * possuir um {@link CarregadorCache carregador}.
+	 */
+	public ConfiguracaoCache setAtualizacaoAposEscrita(long duracao, TimeUnit unidade) {
+		this.atualizacaoAposEscrita = unidade.toNanos(duracao);
+		return this;
+	}
+
+	public Executor getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * Define o executor das atualizações em segundo plano. O padrão é
+	 * {@link ForkJoinPool#commonPool()}.
+	 */
+	public ConfiguracaoCache setExecutor(Executor executor) {
+		this.executor = executor;
+		return this;
+	}
+
+	public boolean isRegistrarEstatisticas() {
+		return registrarEstatisticas;
+	}
+
+	public ConfiguracaoCache setRegistrarEstatisticas(boolean registrarEstatisticas) {
+		this.registrarEstatisticas = registrarEstatisticas;
+		return this;
+	}
+
+	public boolean isMonitorJMX() {
+		return monitorJMX;
+	}
+
+	/**
+	 * Define se as estatísticas do cache são expostas via JMX. Só tem efeito se o
+	 * registro de estatísticas estiver ligado. Se a <i>framework</i> for carregada
+	 * junto com a aplicação, os monitores registrados impedem o descarte do seu
+	 * <i>class loader</i> até que o contexto seja removido (ver
+	 * {@link MonitoresJMX MonitoresJMX}).
+	 */
+	public ConfiguracaoCache setMonitorJMX(boolean monitorJMX) {
+		this.monitorJMX = monitorJMX;
+		return this;
+	}
+
+	public long getCapacidadeForaHeap() {
+		return capacidadeForaHeap;
+	}
+
+	/**
+	 * Define a capacidade, em bytes, da camada fora do <i>heap</i>. Só tem efeito
+	 * se o cache for limitado e não possuir entradas temporárias.
+	 */
+	public ConfiguracaoCache setCapacidadeForaHeap(long capacidadeForaHeap) {
+		this.capacidadeForaHeap = capacidadeForaHeap;
+		return this;
+	}
+
+	public Path getArquivoInstantaneo() {
+		return arquivoInstantaneo;
+	}
+
+	/**
+	 * Define o arquivo do {@link InstantaneoCache instantâneo} do cache.
+	 */
+	public ConfiguracaoCache setArquivoInstantaneo(Path arquivoInstantaneo) {
+		this.arquivoInstantaneo = arquivoInstantaneo;
+		return this;
+	}
+
+	/**
+	 * Testa se as entradas expulsas da memória devem transbordar para uma camada
+	 * fora do <i>heap</i>.
+	 *
+	 * @return <tt>true</tt> se o cache possui camada fora do <i>heap</i>
+	 */
+	public boolean isForaHeap() {
+		return capacidadeForaHeap > 0 && isLimitado() && !isTemporario();
+	}
+
+	/**
+	 * Testa se algum prazo de expiração ou de atualização foi definido.
+	 *
+	 * @return <tt>true</tt> se as entradas do cache são temporárias
+	 */
+	public boolean isTemporario() {
+		return expiracaoAposEscrita > 0 || expiracaoAposAcesso > 0 || atualizacaoAposEscrita > 0;
+	}
+
+	/**
+	 * Sobrepõe os valores desta configuração com os definidos nas propriedades de
+	 * sistema para este tipo de cache.
+	 *
+	 * @param tipoCache tipo do cache
+	 *
+	 * @return esta configuração
+	 */
+	public ConfiguracaoCache aplicarPropriedadesSistema(Class<?> tipoCache) {
+		String prefixo = tipoCache.getName() + '.';
+		String valor = null;
+		try {
+			if ((valor = System.getProperty(prefixo + "maximoEntradas")) != null) {
+				setMaximoEntradas(Long.parseLong(valor.trim()));
+			}
+			if ((valor = System.getProperty(prefixo + "maximoPeso")) != null) {
+				setMaximoPeso(Long.parseLong(valor.trim()));
+			}
+			if ((valor = System.getProperty(prefixo + "politicaExpulsao")) != null) {
+				setPoliticaExpulsao(TipoPoliticaExpulsao.valueOf(valor.trim()));
+			}
+			if ((valor = System.getProperty(prefixo + "expiracaoAposEscrita")) != null) {
+				setExpiracaoAposEscrita(Long.parseLong(valor.trim()), TimeUnit.MILLISECONDS);
+			}
+			if ((valor = System.getProperty(prefixo + "expiracaoAposAcesso")) != null) {
+				setExpiracaoAposAcesso(Long.parseLong(valor.trim()), TimeUnit.MILLISECONDS);
+			}
+			if ((valor = System.getProperty(prefixo + "atualizacaoAposEscrita")) != null) {
+				setAtualizacaoAposEscrita(Long.parseLong(valor.trim()), TimeUnit.MILLISECONDS);
+			}
+			if ((valor = System.getProperty(prefixo + "capacidadeForaHeap")) != null) {
+				setCapacidadeForaHeap(Long.parseLong(valor.trim()));
+			}
+			if ((valor = System.getProperty(prefixo + "instantaneo")) != null) {
+				setArquivoInstantaneo(InstantaneoCache.getArquivo(tipoCache));
+			}
+			if ((valor = System.getProperty(prefixo + "estatisticas")) != null) {
+				setRegistrarEstatisticas(Boolean.parseBoolean(valor.trim()));
+			}
+			if ((valor = System.getProperty(prefixo + "monitorJMX")) != null) {
+				setMonitorJMX(Boolean.parseBoolean(valor.trim()));
+			}
+		} catch (IllegalArgumentException e) {
+			throw new ErroExecucao("Valor inválido na configuração do cache '" + tipoCache.getName() + "': " + valor, e);
+		}
+		return this;
+	}
+}
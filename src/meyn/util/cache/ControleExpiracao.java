@@ -0,0 +1,283 @@
+package meyn.util.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Controla a expiração e a atualização das entradas de um
+ * {@link meyn.util.Cache cache}, mantendo para cada chave os instantes da
+ * última escrita e do último acesso. Uma entrada expira quando o tempo desde a
+ * última escrita ou desde o último acesso ultrapassa o limite configurado. Uma
+ * entrada deve ser atualizada quando o tempo desde a última escrita ultrapassa
+ * o limite de atualização; neste caso, apenas uma <i>thread</i> recebe a
+ * indicação para atualizá-la, até que a atualização seja concluída.
+ * <p>
+ * As chaves ficam agendadas em uma fila ordenada pelo instante em que podem
+ * expirar, de modo que a busca das chaves expiradas percorre apenas as chaves
+ * vencidas, e não todas as chaves do cache. Uma escrita ou um acesso apenas
+ * adiam a expiração da chave; ao vencer o agendamento, a chave que ainda não
+ * expirou é agendada de novo.
+ *
+ * @param <TipoChave> tipo das chaves do cache
+ */
+public final class ControleExpiracao<TipoChave> {
+
+	public static final int VALIDO = 0;
+	public static final int EXPIRADO = 1;
+	public static final int ATUALIZAR = 2;
+
+	private static final int INTERVALO_LIMPEZA = 64;
+
+	private static final class Marca {
+		static final AtomicIntegerFieldUpdater<Marca> ATUALIZANDO = AtomicIntegerFieldUpdater.newUpdater(Marca.class, "atualizando");
+
+		volatile long escrita;
+		volatile long acesso;
+		volatile int atualizando;
+		volatile Agendamento agendamento;
+
+		Marca(long agora) {
+			escrita = agora;
+			acesso = agora;
+		}
+	}
+
+	/**
+	 * Instante em que uma chave pode expirar. A ordem usa o instante e, em caso de
+	 * empate, a ordem de criação.
+	 */
+	private static final class Agendamento implements Comparable<Agendamento> {
+		final long prazo;
+		final long sequencia;
+		final Object chave;
+
+		Agendamento(long prazo, long sequencia, Object chave) {
+			this.prazo = prazo;
+			this.sequencia = sequencia;
+			this.chave = chave;
+		}
+
+		@Override
+		public int compareTo(Agendamento outro) {
+			long dif = prazo - outro.prazo;
+			return dif != 0 ? Long.signum(dif) : Long.compare(sequencia, outro.sequencia);
+		}
+	}
+
+	private final long expiracaoAposEscrita;
+	private final long expiracaoAposAcesso;
+	private final long atualizacaoAposEscrita;
+	private final Map<TipoChave, Marca> mpMarcas = new ConcurrentHashMap<TipoChave, Marca>();
+	private final AtomicInteger contadorEscritas = new AtomicInteger();
+	private final ConcurrentNavigableMap<Agendamento, Marca> mpAgendamentos = new ConcurrentSkipListMap<Agendamento, Marca>();
+	private final AtomicLong sequencia = new AtomicLong();
+
+	/**
+	 * Cria o controle com estes prazos, em nanossegundos. Um prazo menor ou igual
+	 * a zero indica que o respectivo controle não é feito.
+	 *
+	 * @param expiracaoAposEscrita   prazo de expiração após a escrita
+	 * @param expiracaoAposAcesso    prazo de expiração após o último acesso
+	 * @param atualizacaoAposEscrita prazo de atualização após a escrita
+	 */
+	public ControleExpiracao(long expiracaoAposEscrita, long expiracaoAposAcesso, long atualizacaoAposEscrita) {
+		this.expiracaoAposEscrita = expiracaoAposEscrita;
+		this.expiracaoAposAcesso = expiracaoAposAcesso;
+		this.atualizacaoAposEscrita = atualizacaoAposEscrita;
+	}
+
+	private boolean isExpirada(Marca marca, long agora) {
+		return expiracaoAposEscrita > 0 && agora - marca.escrita >= expiracaoAposEscrita
+		        || expiracaoAposAcesso > 0 && agora - marca.acesso >= expiracaoAposAcesso;
+	}
+
+	private boolean isExpiravel() {
+		return expiracaoAposEscrita > 0 || expiracaoAposAcesso > 0;
+	}
+
+	/**
+	 * Retorna o primeiro instante em que esta marca pode expirar.
+	 */
+	private long getPrazo(Marca marca) {
+		if (expiracaoAposEscrita <= 0) {
+			return marca.acesso + expiracaoAposAcesso;
+		}
+		if (expiracaoAposAcesso <= 0) {
+			return marca.escrita + expiracaoAposEscrita;
+		}
+		long prazoEscrita = marca.escrita + expiracaoAposEscrita;
+		long prazoAcesso = marca.acesso + expiracaoAposAcesso;
+		return prazoEscrita - prazoAcesso < 0 ? prazoEscrita : prazoAcesso;
+	}
+
+	private long getPrazoMinimo() {
+		if (expiracaoAposEscrita <= 0) {
+			return expiracaoAposAcesso;
+		}
+		return expiracaoAposAcesso <= 0 ? expiracaoAposEscrita : Math.min(expiracaoAposEscrita, expiracaoAposAcesso);
+	}
+
+	private void agendar(Object chave, Marca marca, long prazo) {
+		Agendamento agendamento = new Agendamento(prazo, sequencia.getAndIncrement(), chave);
+		marca.agendamento = agendamento;
+		mpAgendamentos.put(agendamento, marca);
+	}
+
+	/**
+	 * Registra a escrita desta chave, reiniciando a contagem dos prazos. Deve ser
+	 * chamado depois de guardado o valor, para que uma remoção concorrente não
+	 * descarte a marca da nova entrada.
+	 *
+	 * @param chave chave escrita
+	 */
+	public void registrarEscrita(TipoChave chave) {
+		long agora = System.nanoTime();
+		Marca marca = mpMarcas.get(chave);
+		if (marca == null) {
+			Marca nova = new Marca(agora);
+			if ((marca = mpMarcas.putIfAbsent(chave, nova)) == null) {
+				if (isExpiravel()) {
+					agendar(chave, nova, getPrazo(nova));
+				}
+				return;
+			}
+		}
+		// o agendamento existente vence antes do novo prazo e é refeito na limpeza
+		marca.escrita = agora;
+		marca.acesso = agora;
+	}
+
+	/**
+	 * Registra a remoção desta chave.
+	 *
+	 * @param chave chave removida
+	 */
+	public void registrarRemocao(Object chave) {
+		Marca marca = mpMarcas.remove(chave);
+		if (marca != null && marca.agendamento != null) {
+			mpAgendamentos.remove(marca.agendamento, marca);
+		}
+	}
+
+	/**
+	 * Indica se esta chave já expirou, sem registrar um acesso.
+	 *
+	 * @param chave chave consultada
+	 *
+	 * @return <tt>true</tt> se a entrada da chave expirou
+	 */
+	public boolean isExpirada(Object chave) {
+		Marca marca = mpMarcas.get(chave);
+		return marca != null && isExpirada(marca, System.nanoTime());
+	}
+
+	/**
+	 * Verifica a situação desta chave no momento de uma leitura, registrando o
+	 * acesso se ela estiver válida.
+	 *
+	 * @param chave        chave lida
+	 * @param podeAtualizar indica se o cache é capaz de atualizar a entrada
+	 *
+	 * @return {@link #VALIDO}, {@link #EXPIRADO} ou {@link #ATUALIZAR}, este
+	 *         último indicando que a <i>thread</i> chamadora deve iniciar a
+	 *         atualização da entrada e depois chamar
+	 *         {@link #concluirAtualizacao(Object)}
+	 */
+	public int verificarLeitura(Object chave, boolean podeAtualizar) {
+		Marca marca = mpMarcas.get(chave);
+		if (marca == null) {
+			return VALIDO;
+		}
+		long agora = System.nanoTime();
+		if (isExpirada(marca, agora)) {
+			return EXPIRADO;
+		}
+		if (expiracaoAposAcesso > 0) {
+			marca.acesso = agora;
+		}
+		if (podeAtualizar && atualizacaoAposEscrita > 0 && agora - marca.escrita >= atualizacaoAposEscrita
+		        && Marca.ATUALIZANDO.compareAndSet(marca, 0, 1)) {
+			return ATUALIZAR;
+		}
+		return VALIDO;
+	}
+
+	/**
+	 * Indica o início da atualização desta chave, independentemente dos prazos.
+	 *
+	 * @param chave chave a ser atualizada
+	 *
+	 * @return <tt>true</tt> se a <i>thread</i> chamadora deve iniciar a
+	 *         atualização, ou <tt>false</tt> se ela já está em andamento
+	 */
+	public boolean iniciarAtualizacao(TipoChave chave) {
+		Marca marca = mpMarcas.get(chave);
+		return marca != null && Marca.ATUALIZANDO.compareAndSet(marca, 0, 1);
+	}
+
+	/**
+	 * Indica o fim da atualização desta chave.
+	 *
+	 * @param chave chave atualizada
+	 */
+	public void concluirAtualizacao(Object chave) {
+		Marca marca = mpMarcas.get(chave);
+		if (marca != null) {
+			marca.atualizando = 0;
+		}
+	}
+
+	/**
+	 * Conta uma escrita e indica se já é hora de remover as entradas expiradas
+	 * que não foram lidas.
+	 *
+	 * @return <tt>true</tt> se a limpeza deve ser feita
+	 */
+	public boolean isLimpezaNecessaria() {
+		return isExpiravel() && contadorEscritas.incrementAndGet() % INTERVALO_LIMPEZA == 0;
+	}
+
+	/**
+	 * Retorna as chaves expiradas, percorrendo apenas os agendamentos vencidos.
+	 * As chaves vencidas que ainda não expiraram, por terem sido escritas ou
+	 * acessadas depois do agendamento, são agendadas de novo. As chaves expiradas
+	 * também, para o caso de serem escritas de novo antes de removidas.
+	 *
+	 * @return chaves expiradas
+	 */
+	@SuppressWarnings("unchecked")
+	public Collection<TipoChave> getChavesExpiradas() {
+		long agora = System.nanoTime();
+		Collection<TipoChave> clChaves = new ArrayList<TipoChave>();
+		Map.Entry<Agendamento, Marca> item;
+		while ((item = mpAgendamentos.firstEntry()) != null && item.getKey().prazo - agora <= 0) {
+			Agendamento agendamento = item.getKey();
+			Marca marca = item.getValue();
+			if (!mpAgendamentos.remove(agendamento, marca) || mpMarcas.get(agendamento.chave) != marca) {
+				continue;
+			}
+			if (isExpirada(marca, agora)) {
+				clChaves.add((TipoChave) agendamento.chave);
+				agendar(agendamento.chave, marca, agora + getPrazoMinimo());
+			} else {
+				agendar(agendamento.chave, marca, getPrazo(marca));
+			}
+		}
+		return clChaves;
+	}
+
+	/**
+	 * Descarta as marcas de todas as chaves.
+	 */
+	public void limpar() {
+		mpMarcas.clear();
+		mpAgendamentos.clear();
+	}
+}
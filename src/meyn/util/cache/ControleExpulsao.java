@@ -0,0 +1,151 @@
+package meyn.util.cache;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Controla os limites de um {@link meyn.util.Cache cache} limitado, repassando
+ * os acessos e alterações para a {@link PoliticaExpulsao política de expulsão}
+ * e indicando quais entradas devem ser expulsas. As leituras são registradas
+ * sem travas em um {@link BufferLeitura buffer} dividido em faixas, drenado
+ * apenas quando uma faixa enche ou quando ocorre uma escrita. As escritas devem
+ * ser feitas entre chamadas a {@link #travar()} e {@link #destravar()}.
+ *
+ * @param <TipoChave> tipo das chaves do cache
+ */
+public final class ControleExpulsao<TipoChave> {
+
+	private final PoliticaExpulsao<TipoChave> politica;
+	private final long maximoEntradas;
+	private final long maximoPeso;
+	private final BufferLeitura<TipoChave> bufferLeitura = new BufferLeitura<TipoChave>();
+	private final ReentrantLock trava = new ReentrantLock();
+	private final Consumer<TipoChave> registroAcesso;
+	private long pesoTotal;
+
+	/**
+	 * Cria o controle com estes limites. Um limite menor ou igual a zero indica
+	 * que a respectiva grandeza não é limitada.
+	 *
+	 * @param politica       política de expulsão
+	 * @param maximoEntradas número máximo de entradas
+	 * @param maximoPeso     peso máximo somado das entradas
+	 */
+	public ControleExpulsao(PoliticaExpulsao<TipoChave> politica, long maximoEntradas, long maximoPeso) {
+		this.politica = politica;
+		this.maximoEntradas = maximoEntradas > 0 ? maximoEntradas : Long.MAX_VALUE;
+		this.maximoPeso = maximoPeso > 0 ? maximoPeso : Long.MAX_VALUE;
+		this.registroAcesso = politica::registrarAcesso;
+	}
+
+	/**
+	 * Registra uma leitura desta chave sem bloquear a <i>thread</i>.
+	 *
+	 * @param chave chave lida
+	 */
+	public void registrarLeitura(TipoChave chave) {
+		if (bufferLeitura.registrar(chave) && trava.tryLock()) {
+			try {
+				bufferLeitura.drenar(registroAcesso);
+			} finally {
+				trava.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Obtém a trava de escrita e drena as leituras pendentes.
+	 */
+	public void travar() {
+		trava.lock();
+		bufferLeitura.drenar(registroAcesso);
+	}
+
+	/**
+	 * Libera a trava de escrita.
+	 */
+	public void destravar() {
+		trava.unlock();
+	}
+
+	/**
+	 * Registra a inclusão desta chave. Deve ser chamado com a trava obtida.
+	 *
+	 * @param chave chave incluída
+	 * @param peso  peso da entrada
+	 */
+	public void registrarInclusao(TipoChave chave, long peso) {
+		politica.registrarInclusao(chave);
+		pesoTotal += peso;
+	}
+
+	/**
+	 * Registra a alteração do valor desta chave. Deve ser chamado com a trava
+	 * obtida.
+	 *
+	 * @param chave        chave alterada
+	 * @param pesoAnterior peso da entrada antes da alteração
+	 * @param pesoNovo     peso da entrada depois da alteração
+	 */
+	public void registrarAlteracao(TipoChave chave, long pesoAnterior, long pesoNovo) {
+		politica.registrarAcesso(chave);
+		pesoTotal += pesoNovo - pesoAnterior;
+	}
+
+	/**
+	 * Registra a remoção desta chave. Deve ser chamado com a trava obtida.
+	 *
+	 * @param chave chave removida
+	 * @param peso  peso da entrada removida
+	 */
+	public void registrarRemocao(TipoChave chave, long peso) {
+		politica.registrarRemocao(chave);
+		pesoTotal -= peso;
+	}
+
+	/**
+	 * Registra a expulsão de uma chave já escolhida por
+	 * {@link #selecionarVitima(long)}. Deve ser chamado com a trava obtida.
+	 *
+	 * @param peso peso da entrada expulsa
+	 */
+	public void registrarExpulsao(long peso) {
+		pesoTotal -= peso;
+	}
+
+	/**
+	 * Se algum limite foi ultrapassado, escolhe a próxima chave a ser expulsa.
+	 * Deve ser chamado com a trava obtida.
+	 *
+	 * @param entradas número atual de entradas no cache
+	 *
+	 * @return chave a ser expulsa ou <tt>null</tt> se nenhuma expulsão é
+	 *         necessária
+	 */
+	public TipoChave selecionarVitima(long entradas) {
+		if (entradas <= maximoEntradas && pesoTotal <= maximoPeso) {
+			return null;
+		}
+		return politica.selecionarVitima();
+	}
+
+	/**
+	 * Descarta todas as chaves acompanhadas. Deve ser chamado com a trava obtida.
+	 */
+	public void limpar() {
+		politica.limpar();
+		pesoTotal = 0;
+	}
+
+	public long getMaximoEntradas() {
+		return maximoEntradas;
+	}
+
+	public long getMaximoPeso() {
+		return maximoPeso;
+	}
+
+	public long getPesoTotal() {
+		return pesoTotal;
+	}
+}
@@ -0,0 +1,55 @@
+package meyn.util.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.lang.reflect.Proxy;
+
+/**
+ * Fluxo de leitura de objetos que resolve as classes e as classes
+ * <i>proxy</i> pelo <i>context class loader</i> da <i>thread</i>, de modo que
+ * objetos da aplicação (como as entidades) possam ser lidos mesmo que a
+ * <i>framework</i> seja carregada por outro <i>class loader</i>.
+ */
+class EntradaObjetosContexto extends ObjectInputStream {
+
+	/**
+	 * Retorna o <i>class loader</i> usado na resolução das classes.
+	 *
+	 * @return <i>context class loader</i> ou, se não houver, o <i>class
+	 *         loader</i> da <i>framework</i>
+	 */
+	static ClassLoader getCarregador() {
+		ClassLoader carregador = Thread.currentThread().getContextClassLoader();
+		return carregador != null ? carregador : EntradaObjetosContexto.class.getClassLoader();
+	}
+
+	EntradaObjetosContexto(InputStream entrada) throws IOException {
+		super(entrada);
+	}
+
+	@Override
+	protected Class<?> resolveClass(ObjectStreamClass descritor) throws IOException, ClassNotFoundException {
+		try {
+			return Class.forName(descritor.getName(), false, getCarregador());
+		} catch (ClassNotFoundException e) {
+			return super.resolveClass(descritor);
+		}
+	}
+
+	@Override
+	@SuppressWarnings("deprecation")
+	protected Class<?> resolveProxyClass(String[] nomesInterfaces) throws IOException, ClassNotFoundException {
+		ClassLoader carregador = getCarregador();
+		Class<?>[] interfaces = new Class<?>[nomesInterfaces.length];
+		for (int i = 0; i < nomesInterfaces.length; i++) {
+			interfaces[i] = Class.forName(nomesInterfaces[i], false, carregador);
+		}
+		try {
+			return Proxy.getProxyClass(carregador, interfaces);
+		} catch (IllegalArgumentException e) {
+			return super.resolveProxyClass(nomesInterfaces);
+		}
+	}
+}
@@ -0,0 +1,15 @@
+package meyn.util.cache;
+
+import meyn.util.ErroExecucao;
+
+/**
+ * Levantado para indicar que a carga de um valor de um {@link meyn.util.Cache
+ * cache} falhou. A causa é o erro gerado pelo {@link CarregadorCache
+ * carregador}.
+ */
+@SuppressWarnings("serial")
+public class ErroCargaCache extends ErroExecucao {
+	public ErroCargaCache(Object chave, Throwable causa) {
+		super("Erro carregando valor do cache: " + chave, causa);
+	}
+}
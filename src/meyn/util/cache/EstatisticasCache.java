@@ -0,0 +1,125 @@
+package meyn.util.cache;
+
+import java.io.Serializable;
+
+/**
+ * Retrato imutável das estatísticas de uso de um {@link meyn.util.Cache cache}
+ * em um dado momento. As expulsões incluem as entradas descartadas por
+ * expiração. Se o cache possuir uma {@link CamadaForaHeap camada fora do heap},
+ * as entradas que transbordam para ela não são contadas como expulsões, apenas
+ * as descartadas da própria camada.
+ */
+@SuppressWarnings("serial")
+public final class EstatisticasCache implements Serializable {
+
+	public static final EstatisticasCache VAZIA = new EstatisticasCache(0, 0, 0, 0, 0, 0, 0, 0);
+
+	private final long acertos;
+	private final long faltas;
+	private final long cargasSucesso;
+	private final long cargasFalha;
+	private final long tempoTotalCarga;
+	private final long expulsoes;
+	private final long transbordos;
+	private final long promocoes;
+
+	public EstatisticasCache(long acertos, long faltas, long cargasSucesso, long cargasFalha, long tempoTotalCarga, long expulsoes) {
+		this(acertos, faltas, cargasSucesso, cargasFalha, tempoTotalCarga, expulsoes, 0, 0);
+	}
+
+	public EstatisticasCache(long acertos, long faltas, long cargasSucesso, long cargasFalha, long tempoTotalCarga, long expulsoes,
+	        long transbordos, long promocoes) {
+		this.acertos = acertos;
+		this.faltas = faltas;
+		this.cargasSucesso = cargasSucesso;
+		this.cargasFalha = cargasFalha;
+		this.tempoTotalCarga = tempoTotalCarga;
+		this.expulsoes = expulsoes;
+		this.transbordos = transbordos;
+		this.promocoes = promocoes;
+	}
+
+	public long getAcertos() {
+		return acertos;
+	}
+
+	public long getFaltas() {
+		return faltas;
+	}
+
+	public long getRequisicoes() {
+		return acertos + faltas;
+	}
+
+	/**
+	 * Retorna a proporção das leituras que encontraram o valor no cache, ou 1 se
+	 * nenhuma leitura foi feita.
+	 */
+	public double getTaxaAcertos() {
+		long requisicoes = getRequisicoes();
+		return requisicoes == 0 ? 1.0 : (double) acertos / requisicoes;
+	}
+
+	public long getCargasSucesso() {
+		return cargasSucesso;
+	}
+
+	public long getCargasFalha() {
+		return cargasFalha;
+	}
+
+	/**
+	 * Retorna o tempo total gasto nas cargas, em nanossegundos.
+	 */
+	public long getTempoTotalCarga() {
+		return tempoTotalCarga;
+	}
+
+	/**
+	 * Retorna o tempo médio de uma carga, em nanossegundos.
+	 */
+	public double getTempoMedioCarga() {
+		long cargas = cargasSucesso + cargasFalha;
+		return cargas == 0 ? 0.0 : (double) tempoTotalCarga / cargas;
+	}
+
+	public long getExpulsoes() {
+		return expulsoes;
+	}
+
+	/**
+	 * Retorna o número de entradas que transbordaram para a camada fora do
+	 * <i>heap</i>.
+	 */
+	public long getTransbordos() {
+		return transbordos;
+	}
+
+	/**
+	 * Retorna o número de entradas promovidas da camada fora do <i>heap</i> de
+	 * volta ao cache.
+	 */
+	public long getPromocoes() {
+		return promocoes;
+	}
+
+	/**
+	 * Soma estas estatísticas com estas outras.
+	 *
+	 * @param outras outras estatísticas
+	 *
+	 * @return estatísticas somadas
+	 */
+	public EstatisticasCache somar(EstatisticasCache outras) {
+		return new EstatisticasCache(acertos + outras.acertos, faltas + outras.faltas, cargasSucesso + outras.cargasSucesso,
+		        cargasFalha + outras.cargasFalha, tempoTotalCarga + outras.tempoTotalCarga, expulsoes + outras.expulsoes,
+		        transbordos + outras.transbordos, promocoes + outras.promocoes);
+	}
+
+	@Override
+	public String toString() {
+		return "acertos=" + acertos + ", faltas=" + faltas + ", taxaAcertos=" + getTaxaAcertos() + ", cargasSucesso=" + cargasSucesso
+		        + ", cargasFalha=" + cargasFalha + ", tempoTotalCarga=" + tempoTotalCarga + ", expulsoes=" + expulsoes
+		        + ", transbordos=" + transbordos + ", promocoes=" + promocoes;
+	}
+}
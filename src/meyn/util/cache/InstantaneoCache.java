@@ -0,0 +1,329 @@
+package meyn.util.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Instantâneo persistente do conteúdo de um {@link meyn.util.Cache cache} ou de
+ * outro mapa, usado para acelerar a partida da aplicação: o mapa é gravado em
+ * um arquivo local em formato binário compacto e recarregado na próxima
+ * partida, através de um mapeamento do arquivo em memória, em vez de ser
+ * reconstruído.
+ * <p>
+ * Um instantâneo só é carregado se ainda for válido. Para isto, o arquivo
+ * guarda a versão do formato, a versão da aplicação (definida pela
+ * propriedade de sistema <tt>meyn.util.cache.InstantaneoCache.versao</tt>) e
+ * um <i>checksum</i> de cada classe cujos objetos foram gravados, além das
+ * classes das quais o conteúdo do mapa depende. Se qualquer uma destas
+ * informações não conferir, o instantâneo é descartado e o arquivo é apagado.
+ * Como novas classes da aplicação não alteram os <i>checksums</i>, mapas
+ * construídos a partir de varreduras de classes devem contar também com a
+ * versão da aplicação (ver {@link #isVersaoDefinida()}).
+ * <p>
+ * Apenas as entradas com chave e valor {@link Serializable serializáveis} são
+ * gravadas. Na carga, as entradas não substituem as que já estiverem no mapa.
+ * As classes são resolvidas pelo <i>context class loader</i> da
+ * <i>thread</i>.
+ *
+ * @see ConfiguracaoCache
+ */
+public final class InstantaneoCache {
+
+	/**
+	 * Propriedade de sistema com a versão da aplicação gravada nos instantâneos.
+	 */
+	public static final String PROPRIEDADE_VERSAO = InstantaneoCache.class.getName() + ".versao";
+
+	private static final int MAGICO = 0x4D45594E;
+	private static final int VERSAO_FORMATO = 1;
+	private static final long SEM_CHECKSUM = -1;
+
+	private static final Logger logger = LogManager.getLogger(InstantaneoCache.class);
+
+	/**
+	 * Fluxo de gravação de objetos que registra as classes dos objetos gravados.
+	 */
+	private static final class SaidaObjetos extends ObjectOutputStream {
+		final Set<Class<?>> stClasses;
+
+		SaidaObjetos(OutputStream saida, Set<Class<?>> stClasses) throws IOException {
+			super(saida);
+			this.stClasses = stClasses;
+		}
+
+		@Override
+		protected void annotateClass(Class<?> tipo) {
+			stClasses.add(tipo);
+		}
+
+		@Override
+		protected void annotateProxyClass(Class<?> tipo) {
+			Collections.addAll(stClasses, tipo.getInterfaces());
+		}
+	}
+
+	/**
+	 * Fluxo de leitura sobre o conteúdo de um {@link ByteBuffer}.
+	 */
+	private static final class EntradaBuffer extends InputStream {
+		final ByteBuffer buffer;
+
+		EntradaBuffer(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] bytes, int inicio, int tamanho) {
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+			tamanho = Math.min(tamanho, buffer.remaining());
+			buffer.get(bytes, inicio, tamanho);
+			return tamanho;
+		}
+
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+	}
+
+	private InstantaneoCache() {
+	}
+
+	/**
+	 * Retorna o arquivo de instantâneo configurado para este tipo de mapa pela
+	 * propriedade de sistema <tt>&lt;nome da classe do mapa&gt;.instantaneo</tt>.
+	 *
+	 * @param tipo tipo do mapa
+	 *
+	 * @return caminho do arquivo ou <tt>null</tt> se não houver instantâneo
+	 *         configurado
+	 */
+	public static Path getArquivo(Class<?> tipo) {
+		String arquivo = System.getProperty(tipo.getName() + ".instantaneo");
+		return arquivo != null && !arquivo.trim().isEmpty() ? Paths.get(arquivo.trim()) : null;
+	}
+
+	private static String getVersaoAplicacao() {
+		return System.getProperty(PROPRIEDADE_VERSAO, "");
+	}
+
+	/**
+	 * Indica se a versão da aplicação foi definida. Os mapas construídos a partir
+	 * de varreduras de classes só devem usar instantâneos quando ela estiver
+	 * definida, pois os <i>checksums</i> não detectam as classes novas.
+	 *
+	 * @return <tt>true</tt> se a propriedade {@value #PROPRIEDADE_VERSAO} está
+	 *         definida
+	 */
+	public static boolean isVersaoDefinida() {
+		return !getVersaoAplicacao().trim().isEmpty();
+	}
+
+	/**
+	 * Calcula o <i>checksum</i> de uma classe a partir do conteúdo do seu arquivo
+	 * <tt>.class</tt> ou, se ele não estiver disponível, a partir da sua
+	 * estrutura ({@link ObjectStreamClass#getSerialVersionUID()}).
+	 */
+	private static long getChecksum(Class<?> tipo) {
+		String nome = tipo.getName();
+		try (InputStream entrada = tipo.getResourceAsStream(nome.substring(nome.lastIndexOf('.') + 1) + ".class")) {
+			if (entrada != null) {
+				CRC32 crc = new CRC32();
+				byte[] bytes = new byte[4096];
+				int lidos;
+				while ((lidos = entrada.read(bytes)) > 0) {
+					crc.update(bytes, 0, lidos);
+				}
+				return crc.getValue();
+			}
+		} catch (IOException e) {
+			// usa a estrutura da classe
+		}
+		ObjectStreamClass descritor = ObjectStreamClass.lookupAny(tipo);
+		return descritor != null ? descritor.getSerialVersionUID() : SEM_CHECKSUM;
+	}
+
+	/**
+	 * Grava o instantâneo deste mapa neste arquivo. Ver
+	 * {@link #gravar(Map, Path, Collection)}.
+	 *
+	 * @param mapa    mapa a ser gravado
+	 * @param arquivo arquivo do instantâneo
+	 *
+	 * @return número de entradas gravadas
+	 *
+	 * @throws IOException se ocorrer um erro na gravação
+	 */
+	public static int gravar(Map<?, ?> mapa, Path arquivo) throws IOException {
+		return gravar(mapa, arquivo, Collections.<Class<?>>emptySet());
+	}
+
+	/**
+	 * Grava o instantâneo deste mapa neste arquivo. O arquivo é gravado à parte e
+	 * só substitui o instantâneo anterior quando estiver completo.
+	 *
+	 * @param mapa           mapa a ser gravado
+	 * @param arquivo        arquivo do instantâneo
+	 * @param clDependencias classes das quais o conteúdo do mapa depende, além
+	 *                       das classes dos objetos gravados
+	 *
+	 * @return número de entradas gravadas
+	 *
+	 * @throws IOException se ocorrer um erro na gravação, inclusive se algum
+	 *                     objeto referenciado pelas entradas não for
+	 *                     serializável
+	 */
+	public static int gravar(Map<?, ?> mapa, Path arquivo, Collection<? extends Class<?>> clDependencias) throws IOException {
+		Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+		int entradas = 0;
+		try {
+			Set<Class<?>> stClasses = new LinkedHashSet<Class<?>>(clDependencias);
+			stClasses.add(mapa.getClass());
+			try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+			        StandardOpenOption.WRITE)) {
+				DataOutputStream saida = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(canal)));
+				saida.writeInt(MAGICO);
+				saida.writeInt(VERSAO_FORMATO);
+				saida.writeUTF(getVersaoAplicacao());
+				saida.writeUTF(mapa.getClass().getName());
+				// tamanho dos dados, preenchido ao final
+				saida.writeLong(0);
+				saida.flush();
+				long inicioDados = canal.position();
+				SaidaObjetos saidaObjetos = new SaidaObjetos(saida, stClasses);
+				for (Map.Entry<?, ?> item : mapa.entrySet()) {
+					if (item.getKey() instanceof Serializable && item.getValue() instanceof Serializable) {
+						saidaObjetos.writeBoolean(true);
+						saidaObjetos.writeObject(item.getKey());
+						saidaObjetos.writeObject(item.getValue());
+						entradas++;
+					}
+				}
+				saidaObjetos.writeBoolean(false);
+				saidaObjetos.flush();
+				long tamanhoDados = canal.position() - inicioDados;
+				saida.writeInt(stClasses.size());
+				for (Class<?> tipo : stClasses) {
+					saida.writeUTF(tipo.getName());
+					saida.writeLong(getChecksum(tipo));
+				}
+				saida.flush();
+				canal.write(ByteBuffer.allocate(8).putLong(0, tamanhoDados), inicioDados - 8);
+			}
+			Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			Files.deleteIfExists(temporario);
+			throw e;
+		}
+		logger.debug("instantâneo gravado: {} ({} entradas)", arquivo, entradas);
+		return entradas;
+	}
+
+	/**
+	 * Carrega neste mapa o instantâneo gravado neste arquivo, se existir e ainda
+	 * for válido. Instantâneos inválidos ou corrompidos são apagados.
+	 *
+	 * @param mapa    mapa que recebe as entradas
+	 * @param arquivo arquivo do instantâneo
+	 *
+	 * @return número de entradas carregadas ou <tt>-1</tt> se não havia
+	 *         instantâneo válido
+	 */
+	@SuppressWarnings("unchecked")
+	public static <TipoChave, TipoValor> int carregar(Map<TipoChave, TipoValor> mapa, Path arquivo) {
+		if (!Files.isRegularFile(arquivo)) {
+			return -1;
+		}
+		String motivo;
+		try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+			DataInputStream entrada = new DataInputStream(new EntradaBuffer(buffer));
+			if (entrada.readInt() != MAGICO || entrada.readInt() != VERSAO_FORMATO) {
+				motivo = "formato incompatível";
+			} else if (!entrada.readUTF().equals(getVersaoAplicacao())) {
+				motivo = "versão da aplicação diferente";
+			} else if (!entrada.readUTF().equals(mapa.getClass().getName())) {
+				motivo = "tipo de mapa diferente";
+			} else {
+				long tamanhoDados = entrada.readLong();
+				int inicioDados = buffer.position();
+				buffer.position((int) (inicioDados + tamanhoDados));
+				motivo = validarClasses(entrada);
+				if (motivo == null) {
+					buffer.position(inicioDados);
+					int entradas = 0;
+					ObjectInputStream entradaObjetos = new EntradaObjetosContexto(entrada);
+					while (entradaObjetos.readBoolean()) {
+						TipoChave chave = (TipoChave) entradaObjetos.readObject();
+						TipoValor valor = (TipoValor) entradaObjetos.readObject();
+						mapa.putIfAbsent(chave, valor);
+						entradas++;
+					}
+					logger.debug("instantâneo carregado: {} ({} entradas)", arquivo, entradas);
+					return entradas;
+				}
+			}
+		} catch (IOException | ClassNotFoundException | ClassCastException | IllegalArgumentException e) {
+			motivo = "arquivo inválido (" + e + ")";
+		}
+		logger.info("instantâneo descartado: {}: {}", arquivo, motivo);
+		try {
+			Files.deleteIfExists(arquivo);
+		} catch (IOException e) {
+			logger.warn("erro apagando instantâneo: " + arquivo, e);
+		}
+		return -1;
+	}
+
+	private static String validarClasses(DataInputStream entrada) throws IOException {
+		ClassLoader carregador = EntradaObjetosContexto.getCarregador();
+		int numClasses = entrada.readInt();
+		for (int i = 0; i < numClasses; i++) {
+			String nome = entrada.readUTF();
+			long checksum = entrada.readLong();
+			Class<?> tipo;
+			try {
+				tipo = Class.forName(nome, false, carregador);
+			} catch (ClassNotFoundException e) {
+				return "classe não encontrada: " + nome;
+			}
+			if (getChecksum(tipo) != checksum) {
+				return "classe alterada: " + nome;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,102 @@
+package meyn.util.cache;
+
+import java.lang.ref.WeakReference;
+
+import meyn.util.Cache;
+
+/**
+ * Expõe as {@link EstatisticasCache estatísticas} de um cache via JMX, sob o
+ * nome <tt>meyn.util:type=Cache,contexto=&lt;contexto&gt;,nome=&lt;classe do
+ * cache&gt;</tt>. O monitor não impede o descarte do cache: depois dele, as
+ * estatísticas retornadas ficam zeradas.
+ *
+ * @see MonitoresJMX
+ */
+public class MonitorCache implements MonitorCacheMBean {
+
+	private final WeakReference<Cache<?, ?>> referencia;
+	private final String nome;
+
+	public MonitorCache(Cache<?, ?> cache) {
+		referencia = new WeakReference<Cache<?, ?>>(cache);
+		nome = cache.getClass().getName();
+	}
+
+	private EstatisticasCache getEstatisticas() {
+		Cache<?, ?> cache = referencia.get();
+		return cache != null ? cache.getEstatisticas() : EstatisticasCache.VAZIA;
+	}
+
+	@Override
+	public String getNome() {
+		return nome;
+	}
+
+	@Override
+	public long getTamanho() {
+		Cache<?, ?> cache = referencia.get();
+		return cache != null ? cache.mappingCount() : 0;
+	}
+
+	@Override
+	public long getAcertos() {
+		return getEstatisticas().getAcertos();
+	}
+
+	@Override
+	public long getFaltas() {
+		return getEstatisticas().getFaltas();
+	}
+
+	@Override
+	public double getTaxaAcertos() {
+		return getEstatisticas().getTaxaAcertos();
+	}
+
+	@Override
+	public long getCargasSucesso() {
+		return getEstatisticas().getCargasSucesso();
+	}
+
+	@Override
+	public long getCargasFalha() {
+		return getEstatisticas().getCargasFalha();
+	}
+
+	@Override
+	public long getTempoTotalCarga() {
+		return getEstatisticas().getTempoTotalCarga();
+	}
+
+	@Override
+	public double getTempoMedioCarga() {
+		return getEstatisticas().getTempoMedioCarga();
+	}
+
+	@Override
+	public long getExpulsoes() {
+		return getEstatisticas().getExpulsoes();
+	}
+
+	@Override
+	public long getTransbordos() {
+		return getEstatisticas().getTransbordos();
+	}
+
+	@Override
+	public long getPromocoes() {
+		return getEstatisticas().getPromocoes();
+	}
+
+	@Override
+	public long getEntradasForaHeap() {
+		Cache<?, ?> cache = referencia.get();
+		return cache != null && cache.getCamadaForaHeap() != null ? cache.getCamadaForaHeap().getEntradas() : 0;
+	}
+
+	@Override
+	public long getBytesForaHeap() {
+		Cache<?, ?> cache = referencia.get();
+		return cache != null && cache.getCamadaForaHeap() != null ? cache.getCamadaForaHeap().getBytesOcupados() : 0;
+	}
+}
@@ -0,0 +1,36 @@
+package meyn.util.cache;
+
+/**
+ * Interface de gerenciamento JMX de um {@link meyn.util.Cache cache}.
+ *
+ * @see MonitorCache
+ */
+public interface MonitorCacheMBean {
+	String getNome();
+
+	long getTamanho();
+
+	long getAcertos();
+
+	long getFaltas();
+
+	double getTaxaAcertos();
+
+	long getCargasSucesso();
+
+	long getCargasFalha();
+
+	long getTempoTotalCarga();
+
+	double getTempoMedioCarga();
+
+	long getExpulsoes();
+
+	long getTransbordos();
+
+	long getPromocoes();
+
+	long getEntradasForaHeap();
+
+	long getBytesForaHeap();
+}
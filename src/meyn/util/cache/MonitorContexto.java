@@ -0,0 +1,122 @@
+package meyn.util.cache;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import meyn.util.Cache;
+import meyn.util.contexto.ContextoEmMemoria;
+
+/**
+ * Expõe via JMX as {@link EstatisticasCache estatísticas} somadas de todos os
+ * caches de um contexto, sob o nome
+ * <tt>meyn.util:type=Contexto,contexto=&lt;contexto&gt;</tt>. O monitor não
+ * impede o descarte do contexto: depois dele, as estatísticas retornadas ficam
+ * zeradas.
+ *
+ * @see MonitoresJMX
+ */
+public class MonitorContexto implements MonitorContextoMBean {
+
+	private final WeakReference<ContextoEmMemoria> referencia;
+	private final String identificador;
+
+	public MonitorContexto(ContextoEmMemoria contexto) {
+		referencia = new WeakReference<ContextoEmMemoria>(contexto);
+		identificador = contexto.getIdentificador();
+	}
+
+	private Collection<Object> getValores() {
+		ContextoEmMemoria contexto = referencia.get();
+		return contexto != null ? contexto.values() : Collections.emptyList();
+	}
+
+	/**
+	 * Retorna as estatísticas somadas dos caches do contexto.
+	 *
+	 * @return estatísticas do contexto
+	 */
+	public EstatisticasCache getEstatisticas() {
+		EstatisticasCache estatisticas = EstatisticasCache.VAZIA;
+		for (Object valor : getValores()) {
+			if (valor instanceof Cache<?, ?>) {
+				estatisticas = estatisticas.somar(((Cache<?, ?>) valor).getEstatisticas());
+			}
+		}
+		return estatisticas;
+	}
+
+	@Override
+	public String getIdentificador() {
+		return identificador;
+	}
+
+	@Override
+	public String[] getCaches() {
+		List<String> lsNomes = new ArrayList<String>();
+		for (Object valor : getValores()) {
+			if (valor instanceof Cache<?, ?>) {
+				lsNomes.add(valor.getClass().getName());
+			}
+		}
+		return lsNomes.toArray(new String[0]);
+	}
+
+	@Override
+	public long getTamanho() {
+		long tamanho = 0;
+		for (Object valor : getValores()) {
+			if (valor instanceof Cache<?, ?>) {
+				tamanho += ((Cache<?, ?>) valor).mappingCount();
+			}
+		}
+		return tamanho;
+	}
+
+	@Override
+	public long getAcertos() {
+		return getEstatisticas().getAcertos();
+	}
+
+	@Override
+	public long getFaltas() {
+		return getEstatisticas().getFaltas();
+	}
+
+	@Override
+	public double getTaxaAcertos() {
+		return getEstatisticas().getTaxaAcertos();
+	}
+
+	@Override
+	public long getCargasSucesso() {
+		return getEstatisticas().getCargasSucesso();
+	}
+
+	@Override
+	public long getCargasFalha() {
+		return getEstatisticas().getCargasFalha();
+	}
+
+	@Override
+	public long getTempoTotalCarga() {
+		return getEstatisticas().getTempoTotalCarga();
+	}
+
+	@Override
+	public long getExpulsoes() {
+		return getEstatisticas().getExpulsoes();
+	}
+
+	@Override
+	public long getTransbordos() {
+		return getEstatisticas().getTransbordos();
+	}
+
+	@Override
+	public long getPromocoes() {
+		return getEstatisticas().getPromocoes();
+	}
+}
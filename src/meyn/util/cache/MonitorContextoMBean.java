@@ -0,0 +1,33 @@
+package meyn.util.cache;
+
+/**
+ * Interface de gerenciamento JMX dos caches de um
+ * {@link meyn.util.contexto.ContextoEmMemoria contexto}.
+ *
+ * @see MonitorContexto
+ */
+public interface MonitorContextoMBean {
+	String getIdentificador();
+
+	String[] getCaches();
+
+	long getTamanho();
+
+	long getAcertos();
+
+	long getFaltas();
+
+	double getTaxaAcertos();
+
+	long getCargasSucesso();
+
+	long getCargasFalha();
+
+	long getTempoTotalCarga();
+
+	long getExpulsoes();
+
+	long getTransbordos();
+
+	long getPromocoes();
+}
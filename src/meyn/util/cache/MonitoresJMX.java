@@ -0,0 +1,151 @@
+package meyn.util.cache;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import meyn.util.Cache;
+import meyn.util.contexto.ContextoEmMemoria;
+
+/**
+ * Registra os monitores JMX dos caches e dos contextos no <i>MBean server</i>
+ * da plataforma. Apenas os caches que registram estatísticas e que ligaram os
+ * monitores ({@link ConfiguracaoCache#setMonitorJMX(boolean)}) são
+ * registrados. Falhas de registro são apenas registradas no log, não
+ * interferindo no uso dos caches.
+ * <p>
+ * Os monitores não mantêm os contextos e caches em memória. Os monitores dos
+ * contextos descartados sem chamada a {@link #remover(ContextoEmMemoria)
+ * remover} (por exemplo, junto com o <i>class loader</i> de uma aplicação) são
+ * removidos no próximo registro. Porém, se a <i>framework</i> for carregada
+ * junto com a aplicação, as classes dos próprios monitores pertencem ao
+ * <i>class loader</i> da aplicação, e o <i>MBean server</i> da plataforma, que
+ * os mantém, impede o seu descarte: neste caso, a aplicação que liga os
+ * monitores deve remover o seu contexto ao ser descartada, com
+ * {@link ContextoEmMemoria#remover(ClassLoader) ContextoEmMemoria.remover}, o
+ * que remove os monitores (por exemplo, no <tt>contextDestroyed</tt> de um
+ * <tt>ServletContextListener</tt>). O monitor de um cache também é removido
+ * quando o cache é retirado do contexto.
+ */
+public final class MonitoresJMX {
+
+	public static final String DOMINIO = "meyn.util";
+
+	private static final Logger LOGGER = LogManager.getLogger(MonitoresJMX.class);
+
+	private static final ReferenceQueue<ContextoEmMemoria> FILA_DESCARTADOS = new ReferenceQueue<ContextoEmMemoria>();
+	private static final Set<ReferenciaContexto> ST_REFERENCIAS = ConcurrentHashMap.newKeySet();
+
+	private static final class ReferenciaContexto extends WeakReference<ContextoEmMemoria> {
+		final String identificador;
+
+		ReferenciaContexto(ContextoEmMemoria contexto) {
+			super(contexto, FILA_DESCARTADOS);
+			identificador = contexto.getIdentificador();
+		}
+	}
+
+	private MonitoresJMX() {
+	}
+
+	/**
+	 * Retorna o nome JMX do monitor deste contexto.
+	 */
+	public static ObjectName getNome(ContextoEmMemoria contexto) throws JMException {
+		return new ObjectName(DOMINIO + ":type=Contexto,contexto=" + contexto.getIdentificador());
+	}
+
+	/**
+	 * Retorna o nome JMX do monitor deste cache, mantido neste contexto.
+	 */
+	public static ObjectName getNome(ContextoEmMemoria contexto, Cache<?, ?> cache) throws JMException {
+		return new ObjectName(DOMINIO + ":type=Cache,contexto=" + contexto.getIdentificador() + ",nome=" + cache.getClass().getName());
+	}
+
+	/**
+	 * Registra os monitores deste cache e, se ainda não existir, deste contexto.
+	 *
+	 * @param contexto contexto onde o cache é mantido
+	 * @param cache    cache
+	 */
+	public static void registrar(ContextoEmMemoria contexto, Cache<?, ?> cache) {
+		removerDescartados();
+		MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+		try {
+			ObjectName nomeContexto = getNome(contexto);
+			if (!servidor.isRegistered(nomeContexto)) {
+				servidor.registerMBean(new MonitorContexto(contexto), nomeContexto);
+				ST_REFERENCIAS.add(new ReferenciaContexto(contexto));
+			}
+			ObjectName nomeCache = getNome(contexto, cache);
+			if (!servidor.isRegistered(nomeCache)) {
+				servidor.registerMBean(new MonitorCache(cache), nomeCache);
+			}
+		} catch (JMException | SecurityException e) {
+			LOGGER.warn("erro registrando monitor JMX: " + cache.getClass().getName(), e);
+		}
+	}
+
+	/**
+	 * Remove os monitores deste contexto e de todos os seus caches.
+	 *
+	 * @param contexto contexto
+	 */
+	public static void remover(ContextoEmMemoria contexto) {
+		for (ReferenciaContexto referencia : ST_REFERENCIAS) {
+			if (referencia.get() == contexto) {
+				ST_REFERENCIAS.remove(referencia);
+			}
+		}
+		remover(contexto.getIdentificador());
+	}
+
+	/**
+	 * Remove o monitor deste cache, mantido neste contexto.
+	 *
+	 * @param contexto contexto onde o cache era mantido
+	 * @param cache    cache
+	 */
+	public static void remover(ContextoEmMemoria contexto, Cache<?, ?> cache) {
+		MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+		try {
+			ObjectName nomeCache = getNome(contexto, cache);
+			if (servidor.isRegistered(nomeCache)) {
+				servidor.unregisterMBean(nomeCache);
+			}
+		} catch (JMException | SecurityException e) {
+			LOGGER.warn("erro removendo monitor JMX: " + cache.getClass().getName(), e);
+		}
+	}
+
+	private static void removerDescartados() {
+		Reference<? extends ContextoEmMemoria> referencia;
+		while ((referencia = FILA_DESCARTADOS.poll()) != null) {
+			if (ST_REFERENCIAS.remove(referencia)) {
+				remover(((ReferenciaContexto) referencia).identificador);
+			}
+		}
+	}
+
+	private static void remover(String identificador) {
+		MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+		try {
+			ObjectName padrao = new ObjectName(DOMINIO + ":contexto=" + identificador + ",*");
+			for (ObjectName nome : servidor.queryNames(padrao, null)) {
+				servidor.unregisterMBean(nome);
+			}
+		} catch (JMException | SecurityException e) {
+			LOGGER.warn("erro removendo monitores JMX: " + identificador, e);
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package meyn.util.cache;
+
+/**
+ * Define a política usada por um {@link meyn.util.Cache cache} limitado para
+ * escolher as entradas a serem expulsas quando o limite de entradas ou de peso
+ * for ultrapassado. As implementações não precisam ser <i>thread-safe</i>: o
+ * {@link ControleExpulsao controle de expulsão} garante que os métodos da
+ * política sejam chamados por uma única <i>thread</i> de cada vez.
+ * <p>
+ * Os métodos de registro podem receber chaves desconhecidas pela política
+ * (chaves já expulsas ou removidas por outras vias), que devem ser ignoradas.
+ *
+ * @param <TipoChave> tipo das chaves do cache
+ *
+ * @see PoliticaLRU
+ * @see PoliticaTinyLFU
+ */
+public interface PoliticaExpulsao<TipoChave> {
+	/**
+	 * Registra a inclusão desta chave no cache.
+	 *
+	 * @param chave chave incluída
+	 */
+	void registrarInclusao(TipoChave chave);
+
+	/**
+	 * Registra um acesso (leitura ou alteração) a esta chave.
+	 *
+	 * @param chave chave acessada
+	 */
+	void registrarAcesso(TipoChave chave);
+
+	/**
+	 * Registra a remoção desta chave do cache.
+	 *
+	 * @param chave chave removida
+	 */
+	void registrarRemocao(TipoChave chave);
+
+	/**
+	 * Escolhe a próxima chave a ser expulsa do cache, deixando de acompanhá-la.
+	 *
+	 * @return chave a ser expulsa ou <tt>null</tt> se a política não acompanha
+	 *         nenhuma chave
+	 */
+	TipoChave selecionarVitima();
+
+	/**
+	 * Descarta todas as chaves acompanhadas pela política.
+	 */
+	void limpar();
+}
@@ -0,0 +1,46 @@
+package meyn.util.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Política de expulsão LRU (<i>least recently used</i>): expulsa a chave
+ * acessada há mais tempo.
+ *
+ * @param <TipoChave> tipo das chaves do cache
+ */
+public class PoliticaLRU<TipoChave> implements PoliticaExpulsao<TipoChave> {
+
+	private final LinkedHashMap<TipoChave, Boolean> mpOrdemAcesso = new LinkedHashMap<TipoChave, Boolean>(16, 0.75f, true);
+
+	@Override
+	public void registrarInclusao(TipoChave chave) {
+		mpOrdemAcesso.put(chave, Boolean.TRUE);
+	}
+
+	@Override
+	public void registrarAcesso(TipoChave chave) {
+		mpOrdemAcesso.get(chave);
+	}
+
+	@Override
+	public void registrarRemocao(TipoChave chave) {
+		mpOrdemAcesso.remove(chave);
+	}
+
+	@Override
+	public TipoChave selecionarVitima() {
+		Iterator<TipoChave> iter = mpOrdemAcesso.keySet().iterator();
+		if (!iter.hasNext()) {
+			return null;
+		}
+		TipoChave vitima = iter.next();
+		iter.remove();
+		return vitima;
+	}
+
+	@Override
+	public void limpar() {
+		mpOrdemAcesso.clear();
+	}
+}
@@ -0,0 +1,213 @@
+package meyn.util.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Política de expulsão W-TinyLFU. As chaves novas entram numa pequena janela
+ * LRU (1% das chaves); ao sair da janela, a chave só é admitida na área
+ * principal se sua frequência estimada de acesso for maior que a da chave que
+ * seria expulsa em seu lugar. A área principal é dividida em um segmento de
+ * experiência e um segmento protegido (80% da área principal), para onde vão
+ * as chaves acessadas mais de uma vez. Desta forma, varreduras e acessos
+ * esporádicos não expulsam as chaves mais usadas.
+ *
+ * @param <TipoChave> tipo das chaves do cache
+ */
+public class PoliticaTinyLFU<TipoChave> implements PoliticaExpulsao<TipoChave> {
+
+	private static final byte JANELA = 0;
+	private static final byte EXPERIENCIA = 1;
+	private static final byte PROTEGIDO = 2;
+
+	private static final class No<TipoChave> {
+		final TipoChave chave;
+		byte segmento;
+		No<TipoChave> anterior;
+		No<TipoChave> proximo;
+
+		No(TipoChave chave) {
+			this.chave = chave;
+		}
+	}
+
+	/**
+	 * Lista duplamente encadeada dos nós de um segmento, do mais antigo para o
+	 * mais recente.
+	 */
+	private static final class Segmento<TipoChave> {
+		final byte id;
+		No<TipoChave> primeiro;
+		No<TipoChave> ultimo;
+		int tamanho;
+
+		Segmento(byte id) {
+			this.id = id;
+		}
+
+		void incluir(No<TipoChave> no) {
+			no.segmento = id;
+			no.anterior = ultimo;
+			no.proximo = null;
+			if (ultimo == null) {
+				primeiro = no;
+			} else {
+				ultimo.proximo = no;
+			}
+			ultimo = no;
+			tamanho++;
+		}
+
+		void remover(No<TipoChave> no) {
+			if (no.anterior == null) {
+				primeiro = no.proximo;
+			} else {
+				no.anterior.proximo = no.proximo;
+			}
+			if (no.proximo == null) {
+				ultimo = no.anterior;
+			} else {
+				no.proximo.anterior = no.anterior;
+			}
+			no.anterior = null;
+			no.proximo = null;
+			tamanho--;
+		}
+
+		void moverParaFim(No<TipoChave> no) {
+			if (no != ultimo) {
+				remover(no);
+				incluir(no);
+			}
+		}
+
+		No<TipoChave> removerPrimeiro() {
+			No<TipoChave> no = primeiro;
+			if (no != null) {
+				remover(no);
+			}
+			return no;
+		}
+
+		void limpar() {
+			primeiro = null;
+			ultimo = null;
+			tamanho = 0;
+		}
+	}
+
+	private final SketchFrequencia sketch;
+	private final Map<TipoChave, No<TipoChave>> mpNos = new HashMap<TipoChave, No<TipoChave>>();
+	private final Segmento<TipoChave> janela = new Segmento<TipoChave>(JANELA);
+	private final Segmento<TipoChave> experiencia = new Segmento<TipoChave>(EXPERIENCIA);
+	private final Segmento<TipoChave> protegido = new Segmento<TipoChave>(PROTEGIDO);
+
+	/**
+	 * Cria a política dimensionando a estimativa de frequências para esta
+	 * quantidade de chaves. A estimativa cresce se o cache passar a ter mais
+	 * chaves, como ocorre nos caches limitados apenas pelo peso.
+	 *
+	 * @param capacidade número esperado de chaves no cache, ou zero se não é
+	 *                   conhecido
+	 */
+	public PoliticaTinyLFU(long capacidade) {
+		sketch = new SketchFrequencia(capacidade);
+	}
+
+	private Segmento<TipoChave> getSegmento(No<TipoChave> no) {
+		return no.segmento == JANELA ? janela : no.segmento == EXPERIENCIA ? experiencia : protegido;
+	}
+
+	@Override
+	public void registrarInclusao(TipoChave chave) {
+		sketch.incrementar(chave);
+		No<TipoChave> no = mpNos.get(chave);
+		if (no == null) {
+			no = new No<TipoChave>(chave);
+			mpNos.put(chave, no);
+			if (mpNos.size() > sketch.getCapacidade()) {
+				sketch.garantirCapacidade(2L * mpNos.size());
+			}
+		} else {
+			getSegmento(no).remover(no);
+		}
+		janela.incluir(no);
+	}
+
+	@Override
+	public void registrarAcesso(TipoChave chave) {
+		sketch.incrementar(chave);
+		No<TipoChave> no = mpNos.get(chave);
+		if (no == null) {
+			return;
+		}
+		if (no.segmento != EXPERIENCIA) {
+			getSegmento(no).moverParaFim(no);
+			return;
+		}
+		experiencia.remover(no);
+		protegido.incluir(no);
+		int maxProtegido = (int) ((experiencia.tamanho + protegido.tamanho) * 0.8);
+		while (protegido.tamanho > maxProtegido) {
+			experiencia.incluir(protegido.removerPrimeiro());
+		}
+	}
+
+	@Override
+	public void registrarRemocao(TipoChave chave) {
+		No<TipoChave> no = mpNos.remove(chave);
+		if (no != null) {
+			getSegmento(no).remover(no);
+		}
+	}
+
+	/**
+	 * Seleciona a chave a ser expulsa. O excesso da janela é sempre transferido
+	 * para o segmento de experiência, de modo que a janela volte ao seu tamanho
+	 * alvo; a chave mais recente vinda da janela disputa então a permanência com a
+	 * mais antiga do segmento de experiência, e a de menor frequência estimada é
+	 * expulsa.
+	 */
+	@Override
+	public TipoChave selecionarVitima() {
+		int maxJanela = Math.max(1, mpNos.size() / 100);
+		No<TipoChave> candidata = null;
+		while (janela.tamanho > maxJanela) {
+			candidata = janela.removerPrimeiro();
+			experiencia.incluir(candidata);
+		}
+		if (candidata != null) {
+			// com o segmento de experiência contendo só a candidata, a disputa é com o protegido
+			No<TipoChave> adversaria = experiencia.primeiro != candidata ? experiencia.primeiro : protegido.primeiro;
+			if (adversaria != null) {
+				if (sketch.getFrequencia(candidata.chave) > sketch.getFrequencia(adversaria.chave)) {
+					getSegmento(adversaria).remover(adversaria);
+					return expulsar(adversaria);
+				}
+				experiencia.remover(candidata);
+				return expulsar(candidata);
+			}
+		}
+		No<TipoChave> vitima = experiencia.removerPrimeiro();
+		if (vitima == null) {
+			vitima = protegido.removerPrimeiro();
+		}
+		if (vitima == null) {
+			vitima = janela.removerPrimeiro();
+		}
+		return vitima != null ? expulsar(vitima) : null;
+	}
+
+	private TipoChave expulsar(No<TipoChave> no) {
+		mpNos.remove(no.chave);
+		return no.chave;
+	}
+
+	@Override
+	public void limpar() {
+		mpNos.clear();
+		janela.limpar();
+		experiencia.limpar();
+		protegido.limpar();
+	}
+}
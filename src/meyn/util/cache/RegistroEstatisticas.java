@@ -0,0 +1,74 @@
+package meyn.util.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registra as estatísticas de uso de um {@link meyn.util.Cache cache} em
+ * contadores divididos em faixas ({@link LongAdder}), de modo que o registro
+ * concorrente não gere disputa entre as <i>threads</i>.
+ */
+public final class RegistroEstatisticas {
+
+	private final LongAdder acertos = new LongAdder();
+	private final LongAdder faltas = new LongAdder();
+	private final LongAdder cargasSucesso = new LongAdder();
+	private final LongAdder cargasFalha = new LongAdder();
+	private final LongAdder tempoTotalCarga = new LongAdder();
+	private final LongAdder expulsoes = new LongAdder();
+	private final LongAdder transbordos = new LongAdder();
+	private final LongAdder promocoes = new LongAdder();
+
+	public void registrarAcerto() {
+		acertos.increment();
+	}
+
+	public void registrarFalta() {
+		faltas.increment();
+	}
+
+	/**
+	 * Registra uma carga bem sucedida que durou este tempo, em nanossegundos.
+	 */
+	public void registrarCargaSucesso(long tempo) {
+		cargasSucesso.increment();
+		tempoTotalCarga.add(tempo);
+	}
+
+	/**
+	 * Registra uma carga mal sucedida que durou este tempo, em nanossegundos.
+	 */
+	public void registrarCargaFalha(long tempo) {
+		cargasFalha.increment();
+		tempoTotalCarga.add(tempo);
+	}
+
+	public void registrarExpulsao() {
+		expulsoes.increment();
+	}
+
+	/**
+	 * Registra uma entrada que transbordou para a {@link CamadaForaHeap camada
+	 * fora do heap}.
+	 */
+	public void registrarTransbordo() {
+		transbordos.increment();
+	}
+
+	/**
+	 * Registra uma entrada promovida da {@link CamadaForaHeap camada fora do
+	 * heap} de volta ao cache.
+	 */
+	public void registrarPromocao() {
+		promocoes.increment();
+	}
+
+	/**
+	 * Retorna um retrato das estatísticas registradas até o momento.
+	 *
+	 * @return estatísticas do cache
+	 */
+	public EstatisticasCache getEstatisticas() {
+		return new EstatisticasCache(acertos.sum(), faltas.sum(), cargasSucesso.sum(), cargasFalha.sum(), tempoTotalCarga.sum(),
+		        expulsoes.sum(), transbordos.sum(), promocoes.sum());
+	}
+}
@@ -0,0 +1,114 @@
+package meyn.util.cache;
+
+/**
+ * Estimativa aproximada da frequência de acesso às chaves (<i>count-min
+ * sketch</i>) com contadores de 4 bits. Os quatro contadores de uma chave ficam
+ * num mesmo bloco de 64 bytes da tabela, de modo que cada operação acesse uma
+ * única linha de cache do processador. Periodicamente todos os contadores são
+ * divididos pela metade, de modo que a estimativa reflita os acessos recentes.
+ * A tabela cresce conforme o número de chaves acompanhadas, até 2<sup>24</sup>
+ * contadores. Não é <i>thread-safe</i>.
+ */
+final class SketchFrequencia {
+
+	private static final long SEMENTE = 0x9e3779b97f4a7c15L;
+	private static final long MASCARA_METADE = 0x7777777777777777L;
+
+	private static final int TAMANHO_MAXIMO = 1 << 24;
+
+	private long[] tabela;
+	private int mascara;
+	private int limiteAmostras;
+	private int amostras;
+
+	SketchFrequencia(long capacidade) {
+		dimensionar(getTamanho(capacidade));
+	}
+
+	private static int getTamanho(long capacidade) {
+		return Integer.highestOneBit((int) Math.max(16, Math.min(capacidade, TAMANHO_MAXIMO)) - 1) << 1;
+	}
+
+	private void dimensionar(int tamanho) {
+		tabela = new long[tamanho];
+		// índice do primeiro long de cada bloco de 8 longs (64 bytes)
+		mascara = (tamanho - 1) & ~7;
+		limiteAmostras = 10 * tamanho;
+		amostras = 0;
+	}
+
+	/**
+	 * Aumenta a tabela, se necessário, para acompanhar esta quantidade de chaves.
+	 * As frequências estimadas até então são descartadas.
+	 */
+	void garantirCapacidade(long capacidade) {
+		int tamanho = getTamanho(capacidade);
+		if (tamanho > tabela.length) {
+			dimensionar(tamanho);
+		}
+	}
+
+	/**
+	 * Retorna a quantidade de chaves para a qual a tabela está dimensionada.
+	 */
+	int getCapacidade() {
+		return tabela.length < TAMANHO_MAXIMO ? tabela.length : Integer.MAX_VALUE;
+	}
+
+	private static int espalhar(int hash) {
+		hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+		return (hash >>> 16) ^ hash;
+	}
+
+	private int getBloco(int hash) {
+		long h = (hash + SEMENTE) * SEMENTE;
+		h += h >>> 32;
+		return (int) h & mascara;
+	}
+
+	private static int indice(int bloco, int hash, int i) {
+		// cada contador da chave fica em um par distinto de longs do bloco
+		return bloco + (i << 1) + ((hash >>> (16 + i)) & 1);
+	}
+
+	/**
+	 * Retorna a frequência estimada (entre 0 e 15) desta chave.
+	 */
+	int getFrequencia(Object chave) {
+		int hash = espalhar(chave.hashCode());
+		int bloco = getBloco(hash);
+		int freq = 15;
+		for (int i = 0; i < 4; i++) {
+			int desloc = ((hash >>> (i << 2)) & 15) << 2;
+			freq = Math.min(freq, (int) ((tabela[indice(bloco, hash, i)] >>> desloc) & 15L));
+		}
+		return freq;
+	}
+
+	/**
+	 * Incrementa a frequência estimada desta chave.
+	 */
+	void incrementar(Object chave) {
+		int hash = espalhar(chave.hashCode());
+		int bloco = getBloco(hash);
+		boolean incrementado = false;
+		for (int i = 0; i < 4; i++) {
+			int pos = indice(bloco, hash, i);
+			int desloc = ((hash >>> (i << 2)) & 15) << 2;
+			if (((tabela[pos] >>> desloc) & 15L) != 15L) {
+				tabela[pos] += 1L << desloc;
+				incrementado = true;
+			}
+		}
+		if (incrementado && ++amostras >= limiteAmostras) {
+			envelhecer();
+		}
+	}
+
+	private void envelhecer() {
+		for (int i = 0; i < tabela.length; i++) {
+			tabela[i] = (tabela[i] >>> 1) & MASCARA_METADE;
+		}
+		amostras >>>= 1;
+	}
+}
@@ -0,0 +1,35 @@
+package meyn.util.cache;
+
+/**
+ * Políticas de expulsão disponíveis para os caches limitados.
+ */
+public enum TipoPoliticaExpulsao {
+	/**
+	 * Ver {@link PoliticaLRU PoliticaLRU}.
+	 */
+	LRU {
+		@Override
+		public <TipoChave> PoliticaExpulsao<TipoChave> criar(long capacidade) {
+			return new PoliticaLRU<TipoChave>();
+		}
+	},
+	/**
+	 * Ver {@link PoliticaTinyLFU PoliticaTinyLFU}.
+	 */
+	TINY_LFU {
+		@Override
+		public <TipoChave> PoliticaExpulsao<TipoChave> criar(long capacidade) {
+			return new PoliticaTinyLFU<TipoChave>(capacidade);
+		}
+	};
+
+	/**
+	 * Cria uma instância da política dimensionada para esta capacidade.
+	 *
+	 * @param capacidade número esperado de chaves no cache, ou zero se não é
+	 *                   conhecido
+	 *
+	 * @return política de expulsão
+	 */
+	public abstract <TipoChave> PoliticaExpulsao<TipoChave> criar(long capacidade);
+}
@@ -1,150 +1,520 @@
-package meyn.util.contexto;
-
-import java.util.Collection;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-
-/**
- * Contexto de execuo de uma aplicao. Mltiplos contextos podem ser criados
- * e associados a chaves genricas. A chave identifica unicamente uma instncia
- * de contexto <b>no escopo do <i>class loader</i> desta classe</b>. O contexto
- * em si  um conjunto arbitrrio de vnculos entre chaves <tt>String</tt> e
- * objetos.
- * <p>
- * Esta classe  utilizada pela <i>framework</i> para armazenamento e
- * recuperao de objetos de controle internos sem incorrer nos problemas de
- * performance inerentes ao uso do contexto JNDI. Se a <i>framework</i> for
- * carregada como biblioteca pelo <i>class loader</i> de sistema, o espao de
- * chaves de contexto  o mesmo para todas as aplicaes. Ainda assim, sero
- * mantidos contextos (espaos de nomes) distintos para os diferentes mdulos
- * das aplicaes JEE disponibilizadas em uma mesma mquina virtual,
- * independentemente da organizao hierrquica dos <i>class loaders</i> do
- * container JEE. Isto  possvel porque as classes da <i>framework</i> fazem
- * chamadas ao mtodo {@link ContextoEmMemoria#getContextoCarregador()
- * getContextoCarregador()}. <b>Este mtodo adota o <i>context class loader</i>
- * como chave de recuperao do contexto</b>, o que garante a existncia de
- * contextos de execuo separados por mdulo de aplicao. Este artifcio no
- * faz diferena quando as classes da <i>framework</i> so carregadas junto com
- * os mdulos das aplicaes.
- */
-@SuppressWarnings("serial")
-public class ContextoEmMemoria extends ConcurrentHashMap<String, Object> {
-
-	private static final Map<String, ContextoEmMemoria> MP_CONTEXTOS = new ConcurrentHashMap<String, ContextoEmMemoria>();
-
-	private static Logger LOGGER = LogManager.getLogger(ContextoEmMemoria.class);
-
-	/**
-	 * Retorna o contexto da aplicao usado pela <i>framework</i>, associado ao
-	 * <i>context class loader</i>.
-	 *
-	 * @return contexto da aplicao associado ao <i>context class loader</i>
-	 */
-	public static ContextoEmMemoria getContextoCarregador() {
-		ClassLoader carregador = Thread.currentThread().getContextClassLoader();
-		if (!isDefinido(carregador.toString())) {
-			try {
-				definir(carregador.toString(), new ContextoEmMemoria());
-			} catch (ErroContextoJaDefinido e) {
-				/*
-				 * Erro pode acontecer por concorrncia. Estratgia  no sincronizar para
-				 * ganhar performance, assumindo que este contexto seja definido uma nica vez
-				 * para a aplicao.
-				 */
-			}
-		}
-		return buscar(carregador.toString());
-	}
-
-	/**
-	 * Testa se um contexto de execuo j foi definido para esta chave.
-	 *
-	 * @param chave chave do contexto
-	 *
-	 * @return <tt>true</tt> se o contexto j foi definido
-	 */
-	public static boolean isDefinido(String chave) {
-		return MP_CONTEXTOS.containsKey(chave);
-	}
-
-	/**
-	 * Recupera o contexto de execuo definido para esta chave.
-	 *
-	 * @param chave chave do contexto
-	 *
-	 * @return contexto de execuo
-	 */
-	public static ContextoEmMemoria buscar(String chave) {
-		if (!isDefinido(chave)) {
-			throw new ErroContextoNaoDefinido(chave.toString());
-		}
-		return MP_CONTEXTOS.get(chave);
-	}
-
-	/**
-	 * Define este contexto de execuo para esta chave.
-	 *
-	 * @param chave    chave do contexto
-	 * @param contexto contexto de execuo
-	 */
-	public static void definir(String chave, ContextoEmMemoria contexto) {
-		if (isDefinido(chave)) {
-			throw new ErroContextoJaDefinido(chave.toString());
-		}
-		MP_CONTEXTOS.put(chave, contexto);
-		LOGGER.debug("inserido: {}, {}", chave, contexto.getClass().getName());
-	}
-
-	/**
-	 * Remove o contexto de execuo definido para esta chave.
-	 *
-	 * @param chave chave do contexto
-	 */
-	public static void remover(String chave) {
-		if (!isDefinido(chave)) {
-			throw new ErroContextoNaoDefinido(chave.toString());
-		}
-		MP_CONTEXTOS.remove(chave);
-		LOGGER.debug("removido: {}", chave);
-	}
-
-	/**
-	 * Redefine o contexto de execuo para esta chave. Se um contexto j havia sido
-	 * definido, o mesmo ser substitudo pelo novo contexto.
-	 *
-	 * @param chave    chave do contexto
-	 * @param contexto contexto de execuo
-	 */
-	public static void redefinir(String chave, ContextoEmMemoria contexto) {
-		MP_CONTEXTOS.put(chave, contexto);
-		LOGGER.debug("redefinido: {}", chave);
-	}
-
-	private static String toString(Map<String, Object> map, String desc) {
-		StringBuffer sb = new StringBuffer();
-		Collection<Entry<String, Object>> itens = map.entrySet();
-		int cont = 1;
-		sb.append("--- INICIO CONTEXTO: ").append(desc).append(" ---\n");
-		for (Entry<?, ?> item : itens) {
-			sb.append("Chave ").append(cont).append(":\n").append(item.getKey()).append("\nValor ").append(cont).append(":\n")
-			        .append(item.getValue()).append("\n");
-			cont++;
-		}
-		sb.append("------ FIM CONTEXTO: ").append(desc).append(" ---");
-		return sb.toString();
-	}
-
-	private final Logger logger = LogManager.getLogger(getClass().getName());
-
-	protected ContextoEmMemoria() {
-		logger.debug("iniciado");
-	}
-
-	@Override
-	public String toString() {
-		return toString(this, getClass().getName() + '@' + Integer.toHexString(hashCode()));
-	}
-}
+package meyn.util.contexto;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import meyn.util.Cache;
+import meyn.util.cache.MonitoresJMX;
+
+/**
+ * Contexto de execução de uma aplicação. Múltiplos contextos podem ser criados
+ * e associados a chaves genéricas. A chave identifica unicamente uma instância
+ * de contexto <b>no escopo do <i>class loader</i> desta classe</b>. O contexto
+ * em si é um conjunto arbitrário de vínculos entre chaves <tt>String</tt> e
+ * objetos.
+ * <p>
+ * Esta classe é utilizada pela <i>framework</i> para armazenamento e
+ * recuperação de objetos de controle internos sem incorrer nos problemas de
+ * performance inerentes ao uso do contexto JNDI. Se a <i>framework</i> for
+ * carregada como biblioteca pelo <i>class loader</i> de sistema, o espaço de
+ * chaves de contexto é o mesmo para todas as aplicações. Ainda assim, serão
+ * mantidos contextos (espaços de nomes) distintos para os diferentes módulos
+ * das aplicações JEE disponibilizadas em uma mesma máquina virtual,
+ * independentemente da organização hierárquica dos <i>class loaders</i> do
+ * container JEE. Isto é possível porque as classes da <i>framework</i> fazem
+ * chamadas ao método {@link ContextoEmMemoria#getContextoCarregador()
+ * getContextoCarregador()}. <b>Este método adota o <i>context class loader</i>
+ * como chave de recuperação do contexto</b>, o que garante a existência de
+ * contextos de execução separados por módulo de aplicação. Este artifício não
+ * faz diferença quando as classes da <i>framework</i> são carregadas junto com
+ * os módulos das aplicações.
+ * <p>
+ * Os contextos associados aos <i>class loaders</i> não os mantêm em memória:
+ * quando um módulo é descartado (por exemplo, numa reimplantação), o seu
+ * contexto e tudo o que ele guarda são liberados junto com o <i>class
+ * loader</i>, sem necessidade de chamadas a {@link #remover(ClassLoader)
+ * remover}. A exceção são os {@link MonitoresJMX monitores JMX} dos caches,
+ * desligados por padrão: se forem ligados e a <i>framework</i> for carregada
+ * junto com a aplicação, como o <i>MBean server</i> da plataforma os mantém, o
+ * módulo deve chamar {@link #remover(ClassLoader) remover} ao ser descartado,
+ * o que remove os monitores do contexto. Já os contextos associados a chaves <tt>String</tt>
+ * permanecem até serem removidos.
+ */
+@SuppressWarnings("serial")
+public class ContextoEmMemoria extends ConcurrentHashMap<String, Object> {
+
+	private static final Map<String, ContextoEmMemoria> MP_CONTEXTOS = new ConcurrentHashMap<String, ContextoEmMemoria>();
+
+	private static final ClassValue<AtomicReference<ContextoEmMemoria>> CONTEXTOS_CARREGADORES = new ClassValue<AtomicReference<ContextoEmMemoria>>() {
+		@Override
+		protected AtomicReference<ContextoEmMemoria> computeValue(Class<?> tipo) {
+			return new AtomicReference<ContextoEmMemoria>();
+		}
+	};
+
+	/**
+	 * Última referência de contexto obtida por uma <i>thread</i> e o <i>class
+	 * loader</i> correspondente, guardados em referências fracas de um vetor de
+	 * duas posições. O valor usa apenas classes do JDK e as referências são
+	 * fracas para que as <i>threads</i> dos <i>pools</i> do container não retenham
+	 * os <i>class loaders</i> das aplicações descartadas, mesmo quando esta
+	 * classe é carregada junto com a aplicação.
+	 */
+	private static final ThreadLocal<WeakReference<?>[]> REFERENCIA_THREAD = new ThreadLocal<WeakReference<?>[]>();
+
+	private static final AtomicLong PROXIMO_IDENTIFICADOR = new AtomicLong();
+
+	// classes donas das posições de vínculo reservadas, ou null para as posições
+	// permanentes; a posição de uma classe descartada é reaproveitada
+	private static final List<WeakReference<Class<?>>> LS_DONOS_VINCULOS = new ArrayList<WeakReference<Class<?>>>();
+
+	private static Logger LOGGER = LogManager.getLogger(ContextoEmMemoria.class);
+
+	/**
+	 * Retorna o contexto da aplicação usado pela <i>framework</i>, associado ao
+	 * <i>context class loader</i>. Se ainda não existir, o contexto é criado.
+	 *
+	 * @return contexto da aplicação associado ao <i>context class loader</i>
+	 */
+	public static ContextoEmMemoria getContextoCarregador() {
+		ClassLoader carregador = getCarregador();
+		AtomicReference<ContextoEmMemoria> referencia = getReferencia(carregador);
+		ContextoEmMemoria contexto = referencia.get();
+		if (contexto == null) {
+			ContextoEmMemoria novoContexto = new ContextoEmMemoria();
+			if (referencia.compareAndSet(null, novoContexto)) {
+				LOGGER.debug("inserido: {}, {}", carregador, novoContexto.getClass().getName());
+			}
+			contexto = referencia.get();
+		}
+		return contexto;
+	}
+
+	private static ClassLoader getCarregador() {
+		ClassLoader carregador = Thread.currentThread().getContextClassLoader();
+		return carregador != null ? carregador : ClassLoader.getSystemClassLoader();
+	}
+
+	/**
+	 * Retorna a referência ao contexto associado a este <i>class loader</i>. A
+	 * referência é guardada como valor de uma classe definida pelo próprio
+	 * <i>class loader</i> (uma classe <i>proxy</i>), de forma que a associação
+	 * não impede o descarte do <i>class loader</i>, mesmo que o contexto guarde
+	 * objetos das suas classes.
+	 */
+	@SuppressWarnings("deprecation")
+	private static AtomicReference<ContextoEmMemoria> getReferencia(ClassLoader carregador) {
+		// caminho rápido: a thread continua no mesmo class loader da última busca
+		WeakReference<?>[] ultima = REFERENCIA_THREAD.get();
+		if (ultima != null && ultima[0].get() == carregador) {
+			@SuppressWarnings("unchecked")
+			AtomicReference<ContextoEmMemoria> referencia = (AtomicReference<ContextoEmMemoria>) ultima[1].get();
+			if (referencia != null) {
+				return referencia;
+			}
+		}
+		AtomicReference<ContextoEmMemoria> referencia = CONTEXTOS_CARREGADORES.get(Proxy.getProxyClass(carregador, Runnable.class));
+		REFERENCIA_THREAD.set(new WeakReference<?>[] { new WeakReference<ClassLoader>(carregador),
+		        new WeakReference<AtomicReference<ContextoEmMemoria>>(referencia) });
+		return referencia;
+	}
+
+	/**
+	 * Testa se um contexto de execução já foi definido para este <i>class
+	 * loader</i>.
+	 *
+	 * @param carregador <i>class loader</i>
+	 *
+	 * @return <tt>true</tt> se o contexto já foi definido
+	 */
+	public static boolean isDefinido(ClassLoader carregador) {
+		return getReferencia(carregador).get() != null;
+	}
+
+	/**
+	 * Recupera o contexto de execução definido para este <i>class loader</i>.
+	 *
+	 * @param carregador <i>class loader</i>
+	 *
+	 * @return contexto de execução
+	 */
+	public static ContextoEmMemoria buscar(ClassLoader carregador) {
+		ContextoEmMemoria contexto = getReferencia(carregador).get();
+		if (contexto == null) {
+			throw new ErroContextoNaoDefinido(carregador.toString());
+		}
+		return contexto;
+	}
+
+	/**
+	 * Define este contexto de execução para este <i>class loader</i>.
+	 *
+	 * @param carregador <i>class loader</i>
+	 * @param contexto   contexto de execução
+	 */
+	public static void definir(ClassLoader carregador, ContextoEmMemoria contexto) {
+		if (!getReferencia(carregador).compareAndSet(null, contexto)) {
+			throw new ErroContextoJaDefinido(carregador.toString());
+		}
+		LOGGER.debug("inserido: {}, {}", carregador, contexto.getClass().getName());
+	}
+
+	/**
+	 * Remove o contexto de execução definido para este <i>class loader</i>. Não é
+	 * necessário chamar este método quando a aplicação é descartada: o contexto
+	 * é liberado junto com o <i>class loader</i>.
+	 *
+	 * @param carregador <i>class loader</i>
+	 */
+	public static void remover(ClassLoader carregador) {
+		ContextoEmMemoria contexto = getReferencia(carregador).getAndSet(null);
+		if (contexto == null) {
+			throw new ErroContextoNaoDefinido(carregador.toString());
+		}
+		MonitoresJMX.remover(contexto);
+		LOGGER.debug("removido: {}", carregador);
+	}
+
+	/**
+	 * Redefine o contexto de execução para este <i>class loader</i>. Se um
+	 * contexto já havia sido definido, o mesmo será substituído pelo novo
+	 * contexto.
+	 *
+	 * @param carregador <i>class loader</i>
+	 * @param contexto   contexto de execução
+	 */
+	public static void redefinir(ClassLoader carregador, ContextoEmMemoria contexto) {
+		ContextoEmMemoria anterior = getReferencia(carregador).getAndSet(contexto);
+		if (anterior != null && anterior != contexto) {
+			MonitoresJMX.remover(anterior);
+		}
+		LOGGER.debug("redefinido: {}", carregador);
+	}
+
+	/**
+	 * Testa se um contexto de execução já foi definido para esta chave.
+	 *
+	 * @param chave chave do contexto
+	 *
+	 * @return <tt>true</tt> se o contexto já foi definido
+	 */
+	public static boolean isDefinido(String chave) {
+		return MP_CONTEXTOS.containsKey(chave);
+	}
+
+	/**
+	 * Recupera o contexto de execução definido para esta chave.
+	 *
+	 * @param chave chave do contexto
+	 *
+	 * @return contexto de execução
+	 */
+	public static ContextoEmMemoria buscar(String chave) {
+		ContextoEmMemoria contexto = MP_CONTEXTOS.get(chave);
+		if (contexto == null) {
+			throw new ErroContextoNaoDefinido(chave.toString());
+		}
+		return contexto;
+	}
+
+	/**
+	 * Define este contexto de execução para esta chave.
+	 *
+	 * @param chave    chave do contexto
+	 * @param contexto contexto de execução
+	 */
+	public static void definir(String chave, ContextoEmMemoria contexto) {
+		if (MP_CONTEXTOS.putIfAbsent(chave, contexto) != null) {
+			throw new ErroContextoJaDefinido(chave.toString());
+		}
+		LOGGER.debug("inserido: {}, {}", chave, contexto.getClass().getName());
+	}
+
+	/**
+	 * Remove o contexto de execução definido para esta chave.
+	 *
+	 * @param chave chave do contexto
+	 */
+	public static void remover(String chave) {
+		ContextoEmMemoria contexto = MP_CONTEXTOS.remove(chave);
+		if (contexto == null) {
+			throw new ErroContextoNaoDefinido(chave.toString());
+		}
+		MonitoresJMX.remover(contexto);
+		LOGGER.debug("removido: {}", chave);
+	}
+
+	/**
+	 * Redefine o contexto de execução para esta chave. Se um contexto já havia sido
+	 * definido, o mesmo será substituído pelo novo contexto.
+	 *
+	 * @param chave    chave do contexto
+	 * @param contexto contexto de execução
+	 */
+	public static void redefinir(String chave, ContextoEmMemoria contexto) {
+		ContextoEmMemoria anterior = MP_CONTEXTOS.put(chave, contexto);
+		if (anterior != null && anterior != contexto) {
+			MonitoresJMX.remover(anterior);
+		}
+		LOGGER.debug("redefinido: {}", chave);
+	}
+
+	private static String toString(Map<String, Object> map, String desc) {
+		StringBuffer sb = new StringBuffer();
+		Collection<Entry<String, Object>> itens = map.entrySet();
+		int cont = 1;
+		sb.append("--- INICIO CONTEXTO: ").append(desc).append(" ---\n");
+		for (Entry<?, ?> item : itens) {
+			sb.append("Chave ").append(cont).append(":\n").append(item.getKey()).append("\nValor ").append(cont).append(":\n")
+			        .append(item.getValue()).append("\n");
+			cont++;
+		}
+		sb.append("------ FIM CONTEXTO: ").append(desc).append(" ---");
+		return sb.toString();
+	}
+
+	private final Logger logger = LogManager.getLogger(getClass().getName());
+
+	// cópia na escrita: as escritas são raras e as leituras não usam travas
+	private volatile Object[] vinculosIndexados = new Object[0];
+
+	private final long identificador = PROXIMO_IDENTIFICADOR.incrementAndGet();
+
+	protected ContextoEmMemoria() {
+		logger.debug("iniciado");
+	}
+
+	/**
+	 * Reserva uma posição de vínculo indexado permanente, válida em todos os
+	 * contextos. As posições devem ser reservadas uma única vez, tipicamente em
+	 * constantes.
+	 *
+	 * @return posição reservada
+	 *
+	 * @see #reservarVinculoIndexado(Class)
+	 */
+	public static int reservarVinculoIndexado() {
+		return reservarVinculoIndexado(null);
+	}
+
+	/**
+	 * Reserva uma posição de vínculo indexado para esta classe, válida em todos
+	 * os contextos enquanto a classe existir. Quando a classe é descartada junto
+	 * com o seu <i>class loader</i> (por exemplo, numa reimplantação), a posição
+	 * é reaproveitada na próxima reserva, de modo que as posições não crescem a
+	 * cada reimplantação. Ao reaproveitar a posição, ela é esvaziada nos
+	 * contextos associados a chaves <tt>String</tt>; os contextos associados aos
+	 * <i>class loaders</i> descartados já foram liberados.
+	 *
+	 * @param dono classe dona da posição ou <tt>null</tt> para uma posição
+	 *             permanente
+	 *
+	 * @return posição reservada
+	 */
+	public static int reservarVinculoIndexado(Class<?> dono) {
+		synchronized (LS_DONOS_VINCULOS) {
+			if (dono != null) {
+				for (int i = 0; i < LS_DONOS_VINCULOS.size(); i++) {
+					WeakReference<Class<?>> donoAnterior = LS_DONOS_VINCULOS.get(i);
+					if (donoAnterior != null && donoAnterior.get() == null) {
+						LS_DONOS_VINCULOS.set(i, new WeakReference<Class<?>>(dono));
+						for (ContextoEmMemoria contexto : MP_CONTEXTOS.values()) {
+							contexto.setVinculoIndexado(i, null);
+						}
+						return i;
+					}
+				}
+			}
+			LS_DONOS_VINCULOS.add(dono != null ? new WeakReference<Class<?>>(dono) : null);
+			return LS_DONOS_VINCULOS.size() - 1;
+		}
+	}
+
+	/**
+	 * Retorna o objeto vinculado a esta posição do contexto. As posições são um
+	 * atalho para objetos também guardados sob chaves <tt>String</tt>, obtido
+	 * sem cálculo de <i>hash</i> (ver {@link meyn.util.ChaveCache ChaveCache}).
+	 *
+	 * @param indice posição do vínculo
+	 *
+	 * @return objeto vinculado ou <tt>null</tt> se a posição estiver vazia
+	 */
+	public Object getVinculoIndexado(int indice) {
+		Object[] vinculos = vinculosIndexados;
+		return indice < vinculos.length ? vinculos[indice] : null;
+	}
+
+	/**
+	 * Vincula este objeto a esta posição do contexto.
+	 *
+	 * @param indice posição do vínculo
+	 * @param valor  objeto vinculado ou <tt>null</tt> para esvaziar a posição
+	 */
+	public synchronized void setVinculoIndexado(int indice, Object valor) {
+		Object[] vinculos = Arrays.copyOf(vinculosIndexados, Math.max(vinculosIndexados.length, indice + 1));
+		vinculos[indice] = valor;
+		vinculosIndexados = vinculos;
+	}
+
+	private synchronized void removerVinculosIndexados(Object valor) {
+		Object[] vinculos = vinculosIndexados.clone();
+		for (int i = 0; i < vinculos.length; i++) {
+			if (vinculos[i] == valor) {
+				vinculos[i] = null;
+			}
+		}
+		vinculosIndexados = vinculos;
+	}
+
+	/**
+	 * Esvazia as posições que apontam para um valor substituído ou removido. As
+	 * remoções feitas pelos iteradores das visões do mapa não esvaziam as
+	 * posições.
+	 */
+	private void liberar(Object anterior, Object valor) {
+		if (anterior != null && anterior != valor) {
+			removerVinculosIndexados(anterior);
+			if (anterior instanceof Cache) {
+				// o MBean server mantém o monitor, que não deve sobreviver ao cache
+				MonitoresJMX.remover(this, (Cache<?, ?>) anterior);
+			}
+		}
+	}
+
+	@Override
+	public Object put(String chave, Object valor) {
+		Object anterior = super.put(chave, valor);
+		liberar(anterior, valor);
+		return anterior;
+	}
+
+	@Override
+	public void putAll(Map<? extends String, ? extends Object> mp) {
+		for (Map.Entry<? extends String, ? extends Object> item : mp.entrySet()) {
+			put(item.getKey(), item.getValue());
+		}
+	}
+
+	@Override
+	public Object remove(Object chave) {
+		Object valor = super.remove(chave);
+		liberar(valor, null);
+		return valor;
+	}
+
+	@Override
+	public boolean remove(Object chave, Object valor) {
+		boolean res = super.remove(chave, valor);
+		if (res) {
+			liberar(valor, null);
+		}
+		return res;
+	}
+
+	@Override
+	public Object replace(String chave, Object valor) {
+		Object anterior = super.replace(chave, valor);
+		liberar(anterior, valor);
+		return anterior;
+	}
+
+	@Override
+	public boolean replace(String chave, Object valorAnterior, Object valor) {
+		boolean res = super.replace(chave, valorAnterior, valor);
+		if (res) {
+			liberar(valorAnterior, valor);
+		}
+		return res;
+	}
+
+	@Override
+	public Object compute(String chave, BiFunction<? super String, ? super Object, ? extends Object> funcao) {
+		Object[] anterior = new Object[1];
+		Object valor = super.compute(chave, (k, v) -> {
+			anterior[0] = v;
+			return funcao.apply(k, v);
+		});
+		liberar(anterior[0], valor);
+		return valor;
+	}
+
+	@Override
+	public Object computeIfPresent(String chave, BiFunction<? super String, ? super Object, ? extends Object> funcao) {
+		Object[] anterior = new Object[1];
+		Object valor = super.computeIfPresent(chave, (k, v) -> {
+			anterior[0] = v;
+			return funcao.apply(k, v);
+		});
+		liberar(anterior[0], valor);
+		return valor;
+	}
+
+	@Override
+	public Object merge(String chave, Object valor, BiFunction<? super Object, ? super Object, ? extends Object> funcao) {
+		Object[] anterior = new Object[1];
+		Object res = super.merge(chave, valor, (v, novo) -> {
+			anterior[0] = v;
+			return funcao.apply(v, novo);
+		});
+		liberar(anterior[0], res);
+		return res;
+	}
+
+	@Override
+	public void replaceAll(BiFunction<? super String, ? super Object, ? extends Object> funcao) {
+		List<Object> lsAnteriores = new ArrayList<Object>();
+		super.replaceAll((k, v) -> {
+			Object valor = funcao.apply(k, v);
+			if (valor != v) {
+				// pode incluir valores de tentativas repetidas, o que apenas esvazia mais
+				// posições do que o necessário
+				synchronized (lsAnteriores) {
+					lsAnteriores.add(v);
+				}
+			}
+			return valor;
+		});
+		for (Object anterior : lsAnteriores) {
+			liberar(anterior, null);
+		}
+	}
+
+	@Override
+	public void clear() {
+		super.clear();
+		synchronized (this) {
+			vinculosIndexados = new Object[0];
+		}
+		MonitoresJMX.remover(this);
+	}
+
+	/**
+	 * Retorna o identificador deste contexto, usado por exemplo nos nomes dos
+	 * monitores JMX dos seus caches. O identificador é sequencial, atribuído na
+	 * criação do contexto e nunca reaproveitado, prefixado pela identidade desta
+	 * classe para distinguir as cópias da <i>framework</i> carregadas por
+	 * aplicações diferentes.
+	 *
+	 * @return identificador do contexto
+	 */
+	public String getIdentificador() {
+		return Integer.toHexString(System.identityHashCode(ContextoEmMemoria.class)) + '-' + identificador;
+	}
+
+	@Override
+	public String toString() {
+		return toString(this, getClass().getName() + '@' + Integer.toHexString(hashCode()));
+	}
+}
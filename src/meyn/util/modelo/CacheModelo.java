@@ -1,22 +1,31 @@
-package meyn.util.modelo;
-
-import meyn.util.*;
-
-/**
- * Cache de objetos da camada dos modelos. O cache  mantido no contexto da
- * aplicao JEE, vinculado ao nome desta classe.  garantida a existncia de
- * <b>um nico cache por <i>class loader</i></b>.
- * 
- * @see meyn.util.contexto.ContextoEmMemoria
- */
-@SuppressWarnings("serial")
-public class CacheModelo extends Cache<Object, Object> {
-	/**
-	 * Retorna o cache de objetos da camada dos modelos.
-	 *
-	 * @return cache da camada dos modelos
-	 */
-	public final static CacheModelo getCacheModelo() {
-		return (CacheModelo) getCache(CacheModelo.class);
-	}
-}
+package meyn.util.modelo;
+
+import meyn.util.*;
+
+/**
+ * Cache de objetos da camada dos modelos. O cache é mantido no contexto da
+ * aplicação JEE, vinculado ao nome desta classe. É garantida a existência de
+ * <b>um único cache por <i>class loader</i></b>.
+ * <p>
+ * Em aplicações com muitas entidades em cache, o cache pode ser limitado e as
+ * entidades excedentes mantidas serializadas fora do <i>heap</i>, através das
+ * propriedades de sistema <tt>meyn.util.modelo.CacheModelo.maximoEntradas</tt>
+ * e <tt>meyn.util.modelo.CacheModelo.capacidadeForaHeap</tt> (ver
+ * {@link meyn.util.cache.ConfiguracaoCache ConfiguracaoCache}).
+ * 
+ * @see meyn.util.contexto.ContextoEmMemoria
+ */
+@SuppressWarnings("serial")
+public class CacheModelo extends Cache<Object, Object> {
+
+	private static final ChaveCache<CacheModelo> CHAVE = ChaveCache.getChave(CacheModelo.class);
+
+	/**
+	 * Retorna o cache de objetos da camada dos modelos.
+	 *
+	 * @return cache da camada dos modelos
+	 */
+	public final static CacheModelo getCacheModelo() {
+		return CHAVE.getCache();
+	}
+}
@@ -1,44 +1,44 @@
-package meyn.util.modelo;
-
-import javax.naming.*;
-
-/**
- * Suporte para a implementao da fbrica da fachada (<i>pattern Abstract
- * Factory</i>). Esta classe abstrata possui apenas o mtodo
- * <tt>getFabricaFachadaModelo</tt>, que instancia dinamicamente a fbrica da
- * fachada a partir do nome de uma subclasse concreta de
- * <tt>FabricaFachadaModelo</tt> recuperado do contexto da aplicao JEE. O nome
- * da subclasse  buscado no contexto JNDI 'java:comp/env/fsc' usando-se a chave
- * <tt>ChavesModelo.FABRICA_FACHADA</tt>. A instncia da fbrica dever possuir
- * os mtodos de criao de fachada.
- * 
- * @see meyn.util.contexto.ContextoEmMemoria
- */
-public abstract class FabricaFachadaModelo extends FabricaObjetoModelo {
-	protected FabricaFachadaModelo() {
-	}
-
-	/**
-	 * Retorna a fbrica da fachada. A instncia da fbrica  criada dinamicamente a
-	 * partir do nome da classe da fbrica, buscado no contexto da aplicao JEE
-	 * usando-se a chave <tt>ChavesModelo.FABRICA_FACHADA</tt>.
-	 *
-	 * @return fbrica da fachada
-	 *
-	 * @throws ErroModelo se um erro for gerado durante a instanciao da fbrica
-	 */
-	public final static FabricaFachadaModelo getFabricaFachadaModelo() throws ErroModelo {
-		FabricaFachadaModelo fabrica = (FabricaFachadaModelo) getInstanciaEmCache(ChavesModelo.FABRICA_FACHADA);
-		if (fabrica == null) {
-			String classeFachada;
-			try {
-				Context contexto = new InitialContext();
-				classeFachada = (String) contexto.lookup(ChavesModelo.CONTEXTO_JNDI + ChavesModelo.FABRICA_FACHADA);
-			} catch (NamingException e) {
-				throw new ErroModelo("Erro obtendo fbrica da fachada", e);
-			}
-			fabrica = (FabricaFachadaModelo) getInstanciaEmCache(ChavesModelo.FABRICA_FACHADA, classeFachada);
-		}
-		return fabrica;
-	}
-}
+package meyn.util.modelo;
+
+import javax.naming.*;
+
+/**
+ * Suporte para a implementação da fábrica da fachada (<i>pattern Abstract
+ * Factory</i>). Esta classe abstrata possui apenas o método
+ * <tt>getFabricaFachadaModelo</tt>, que instancia dinamicamente a fábrica da
+ * fachada a partir do nome de uma subclasse concreta de
+ * <tt>FabricaFachadaModelo</tt> recuperado do contexto da aplicação JEE. O nome
+ * da subclasse é buscado no contexto JNDI 'java:comp/env/fsc' usando-se a chave
+ * <tt>ChavesModelo.FABRICA_FACHADA</tt>. A instância da fábrica deverá possuir
+ * os métodos de criação de fachada.
+ * 
+ * @see meyn.util.contexto.ContextoEmMemoria
+ */
+public abstract class FabricaFachadaModelo extends FabricaObjetoModelo {
+	protected FabricaFachadaModelo() {
+	}
+
+	/**
+	 * Retorna a fábrica da fachada. A instância da fábrica é criada dinamicamente a
+	 * partir do nome da classe da fábrica, buscado no contexto da aplicação JEE
+	 * usando-se a chave <tt>ChavesModelo.FABRICA_FACHADA</tt>.
+	 *
+	 * @return fábrica da fachada
+	 *
+	 * @throws ErroModelo se um erro for gerado durante a instanciação da fábrica
+	 */
+	public final static FabricaFachadaModelo getFabricaFachadaModelo() throws ErroModelo {
+		FabricaFachadaModelo fabrica = (FabricaFachadaModelo) getInstanciaEmCache(ChavesModelo.FABRICA_FACHADA);
+		if (fabrica == null) {
+			String classeFachada;
+			try {
+				Context contexto = new InitialContext();
+				classeFachada = (String) contexto.lookup(ChavesModelo.CONTEXTO_JNDI + ChavesModelo.FABRICA_FACHADA);
+			} catch (NamingException e) {
+				throw new ErroModelo("Erro obtendo fábrica da fachada", e);
+			}
+			fabrica = (FabricaFachadaModelo) getInstanciaEmCache(ChavesModelo.FABRICA_FACHADA, classeFachada);
+		}
+		return fabrica;
+	}
+}
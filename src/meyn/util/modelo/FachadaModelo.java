@@ -1,151 +1,282 @@
-package meyn.util.modelo;
-
-import java.rmi.*;
-import java.util.*;
-
-import meyn.util.modelo.entidade.*;
-
-/**
- * Define os mtodos genricos de acesso aos modelos que uma fachada deve
- * implementar. Todos os mtodos desta interface declaram
- * <tt>java.rmi.RemoteException</tt> na clusula <tt>throws</tt>, de modo a
- * suportar implementaes remotas. Os mtodos que recebem os dados do usurio
- * logado como parmetro devem ser utilizados quando estes dados forem
- * necessrios para a execuo das operaes. Um exemplo disso  quando <b>os
- * usurios da aplicao so usurios de banco</b>, e portando os dados de
- * login/senha tm de ser repassados para que as conexes possam ser abertas.
- *
- * @see Entidade
- */
-public interface FachadaModelo {
-	/**
-	 * Equivalente a
-	 * {@link FachadaModelo#consultarTodos(meyn.util.modelo.entidade.Entidade,String)
-	 * consultarTodos(null, modelo)}.
-	 */
-	<TipoEnt extends Entidade> Collection<TipoEnt> consultarTodos(String modelo) throws RemoteException, ErroModelo;
-
-	/**
-	 * Para este usurio, consulta todos os itens deste modelo. As entidades
-	 * retornadas devem adotar o molde padro.
-	 *
-	 * @param usuario usuario logado
-	 * @param modelo  modelo a ser consultado
-	 *
-	 * @return lista de entidades com o resultado da consulta
-	 *
-	 * @throws RemoteException se ocorrer um erro na invocao remota do mtodo
-	 * @throws ErroModelo      se ocorrer um erro durante o processamento da
-	 *                         operao
-	 */
-	<TipoUsuario extends Entidade, TipoEnt extends Entidade> Collection<TipoEnt> consultarTodos(TipoUsuario usuario, String modelo)
-	        throws RemoteException, ErroModelo;
-
-	/**
-	 * Equivalente a
-	 * {@link FachadaModelo#consultarPorChavePrimaria(meyn.util.modelo.entidade.Entidade,String,meyn.util.modelo.entidade.Entidade)
-	 * consultarPorChavePrimaria(null, modelo, chave)}.
-	 */
-	<TipoEnt extends Entidade> TipoEnt consultarPorChavePrimaria(String modelo, TipoEnt chave) throws RemoteException, ErroModelo;
-
-	/**
-	 * Consulta os dados de um item deste modelo a partir desta chave primria. Os
-	 * ents retornados devem adotar o molde padro.
-	 *
-	 * @param modelo modelo a ser consultado
-	 * @param chave  entidade contendo a chave de consulta do item
-	 *
-	 * @return ent com o resultado da consulta
-	 *
-	 * @throws RemoteException se ocorrer um erro na invocao remota do mtodo
-	 * @throws ErroModelo      se ocorrer um erro durante o processamento da
-	 *                         operao
-	 */
-	<TipoUsuario extends Entidade, TipoEnt extends Entidade> TipoEnt consultarPorChavePrimaria(TipoUsuario usuario, String modelo,
-	        TipoEnt chave) throws RemoteException, ErroModelo;
-
-	/**
-	 * Equivalente a
-	 * {@link AcessoModelo#incluir(meyn.util.modelo.entidade.Entidade,String,meyn.util.modelo.entidade.Entidade)
-	 * incluir(null, modelo, ent)}.
-	 */
-	<TipoEnt extends Entidade> TipoEnt incluir(String modelo, TipoEnt ent) throws RemoteException, ErroModelo;
-
-	/**
-	 * Para este usurio, inclui um item neste modelo a partir dos dados desta
-	 * entidade. Somente as propriedades obtidas atravs de uma chamada a
-	 * <tt>ot.getNomesPropriedades(modelo)</tt> devem ser usadas para preencher os
-	 * campos da tabela. Estas devem estar definidos tambm na entidade retornado,
-	 * que pode conter valores inseridos e valores default usados para inicializar
-	 * campos da tabela.
-	 *
-	 * @param usuario usuario logado
-	 * @param modelo  modelo onde o item ser includo
-	 * @param ent     entidade contendo os dados do item
-	 *
-	 * @return entidade contendo os dados do item includo
-	 *
-	 * @throws RemoteException se ocorrer um erro na invocao remota do mtodo
-	 * @throws ErroModelo      se ocorrer um erro durante o processamento da
-	 *                         operao
-	 */
-	<TipoUsuario extends Entidade, TipoEnt extends Entidade> TipoEnt incluir(TipoUsuario usuario, String modelo, TipoEnt ent)
-	        throws RemoteException, ErroModelo;
-
-	/**
-	 * Equivalente a
-	 * {@link AcessoModelo#alterar(meyn.util.modelo.entidade.Entidade,String,meyn.util.modelo.entidade.Entidade)
-	 * alterar(null, modelo, ent)}.
-	 */
-	<TipoEnt extends Entidade> TipoEnt alterar(String modelo, TipoEnt ent) throws RemoteException, ErroModelo;
-
-	/**
-	 * Para este usurio, altera um item neste modelo a partir dos dados desta
-	 * entidade. Os nomes das propriedades que compem a chave primria devem ser
-	 * obtidos atravs de uma chamada a
-	 * <tt>ot.getNomesPropriedadesChave(modelo)</tt>. Somente as propriedades
-	 * obtidas pela chamada a <tt>ot.getNomesPropriedades(modelo)</tt> devem ser
-	 * usadas para alterar os campos da tabela. Estas propriedades devem estar
-	 * definidas tambm na entidade retornado.
-	 *
-	 * @param usuario usuario logado
-	 * @param modelo  modelo onde o item ser alterado
-	 * @param ent     entidade contendo os dados do item
-	 *
-	 * @return entidade contendo os dados do item alterado
-	 *
-	 * @throws RemoteException se ocorrer um erro na invocao remota do mtodo
-	 * @throws ErroModelo      se ocorrer um erro durante o processamento da
-	 *                         operao
-	 */
-	<TipoUsuario extends Entidade, TipoEnt extends Entidade> TipoEnt alterar(TipoUsuario usuario, String modelo, TipoEnt ent)
-	        throws RemoteException, ErroModelo;
-
-	void excluirTodos(String modelo) throws ErroModelo;
-
-	/**
-	 * Equivalente a
-	 * {@link AcessoModelo#excluir(meyn.util.modelo.entidade.Entidade,String,meyn.util.modelo.entidade.Entidade)
-	 * excluir(null, modelo, ent)}.
-	 */
-	<TipoEnt extends Entidade> void excluir(String modelo, TipoEnt ent) throws RemoteException, ErroModelo;
-
-	<TipoUsuario extends Entidade> void excluirTodos(TipoUsuario usuario, String modelo) throws ErroModelo;
-
-	/**
-	 * Para este usurio, exclui um item neste modelo a partir dos dados desta
-	 * entidade. Os nomes das propriedades que compem a chave primria devem ser
-	 * obtidos atravs de uma chamada a
-	 * <tt>ot.getNomesPropriedadesChave(modelo)</tt>.
-	 *
-	 * @param usuario usuario logado
-	 * @param modelo  modelo onde o item ser excludo
-	 * @param ent     entidade contendo os dados do item
-	 *
-	 * @throws RemoteException se ocorrer um erro na invocao remota do mtodo
-	 * @throws ErroModelo      se ocorrer um erro durante o processamento da
-	 *                         operao
-	 */
-	<TipoUsuario extends Entidade, TipoEnt extends Entidade> void excluir(TipoUsuario usuario, String modelo, TipoEnt ent)
-	        throws RemoteException, ErroModelo;
-}
+package meyn.util.modelo;
+
+import java.rmi.*;
+import java.util.*;
+import java.util.stream.*;
+
+import meyn.util.modelo.entidade.*;
+
+/**
+ * Define os métodos genéricos de acesso aos modelos que uma fachada deve
+ * implementar. Todos os métodos desta interface declaram
+ * <tt>java.rmi.RemoteException</tt> na cláusula <tt>throws</tt>, de modo a
+ * suportar implementações remotas. Os métodos que recebem os dados do usuário
+ * logado como parâmetro devem ser utilizados quando estes dados forem
+ * necessários para a execução das operações. Um exemplo disso é quando <b>os
+ * usuários da aplicação são usuários de banco</b>, e portando os dados de
+ * login/senha têm de ser repassados para que as conexões possam ser abertas.
+ *
+ * @see Entidade
+ */
+public interface FachadaModelo {
+	/**
+	 * Equivalente a
+	 * {@link FachadaModelo#consultarTodos(meyn.util.modelo.entidade.Entidade,String)
+	 * consultarTodos(null, modelo)}.
+	 */
+	<TipoEnt extends Entidade> Collection<TipoEnt> consultarTodos(String modelo) throws RemoteException, ErroModelo;
+
+	/**
+	 * Para este usuário, consulta todos os itens deste modelo. As entidades
+	 * retornadas devem adotar o molde padrão.
+	 *
+	 * @param usuario usuario logado
+	 * @param modelo  modelo a ser consultado
+	 *
+	 * @return lista de entidades com o resultado da consulta
+	 *
+	 * @throws RemoteException se ocorrer um erro na invocação remota do método
+	 * @throws ErroModelo      se ocorrer um erro durante o processamento da
+	 *                         operação
+	 */
+	<TipoUsuario extends Entidade, TipoEnt extends Entidade> Collection<TipoEnt> consultarTodos(TipoUsuario usuario, String modelo)
+	        throws RemoteException, ErroModelo;
+
+	/**
+	 * Equivalente a
+	 * {@link FachadaModelo#consultarTodosFluxo(meyn.util.modelo.entidade.Entidade,String)
+	 * consultarTodosFluxo(null, modelo)}.
+	 */
+	<TipoEnt extends Entidade> Stream<TipoEnt> consultarTodosFluxo(String modelo) throws RemoteException, ErroModelo;
+
+	/**
+	 * Para este usuário, consulta todos os itens deste modelo, retornando-os à
+	 * medida que são lidos. O fluxo retornado deve ser fechado após o uso e, por
+	 * não ser serializável, só pode ser obtido de fachadas locais; fachadas
+	 * remotas devem usar
+	 * {@link FachadaModelo#consultarPagina(meyn.util.modelo.entidade.Entidade,String,meyn.util.modelo.entidade.Entidade,int)
+	 * consultarPagina}.
+	 *
+	 * @param usuario usuario logado
+	 * @param modelo  modelo a ser consultado
+	 *
+	 * @return fluxo das entidades do modelo
+	 *
+	 * @throws RemoteException se ocorrer um erro na invocação remota do método
+	 * @throws ErroModelo      se ocorrer um erro durante o processamento da
+	 *                         operação
+	 */
+	<TipoUsuario extends Entidade, TipoEnt extends Entidade> Stream<TipoEnt> consultarTodosFluxo(TipoUsuario usuario, String modelo)
+	        throws RemoteException, ErroModelo;
+
+	/**
+	 * Equivalente a
+	 * {@link FachadaModelo#consultarPagina(meyn.util.modelo.entidade.Entidade,String,meyn.util.modelo.entidade.Entidade,int)
+	 * consultarPagina(null, modelo, ultimo, tamanho)}.
+	 */
+	<TipoEnt extends Entidade> List<TipoEnt> consultarPagina(String modelo, TipoEnt ultimo, int tamanho) throws RemoteException, ErroModelo;
+
+	/**
+	 * Para este usuário, consulta uma página de itens deste modelo, ordenados
+	 * pela chave primária, a partir do item seguinte a <tt>ultimo</tt>.
+	 *
+	 * @param usuario usuario logado
+	 * @param modelo  modelo a ser consultado
+	 * @param ultimo  último item da página anterior ou <tt>null</tt> para a
+	 *                primeira página
+	 * @param tamanho número máximo de itens da página
+	 *
+	 * @return itens da página; uma lista com menos de <tt>tamanho</tt> itens
+	 *         indica a última página
+	 *
+	 * @throws RemoteException se ocorrer um erro na invocação remota do método
+	 * @throws ErroModelo      se ocorrer um erro durante o processamento da
+	 *                         operação
+	 */
+	<TipoUsuario extends Entidade, TipoEnt extends Entidade> List<TipoEnt> consultarPagina(TipoUsuario usuario, String modelo,
+	        TipoEnt ultimo, int tamanho) throws RemoteException, ErroModelo;
+
+	/**
+	 * Equivalente a
+	 * {@link FachadaModelo#consultarPorChavePrimaria(meyn.util.modelo.entidade.Entidade,String,meyn.util.modelo.entidade.Entidade)
+	 * consultarPorChavePrimaria(null, modelo, chave)}.
+	 */
+	<TipoEnt extends Entidade> TipoEnt consultarPorChavePrimaria(String modelo, TipoEnt chave) throws RemoteException, ErroModelo;
+
+	/**
+	 * Consulta os dados de um item deste modelo a partir desta chave primária. Os
+	 * ents retornados devem adotar o molde padrão.
+	 *
+	 * @param modelo modelo a ser consultado
+	 * @param chave  entidade contendo a chave de consulta do item
+	 *
+	 * @return ent com o resultado da consulta
+	 *
+	 * @throws RemoteException se ocorrer um erro na invocação remota do método
+	 * @throws ErroModelo      se ocorrer um erro durante o processamento da
+	 *                         operação
+	 */
+	<TipoUsuario extends Entidade, TipoEnt extends Entidade> TipoEnt consultarPorChavePrimaria(TipoUsuario usuario, String modelo,
+	        TipoEnt chave) throws RemoteException, ErroModelo;
+
+	/**
+	 * Equivalente a
+	 * {@link AcessoModelo#incluir(meyn.util.modelo.entidade.Entidade,String,meyn.util.modelo.entidade.Entidade)
+	 * incluir(null, modelo, ent)}.
+	 */
+	<TipoEnt extends Entidade> TipoEnt incluir(String modelo, TipoEnt ent) throws RemoteException, ErroModelo;
+
+	/**
+	 * Para este usuário, inclui um item neste modelo a partir dos dados desta
+	 * entidade. Somente as propriedades obtidas através de uma chamada a
+	 * <tt>ot.getNomesPropriedades(modelo)</tt> devem ser usadas para preencher os
+	 * campos da tabela. Estas devem estar definidos também na entidade retornado,
+	 * que pode conter valores inseridos e valores default usados para inicializar
+	 * campos da tabela.
+	 *
+	 * @param usuario usuario logado
+	 * @param modelo  modelo onde o item será incluído
+	 * @param ent     entidade contendo os dados do item
+	 *
+	 * @return entidade contendo os dados do item incluído
+	 *
+	 * @throws RemoteException se ocorrer um erro na invocação remota do método
+	 * @throws ErroModelo      se ocorrer um erro durante o processamento da
+	 *                         operação
+	 */
+	<TipoUsuario extends Entidade, TipoEnt extends Entidade> TipoEnt incluir(TipoUsuario usuario, String modelo, TipoEnt ent)
+	        throws RemoteException, ErroModelo;
+
+	/**
+	 * Equivalente a
+	 * {@link AcessoModelo#alterar(meyn.util.modelo.entidade.Entidade,String,meyn.util.modelo.entidade.Entidade)
+	 * alterar(null, modelo, ent)}.
+	 */
+	<TipoEnt extends Entidade> TipoEnt alterar(String modelo, TipoEnt ent) throws RemoteException, ErroModelo;
+
+	/**
+	 * Para este usuário, altera um item neste modelo a partir dos dados desta
+	 * entidade. Os nomes das propriedades que compõem a chave primária devem ser
+	 * obtidos através de uma chamada a
+	 * <tt>ot.getNomesPropriedadesChave(modelo)</tt>. Somente as propriedades
+	 * obtidas pela chamada a <tt>ot.getNomesPropriedades(modelo)</tt> devem ser
+	 * usadas para alterar os campos da tabela. Estas propriedades devem estar
+	 * definidas também na entidade retornado.
+	 *
+	 * @param usuario usuario logado
+	 * @param modelo  modelo onde o item será alterado
+	 * @param ent     entidade contendo os dados do item
+	 *
+	 * @return entidade contendo os dados do item alterado
+	 *
+	 * @throws RemoteException se ocorrer um erro na invocação remota do método
+	 * @throws ErroModelo      se ocorrer um erro durante o processamento da
+	 *                         operação
+	 */
+	<TipoUsuario extends Entidade, TipoEnt extends Entidade> TipoEnt alterar(TipoUsuario usuario, String modelo, TipoEnt ent)
+	        throws RemoteException, ErroModelo;
+
+	/**
+	 * Equivalente a
+	 * {@link FachadaModelo#incluirTodos(meyn.util.modelo.entidade.Entidade,String,Collection)
+	 * incluirTodos(null, modelo, ents)}.
+	 */
+	<TipoEnt extends Entidade> List<TipoEnt> incluirTodos(String modelo, Collection<TipoEnt> ents) throws RemoteException, ErroModelo;
+
+	/**
+	 * Para este usuário, inclui os itens destas entidades neste modelo, com as
+	 * mesmas regras de
+	 * {@link FachadaModelo#incluir(meyn.util.modelo.entidade.Entidade,String,meyn.util.modelo.entidade.Entidade)
+	 * incluir}, em lotes.
+	 *
+	 * @param usuario usuario logado
+	 * @param modelo  modelo onde os itens serão incluídos
+	 * @param ents    entidades contendo os dados dos itens
+	 *
+	 * @return entidades contendo os dados dos itens incluídos, na ordem recebida
+	 *
+	 * @throws RemoteException se ocorrer um erro na invocação remota do método
+	 * @throws ErroModelo      se ocorrer um erro durante o processamento da
+	 *                         operação
+	 */
+	<TipoUsuario extends Entidade, TipoEnt extends Entidade> List<TipoEnt> incluirTodos(TipoUsuario usuario, String modelo,
+	        Collection<TipoEnt> ents) throws RemoteException, ErroModelo;
+
+	/**
+	 * Equivalente a
+	 * {@link FachadaModelo#alterarTodos(meyn.util.modelo.entidade.Entidade,String,Collection)
+	 * alterarTodos(null, modelo, ents)}.
+	 */
+	<TipoEnt extends Entidade> List<TipoEnt> alterarTodos(String modelo, Collection<TipoEnt> ents) throws RemoteException, ErroModelo;
+
+	/**
+	 * Para este usuário, altera os itens destas entidades neste modelo, com as
+	 * mesmas regras de
+	 * {@link FachadaModelo#alterar(meyn.util.modelo.entidade.Entidade,String,meyn.util.modelo.entidade.Entidade)
+	 * alterar}, em lotes.
+	 *
+	 * @param usuario usuario logado
+	 * @param modelo  modelo onde os itens serão alterados
+	 * @param ents    entidades contendo os dados dos itens
+	 *
+	 * @return entidades contendo os dados dos itens alterados, na ordem recebida
+	 *
+	 * @throws RemoteException se ocorrer um erro na invocação remota do método
+	 * @throws ErroModelo      se ocorrer um erro durante o processamento da
+	 *                         operação
+	 */
+	<TipoUsuario extends Entidade, TipoEnt extends Entidade> List<TipoEnt> alterarTodos(TipoUsuario usuario, String modelo,
+	        Collection<TipoEnt> ents) throws RemoteException, ErroModelo;
+
+	void excluirTodos(String modelo) throws ErroModelo;
+
+	/**
+	 * Equivalente a
+	 * {@link FachadaModelo#excluirTodos(meyn.util.modelo.entidade.Entidade,String,Collection)
+	 * excluirTodos(null, modelo, ents)}.
+	 */
+	<TipoEnt extends Entidade> void excluirTodos(String modelo, Collection<TipoEnt> ents) throws RemoteException, ErroModelo;
+
+	/**
+	 * Equivalente a
+	 * {@link AcessoModelo#excluir(meyn.util.modelo.entidade.Entidade,String,meyn.util.modelo.entidade.Entidade)
+	 * excluir(null, modelo, ent)}.
+	 */
+	<TipoEnt extends Entidade> void excluir(String modelo, TipoEnt ent) throws RemoteException, ErroModelo;
+
+	<TipoUsuario extends Entidade> void excluirTodos(TipoUsuario usuario, String modelo) throws ErroModelo;
+
+	/**
+	 * Para este usuário, exclui os itens destas entidades neste modelo, com as
+	 * mesmas regras de
+	 * {@link FachadaModelo#excluir(meyn.util.modelo.entidade.Entidade,String,meyn.util.modelo.entidade.Entidade)
+	 * excluir}, em lotes.
+	 *
+	 * @param usuario usuario logado
+	 * @param modelo  modelo onde os itens serão excluídos
+	 * @param ents    entidades contendo as chaves dos itens
+	 *
+	 * @throws RemoteException se ocorrer um erro na invocação remota do método
+	 * @throws ErroModelo      se ocorrer um erro durante o processamento da
+	 *                         operação
+	 */
+	<TipoUsuario extends Entidade, TipoEnt extends Entidade> void excluirTodos(TipoUsuario usuario, String modelo, Collection<TipoEnt> ents)
+	        throws RemoteException, ErroModelo;
+
+	/**
+	 * Para este usuário, exclui um item neste modelo a partir dos dados desta
+	 * entidade. Os nomes das propriedades que compõem a chave primária devem ser
+	 * obtidos através de uma chamada a
+	 * <tt>ot.getNomesPropriedadesChave(modelo)</tt>.
+	 *
+	 * @param usuario usuario logado
+	 * @param modelo  modelo onde o item será excluído
+	 * @param ent     entidade contendo os dados do item
+	 *
+	 * @throws RemoteException se ocorrer um erro na invocação remota do método
+	 * @throws ErroModelo      se ocorrer um erro durante o processamento da
+	 *                         operação
+	 */
+	<TipoUsuario extends Entidade, TipoEnt extends Entidade> void excluir(TipoUsuario usuario, String modelo, TipoEnt ent)
+	        throws RemoteException, ErroModelo;
+}
@@ -0,0 +1,309 @@
+package meyn.util.modelo;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+
+import meyn.util.modelo.entidade.Entidade;
+
+/**
+ * Fachada assíncrona que repassa as operações em cima dos modelos a uma
+ * {@link FachadaModelo FachadaModelo}, executando-as em um {@link Executor} e
+ * retornando {@link CompletableFuture}s. Permite que o chamador dispare
+ * consultas a vários modelos ao mesmo tempo, sem esperar por cada uma delas. As
+ * operações da fachada síncrona continuam bloqueantes: cada operação ocupa uma
+ * <i>thread</i> do executor enquanto é executada.
+ *
+ * <pre>
+ * CompletableFuture&lt;Pessoa&gt; pessoa = fachada.consultarPorChavePrimaria("pessoa", chavePessoa);
+ * CompletableFuture&lt;Conta&gt; conta = fachada.consultarPorChavePrimaria("conta", chaveConta);
+ * CompletableFuture.allOf(pessoa, conta).join();
+ * </pre>
+ *
+ * Os erros das operações completam os <i>futures</i> excepcionalmente, com a
+ * exceção original ({@link ErroModelo ErroModelo} ou
+ * <tt>RemoteException</tt>) como causa da {@link CompletionException}. As
+ * operações são executadas com o <i>context class loader</i> da <i>thread</i>
+ * que as disparou, de modo que usam o mesmo contexto da aplicação (ver
+ * {@link meyn.util.contexto.ContextoEmMemoria ContextoEmMemoria}).
+ * <p>
+ * Em um container JEE, deve-se informar um executor gerenciado pelo container
+ * (por exemplo, um <tt>ManagedExecutorService</tt>). O executor padrão usa
+ * <i>threads</i> virtuais quando a propriedade de sistema
+ * <tt>meyn.util.modelo.FachadaModeloAssincrona.threadsVirtuais</tt> for
+ * <tt>true</tt> e a JVM as suportar (Java 21 ou superior); caso contrário, usa
+ * um <i>pool</i> limitado de <i>threads</i> <i>daemon</i>, criadas sob demanda
+ * e descartadas após um minuto ociosas. O número máximo de <i>threads</i> é
+ * definido pela propriedade de sistema
+ * <tt>meyn.util.modelo.FachadaModeloAssincrona.maximoThreads</tt> (por padrão,
+ * quatro por processador); as operações excedentes aguardam em fila. As
+ * consultas em fluxo não têm versão assíncrona, pois o fluxo deve ser consumido
+ * e fechado pelo chamador.
+ *
+ * @see FachadaModeloImpl
+ */
+public class FachadaModeloAssincrona {
+
+	private final static Entidade USUARIO_NULO = null;
+
+	/**
+	 * Operação da fachada síncrona.
+	 */
+	private interface Operacao<TipoResultado> {
+		TipoResultado executar() throws Exception;
+	}
+
+	/**
+	 * Executor padrão, criado no primeiro uso.
+	 */
+	private static class ExecutorPadrao {
+		static final ExecutorService EXECUTOR = criar();
+
+		private static ExecutorService criar() {
+			if (Boolean.getBoolean(FachadaModeloAssincrona.class.getName() + ".threadsVirtuais")) {
+				try {
+					// obtido por reflexão para manter a compatibilidade com o Java 8
+					return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+				} catch (ReflectiveOperationException e) {
+					LogManager.getLogger(FachadaModeloAssincrona.class).warn("threads virtuais não suportadas pela JVM: {}", e.toString());
+				}
+			}
+			AtomicInteger contador = new AtomicInteger();
+			ThreadFactory fabrica = tarefa -> {
+				Thread thread = new Thread(tarefa, "fachada-assincrona-" + contador.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			};
+			int maximoThreads = Integer.getInteger(FachadaModeloAssincrona.class.getName() + ".maximoThreads",
+			        4 * Runtime.getRuntime().availableProcessors());
+			ThreadPoolExecutor pool = new ThreadPoolExecutor(maximoThreads, maximoThreads, 60, TimeUnit.SECONDS,
+			        new LinkedBlockingQueue<Runnable>(), fabrica);
+			pool.allowCoreThreadTimeOut(true);
+			return pool;
+		}
+	}
+
+	private final FachadaModelo fachada;
+	private final Executor executor;
+
+	/**
+	 * Cria a fachada assíncrona usando o executor padrão, limitado e
+	 * compartilhado pelas fachadas assíncronas.
+	 *
+	 * @param fachada fachada síncrona
+	 */
+	public FachadaModeloAssincrona(FachadaModelo fachada) {
+		this(fachada, ExecutorPadrao.EXECUTOR);
+	}
+
+	/**
+	 * Cria a fachada assíncrona usando este executor.
+	 *
+	 * @param fachada  fachada síncrona
+	 * @param executor executor das operações
+	 */
+	public FachadaModeloAssincrona(FachadaModelo fachada, Executor executor) {
+		this.fachada = fachada;
+		this.executor = executor;
+	}
+
+	/**
+	 * Retorna a fachada síncrona.
+	 */
+	public FachadaModelo getFachada() {
+		return fachada;
+	}
+
+	private <TipoResultado> CompletableFuture<TipoResultado> executar(Operacao<TipoResultado> operacao) {
+		ClassLoader carregador = Thread.currentThread().getContextClassLoader();
+		return CompletableFuture.supplyAsync(() -> {
+			Thread thread = Thread.currentThread();
+			ClassLoader carregadorAnterior = thread.getContextClassLoader();
+			thread.setContextClassLoader(carregador);
+			try {
+				return operacao.executar();
+			} catch (RuntimeException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new CompletionException(e);
+			} finally {
+				thread.setContextClassLoader(carregadorAnterior);
+			}
+		}, executor);
+	}
+
+	/**
+	 * Versão assíncrona de {@link FachadaModelo#consultarTodos(String)}.
+	 */
+	public <TipoEnt extends Entidade> CompletableFuture<Collection<TipoEnt>> consultarTodos(String modelo) {
+		return consultarTodos(USUARIO_NULO, modelo);
+	}
+
+	/**
+	 * Versão assíncrona de {@link FachadaModelo#consultarTodos(Entidade, String)}.
+	 */
+	public <TipoUsuario extends Entidade, TipoEnt extends Entidade> CompletableFuture<Collection<TipoEnt>> consultarTodos(TipoUsuario usuario,
+	        String modelo) {
+		return executar(() -> fachada.<TipoUsuario, TipoEnt>consultarTodos(usuario, modelo));
+	}
+
+	/**
+	 * Versão assíncrona de {@link FachadaModelo#consultarPagina(String, Entidade, int)}.
+	 */
+	public <TipoEnt extends Entidade> CompletableFuture<List<TipoEnt>> consultarPagina(String modelo, TipoEnt ultimo, int tamanho) {
+		return consultarPagina(USUARIO_NULO, modelo, ultimo, tamanho);
+	}
+
+	/**
+	 * Versão assíncrona de
+	 * {@link FachadaModelo#consultarPagina(Entidade, String, Entidade, int)}.
+	 */
+	public <TipoUsuario extends Entidade, TipoEnt extends Entidade> CompletableFuture<List<TipoEnt>> consultarPagina(TipoUsuario usuario,
+	        String modelo, TipoEnt ultimo, int tamanho) {
+		return executar(() -> fachada.consultarPagina(usuario, modelo, ultimo, tamanho));
+	}
+
+	/**
+	 * Versão assíncrona de
+	 * {@link FachadaModelo#consultarPorChavePrimaria(String, Entidade)}.
+	 */
+	public <TipoEnt extends Entidade> CompletableFuture<TipoEnt> consultarPorChavePrimaria(String modelo, TipoEnt chave) {
+		return consultarPorChavePrimaria(USUARIO_NULO, modelo, chave);
+	}
+
+	/**
+	 * Versão assíncrona de
+	 * {@link FachadaModelo#consultarPorChavePrimaria(Entidade, String, Entidade)}.
+	 */
+	public <TipoUsuario extends Entidade, TipoEnt extends Entidade> CompletableFuture<TipoEnt> consultarPorChavePrimaria(TipoUsuario usuario,
+	        String modelo, TipoEnt chave) {
+		return executar(() -> fachada.consultarPorChavePrimaria(usuario, modelo, chave));
+	}
+
+	/**
+	 * Versão assíncrona de {@link FachadaModelo#incluir(String, Entidade)}.
+	 */
+	public <TipoEnt extends Entidade> CompletableFuture<TipoEnt> incluir(String modelo, TipoEnt ent) {
+		return incluir(USUARIO_NULO, modelo, ent);
+	}
+
+	/**
+	 * Versão assíncrona de {@link FachadaModelo#incluir(Entidade, String, Entidade)}.
+	 */
+	public <TipoUsuario extends Entidade, TipoEnt extends Entidade> CompletableFuture<TipoEnt> incluir(TipoUsuario usuario, String modelo,
+	        TipoEnt ent) {
+		return executar(() -> fachada.incluir(usuario, modelo, ent));
+	}
+
+	/**
+	 * Versão assíncrona de {@link FachadaModelo#incluirTodos(String, Collection)}.
+	 */
+	public <TipoEnt extends Entidade> CompletableFuture<List<TipoEnt>> incluirTodos(String modelo, Collection<TipoEnt> ents) {
+		return incluirTodos(USUARIO_NULO, modelo, ents);
+	}
+
+	/**
+	 * Versão assíncrona de
+	 * {@link FachadaModelo#incluirTodos(Entidade, String, Collection)}.
+	 */
+	public <TipoUsuario extends Entidade, TipoEnt extends Entidade> CompletableFuture<List<TipoEnt>> incluirTodos(TipoUsuario usuario,
+	        String modelo, Collection<TipoEnt> ents) {
+		return executar(() -> fachada.incluirTodos(usuario, modelo, ents));
+	}
+
+	/**
+	 * Versão assíncrona de {@link FachadaModelo#alterar(String, Entidade)}.
+	 */
+	public <TipoEnt extends Entidade> CompletableFuture<TipoEnt> alterar(String modelo, TipoEnt ent) {
+		return alterar(USUARIO_NULO, modelo, ent);
+	}
+
+	/**
+	 * Versão assíncrona de {@link FachadaModelo#alterar(Entidade, String, Entidade)}.
+	 */
+	public <TipoUsuario extends Entidade, TipoEnt extends Entidade> CompletableFuture<TipoEnt> alterar(TipoUsuario usuario, String modelo,
+	        TipoEnt ent) {
+		return executar(() -> fachada.alterar(usuario, modelo, ent));
+	}
+
+	/**
+	 * Versão assíncrona de {@link FachadaModelo#alterarTodos(String, Collection)}.
+	 */
+	public <TipoEnt extends Entidade> CompletableFuture<List<TipoEnt>> alterarTodos(String modelo, Collection<TipoEnt> ents) {
+		return alterarTodos(USUARIO_NULO, modelo, ents);
+	}
+
+	/**
+	 * Versão assíncrona de
+	 * {@link FachadaModelo#alterarTodos(Entidade, String, Collection)}.
+	 */
+	public <TipoUsuario extends Entidade, TipoEnt extends Entidade> CompletableFuture<List<TipoEnt>> alterarTodos(TipoUsuario usuario,
+	        String modelo, Collection<TipoEnt> ents) {
+		return executar(() -> fachada.alterarTodos(usuario, modelo, ents));
+	}
+
+	/**
+	 * Versão assíncrona de {@link FachadaModelo#excluirTodos(String)}.
+	 */
+	public CompletableFuture<Void> excluirTodos(String modelo) {
+		return excluirTodos(USUARIO_NULO, modelo);
+	}
+
+	/**
+	 * Versão assíncrona de {@link FachadaModelo#excluirTodos(Entidade, String)}.
+	 */
+	public <TipoUsuario extends Entidade> CompletableFuture<Void> excluirTodos(TipoUsuario usuario, String modelo) {
+		return executar(() -> {
+			fachada.excluirTodos(usuario, modelo);
+			return null;
+		});
+	}
+
+	/**
+	 * Versão assíncrona de {@link FachadaModelo#excluirTodos(String, Collection)}.
+	 */
+	public <TipoEnt extends Entidade> CompletableFuture<Void> excluirTodos(String modelo, Collection<TipoEnt> ents) {
+		return excluirTodos(USUARIO_NULO, modelo, ents);
+	}
+
+	/**
+	 * Versão assíncrona de
+	 * {@link FachadaModelo#excluirTodos(Entidade, String, Collection)}.
+	 */
+	public <TipoUsuario extends Entidade, TipoEnt extends Entidade> CompletableFuture<Void> excluirTodos(TipoUsuario usuario, String modelo,
+	        Collection<TipoEnt> ents) {
+		return executar(() -> {
+			fachada.excluirTodos(usuario, modelo, ents);
+			return null;
+		});
+	}
+
+	/**
+	 * Versão assíncrona de {@link FachadaModelo#excluir(String, Entidade)}.
+	 */
+	public <TipoEnt extends Entidade> CompletableFuture<Void> excluir(String modelo, TipoEnt ent) {
+		return excluir(USUARIO_NULO, modelo, ent);
+	}
+
+	/**
+	 * Versão assíncrona de {@link FachadaModelo#excluir(Entidade, String, Entidade)}.
+	 */
+	public <TipoUsuario extends Entidade, TipoEnt extends Entidade> CompletableFuture<Void> excluir(TipoUsuario usuario, String modelo,
+	        TipoEnt ent) {
+		return executar(() -> {
+			fachada.excluir(usuario, modelo, ent);
+			return null;
+		});
+	}
+}
@@ -1,12 +1,19 @@
-package meyn.util.modelo;
-
-import java.lang.annotation.ElementType;
-import java.lang.annotation.Retention;
-import java.lang.annotation.RetentionPolicy;
-import java.lang.annotation.Target;
-
-@Retention(RetentionPolicy.RUNTIME)
-@Target(ElementType.TYPE)
-public @interface Modelo {
-	String value();
-}
+package meyn.util.modelo;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Associa um nome lógico de modelo a uma classe de cadastro. As classes
+ * anotadas são indexadas na compilação por {@link ProcessadorModelos
+ * ProcessadorModelos}.
+ *
+ * @see meyn.util.modelo.cadastro.FabricaCadastro
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Modelo {
+	String value();
+}
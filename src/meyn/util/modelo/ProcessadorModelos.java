@@ -0,0 +1,113 @@
+package meyn.util.modelo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Processador de anotações que gera, na compilação, o índice das classes
+ * anotadas com {@link Modelo Modelo}. O índice é gravado no recurso
+ * {@value #INDICE}, uma linha <tt>&lt;modelo&gt;=&lt;classe&gt;</tt> por
+ * modelo, e é lido por
+ * {@link meyn.util.modelo.cadastro.FabricaCadastro.MapaCadastros MapaCadastros}
+ * no lugar da varredura das classes.
+ * <p>
+ * O processador é registrado como serviço na biblioteca, sendo executado
+ * automaticamente pelo compilador nos projetos que a usam. Em compilações
+ * incrementais, as entradas do índice anterior cujas classes ainda existem e
+ * continuam anotadas com o mesmo modelo são mantidas. Modelos definidos por
+ * mais de uma classe são reportados como erro de compilação.
+ */
+@SupportedAnnotationTypes("meyn.util.modelo.Modelo")
+public class ProcessadorModelos extends AbstractProcessor {
+
+	/**
+	 * Caminho do recurso com o índice dos modelos.
+	 */
+	public static final String INDICE = "META-INF/meyn/modelos";
+
+	private final Map<String, String> mpModelos = new TreeMap<String, String>();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> anotacoes, RoundEnvironment ambiente) {
+		if (ambiente.processingOver()) {
+			if (!mpModelos.isEmpty()) {
+				incluirIndiceAnterior();
+				gravarIndice();
+			}
+			return false;
+		}
+		for (Element elemento : ambiente.getElementsAnnotatedWith(Modelo.class)) {
+			String modelo = elemento.getAnnotation(Modelo.class).value();
+			String classe = processingEnv.getElementUtils().getBinaryName((TypeElement) elemento).toString();
+			String classeAnterior = mpModelos.put(modelo, classe);
+			if (classeAnterior != null && !classeAnterior.equals(classe)) {
+				processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+				        "Modelo '" + modelo + "' definido também por " + classeAnterior, elemento);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Inclui as entradas ainda válidas do índice gerado na compilação anterior.
+	 */
+	private void incluirIndiceAnterior() {
+		try {
+			FileObject indice = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", INDICE);
+			try (BufferedReader leitor = new BufferedReader(new InputStreamReader(indice.openInputStream(), StandardCharsets.UTF_8))) {
+				String linha;
+				while ((linha = leitor.readLine()) != null) {
+					int separador = linha.lastIndexOf('=');
+					if (linha.startsWith("#") || separador < 0) {
+						continue;
+					}
+					String modelo = linha.substring(0, separador);
+					String classe = linha.substring(separador + 1);
+					TypeElement tipo = processingEnv.getElementUtils().getTypeElement(classe.replace('$', '.'));
+					if (!mpModelos.containsKey(modelo) && !mpModelos.containsValue(classe) && tipo != null
+					        && tipo.getAnnotation(Modelo.class) != null && tipo.getAnnotation(Modelo.class).value().equals(modelo)) {
+						mpModelos.put(modelo, classe);
+					}
+				}
+			}
+		} catch (IOException | IllegalArgumentException e) {
+			// não há índice anterior
+		}
+	}
+
+	private void gravarIndice() {
+		try {
+			FileObject indice = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDICE);
+			try (Writer escritor = new OutputStreamWriter(indice.openOutputStream(), StandardCharsets.UTF_8)) {
+				escritor.write("# Gerado por " + getClass().getName() + "\n");
+				for (Map.Entry<String, String> item : mpModelos.entrySet()) {
+					escritor.write(item.getKey() + '=' + item.getValue() + '\n');
+				}
+			}
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Erro gravando índice dos modelos: " + e);
+		}
+	}
+}
@@ -1,109 +1,194 @@
-package meyn.util.modelo.cadastro;
-
-import java.util.*;
-
-import meyn.util.modelo.entidade.*;
-
-/**
- * Define os mtodos bsicos que um cadastro deve implementar. Os dados do
- * usurio logado s precisam ser passados como parmetro quando forem
- * necessrios para a execuo das operaes de cadastro. Um exemplo disso 
- * quando <b>os usurios da aplicao so usurios de banco</b>, e portando os
- * dados de login/senha tm de ser repassados para que as conexes JDBC possam
- * ser abertas.
- *
- * @see Entidade
- */
-public interface Cadastro<TipoUsuario extends Entidade, TipoEnt extends Entidade> {
-	/**
-	 * Retorna o nome lgico do modelo ao qual o cadastro est associado.
-	 *
-	 * @return modelo ao qual o cadastro est associado
-	 */
-	String getModelo();
-
-	/**
-	 * Define o nome lgico do modelo ao qual o cadastro est associado, que deve
-	 * ser o mesmo que consta no mapeamento registrado na classe
-	 * {@link MapaCadastros MapaCadastros}. Este mtodo  necessrio para a
-	 * implementao da classe {@link FabricaCadastro FabricaCadastro}
-	 *
-	 * @param modelo modelo ao qual o cadastro est associado
-	 */
-	void setModelo(String modelo);
-
-	/**
-	 * Para este usurio, consulta todos os itens deste modelo.
-	 * 
-	 * @param usuario usuario logado
-	 *
-	 * @return lista de objetos de tranferncia com o resultado da consulta
-	 *
-	 * @throws ErroCadastro se algum erro ocorreu durante a operao
-	 */
-	Collection<TipoEnt> consultarTodos(TipoUsuario usuario) throws ErroCadastro;
-
-	/**
-	 * Para este usurio, consulta os dados de um item a partir desta chave
-	 * primria. Os nomes das propriedades que compem a chave primria devem ser
-	 * obtidos atravs de uma chamada a <tt>chave.getNomesPropriedadesChave()</tt>.
-	 *
-	 * @param usuario usuario logado
-	 * @param chave   entidade contendo a chave de consulta do item
-	 *
-	 * @return objeto de tranferncia com o resultado da consulta
-	 *
-	 * @throws ErroCadastro se algum erro ocorreu durante a operao
-	 */
-	TipoEnt consultarPorChavePrimaria(TipoUsuario usuario, TipoEnt chave) throws ErroCadastro;
-
-	/**
-	 * Para este usurio, inclui um item a partir dos dados deste objeto de
-	 * tranferncia. Somente as propriedades obtidas atravs de uma chamada a
-	 * <tt>ent.getNomesPropriedades(modelo)</tt> devem ser usadas para preencher os
-	 * campos da tabela. Estas devem estar definidas tambm na entidade retornado,
-	 * que pode conter valores inseridos e valores default usados para inicializar
-	 * campos da tabela.
-	 *
-	 * @param usuario usuario logado
-	 * @param ent     entidade contendo os dados do item
-	 *
-	 * @return objeto de tranferncia contendo os dados do item includo
-	 *
-	 * @throws ErroCadastro se algum erro ocorreu durante a operao
-	 */
-	TipoEnt incluir(TipoUsuario usuario, TipoEnt ent) throws ErroCadastro;
-
-	/**
-	 * Para este usurio, altera um item a partir dos dados deste objeto de
-	 * tranferncia. Os nomes das propriedades que compem a chave primria devem
-	 * ser obtidos atravs de uma chamada a
-	 * <tt>ot.getNomesPropriedadesChave(modelo)</tt>. Somente as propriedades
-	 * obtidas pela chamada a <tt>ot.getNomesPropriedades(modelo)</tt> devem ser
-	 * usadas para alterar os campos da tabela. Estas propriedades devem estar
-	 * definidas tambm na entidade retornada.
-	 *
-	 * @param usuario usuario logado
-	 * @param ent     entidade contendo os dados do item
-	 *
-	 * @return objeto de tranferncia contendo os dados do item alterado
-	 *
-	 * @throws ErroCadastro se algum erro ocorreu durante a operao
-	 */
-	TipoEnt alterar(TipoUsuario usuario, TipoEnt ent) throws ErroCadastro;
-
-	void excluirTodos(TipoUsuario usuario) throws ErroCadastro;
-
-	/**
-	 * Para este usurio, exclui um item a partir dos dados deste objeto de
-	 * tranferncia. Os nomes das propriedades que compem a chave primria devem
-	 * ser obtidos atravs de uma chamada a
-	 * <tt>ot.getNomesPropriedadesChave(modelo)</tt>.
-	 *
-	 * @param usuario usuario logado
-	 * @param ent     entidade contendo os dados do item
-	 *
-	 * @throws ErroCadastro se algum erro ocorreu durante a operao
-	 */
-	void excluir(TipoUsuario usuario, TipoEnt ent) throws ErroCadastro;
-}
+package meyn.util.modelo.cadastro;
+
+import java.util.*;
+import java.util.stream.*;
+
+import meyn.util.modelo.entidade.*;
+
+/**
+ * Define os métodos básicos que um cadastro deve implementar. Os dados do
+ * usuário logado só precisam ser passados como parâmetro quando forem
+ * necessários para a execução das operações de cadastro. Um exemplo disso é
+ * quando <b>os usuários da aplicação são usuários de banco</b>, e portando os
+ * dados de login/senha têm de ser repassados para que as conexões JDBC possam
+ * ser abertas.
+ *
+ * @see Entidade
+ */
+public interface Cadastro<TipoUsuario extends Entidade, TipoEnt extends Entidade> {
+	/**
+	 * Retorna o nome lógico do modelo ao qual o cadastro está associado.
+	 *
+	 * @return modelo ao qual o cadastro está associado
+	 */
+	String getModelo();
+
+	/**
+	 * Define o nome lógico do modelo ao qual o cadastro está associado, que deve
+	 * ser o mesmo que consta no mapeamento registrado na classe
+	 * {@link MapaCadastros MapaCadastros}. Este método é necessário para a
+	 * implementação da classe {@link FabricaCadastro FabricaCadastro}
+	 *
+	 * @param modelo modelo ao qual o cadastro está associado
+	 */
+	void setModelo(String modelo);
+
+	/**
+	 * Para este usuário, consulta todos os itens deste modelo.
+	 * 
+	 * @param usuario usuario logado
+	 *
+	 * @return lista de objetos de tranferência com o resultado da consulta
+	 *
+	 * @throws ErroCadastro se algum erro ocorreu durante a operação
+	 */
+	Collection<TipoEnt> consultarTodos(TipoUsuario usuario) throws ErroCadastro;
+
+	/**
+	 * Para este usuário, consulta todos os itens deste modelo, retornando-os à
+	 * medida que são lidos, sem manter o resultado completo em memória. O fluxo
+	 * retornado pode manter recursos abertos (conexões, cursores) e deve ser
+	 * fechado após o uso, preferencialmente com <tt>try-with-resources</tt>.
+	 *
+	 * @param usuario usuario logado
+	 *
+	 * @return fluxo das entidades do modelo
+	 *
+	 * @throws ErroCadastro se algum erro ocorreu durante a abertura da consulta
+	 */
+	Stream<TipoEnt> consultarTodosFluxo(TipoUsuario usuario) throws ErroCadastro;
+
+	/**
+	 * Para este usuário, consulta uma página de itens deste modelo, ordenados
+	 * pela chave primária. A página começa no item seguinte a <tt>ultimo</tt>
+	 * (paginação por chave), de modo que o custo de cada página não depende da
+	 * sua posição. Os nomes das propriedades que compõem a chave primária devem
+	 * ser obtidos através de uma chamada a
+	 * <tt>ultimo.getNomesPropriedadesChave()</tt>.
+	 *
+	 * @param usuario usuario logado
+	 * @param ultimo  último item da página anterior ou <tt>null</tt> para a
+	 *                primeira página
+	 * @param tamanho número máximo de itens da página
+	 *
+	 * @return itens da página; uma lista com menos de <tt>tamanho</tt> itens
+	 *         indica a última página
+	 *
+	 * @throws ErroCadastro se algum erro ocorreu durante a operação
+	 */
+	List<TipoEnt> consultarPagina(TipoUsuario usuario, TipoEnt ultimo, int tamanho) throws ErroCadastro;
+
+	/**
+	 * Para este usuário, consulta os dados de um item a partir desta chave
+	 * primária. Os nomes das propriedades que compõem a chave primária devem ser
+	 * obtidos através de uma chamada a <tt>chave.getNomesPropriedadesChave()</tt>.
+	 *
+	 * @param usuario usuario logado
+	 * @param chave   entidade contendo a chave de consulta do item
+	 *
+	 * @return objeto de tranferência com o resultado da consulta
+	 *
+	 * @throws ErroCadastro se algum erro ocorreu durante a operação
+	 */
+	TipoEnt consultarPorChavePrimaria(TipoUsuario usuario, TipoEnt chave) throws ErroCadastro;
+
+	/**
+	 * Para este usuário, inclui um item a partir dos dados deste objeto de
+	 * tranferência. Somente as propriedades obtidas através de uma chamada a
+	 * <tt>ent.getNomesPropriedades(modelo)</tt> devem ser usadas para preencher os
+	 * campos da tabela. Estas devem estar definidas também na entidade retornado,
+	 * que pode conter valores inseridos e valores default usados para inicializar
+	 * campos da tabela.
+	 *
+	 * @param usuario usuario logado
+	 * @param ent     entidade contendo os dados do item
+	 *
+	 * @return objeto de tranferência contendo os dados do item incluído
+	 *
+	 * @throws ErroCadastro se algum erro ocorreu durante a operação
+	 */
+	TipoEnt incluir(TipoUsuario usuario, TipoEnt ent) throws ErroCadastro;
+
+	/**
+	 * Para este usuário, altera um item a partir dos dados deste objeto de
+	 * tranferência. Os nomes das propriedades que compõem a chave primária devem
+	 * ser obtidos através de uma chamada a
+	 * <tt>ot.getNomesPropriedadesChave(modelo)</tt>. Somente as propriedades
+	 * obtidas pela chamada a <tt>ot.getNomesPropriedades(modelo)</tt> devem ser
+	 * usadas para alterar os campos da tabela. Estas propriedades devem estar
+	 * definidas também na entidade retornada.
+	 *
+	 * @param usuario usuario logado
+	 * @param ent     entidade contendo os dados do item
+	 *
+	 * @return objeto de tranferência contendo os dados do item alterado
+	 *
+	 * @throws ErroCadastro se algum erro ocorreu durante a operação
+	 */
+	TipoEnt alterar(TipoUsuario usuario, TipoEnt ent) throws ErroCadastro;
+
+	/**
+	 * Para este usuário, inclui os itens destas entidades, com as mesmas regras
+	 * de {@link #incluir(Entidade, Entidade) incluir}. Implementações devem
+	 * preferir uma única operação de persistência em lote a uma inclusão por
+	 * entidade.
+	 *
+	 * @param usuario usuario logado
+	 * @param ents    entidades contendo os dados dos itens
+	 *
+	 * @return entidades contendo os dados dos itens incluídos, na ordem recebida
+	 *
+	 * @throws ErroCadastro se algum erro ocorreu durante a operação
+	 */
+	List<TipoEnt> incluirTodos(TipoUsuario usuario, Collection<TipoEnt> ents) throws ErroCadastro;
+
+	/**
+	 * Para este usuário, altera os itens destas entidades, com as mesmas regras
+	 * de {@link #alterar(Entidade, Entidade) alterar}. Implementações devem
+	 * preferir uma única operação de persistência em lote a uma alteração por
+	 * entidade.
+	 *
+	 * @param usuario usuario logado
+	 * @param ents    entidades contendo os dados dos itens
+	 *
+	 * @return entidades contendo os dados dos itens alterados, na ordem recebida
+	 *
+	 * @throws ErroCadastro se algum erro ocorreu durante a operação
+	 */
+	List<TipoEnt> alterarTodos(TipoUsuario usuario, Collection<TipoEnt> ents) throws ErroCadastro;
+
+	/**
+	 * Para este usuário, exclui todos os itens deste modelo.
+	 *
+	 * @param usuario usuario logado
+	 *
+	 * @throws ErroCadastro se algum erro ocorreu durante a operação
+	 */
+	void excluirTodos(TipoUsuario usuario) throws ErroCadastro;
+
+	/**
+	 * Para este usuário, exclui os itens destas entidades, com as mesmas regras
+	 * de {@link #excluir(Entidade, Entidade) excluir}. Implementações devem
+	 * preferir uma única operação de persistência em lote a uma exclusão por
+	 * entidade.
+	 *
+	 * @param usuario usuario logado
+	 * @param ents    entidades contendo as chaves dos itens
+	 *
+	 * @throws ErroCadastro se algum erro ocorreu durante a operação
+	 */
+	void excluirTodos(TipoUsuario usuario, Collection<TipoEnt> ents) throws ErroCadastro;
+
+	/**
+	 * Para este usuário, exclui um item a partir dos dados deste objeto de
+	 * tranferência. Os nomes das propriedades que compõem a chave primária devem
+	 * ser obtidos através de uma chamada a
+	 * <tt>ot.getNomesPropriedadesChave(modelo)</tt>.
+	 *
+	 * @param usuario usuario logado
+	 * @param ent     entidade contendo os dados do item
+	 *
+	 * @throws ErroCadastro se algum erro ocorreu durante a operação
+	 */
+	void excluir(TipoUsuario usuario, TipoEnt ent) throws ErroCadastro;
+}
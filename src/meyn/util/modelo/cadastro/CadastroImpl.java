@@ -1,96 +1,324 @@
-package meyn.util.modelo.cadastro;
-
-import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
-import java.util.Collection;
-
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-
-import meyn.util.modelo.entidade.Entidade;
-
-/**
- * Suporte para implementaes de cadastro.
- */
-public abstract class CadastroImpl<TipoUsuario extends Entidade, TipoEnt extends Entidade> implements Cadastro<TipoUsuario, TipoEnt> {
-
-	private String modelo;
-	private Class<?> tipoEntidade;
-
-	private final Logger logger = LogManager.getLogger(getClass());
-
-	public CadastroImpl() throws ErroCadastro {
-		Type[] tipos = ((ParameterizedType) getClass().getGenericSuperclass()).getActualTypeArguments();
-		String nomeTipo = tipos[tipos.length - 1].getTypeName();
-		try {
-			tipoEntidade = (Class<?>) Class.forName(nomeTipo);
-		} catch (ClassNotFoundException | SecurityException e) {
-			throw new ErroCadastro("Erro carregando tipo da entidade: " + nomeTipo, e);
-		}
-	}
-
-	/**
-	 * Retorna o cadastro associado a este modelo.
-	 *
-	 * @param modelo nome lgico do modelo
-	 *
-	 * @return cadastro associado a este modelo
-	 *
-	 * @throws ErroCadastro se ocorrer um erro na obteno do cadastro
-	 */
-	@SuppressWarnings("unchecked")
-	protected static final <TipoCadastro extends CadastroImpl<?, ?>> TipoCadastro getCadastro(String modelo) throws ErroCadastro {
-		return (TipoCadastro) FabricaCadastro.getCadastro(modelo);
-	}
-
-	@Override
-	public final String getModelo() {
-		return modelo;
-	}
-
-	@Override
-	public final void setModelo(String modelo) {
-		this.modelo = modelo;
-		logger.debug("iniciado");
-	}
-
-	protected Class<?> getTipoEntidade() {
-		return tipoEntidade;
-	}
-
-	protected Logger getLogger() {
-		return logger;
-	}
-
-	@Override
-	public Collection<TipoEnt> consultarTodos(TipoUsuario usuario) throws ErroCadastro {
-		throw new UnsupportedOperationException("consultarTodos");
-	}
-
-	@Override
-	public TipoEnt consultarPorChavePrimaria(TipoUsuario usuario, TipoEnt chave) throws ErroCadastro {
-		throw new UnsupportedOperationException("consultarPorChavePrimaria");
-	}
-
-	@Override
-	public TipoEnt incluir(TipoUsuario usuario, TipoEnt ent) throws ErroCadastro {
-		throw new UnsupportedOperationException("incluir");
-	}
-
-	@Override
-	public TipoEnt alterar(TipoUsuario usuario, TipoEnt ent) throws ErroCadastro {
-		throw new UnsupportedOperationException("alterar");
-	}
-
-	@Override
-	public void excluirTodos(TipoUsuario usuario) throws ErroCadastro {
-		for (TipoEnt ent : consultarTodos(usuario)) {
-			excluir(usuario, ent);
-		}
-	}
-
-	@Override
-	public void excluir(TipoUsuario usuario, TipoEnt ent) throws ErroCadastro {
-		throw new UnsupportedOperationException("excluir");
-	}
-}
+package meyn.util.modelo.cadastro;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import meyn.util.ErroExecucao;
+import meyn.util.modelo.entidade.Entidade;
+
+/**
+ * Suporte para implementações de cadastro.
+ * <p>
+ * As operações em lote ({@link #incluirTodos(Entidade, Collection)
+ * incluirTodos}, {@link #alterarTodos(Entidade, Collection) alterarTodos} e
+ * {@link #excluirTodos(Entidade, Collection) excluirTodos}) dividem as
+ * entidades recebidas em lotes de até {@link #getTamanhoLote()} entidades e
+ * repassam cada lote aos métodos {@link #incluirLote(Entidade, List)
+ * incluirLote}, {@link #alterarLote(Entidade, List) alterarLote} e
+ * {@link #excluirLote(Entidade, List) excluirLote}. Por padrão, estes métodos
+ * tratam uma entidade por vez; as subclasses devem sobrescrevê-los para
+ * persistir cada lote em uma única operação (por exemplo, com
+ * <tt>PreparedStatement.executeBatch</tt>). O tamanho padrão dos lotes é
+ * definido pela propriedade de sistema
+ * <tt>meyn.util.modelo.cadastro.CadastroImpl.tamanhoLote</tt>.
+ */
+public abstract class CadastroImpl<TipoUsuario extends Entidade, TipoEnt extends Entidade> implements Cadastro<TipoUsuario, TipoEnt> {
+
+	private static final int TAMANHO_LOTE = Integer.getInteger(CadastroImpl.class.getName() + ".tamanhoLote", 500);
+
+	private String modelo;
+	private Class<?> tipoEntidade;
+
+	private final Logger logger = LogManager.getLogger(getClass());
+
+	public CadastroImpl() throws ErroCadastro {
+		Type[] tipos = ((ParameterizedType) getClass().getGenericSuperclass()).getActualTypeArguments();
+		String nomeTipo = tipos[tipos.length - 1].getTypeName();
+		try {
+			tipoEntidade = (Class<?>) Class.forName(nomeTipo);
+		} catch (ClassNotFoundException | SecurityException e) {
+			throw new ErroCadastro("Erro carregando tipo da entidade: " + nomeTipo, e);
+		}
+	}
+
+	/**
+	 * Retorna o cadastro associado a este modelo.
+	 *
+	 * @param modelo nome lógico do modelo
+	 *
+	 * @return cadastro associado a este modelo
+	 *
+	 * @throws ErroCadastro se ocorrer um erro na obtenção do cadastro
+	 */
+	@SuppressWarnings("unchecked")
+	protected static final <TipoCadastro extends CadastroImpl<?, ?>> TipoCadastro getCadastro(String modelo) throws ErroCadastro {
+		return (TipoCadastro) FabricaCadastro.getCadastro(modelo);
+	}
+
+	@Override
+	public final String getModelo() {
+		return modelo;
+	}
+
+	@Override
+	public final void setModelo(String modelo) {
+		this.modelo = modelo;
+		logger.debug("iniciado");
+	}
+
+	protected Class<?> getTipoEntidade() {
+		return tipoEntidade;
+	}
+
+	protected Logger getLogger() {
+		return logger;
+	}
+
+	/**
+	 * Retorna o número máximo de entidades repassadas em cada lote às operações
+	 * em lote.
+	 *
+	 * @return tamanho dos lotes
+	 */
+	protected int getTamanhoLote() {
+		return TAMANHO_LOTE;
+	}
+
+	@Override
+	public Collection<TipoEnt> consultarTodos(TipoUsuario usuario) throws ErroCadastro {
+		throw new UnsupportedOperationException("consultarTodos");
+	}
+
+	/**
+	 * Por padrão, lê os itens em páginas de até {@link #getTamanhoLote()} itens
+	 * através de {@link #consultarPagina(Entidade, Entidade, int)
+	 * consultarPagina}, à medida que o fluxo é consumido, mantendo em memória
+	 * apenas a página atual. Se <tt>consultarPagina</tt> não for suportado,
+	 * retorna o fluxo do resultado de {@link #consultarTodos(Entidade)
+	 * consultarTodos}, que é mantido em memória. Os erros na leitura das páginas
+	 * seguintes à primeira são lançados pelo fluxo como {@link ErroExecucao
+	 * ErroExecucao}.
+	 */
+	@Override
+	public Stream<TipoEnt> consultarTodosFluxo(TipoUsuario usuario) throws ErroCadastro {
+		List<TipoEnt> pagina;
+		try {
+			pagina = consultarPagina(usuario, null, getTamanhoLote());
+		} catch (UnsupportedOperationException e) {
+			return consultarTodos(usuario).stream();
+		}
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new Paginador(usuario, pagina), Spliterator.ORDERED), false);
+	}
+
+	/**
+	 * Iterador dos itens lidos página a página por
+	 * {@link CadastroImpl#consultarPagina(Entidade, Entidade, int)
+	 * consultarPagina}.
+	 */
+	private final class Paginador implements Iterator<TipoEnt> {
+		private final TipoUsuario usuario;
+		private final int tamanho = getTamanhoLote();
+		private List<TipoEnt> pagina;
+		private int indice;
+
+		Paginador(TipoUsuario usuario, List<TipoEnt> pagina) {
+			this.usuario = usuario;
+			this.pagina = pagina;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (indice == pagina.size() && pagina.size() == tamanho) {
+				try {
+					pagina = consultarPagina(usuario, pagina.get(indice - 1), tamanho);
+				} catch (ErroCadastro e) {
+					throw new ErroExecucao("Erro consultando página do modelo '" + modelo + "'", e);
+				}
+				indice = 0;
+			}
+			return indice < pagina.size();
+		}
+
+		@Override
+		public TipoEnt next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return pagina.get(indice++);
+		}
+	}
+
+	@Override
+	public List<TipoEnt> consultarPagina(TipoUsuario usuario, TipoEnt ultimo, int tamanho) throws ErroCadastro {
+		throw new UnsupportedOperationException("consultarPagina");
+	}
+
+	@Override
+	public TipoEnt consultarPorChavePrimaria(TipoUsuario usuario, TipoEnt chave) throws ErroCadastro {
+		throw new UnsupportedOperationException("consultarPorChavePrimaria");
+	}
+
+	@Override
+	public TipoEnt incluir(TipoUsuario usuario, TipoEnt ent) throws ErroCadastro {
+		throw new UnsupportedOperationException("incluir");
+	}
+
+	@Override
+	public TipoEnt alterar(TipoUsuario usuario, TipoEnt ent) throws ErroCadastro {
+		throw new UnsupportedOperationException("alterar");
+	}
+
+	@Override
+	public List<TipoEnt> incluirTodos(TipoUsuario usuario, Collection<TipoEnt> ents) throws ErroCadastro {
+		List<TipoEnt> lsResultado = new ArrayList<TipoEnt>(ents.size());
+		List<TipoEnt> lote = new ArrayList<TipoEnt>(Math.min(ents.size(), getTamanhoLote()));
+		for (TipoEnt ent : ents) {
+			lote.add(ent);
+			if (lote.size() == getTamanhoLote()) {
+				lsResultado.addAll(incluirLote(usuario, lote));
+				lote.clear();
+			}
+		}
+		if (!lote.isEmpty()) {
+			lsResultado.addAll(incluirLote(usuario, lote));
+		}
+		return lsResultado;
+	}
+
+	/**
+	 * Inclui um lote de entidades. Por padrão, chama {@link #incluir(Entidade,
+	 * Entidade) incluir} para cada entidade.
+	 *
+	 * @param usuario usuario logado
+	 * @param lote    entidades do lote, que não deve ser guardado após a chamada
+	 *
+	 * @return entidades contendo os dados dos itens incluídos, na ordem do lote
+	 *
+	 * @throws ErroCadastro se algum erro ocorreu durante a operação
+	 */
+	protected List<TipoEnt> incluirLote(TipoUsuario usuario, List<TipoEnt> lote) throws ErroCadastro {
+		List<TipoEnt> lsResultado = new ArrayList<TipoEnt>(lote.size());
+		for (TipoEnt ent : lote) {
+			lsResultado.add(incluir(usuario, ent));
+		}
+		return lsResultado;
+	}
+
+	@Override
+	public List<TipoEnt> alterarTodos(TipoUsuario usuario, Collection<TipoEnt> ents) throws ErroCadastro {
+		List<TipoEnt> lsResultado = new ArrayList<TipoEnt>(ents.size());
+		List<TipoEnt> lote = new ArrayList<TipoEnt>(Math.min(ents.size(), getTamanhoLote()));
+		for (TipoEnt ent : ents) {
+			lote.add(ent);
+			if (lote.size() == getTamanhoLote()) {
+				lsResultado.addAll(alterarLote(usuario, lote));
+				lote.clear();
+			}
+		}
+		if (!lote.isEmpty()) {
+			lsResultado.addAll(alterarLote(usuario, lote));
+		}
+		return lsResultado;
+	}
+
+	/**
+	 * Altera um lote de entidades. Por padrão, chama {@link #alterar(Entidade,
+	 * Entidade) alterar} para cada entidade.
+	 *
+	 * @param usuario usuario logado
+	 * @param lote    entidades do lote, que não deve ser guardado após a chamada
+	 *
+	 * @return entidades contendo os dados dos itens alterados, na ordem do lote
+	 *
+	 * @throws ErroCadastro se algum erro ocorreu durante a operação
+	 */
+	protected List<TipoEnt> alterarLote(TipoUsuario usuario, List<TipoEnt> lote) throws ErroCadastro {
+		List<TipoEnt> lsResultado = new ArrayList<TipoEnt>(lote.size());
+		for (TipoEnt ent : lote) {
+			lsResultado.add(alterar(usuario, ent));
+		}
+		return lsResultado;
+	}
+
+	/**
+	 * Exclui os itens página a página: cada página de até
+	 * {@link #getTamanhoLote()} itens é lida por
+	 * {@link #consultarPagina(Entidade, Entidade, int) consultarPagina} e
+	 * repassada a {@link #excluirLote(Entidade, List) excluirLote} antes da
+	 * leitura da página seguinte, de modo que nenhuma consulta fica aberta
+	 * durante as exclusões e apenas uma página é mantida em memória. Se
+	 * <tt>consultarPagina</tt> não for suportado, exclui os itens do resultado
+	 * de {@link #consultarTodos(Entidade) consultarTodos}.
+	 */
+	@Override
+	public void excluirTodos(TipoUsuario usuario) throws ErroCadastro {
+		int tamanho = getTamanhoLote();
+		List<TipoEnt> pagina;
+		try {
+			pagina = consultarPagina(usuario, null, tamanho);
+		} catch (UnsupportedOperationException e) {
+			excluirTodos(usuario, consultarTodos(usuario));
+			return;
+		}
+		while (!pagina.isEmpty()) {
+			// a página seguinte começa após o último item, mesmo que já excluído
+			TipoEnt ultimo = pagina.get(pagina.size() - 1);
+			excluirLote(usuario, pagina);
+			if (pagina.size() < tamanho) {
+				break;
+			}
+			pagina = consultarPagina(usuario, ultimo, tamanho);
+		}
+	}
+
+	@Override
+	public void excluirTodos(TipoUsuario usuario, Collection<TipoEnt> ents) throws ErroCadastro {
+		excluirTodos(usuario, ents.iterator());
+	}
+
+	private void excluirTodos(TipoUsuario usuario, Iterator<TipoEnt> ents) throws ErroCadastro {
+		List<TipoEnt> lote = new ArrayList<TipoEnt>();
+		while (ents.hasNext()) {
+			lote.add(ents.next());
+			if (lote.size() == getTamanhoLote()) {
+				excluirLote(usuario, lote);
+				lote.clear();
+			}
+		}
+		if (!lote.isEmpty()) {
+			excluirLote(usuario, lote);
+		}
+	}
+
+	/**
+	 * Exclui um lote de entidades. Por padrão, chama {@link #excluir(Entidade,
+	 * Entidade) excluir} para cada entidade.
+	 *
+	 * @param usuario usuario logado
+	 * @param lote    entidades do lote, que não deve ser guardado após a chamada
+	 *
+	 * @throws ErroCadastro se algum erro ocorreu durante a operação
+	 */
+	protected void excluirLote(TipoUsuario usuario, List<TipoEnt> lote) throws ErroCadastro {
+		for (TipoEnt ent : lote) {
+			excluir(usuario, ent);
+		}
+	}
+
+	@Override
+	public void excluir(TipoUsuario usuario, TipoEnt ent) throws ErroCadastro {
+		throw new UnsupportedOperationException("excluir");
+	}
+}
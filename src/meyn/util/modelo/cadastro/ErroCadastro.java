@@ -1,18 +1,18 @@
-package meyn.util.modelo.cadastro;
-
-import meyn.util.modelo.*;
-
-/**
- * Levantado para indicar a ocorrncia de um erro durante uma operao de
- * cadastro.
- */
-@SuppressWarnings("serial")
-public class ErroCadastro extends ErroModelo {
-	public ErroCadastro(String msg) {
-		super(msg);
-	}
-
-	public ErroCadastro(String msg, Exception e) {
-		super(msg, e);
-	}
-}
+package meyn.util.modelo.cadastro;
+
+import meyn.util.modelo.*;
+
+/**
+ * Levantado para indicar a ocorrência de um erro durante uma operação de
+ * cadastro.
+ */
+@SuppressWarnings("serial")
+public class ErroCadastro extends ErroModelo {
+	public ErroCadastro(String msg) {
+		super(msg);
+	}
+
+	public ErroCadastro(String msg, Exception e) {
+		super(msg, e);
+	}
+}
@@ -1,81 +1,353 @@
-package meyn.util.modelo.cadastro;
-
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Set;
-
-import org.reflections.Reflections;
-
-import meyn.util.Erro;
-import meyn.util.ErroExecucao;
-import meyn.util.modelo.ChavesModelo;
-import meyn.util.modelo.FabricaObjetoModelo;
-import meyn.util.modelo.Modelo;
-import meyn.util.modelo.entidade.Entidade;
-
-/**
- * Suporte para a implementao de fbricas de cadastro. Esta classe  usada por
- * {@link meyn.util.modelo.FachadaModelo FachadaModelo} para obter acesso aos
- * cadastros e, por sua vez, usa {@link MapaCadastros MapaCadastros} para
- * recuperar os mapeamentos entre os nomes lgicos dos modelos e os componentes
- * cadastro.
- */
-public class FabricaCadastro extends FabricaObjetoModelo {
-
-	private static class ExtendedClassLoader extends ClassLoader {
-		ExtendedClassLoader(ClassLoader cl) {
-			super(cl);
-		}
-
-		protected Package[] getPackages() {
-			return super.getPackages();
-		}
-	}
-
-	@SuppressWarnings("serial")
-	public static class MapaCadastros extends HashMap<String, String> {
-
-		public MapaCadastros() {
-			Package[] pacotes = new ExtendedClassLoader(getClass().getClassLoader()).getPackages();
-			Set<Class<?>> tiposCadastro = new HashSet<Class<?>>();
-			for (Package pct : pacotes) {
-				Reflections reflections = new Reflections(pct.getName());
-				tiposCadastro.addAll(reflections.getTypesAnnotatedWith(Modelo.class));
-			}
-			for (Class<?> tipo : tiposCadastro) {
-				put(tipo.getAnnotationsByType(Modelo.class)[0].value(), tipo.getName());
-			}
-		}
-	}
-
-	private static MapaCadastros getMapaCadastros() throws ErroCadastro {
-		try {
-			return (MapaCadastros) FabricaObjetoModelo.getInstanciaEmCache(ChavesModelo.MAPA_CADASTROS, MapaCadastros.class.getName());
-		} catch (Exception e) {
-			throw new ErroCadastro("Erro carregando mapa dos cadastros", e);
-		}
-	}
-
-	/**
-	 * Retorna o cadastro associado a este nome lgico de modelo.
-	 *
-	 * @param modelo nome lgico do modelo
-	 *
-	 * @return cadastro associado a este modelo
-	 *
-	 * @throws ErroCadastro se ocorrer um erro na obteno do cadastro
-	 */
-	@SuppressWarnings("unchecked")
-	public static <TipoUsuario extends Entidade, TipoEnt extends Entidade> Cadastro<TipoUsuario, TipoEnt> getCadastro(String modelo)
-	        throws ErroCadastro {
-		String tipo = getMapaCadastros().get(modelo);
-		if (tipo == null) {
-			throw new ErroExecucao("No existe cadastro definido para o modelo '" + modelo + "'");
-		}
-		try {
-			return (Cadastro<TipoUsuario, TipoEnt>) getInstanciaEmCache(modelo, tipo);
-		} catch (Erro e) {
-			throw new ErroCadastro("Erro obtendo cadastro para o modelo '" + modelo + "'", e);
-		}
-	}
-}
+package meyn.util.modelo.cadastro;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.logging.log4j.LogManager;
+import org.reflections.Reflections;
+import org.reflections.util.ClasspathHelper;
+import org.reflections.util.ConfigurationBuilder;
+
+import com.google.common.base.Predicate;
+
+import meyn.util.ErroExecucao;
+import meyn.util.cache.InstantaneoCache;
+import meyn.util.contexto.ContextoEmMemoria;
+import meyn.util.modelo.ChavesModelo;
+import meyn.util.modelo.FabricaObjetoModelo;
+import meyn.util.modelo.Modelo;
+import meyn.util.modelo.ProcessadorModelos;
+import meyn.util.modelo.entidade.Entidade;
+
+/**
+ * Suporte para a implementação de fábricas de cadastro. Esta classe é usada por
+ * {@link meyn.util.modelo.FachadaModelo FachadaModelo} para obter acesso aos
+ * cadastros e, por sua vez, usa {@link MapaCadastros MapaCadastros} para
+ * recuperar os mapeamentos entre os nomes lógicos dos modelos e os componentes
+ * cadastro. Os cadastros são criados na primeira chamada ou, antecipadamente,
+ * por {@link #aquecer()}.
+ */
+public class FabricaCadastro extends FabricaObjetoModelo {
+
+	private static class ExtendedClassLoader extends ClassLoader {
+		ExtendedClassLoader(ClassLoader cl) {
+			super(cl);
+		}
+
+		protected Package[] getPackages() {
+			return super.getPackages();
+		}
+	}
+
+	/**
+	 * Filtro dos arquivos varridos que aceita apenas os dos pacotes informados e
+	 * de seus subpacotes. O custo de cada teste é proporcional à profundidade do
+	 * pacote do arquivo, e não ao número de pacotes informados.
+	 */
+	private static class FiltroPacotes implements Predicate<String> {
+		private final Set<String> stPacotes;
+
+		FiltroPacotes(Collection<String> clPacotes) {
+			stPacotes = new HashSet<String>(clPacotes);
+		}
+
+		@Override
+		public boolean apply(String arquivo) {
+			// recebe o caminho relativo do arquivo, com '/' ou '.' como separador
+			String nome = arquivo.replace('/', '.');
+			for (int fim = nome.lastIndexOf('.', nome.length() - ".class".length() - 1); fim > 0; fim = nome.lastIndexOf('.', fim - 1)) {
+				if (stPacotes.contains(nome.substring(0, fim))) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Mapa dos nomes lógicos dos modelos para os nomes das classes dos cadastros.
+	 * O mapa é montado a partir dos índices {@value ProcessadorModelos#INDICE}
+	 * gerados na compilação por {@link ProcessadorModelos ProcessadorModelos}
+	 * e visíveis pelo <i>context class loader</i>. Havendo índices, são
+	 * varridas apenas as raízes do <i>classpath</i> que não têm índice, com os
+	 * pacotes descritos abaixo, e estas raízes são registradas no <i>log</i>
+	 * como aviso. Na ausência de índices, o mapa
+	 * é montado pela varredura das classes anotadas com {@link Modelo Modelo}
+	 * (ver {@link #varrerModelos(ClassLoader, Collection) varrerModelos}) nos
+	 * pacotes definidos, separados por vírgulas, na propriedade de sistema
+	 * <tt>meyn.util.modelo.cadastro.FabricaCadastro$MapaCadastros.pacotes</tt>
+	 * ou, se ela não estiver definida, nos pacotes já definidos pelo <i>class
+	 * loader</i> da <i>framework</i>. Se a propriedade de sistema
+	 * <tt>meyn.util.modelo.cadastro.FabricaCadastro$MapaCadastros.instantaneo</tt>
+	 * definir um arquivo, o mapa é gravado neste {@link InstantaneoCache
+	 * instantâneo} após a varredura e recarregado dele nas próximas partidas,
+	 * enquanto as classes dos cadastros e a versão da aplicação não mudarem. Como
+	 * uma classe anotada nova não invalida o instantâneo, ele só é usado se a
+	 * versão da aplicação estiver definida (ver
+	 * {@link InstantaneoCache#PROPRIEDADE_VERSAO}).
+	 */
+	@SuppressWarnings("serial")
+	public static class MapaCadastros extends HashMap<String, String> {
+
+		public MapaCadastros() {
+			Set<String> stRaizesIndexadas = carregarIndices();
+			if (!stRaizesIndexadas.isEmpty()) {
+				varrerRaizesSemIndice(stRaizesIndexadas);
+				return;
+			}
+			Path arquivo = InstantaneoCache.getArquivo(MapaCadastros.class);
+			if (arquivo != null && !InstantaneoCache.isVersaoDefinida()) {
+				LogManager.getLogger(MapaCadastros.class).warn("instantâneo ignorado, versão da aplicação não definida ({}): {}",
+				        InstantaneoCache.PROPRIEDADE_VERSAO, arquivo);
+				arquivo = null;
+			}
+			if (arquivo != null && InstantaneoCache.carregar(this, arquivo) >= 0) {
+				return;
+			}
+			Map<String, Class<?>> mpTipos = varrerModelos(getClass().getClassLoader(), getPacotes());
+			for (Map.Entry<String, Class<?>> item : mpTipos.entrySet()) {
+				put(item.getKey(), item.getValue().getName());
+			}
+			if (arquivo != null) {
+				try {
+					InstantaneoCache.gravar(this, arquivo, mpTipos.values());
+				} catch (IOException e) {
+					LogManager.getLogger(MapaCadastros.class).warn("erro gravando instantâneo: " + arquivo, e);
+				}
+			}
+		}
+
+		private List<String> getPacotes() {
+			List<String> lsPacotes = new ArrayList<String>();
+			String pacotes = System.getProperty(MapaCadastros.class.getName() + ".pacotes");
+			if (pacotes != null && !pacotes.trim().isEmpty()) {
+				for (String pacote : pacotes.split(",")) {
+					if (!pacote.trim().isEmpty()) {
+						lsPacotes.add(pacote.trim());
+					}
+				}
+			} else {
+				for (Package pct : new ExtendedClassLoader(getClass().getClassLoader()).getPackages()) {
+					lsPacotes.add(pct.getName());
+				}
+			}
+			return lsPacotes;
+		}
+
+		/**
+		 * Varre os pacotes com estes prefixos em busca das classes anotadas com
+		 * {@link Modelo Modelo}. A varredura é feita em uma única passagem: os
+		 * arquivos e diretórios do <i>classpath</i> que contêm os pacotes são lidos
+		 * uma única vez, em paralelo no {@link ForkJoinPool#commonPool() pool
+		 * comum}, considerando apenas as classes dos pacotes e subpacotes
+		 * informados.
+		 *
+		 * @param carregador <i>class loader</i> das classes
+		 * @param prefixos   nomes dos pacotes varridos
+		 *
+		 * @return mapa dos nomes lógicos dos modelos para as classes anotadas
+		 *
+		 * @throws ErroExecucao se um modelo estiver associado a mais de uma classe
+		 */
+		public static Map<String, Class<?>> varrerModelos(ClassLoader carregador, Collection<String> prefixos) {
+			return varrerModelos(carregador, prefixos, getUrls(carregador, prefixos));
+		}
+
+		private static Set<URL> getUrls(ClassLoader carregador, Collection<String> prefixos) {
+			Set<URL> stUrls = new LinkedHashSet<URL>();
+			for (String prefixo : prefixos) {
+				stUrls.addAll(ClasspathHelper.forPackage(prefixo, carregador));
+			}
+			return stUrls;
+		}
+
+		private static Map<String, Class<?>> varrerModelos(ClassLoader carregador, Collection<String> prefixos, Set<URL> stUrls) {
+			Map<String, Class<?>> mpTipos = new HashMap<String, Class<?>>();
+			if (prefixos.isEmpty() || stUrls.isEmpty()) {
+				return mpTipos;
+			}
+			// o pool comum não é afetado pelo shutdown feito ao fim da varredura
+			Reflections reflections = new Reflections(new ConfigurationBuilder().setUrls(stUrls).filterInputsBy(new FiltroPacotes(prefixos))
+			        .addClassLoader(carregador).setExecutorService(ForkJoinPool.commonPool()));
+			for (Class<?> tipo : reflections.getTypesAnnotatedWith(Modelo.class, true)) {
+				String modelo = tipo.getAnnotation(Modelo.class).value();
+				Class<?> tipoAnterior = mpTipos.put(modelo, tipo);
+				if (tipoAnterior != null && tipoAnterior != tipo) {
+					throw new ErroExecucao(
+					        "Modelo '" + modelo + "' definido por mais de um cadastro: " + tipoAnterior.getName() + ", " + tipo.getName());
+				}
+			}
+			return mpTipos;
+		}
+
+		/**
+		 * Inclui no mapa os modelos das classes anotadas nas raízes do
+		 * <i>classpath</i> que não têm índice, como as de bibliotecas compiladas
+		 * sem o processador de anotações.
+		 */
+		private void varrerRaizesSemIndice(Set<String> stRaizesIndexadas) {
+			ClassLoader carregador = getClass().getClassLoader();
+			List<String> lsPacotes = getPacotes();
+			Set<URL> stUrls = getUrls(carregador, lsPacotes);
+			stUrls.removeIf(url -> stRaizesIndexadas.contains(url.toExternalForm()));
+			if (stUrls.isEmpty()) {
+				return;
+			}
+			LogManager.getLogger(MapaCadastros.class).warn("varrendo raízes sem índice dos modelos: {}", stUrls);
+			for (Map.Entry<String, Class<?>> item : varrerModelos(carregador, lsPacotes, stUrls).entrySet()) {
+				incluir(item.getKey(), item.getValue().getName());
+			}
+		}
+
+		private void incluir(String modelo, String classe) {
+			String classeAnterior = put(modelo, classe);
+			if (classeAnterior != null && !classeAnterior.equals(classe)) {
+				throw new ErroExecucao("Modelo '" + modelo + "' definido por mais de um cadastro: " + classeAnterior + ", " + classe);
+			}
+		}
+
+		/**
+		 * Inclui no mapa os modelos dos índices gerados na compilação.
+		 *
+		 * @return raízes do <i>classpath</i> onde foram encontrados índices, na
+		 *         forma externa das suas URLs
+		 */
+		private Set<String> carregarIndices() {
+			ClassLoader carregador = Thread.currentThread().getContextClassLoader();
+			if (carregador == null) {
+				carregador = getClass().getClassLoader();
+			}
+			Set<String> stRaizes = new LinkedHashSet<String>();
+			try {
+				Enumeration<URL> indices = carregador.getResources(ProcessadorModelos.INDICE);
+				while (indices.hasMoreElements()) {
+					URL indice = indices.nextElement();
+					String url = indice.toExternalForm();
+					stRaizes.add(url.substring(0, url.length() - ProcessadorModelos.INDICE.length()));
+					try (BufferedReader leitor = new BufferedReader(new InputStreamReader(indice.openStream(), StandardCharsets.UTF_8))) {
+						String linha;
+						while ((linha = leitor.readLine()) != null) {
+							int separador = linha.lastIndexOf('=');
+							if (linha.startsWith("#") || separador < 0) {
+								continue;
+							}
+							incluir(linha.substring(0, separador), linha.substring(separador + 1).trim());
+						}
+					}
+				}
+			} catch (IOException e) {
+				throw new ErroExecucao("Erro lendo índice dos modelos", e);
+			}
+			return stRaizes;
+		}
+	}
+
+	private static MapaCadastros getMapaCadastros() throws ErroCadastro {
+		try {
+			return (MapaCadastros) FabricaObjetoModelo.getInstanciaEmCache(ChavesModelo.MAPA_CADASTROS, MapaCadastros.class.getName());
+		} catch (Exception e) {
+			throw new ErroCadastro("Erro carregando mapa dos cadastros", e);
+		}
+	}
+
+	private static final int VINCULO_REGISTRO = ContextoEmMemoria.reservarVinculoIndexado(FabricaCadastro.class);
+
+	/**
+	 * Retorna o registro dos cadastros do contexto do <i>class loader</i> atual.
+	 * O registro é publicado em uma posição indexada do contexto, de modo que os
+	 * acessos seguintes não usam travas, e montado no primeiro acesso, com todos
+	 * os cadastros do {@link MapaCadastros mapa}. Os acessos feitos durante a
+	 * montagem, inclusive pelos próprios cadastros em criação, recebem o
+	 * registro publicado e criam sob demanda os cadastros pedidos.
+	 *
+	 * @return registro dos cadastros
+	 *
+	 * @throws ErroCadastro se ocorrer um erro na carga do mapa dos cadastros
+	 */
+	public static RegistroCadastros getRegistro() throws ErroCadastro {
+		ContextoEmMemoria contexto = ContextoEmMemoria.getContextoCarregador();
+		RegistroCadastros registro = (RegistroCadastros) contexto.getVinculoIndexado(VINCULO_REGISTRO);
+		return registro != null ? registro : publicarRegistro(contexto, false);
+	}
+
+	/**
+	 * Monta antecipadamente o registro dos cadastros do contexto do <i>class
+	 * loader</i> atual, instanciando os cadastros de todos os modelos em paralelo
+	 * no {@link java.util.concurrent.ForkJoinPool#commonPool() pool comum}. Deve
+	 * ser chamado na partida da aplicação (por exemplo, por um
+	 * <tt>ServletContextListener</tt>), para que nenhuma requisição pague a
+	 * criação dos cadastros. O tempo de criação de cada cadastro é registrado no
+	 * <i>log</i> e pode ser consultado em
+	 * {@link RegistroCadastros#getTemposCriacao()}. Se o registro já estiver
+	 * montado ou em montagem, apenas o retorna.
+	 *
+	 * @return registro dos cadastros
+	 *
+	 * @throws ErroCadastro se ocorrer um erro na carga do mapa dos cadastros
+	 */
+	public static RegistroCadastros aquecer() throws ErroCadastro {
+		ContextoEmMemoria contexto = ContextoEmMemoria.getContextoCarregador();
+		RegistroCadastros registro = (RegistroCadastros) contexto.getVinculoIndexado(VINCULO_REGISTRO);
+		return registro != null ? registro : publicarRegistro(contexto, true);
+	}
+
+	private static RegistroCadastros publicarRegistro(ContextoEmMemoria contexto, boolean paralelo) throws ErroCadastro {
+		MapaCadastros mpCadastros = getMapaCadastros();
+		RegistroCadastros registro;
+		synchronized (contexto) {
+			registro = (RegistroCadastros) contexto.get(ChavesModelo.REGISTRO_CADASTROS);
+			if (registro == null) {
+				registro = new RegistroCadastros(mpCadastros);
+				contexto.put(ChavesModelo.REGISTRO_CADASTROS, registro);
+			}
+			contexto.setVinculoIndexado(VINCULO_REGISTRO, registro);
+		}
+		// publicado antes da montagem, feita sem a trava do contexto, que pode ser
+		// necessária aos cadastros; um cadastro que pede outro durante a sua
+		// criação recebe o registro publicado, em vez de montar um novo
+		registro.montar(paralelo);
+		return registro;
+	}
+
+	/**
+	 * Retorna o cadastro associado a este nome lógico de modelo.
+	 *
+	 * @param modelo nome lógico do modelo
+	 *
+	 * @return cadastro associado a este modelo
+	 *
+	 * @throws ErroCadastro se ocorrer um erro na obtenção do cadastro
+	 */
+	@SuppressWarnings("unchecked")
+	public static <TipoUsuario extends Entidade, TipoEnt extends Entidade> Cadastro<TipoUsuario, TipoEnt> getCadastro(String modelo)
+	        throws ErroCadastro {
+		return (Cadastro<TipoUsuario, TipoEnt>) getRegistro().getCadastro(modelo);
+	}
+
+	/**
+	 * Retorna o cadastro desta classe.
+	 *
+	 * @param tipo classe do cadastro
+	 *
+	 * @return cadastro da classe
+	 *
+	 * @throws ErroCadastro se ocorrer um erro na carga do mapa dos cadastros
+	 */
+	public static <TipoCadastro extends Cadastro<?, ?>> TipoCadastro getCadastro(Class<TipoCadastro> tipo) throws ErroCadastro {
+		return getRegistro().getCadastro(tipo);
+	}
+}
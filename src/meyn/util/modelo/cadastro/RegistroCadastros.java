@@ -0,0 +1,275 @@
+package meyn.util.modelo.cadastro;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import meyn.util.Erro;
+import meyn.util.ErroExecucao;
+import meyn.util.modelo.FabricaObjetoModelo;
+
+/**
+ * Registro dos cadastros da aplicação, indexados pelo nome lógico do modelo e
+ * pelos tipos do cadastro. O registro é criado a partir do
+ * {@link FabricaCadastro.MapaCadastros mapa dos cadastros} e publicado antes de
+ * sua montagem, que instancia cada cadastro, guarda-o no cache da camada dos
+ * modelos e associa-o ao seu modelo ({@link Cadastro#setModelo(String)
+ * setModelo}). O cadastro pedido que ainda não foi instanciado é criado no
+ * próprio pedido; desta forma, um cadastro pode obter outros cadastros durante
+ * a sua criação. As leituras não usam travas.
+ * <p>
+ * Um cadastro que não pode ser instanciado não impede a montagem do registro: o
+ * erro não é guardado, e cada pedido pelo seu modelo faz uma nova tentativa de
+ * criação, lançando o erro se ela também falhar. O tempo de criação
+ * de cada cadastro é registrado no <i>log</i> e pode ser consultado em
+ * {@link #getTemposCriacao()}.
+ *
+ * @see FabricaCadastro#getCadastro(String)
+ * @see FabricaCadastro#aquecer()
+ */
+public final class RegistroCadastros {
+
+	private final Map<String, String> mpCadastros;
+	private final Map<String, Cadastro<?, ?>> mpPorModelo = new ConcurrentHashMap<String, Cadastro<?, ?>>();
+	private final Map<Class<?>, Cadastro<?, ?>> mpPorTipo = new ConcurrentHashMap<Class<?>, Cadastro<?, ?>>();
+	private final Set<Class<?>> stTiposAmbiguos = ConcurrentHashMap.newKeySet();
+	private final Map<String, Long> mpTempos = new ConcurrentHashMap<String, Long>();
+	private final AtomicBoolean montagemIniciada = new AtomicBoolean();
+	private volatile boolean montado;
+
+	/**
+	 * Resultado da criação do cadastro de um modelo.
+	 */
+	private static final class Criacao {
+		final String modelo;
+		Cadastro<?, ?> cadastro;
+		Erro erro;
+		long tempo;
+
+		Criacao(String modelo) {
+			this.modelo = modelo;
+		}
+	}
+
+	/**
+	 * Cria o registro, ainda não montado, dos cadastros deste mapa.
+	 *
+	 * @param mpCadastros mapa dos nomes lógicos dos modelos para os nomes das
+	 *                    classes dos cadastros
+	 */
+	RegistroCadastros(Map<String, String> mpCadastros) {
+		this.mpCadastros = mpCadastros;
+	}
+
+	/**
+	 * Monta o registro instanciando os cadastros do mapa que ainda não foram
+	 * criados. Apenas a primeira chamada monta o registro; as demais retornam
+	 * imediatamente, mesmo que a montagem ainda não tenha terminado.
+	 *
+	 * @param paralelo <tt>true</tt> para instanciar os cadastros em paralelo no
+	 *                 {@link ForkJoinPool#commonPool() pool comum}
+	 */
+	void montar(boolean paralelo) {
+		if (!montagemIniciada.compareAndSet(false, true)) {
+			return;
+		}
+		Logger logger = LogManager.getLogger(getClass());
+		long inicio = System.nanoTime();
+		if (paralelo) {
+			// as threads do pool devem ver o mesmo contexto que a thread atual
+			ClassLoader carregador = Thread.currentThread().getContextClassLoader();
+			List<CompletableFuture<Void>> lsTarefas = new ArrayList<CompletableFuture<Void>>(mpCadastros.size());
+			for (String modelo : mpCadastros.keySet()) {
+				lsTarefas.add(CompletableFuture.runAsync(() -> garantir(carregador, modelo), ForkJoinPool.commonPool()));
+			}
+			for (CompletableFuture<Void> tarefa : lsTarefas) {
+				tarefa.join();
+			}
+		} else {
+			for (String modelo : mpCadastros.keySet()) {
+				garantir(modelo);
+			}
+		}
+		montado = true;
+		logger.info("{} cadastros iniciados em {} ms", mpPorModelo.size(), (System.nanoTime() - inicio) / 1000000);
+	}
+
+	/**
+	 * Indica se a montagem terminou, isto é, se houve uma tentativa de criação de
+	 * cada cadastro do mapa.
+	 *
+	 * @return <tt>true</tt> se o registro está montado
+	 */
+	public boolean isMontado() {
+		return montado;
+	}
+
+	private void garantir(ClassLoader carregador, String modelo) {
+		Thread thread = Thread.currentThread();
+		ClassLoader carregadorAnterior = thread.getContextClassLoader();
+		thread.setContextClassLoader(carregador);
+		try {
+			garantir(modelo);
+		} finally {
+			thread.setContextClassLoader(carregadorAnterior);
+		}
+	}
+
+	/**
+	 * Cria o cadastro deste modelo, se ainda não foi criado.
+	 *
+	 * @return erro da criação ou <tt>null</tt> se o cadastro foi ou já estava
+	 *         criado
+	 */
+	private Erro garantir(String modelo) {
+		if (mpPorModelo.containsKey(modelo)) {
+			return null;
+		}
+		Criacao criacao = criar(modelo, mpCadastros.get(modelo));
+		registrar(criacao);
+		return criacao.erro;
+	}
+
+	private static Criacao criar(String modelo, String classe) {
+		Criacao criacao = new Criacao(modelo);
+		long inicio = System.nanoTime();
+		try {
+			criacao.cadastro = (Cadastro<?, ?>) FabricaObjetoModelo.getInstanciaEmCache(modelo, classe);
+			criacao.cadastro.setModelo(modelo);
+		} catch (Erro e) {
+			criacao.erro = e;
+		} catch (RuntimeException e) {
+			criacao.erro = new ErroCadastro("Erro instanciando cadastro", e);
+		}
+		criacao.tempo = System.nanoTime() - inicio;
+		return criacao;
+	}
+
+	private synchronized void registrar(Criacao criacao) {
+		// criado em concorrência: as instâncias vêm do mesmo cache; um erro, como o
+		// de um cadastro que pede a si mesmo na criação, não substitui um sucesso
+		if (mpPorModelo.containsKey(criacao.modelo)) {
+			return;
+		}
+		Logger logger = LogManager.getLogger(getClass());
+		mpTempos.put(criacao.modelo, criacao.tempo);
+		if (criacao.cadastro != null) {
+			mpPorModelo.put(criacao.modelo, criacao.cadastro);
+			indexarTipos(criacao.cadastro.getClass(), criacao.cadastro);
+			logger.debug("cadastro iniciado: {} ({} us)", criacao.modelo, criacao.tempo / 1000);
+		} else {
+			logger.warn("erro iniciando cadastro: " + criacao.modelo, criacao.erro);
+		}
+	}
+
+	/**
+	 * Indexa o cadastro por sua classe, superclasses e interfaces que estendem
+	 * {@link Cadastro Cadastro}. Os tipos comuns a mais de um cadastro são
+	 * marcados como ambíguos.
+	 */
+	private void indexarTipos(Class<?> tipo, Cadastro<?, ?> cadastro) {
+		if (tipo == null || tipo == Cadastro.class || tipo == CadastroImpl.class || !Cadastro.class.isAssignableFrom(tipo)) {
+			return;
+		}
+		Cadastro<?, ?> cadastroAnterior = mpPorTipo.putIfAbsent(tipo, cadastro);
+		if (cadastroAnterior != null && cadastroAnterior != cadastro) {
+			stTiposAmbiguos.add(tipo);
+		}
+		indexarTipos(tipo.getSuperclass(), cadastro);
+		for (Class<?> interf : tipo.getInterfaces()) {
+			indexarTipos(interf, cadastro);
+		}
+	}
+
+	/**
+	 * Retorna o cadastro associado a este nome lógico de modelo, criando-o se
+	 * ainda não foi criado ou se a criação anterior falhou.
+	 *
+	 * @param modelo nome lógico do modelo
+	 *
+	 * @return cadastro associado ao modelo
+	 *
+	 * @throws ErroCadastro se o cadastro do modelo não pôde ser instanciado
+	 */
+	public Cadastro<?, ?> getCadastro(String modelo) throws ErroCadastro {
+		Cadastro<?, ?> cadastro = mpPorModelo.get(modelo);
+		if (cadastro == null) {
+			if (!mpCadastros.containsKey(modelo)) {
+				throw new ErroExecucao("Não existe cadastro definido para o modelo '" + modelo + "'");
+			}
+			Erro erro = garantir(modelo);
+			cadastro = mpPorModelo.get(modelo);
+			if (cadastro == null) {
+				throw new ErroCadastro("Erro obtendo cadastro para o modelo '" + modelo + "'", erro);
+			}
+		}
+		return cadastro;
+	}
+
+	/**
+	 * Retorna o cadastro deste tipo, que pode ser a classe do cadastro, uma de
+	 * suas superclasses ou uma interface que ele implementa, desde que estendam
+	 * {@link Cadastro Cadastro} e não sejam comuns a mais de um cadastro. Se o
+	 * tipo ainda não estiver indexado, são criados antes da busca os cadastros
+	 * ainda não criados cujas classes são deste tipo.
+	 *
+	 * @param tipo tipo do cadastro
+	 *
+	 * @return cadastro do tipo
+	 *
+	 * @throws ErroExecucao se o tipo não for o de nenhum cadastro registrado ou
+	 *                      for o de mais de um
+	 */
+	public <TipoCadastro extends Cadastro<?, ?>> TipoCadastro getCadastro(Class<TipoCadastro> tipo) {
+		Cadastro<?, ?> cadastro = mpPorTipo.get(tipo);
+		if (cadastro == null) {
+			ClassLoader carregador = Thread.currentThread().getContextClassLoader();
+			for (Map.Entry<String, String> item : mpCadastros.entrySet()) {
+				try {
+					if (!mpPorModelo.containsKey(item.getKey()) && tipo.isAssignableFrom(Class.forName(item.getValue(), false, carregador))) {
+						garantir(item.getKey());
+					}
+				} catch (ClassNotFoundException | LinkageError e) {
+					// o erro é registrado na criação do cadastro
+				}
+			}
+			cadastro = mpPorTipo.get(tipo);
+		}
+		if (cadastro == null) {
+			throw new ErroExecucao("Cadastro não registrado: " + tipo.getName());
+		}
+		if (stTiposAmbiguos.contains(tipo)) {
+			throw new ErroExecucao("Mais de um cadastro registrado para o tipo " + tipo.getName());
+		}
+		return tipo.cast(cadastro);
+	}
+
+	/**
+	 * Retorna os nomes lógicos dos modelos cujos cadastros foram instanciados.
+	 *
+	 * @return conjunto imutável com os nomes dos modelos
+	 */
+	public Set<String> getModelos() {
+		return Collections.unmodifiableSet(mpPorModelo.keySet());
+	}
+
+	/**
+	 * Retorna o tempo gasto na criação do cadastro de cada modelo, incluindo os
+	 * que não puderam ser instanciados.
+	 *
+	 * @return mapa imutável dos nomes lógicos dos modelos para os tempos, em
+	 *         nanossegundos
+	 */
+	public Map<String, Long> getTemposCriacao() {
+		return Collections.unmodifiableMap(mpTempos);
+	}
+}
@@ -0,0 +1,419 @@
+package meyn.util.modelo.entidade;
+
+import java.beans.PropertyDescriptor;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import meyn.util.beans.AcessoPropriedades;
+import meyn.util.beans.Componentes;
+
+/**
+ * Suporte para implementações compactas das entidades de transferência. Os
+ * nomes das propriedades e a posição de cada uma ficam em um {@link Esquema
+ * esquema} imutável, compartilhado por todas as entidades com as mesmas
+ * propriedades e a mesma interface de acesso; cada entidade guarda apenas o
+ * esquema e um vetor com os valores das propriedades. Isto reduz bastante a
+ * memória ocupada por entidade em relação a {@link EntidadeMapeada
+ * EntidadeMapeada}, que mantém um mapa próprio com uma entrada por
+ * propriedade.
+ * <p>
+ * As propriedades de tipo primitivo da interface de acesso (obtidas de
+ * {@link Componentes#getDescritoresPropriedades(Class)
+ * Componentes.getDescritoresPropriedades}) são guardadas em um vetor de
+ * <tt>long</tt> à parte, sem objetos intermediários, e são lidas e escritas
+ * sem conversão pelos métodos tipados de {@link AcessoPropriedades
+ * AcessoPropriedades}, como <tt>getLong(String)</tt>. Assim como nas
+ * entidades geradas ({@link EntidadeGeradaImpl EntidadeGeradaImpl}), estas
+ * propriedades nunca são nulas: valem inicialmente o valor padrão do tipo,
+ * que também é atribuído quando definidas como <tt>null</tt>.
+ * <p>
+ * Assim como em <tt>EntidadeMapeada</tt>, <tt>nomesPropriedades</tt> é também
+ * uma propriedade da entidade, assim como <tt>tipoAcessoPropriedades</tt>
+ * quando a interface de acesso não é {@link AcessoPropriedades
+ * AcessoPropriedades}. O acesso a uma propriedade não definida no esquema
+ * levanta {@link ErroPropriedadeEntidadeNaoDefinida
+ * ErroPropriedadeEntidadeNaoDefinida}. Ao contrário de
+ * <tt>EntidadeMapeada</tt>, a entidade não é um mapa e a igualdade é a de
+ * identidade.
+ *
+ * @see EntidadeTipada
+ */
+@SuppressWarnings("serial")
+public class EntidadeCompacta implements Entidade {
+
+	/**
+	 * Disposição imutável das propriedades de uma entidade compacta: os nomes
+	 * das propriedades, o tipo primitivo de cada uma, se houver, a posição do
+	 * seu valor no vetor de objetos ou no vetor de primitivos e a interface de
+	 * acesso. Os esquemas são mantidos uma única vez por interface
+	 * de acesso e conjunto de nomes, ficando associados à interface e sendo
+	 * descartados junto com ela.
+	 */
+	public static final class Esquema implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private static final ClassValue<ConcurrentMap<List<String>, Esquema>> ESQUEMAS = new ClassValue<ConcurrentMap<List<String>, Esquema>>() {
+			@Override
+			protected ConcurrentMap<List<String>, Esquema> computeValue(Class<?> tipo) {
+				return new ConcurrentHashMap<List<String>, Esquema>();
+			}
+		};
+
+		private final Class<?> tipoAcesso;
+		private final List<String> lsNomes;
+		private transient Map<String, Integer> mpIndices;
+		// tipo primitivo de cada propriedade, ou null se guardada como objeto
+		private transient Class<?>[] tiposPrimitivos;
+		// posição de cada propriedade no vetor de objetos ou no de primitivos
+		private transient int[] posicoes;
+		private transient int numObjetos;
+		private transient int numPrimitivos;
+		private transient int indiceNomes;
+		private transient int indiceTipo;
+
+		private Esquema(Class<?> tipoAcesso, List<String> lsNomes) {
+			this.tipoAcesso = tipoAcesso;
+			this.lsNomes = lsNomes;
+			indexar();
+		}
+
+		private void indexar() {
+			Map<String, PropertyDescriptor> mpDescritores = tipoAcesso != AcessoPropriedades.class
+			        ? Componentes.getDescritoresPropriedades(tipoAcesso)
+			        : Collections.<String, PropertyDescriptor>emptyMap();
+			mpIndices = new HashMap<String, Integer>((int) (lsNomes.size() / 0.75f) + 1);
+			tiposPrimitivos = new Class<?>[lsNomes.size()];
+			posicoes = new int[lsNomes.size()];
+			for (int i = 0; i < lsNomes.size(); i++) {
+				String nome = lsNomes.get(i);
+				PropertyDescriptor descritor = mpDescritores.get(nome);
+				Class<?> tipo = descritor != null ? descritor.getPropertyType() : null;
+				if (tipo != null && tipo.isPrimitive()) {
+					tiposPrimitivos[i] = tipo;
+					posicoes[i] = numPrimitivos++;
+				} else {
+					posicoes[i] = numObjetos++;
+				}
+				mpIndices.put(nome, i);
+			}
+			indiceNomes = getIndice("nomesPropriedades");
+			indiceTipo = getIndice("tipoAcessoPropriedades");
+		}
+
+		/**
+		 * Retorna o esquema das entidades com estas propriedades e que implementam
+		 * esta interface de acesso. As propriedades <tt>nomesPropriedades</tt> e,
+		 * se a interface não for {@link AcessoPropriedades AcessoPropriedades},
+		 * <tt>tipoAcessoPropriedades</tt> são acrescentadas ao esquema.
+		 *
+		 * @param clNomesProps    nomes das propriedades
+		 * @param tipoAcessoProps interface de acesso às propriedades
+		 *
+		 * @return esquema compartilhado
+		 */
+		public static Esquema getEsquema(Collection<String> clNomesProps, Class<?> tipoAcessoProps) {
+			LinkedHashSet<String> stNomes = new LinkedHashSet<String>(clNomesProps);
+			stNomes.add("nomesPropriedades");
+			if (tipoAcessoProps != AcessoPropriedades.class) {
+				stNomes.add("tipoAcessoPropriedades");
+			}
+			List<String> lsNomes = Collections.unmodifiableList(Arrays.asList(stNomes.toArray(new String[stNomes.size()])));
+			return ESQUEMAS.get(tipoAcessoProps).computeIfAbsent(lsNomes, ls -> new Esquema(tipoAcessoProps, ls));
+		}
+
+		/**
+		 * Retorna o tipo da interface de acesso às propriedades.
+		 */
+		public Class<?> getTipoAcessoPropriedades() {
+			return tipoAcesso;
+		}
+
+		/**
+		 * Retorna a lista imutável com os nomes das propriedades, na ordem das
+		 * posições dos seus valores.
+		 */
+		public List<String> getNomesPropriedades() {
+			return lsNomes;
+		}
+
+		/**
+		 * Retorna a posição desta propriedade na lista de nomes, ou <tt>-1</tt> se
+		 * a propriedade não estiver definida no esquema.
+		 */
+		public int getIndice(String nome) {
+			Integer indice = mpIndices.get(nome);
+			return indice != null ? indice : -1;
+		}
+
+		/**
+		 * Retorna o tipo primitivo desta propriedade, ou <tt>null</tt> se ela for
+		 * guardada como objeto.
+		 */
+		public Class<?> getTipoPrimitivo(String nome) {
+			Integer indice = mpIndices.get(nome);
+			return indice != null ? tiposPrimitivos[indice] : null;
+		}
+
+		private Object readResolve() throws ObjectStreamException {
+			return getEsquema(lsNomes, tipoAcesso);
+		}
+	}
+
+	private final Esquema esquema;
+	private final Object[] valores;
+	private final long[] primitivos;
+
+	/**
+	 * Cria uma entidade com as propriedades deste esquema, com valores nulos ou,
+	 * para as propriedades primitivas, com os valores padrão dos tipos.
+	 *
+	 * @param esquema esquema da entidade
+	 */
+	public EntidadeCompacta(Esquema esquema) {
+		this.esquema = esquema;
+		this.valores = new Object[esquema.numObjetos];
+		this.primitivos = esquema.numPrimitivos > 0 ? new long[esquema.numPrimitivos] : null;
+		valores[esquema.posicoes[esquema.indiceNomes]] = esquema.lsNomes;
+		if (esquema.indiceTipo >= 0) {
+			valores[esquema.posicoes[esquema.indiceTipo]] = esquema.tipoAcesso;
+		}
+	}
+
+	/**
+	 * Cria uma entidade com as propriedades definidas nesta coleção.
+	 *
+	 * @param clNomesProps nomes das propriedades
+	 */
+	public EntidadeCompacta(Collection<String> clNomesProps) {
+		this(Esquema.getEsquema(clNomesProps, AcessoPropriedades.class));
+	}
+
+	/**
+	 * Cria uma entidade com as propriedades e valores definidos neste mapa.
+	 *
+	 * @param mpProps nomes e valores das propriedades
+	 */
+	public EntidadeCompacta(Map<String, Object> mpProps) {
+		this(mpProps, AcessoPropriedades.class);
+	}
+
+	EntidadeCompacta(Map<String, Object> mpProps, Class<?> tipoAcessoProps) {
+		this(Esquema.getEsquema(mpProps.keySet(), tipoAcessoProps));
+		for (Map.Entry<String, Object> item : mpProps.entrySet()) {
+			String nome = item.getKey();
+			if (!nome.equals("nomesPropriedades") && !nome.equals("tipoAcessoPropriedades")) {
+				escrever(esquema.getIndice(nome), item.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Retorna o esquema compartilhado da entidade.
+	 */
+	public final Esquema getEsquema() {
+		return esquema;
+	}
+
+	/**
+	 * Retorna os nomes das propriedades da entidade.
+	 */
+	public final Collection<String> getNomesPropriedades() {
+		return esquema.lsNomes;
+	}
+
+	/**
+	 * Retorna o tipo da interface de acesso às propriedades definido no esquema.
+	 */
+	public final Class<?> getTipoAcessoPropriedades() {
+		return esquema.tipoAcesso;
+	}
+
+	private Object ler(int indice) {
+		Class<?> tipo = esquema.tiposPrimitivos[indice];
+		int posicao = esquema.posicoes[indice];
+		if (tipo == null) {
+			return valores[posicao];
+		}
+		long bits = primitivos[posicao];
+		if (tipo == long.class) {
+			return bits;
+		}
+		if (tipo == int.class) {
+			return (int) bits;
+		}
+		if (tipo == double.class) {
+			return Double.longBitsToDouble(bits);
+		}
+		if (tipo == boolean.class) {
+			return bits != 0;
+		}
+		if (tipo == float.class) {
+			return Float.intBitsToFloat((int) bits);
+		}
+		if (tipo == short.class) {
+			return (short) bits;
+		}
+		if (tipo == byte.class) {
+			return (byte) bits;
+		}
+		return (char) bits;
+	}
+
+	private void escrever(int indice, Object valor) {
+		Class<?> tipo = esquema.tiposPrimitivos[indice];
+		int posicao = esquema.posicoes[indice];
+		if (tipo == null) {
+			valores[posicao] = valor;
+		} else if (valor == null) {
+			primitivos[posicao] = 0L;
+		} else if (tipo == double.class) {
+			primitivos[posicao] = Double.doubleToRawLongBits(((Number) valor).doubleValue());
+		} else if (tipo == boolean.class) {
+			primitivos[posicao] = (Boolean) valor ? 1L : 0L;
+		} else if (tipo == float.class) {
+			primitivos[posicao] = Float.floatToRawIntBits(((Number) valor).floatValue());
+		} else if (tipo == char.class) {
+			primitivos[posicao] = (Character) valor;
+		} else {
+			primitivos[posicao] = ((Number) valor).longValue();
+		}
+	}
+
+	private static boolean isInteiro(Class<?> tipo) {
+		return tipo == long.class || tipo == int.class || tipo == short.class || tipo == byte.class;
+	}
+
+	/* INTERFACE AcessoPropriedades */
+
+	protected final int validarPropriedade(String nome) {
+		int indice = esquema.getIndice(nome);
+		if (indice < 0) {
+			throw new ErroPropriedadeEntidadeNaoDefinida(nome);
+		}
+		return indice;
+	}
+
+	public final Map<String, Object> get(Collection<String> clNomesProps) {
+		Map<String, Object> res = new HashMap<String, Object>();
+		for (String nome : clNomesProps) {
+			res.put(nome, get(nome));
+		}
+		return res;
+	}
+
+	public final void set(Map<String, Object> mpProps) {
+		for (Map.Entry<String, Object> item : mpProps.entrySet()) {
+			set(item.getKey(), item.getValue());
+		}
+	}
+
+	public final Object get(String nome) {
+		return ler(validarPropriedade(nome));
+	}
+
+	public final void set(String nome, Object valor) {
+		escrever(validarPropriedade(nome), valor);
+	}
+
+	@Override
+	public final int getInt(String nome) {
+		int indice = validarPropriedade(nome);
+		if (isInteiro(esquema.tiposPrimitivos[indice])) {
+			return (int) primitivos[esquema.posicoes[indice]];
+		}
+		return Entidade.super.getInt(nome);
+	}
+
+	@Override
+	public final long getLong(String nome) {
+		int indice = validarPropriedade(nome);
+		if (isInteiro(esquema.tiposPrimitivos[indice])) {
+			return primitivos[esquema.posicoes[indice]];
+		}
+		return Entidade.super.getLong(nome);
+	}
+
+	@Override
+	public final double getDouble(String nome) {
+		int indice = validarPropriedade(nome);
+		Class<?> tipo = esquema.tiposPrimitivos[indice];
+		if (tipo == double.class) {
+			return Double.longBitsToDouble(primitivos[esquema.posicoes[indice]]);
+		}
+		if (isInteiro(tipo)) {
+			return primitivos[esquema.posicoes[indice]];
+		}
+		return Entidade.super.getDouble(nome);
+	}
+
+	@Override
+	public final boolean getBoolean(String nome) {
+		int indice = validarPropriedade(nome);
+		if (esquema.tiposPrimitivos[indice] == boolean.class) {
+			return primitivos[esquema.posicoes[indice]] != 0;
+		}
+		return Entidade.super.getBoolean(nome);
+	}
+
+	@Override
+	public final void setInt(String nome, int valor) {
+		int indice = validarPropriedade(nome);
+		Class<?> tipo = esquema.tiposPrimitivos[indice];
+		if (tipo == int.class || tipo == long.class) {
+			primitivos[esquema.posicoes[indice]] = valor;
+		} else {
+			Entidade.super.setInt(nome, valor);
+		}
+	}
+
+	@Override
+	public final void setLong(String nome, long valor) {
+		int indice = validarPropriedade(nome);
+		if (esquema.tiposPrimitivos[indice] == long.class) {
+			primitivos[esquema.posicoes[indice]] = valor;
+		} else {
+			Entidade.super.setLong(nome, valor);
+		}
+	}
+
+	@Override
+	public final void setDouble(String nome, double valor) {
+		int indice = validarPropriedade(nome);
+		if (esquema.tiposPrimitivos[indice] == double.class) {
+			primitivos[esquema.posicoes[indice]] = Double.doubleToRawLongBits(valor);
+		} else {
+			Entidade.super.setDouble(nome, valor);
+		}
+	}
+
+	@Override
+	public final void setBoolean(String nome, boolean valor) {
+		int indice = validarPropriedade(nome);
+		if (esquema.tiposPrimitivos[indice] == boolean.class) {
+			primitivos[esquema.posicoes[indice]] = valor ? 1L : 0L;
+		} else {
+			Entidade.super.setBoolean(nome, valor);
+		}
+	}
+
+	@Override
+	public String toString() {
+		Map<String, Object> mpValores = new LinkedHashMap<String, Object>();
+		for (int i = 0; i < esquema.lsNomes.size(); i++) {
+			if (i != esquema.indiceNomes) {
+				mpValores.put(esquema.lsNomes.get(i), ler(i));
+			}
+		}
+		return mpValores.toString();
+	}
+}
@@ -0,0 +1,21 @@
+package meyn.util.modelo.entidade;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca uma interface de acesso às propriedades de entidade para a geração,
+ * na compilação, de uma classe de entidade com campos e métodos de acesso
+ * diretos, feita por {@link ProcessadorEntidades ProcessadorEntidades}. As
+ * entidades desta interface criadas por {@link FabricaEntidade
+ * FabricaEntidade} passam a ser instâncias da classe gerada no lugar de
+ * <i>proxies</i> de {@link EntidadeTipada EntidadeTipada}.
+ *
+ * @see EntidadeGeradaImpl
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface EntidadeGerada {
+}
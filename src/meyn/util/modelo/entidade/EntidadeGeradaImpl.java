@@ -0,0 +1,64 @@
+package meyn.util.modelo.entidade;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Suporte para as classes de entidade geradas por {@link ProcessadorEntidades
+ * ProcessadorEntidades} a partir das interfaces de acesso anotadas com
+ * {@link EntidadeGerada EntidadeGerada}. As classes geradas guardam cada
+ * propriedade em um campo e implementam os métodos de acesso da interface, e
+ * também <tt>get(String)</tt> e <tt>set(String,Object)</tt>, com acesso direto
+ * aos campos. As propriedades são sempre todas as da interface de acesso,
+ * incluindo <tt>nomesPropriedades</tt> e <tt>tipoAcessoPropriedades</tt>,
+ * definidas em {@link Entidade Entidade}, cuja escrita é ignorada.
+ * <p>
+ * Ao contrário dos <i>proxies</i> de {@link EntidadeTipada EntidadeTipada},
+ * as propriedades de tipo primitivo nunca são nulas: valem inicialmente o
+ * valor padrão do tipo, que também é atribuído quando definidas como
+ * <tt>null</tt>. Assim como nos <i>proxies</i>, as propriedades numéricas
+ * aceitam em <tt>set(String,Object)</tt> qualquer {@link Number}, convertido
+ * para o tipo da propriedade.
+ *
+ * @see FabricaEntidade
+ */
+@SuppressWarnings("serial")
+public abstract class EntidadeGeradaImpl implements Entidade {
+
+	/**
+	 * Sufixo acrescentado ao nome binário da interface de acesso para formar o
+	 * nome da classe gerada.
+	 */
+	public static final String SUFIXO = "$$Entidade";
+
+	protected EntidadeGeradaImpl() {
+	}
+
+	protected final ErroPropriedadeEntidadeNaoDefinida getErroPropriedade(String nome) {
+		return new ErroPropriedadeEntidadeNaoDefinida(nome);
+	}
+
+	@Override
+	public final Map<String, Object> get(Collection<String> clNomesProps) {
+		Map<String, Object> res = new LinkedHashMap<String, Object>();
+		for (String nome : clNomesProps) {
+			res.put(nome, get(nome));
+		}
+		return res;
+	}
+
+	@Override
+	public final void set(Map<String, Object> mpProps) {
+		for (Map.Entry<String, Object> item : mpProps.entrySet()) {
+			set(item.getKey(), item.getValue());
+		}
+	}
+
+	@Override
+	public String toString() {
+		Map<String, Object> mpValores = get(getNomesPropriedades());
+		mpValores.remove("nomesPropriedades");
+		return getTipoAcessoPropriedades().getName() + mpValores;
+	}
+}
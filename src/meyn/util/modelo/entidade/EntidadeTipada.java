@@ -1,169 +1,301 @@
-package meyn.util.modelo.entidade;
-
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-import java.util.ListIterator;
-import java.util.Map;
-
-import meyn.util.beans.Componentes;
-
-/**
- * Suporte para implementaes de entidades de transferncia tipadas. As
- * subclasses destes objetos devem necessariamente prover armazenamento e
- * implementar uma interface de acesso com mtodos <tt>get</tt> e <tt>set</tt>
- * especficos para manipulaao das suas propriedades. A implementao da
- * interface {@link meyn.util.beans.AcessoPropriedades AcessoPropriedades} feita
- * nesta classe procura estes mtodos de acesso para a leitura e escrita das
- * propriedades. Os construtores recebem como parmetro extra o tipo da
- * interface de acesso que a entidade implementa, passando os outros parmetros
- * para os construtores correspondentes de {@link EntidadeImpl EntidadeImpl}.
- *
- * @see FabricaEntidade
- */
-@SuppressWarnings("serial")
-public class EntidadeTipada extends EntidadeMapeada implements InvocationHandler {
-
-	/**
-	 * Extrai os nomes das propriedades da entidade a partir da interface de acesso
-	 * <tt>tipoAcessoProps</tt>. Ver {@link EntidadeImpl#EntidadeImpl(Collection)
-	 * EntidadeImpl(Collection)}.
-	 */
-	EntidadeTipada(Class<?> tipoAcessoProps) {
-		super(new ArrayList<String>(Componentes.getDescritoresPropriedades(tipoAcessoProps).keySet()));
-		put("tipoAcessoPropriedades", tipoAcessoProps);
-	}
-
-	/**
-	 * Extrai os nomes das propriedades da entidade definidos em
-	 * <tt>clNomesProps</tt> a partir da interface de acesso
-	 * <tt>tipoAcessoProps</tt>. Ver {@link EntidadeImpl#EntidadeImpl(Collection)
-	 * EntidadeImpl(Collection)}.
-	 */
-	EntidadeTipada(Collection<String> clNomesProps, Class<?> tipoAcessoProps) {
-		super(clNomesProps);
-		put("tipoAcessoPropriedades", tipoAcessoProps);
-	}
-
-	/**
-	 * Cria uma entidade com as propriedades e valores definidos neste mapa e que
-	 * implementa esta interface de acesso.
-	 *
-	 * @param mpProps         nomes e valores das propriedades
-	 * @param tipoAcessoProps interface de acesso s propriedades
-	 */
-	EntidadeTipada(Map<String, Object> mpProps, Class<?> tipoAcessoProps) {
-		super(mpProps);
-		put("tipoAcessoPropriedades", tipoAcessoProps);
-	}
-
-	@Override
-	public final Class<?> getTipoAcessoPropriedades() {
-		return (Class<?>) get("tipoAcessoPropriedades");
-	}
-
-	//// Implementao Invocation Handler ////
-
-	private String getNomePropriedade(String nomeMetodo) {
-		return Character.isLowerCase(nomeMetodo.charAt(1)) ? Character.toLowerCase(nomeMetodo.charAt(0)) + nomeMetodo.substring(1)
-		        : nomeMetodo;
-	}
-
-	@SuppressWarnings("unchecked")
-	public Object invoke(Object proxy, Method method, Object[] args) {
-		String nomeMetodo = method.getName();
-		Class<?>[] tiposParams = method.getParameterTypes();
-		Class<?> tipoRetorno = method.getReturnType();
-		if (tiposParams.length == 0) {
-			if (nomeMetodo.equals("hashCode")) {
-				return hashCode();
-			}
-			if (nomeMetodo.equals("toString")) { // toString()
-				StringBuffer sb = new StringBuffer();
-				String desc = proxy.getClass().toGenericString();
-				sb.append("--- INICIO ENTIDADE: " + desc + " ---\n");
-				sb.append("Interfaces:\n");
-				Class<?> tipos[] = proxy.getClass().getInterfaces();
-				for (Class<?> tipo : tipos) {
-					sb.append('-').append(tipo.getTypeName()).append('\n');
-				}
-				sb.append("Propriedades:\n");
-				List<String> lsProps = new ArrayList<String>(getNomesPropriedades());
-				ListIterator<String> iter = lsProps.listIterator();
-				props : while (iter.hasNext()) {
-					String prop = iter.next();
-					Object valor = get(prop);
-					if (valor != null && !(valor instanceof Entidade)) {
-						if (valor instanceof Collection<?>) {
-							Collection<?> cl = (Collection<?>)valor;
-							if (cl.isEmpty()) {
-								continue;
-							}
-							for (Object item : cl) {
-								if (item instanceof Entidade) {
-									continue props;
-								}
-								break;
-							}
-						}
-						sb.append('-').append(prop).append(": ").append(valor).append('\n');
-						iter.remove();
-					}
-				}
-				sb.append("Relacionamentos:\n");
-				iter = lsProps.listIterator();
-				while (iter.hasNext()) {
-					String prop = iter.next();
-					Object valor = get(prop);
-					if (valor != null) {
-						if (valor instanceof Collection<?> && ((Collection<?>)valor).isEmpty()) {
-							continue;
-						}
-						sb.append('-').append(prop).append('\n');
-						iter.remove();
-					}
-				}
-				sb.append("No definido:\n");
-				for (String prop : lsProps) {
-					sb.append('-').append(prop).append('\n');
-				}
-				sb.append("------ FIM ENTIDADE: " + desc + " ---\n");
-				return sb.toString();
-			}
-			if (nomeMetodo.startsWith("is") && tipoRetorno.equals(boolean.class)) { // isXXX()
-				return get(getNomePropriedade(nomeMetodo.substring(2)));
-			}
-		}
-		if (tiposParams.length == 1) {
-			if (nomeMetodo.equals("equals")) {
-				return proxy == args[0];
-			}
-		}
-		if (nomeMetodo.startsWith("get")) {
-			if (nomeMetodo.length() > 3) {
-				return get(getNomePropriedade(nomeMetodo.substring(3))); // getXXX()
-			}
-			if (tiposParams.length == 1) {
-				if (String.class.isAssignableFrom(args[0].getClass())) {
-					return get((String) args[0]); // get(String)
-				}
-				return get((Collection<String>) args[0]); // get(Collection)
-			}
-		}
-		if (nomeMetodo.startsWith("set")) {
-			if (nomeMetodo.length() > 3) {
-				set(getNomePropriedade(nomeMetodo.substring(3)), args[0]); // setXXX(...)
-				return null;
-			}
-			if (tiposParams.length == 2) {
-				set((String) args[0], args[1]); // set(String,Object)
-				return null;
-			}
-			set((Map<String, Object>) args[0]); // set(Map)
-			return null;
-		}
-		throw new UnsupportedOperationException(proxy.getClass() + ": " + nomeMetodo);
-	}
-}
+package meyn.util.modelo.entidade;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+
+import meyn.util.beans.Componentes;
+
+/**
+ * Suporte para implementações de entidades de transferência tipadas. As
+ * subclasses destes objetos devem necessariamente prover armazenamento e
+ * implementar uma interface de acesso com métodos <tt>get</tt> e <tt>set</tt>
+ * específicos para manipulaçao das suas propriedades. A implementação da
+ * interface {@link meyn.util.beans.AcessoPropriedades AcessoPropriedades} feita
+ * nesta classe procura estes métodos de acesso para a leitura e escrita das
+ * propriedades. Os construtores recebem como parâmetro extra o tipo da
+ * interface de acesso que a entidade implementa, que faz parte do
+ * {@link EntidadeCompacta.Esquema esquema} compartilhado da entidade.
+ *
+ * @see FabricaEntidade
+ */
+@SuppressWarnings("serial")
+public class EntidadeTipada extends EntidadeCompacta implements InvocationHandler {
+
+	/**
+	 * Cria uma entidade com as propriedades deste esquema, que já define a
+	 * interface de acesso.
+	 */
+	EntidadeTipada(Esquema esquema) {
+		super(esquema);
+	}
+
+	/**
+	 * Extrai os nomes das propriedades da entidade a partir da interface de acesso
+	 * <tt>tipoAcessoProps</tt>. Ver {@link EntidadeCompacta#EntidadeCompacta(Collection)
+	 * EntidadeCompacta(Collection)}.
+	 */
+	EntidadeTipada(Class<?> tipoAcessoProps) {
+		super(Esquema.getEsquema(Componentes.getDescritoresPropriedades(tipoAcessoProps).keySet(), tipoAcessoProps));
+	}
+
+	/**
+	 * Extrai os nomes das propriedades da entidade definidos em
+	 * <tt>clNomesProps</tt> a partir da interface de acesso
+	 * <tt>tipoAcessoProps</tt>. Ver {@link EntidadeCompacta#EntidadeCompacta(Collection)
+	 * EntidadeCompacta(Collection)}.
+	 */
+	EntidadeTipada(Collection<String> clNomesProps, Class<?> tipoAcessoProps) {
+		super(Esquema.getEsquema(clNomesProps, tipoAcessoProps));
+	}
+
+	/**
+	 * Cria uma entidade com as propriedades e valores definidos neste mapa e que
+	 * implementa esta interface de acesso.
+	 *
+	 * @param mpProps         nomes e valores das propriedades
+	 * @param tipoAcessoProps interface de acesso às propriedades
+	 */
+	EntidadeTipada(Map<String, Object> mpProps, Class<?> tipoAcessoProps) {
+		super(mpProps, tipoAcessoProps);
+	}
+
+	//// Implementação Invocation Handler ////
+
+	/**
+	 * Ação executada por um método da interface de acesso.
+	 */
+	private enum Acao {
+		LER, ESCREVER, LER_PROPRIEDADE, LER_PROPRIEDADES, ESCREVER_PROPRIEDADE, ESCREVER_PROPRIEDADES, LER_INT, LER_LONG, LER_DOUBLE,
+		LER_BOOLEAN, ESCREVER_INT, ESCREVER_LONG, ESCREVER_DOUBLE, ESCREVER_BOOLEAN, HASH_CODE, EQUALS, TO_STRING, NAO_SUPORTADA
+	}
+
+	/**
+	 * Ação de um método, resolvida uma única vez, com o nome da propriedade lida
+	 * ou escrita pelos métodos <tt>getXXX</tt>, <tt>isXXX</tt> e <tt>setXXX</tt>.
+	 */
+	private static final class Despacho {
+		final Acao acao;
+		final String propriedade;
+
+		Despacho(Acao acao, String propriedade) {
+			this.acao = acao;
+			this.propriedade = propriedade;
+		}
+	}
+
+	/**
+	 * Tabela de despacho de cada classe de <i>proxy</i>, montada no primeiro uso
+	 * a partir de todos os métodos das suas interfaces e apenas lida depois.
+	 */
+	private static final ClassValue<Map<Method, Despacho>> DESPACHOS = new ClassValue<Map<Method, Despacho>>() {
+		@Override
+		protected Map<Method, Despacho> computeValue(Class<?> tipoProxy) {
+			Map<Method, Despacho> mpDespachos = new HashMap<Method, Despacho>();
+			for (Class<?> tipo : tipoProxy.getInterfaces()) {
+				for (Method metodo : tipo.getMethods()) {
+					mpDespachos.put(metodo, getDespacho(metodo));
+				}
+			}
+			try {
+				mpDespachos.put(Object.class.getMethod("hashCode"), new Despacho(Acao.HASH_CODE, null));
+				mpDespachos.put(Object.class.getMethod("equals", Object.class), new Despacho(Acao.EQUALS, null));
+				mpDespachos.put(Object.class.getMethod("toString"), new Despacho(Acao.TO_STRING, null));
+			} catch (NoSuchMethodException e) {
+				throw new IllegalStateException(e);
+			}
+			return mpDespachos;
+		}
+	};
+
+	private static String getNomePropriedade(String nomeMetodo) {
+		return nomeMetodo.length() == 1 || Character.isLowerCase(nomeMetodo.charAt(1))
+		        ? Character.toLowerCase(nomeMetodo.charAt(0)) + nomeMetodo.substring(1)
+		        : nomeMetodo;
+	}
+
+	private static Despacho getDespacho(Method method) {
+		String nomeMetodo = method.getName();
+		Class<?>[] tiposParams = method.getParameterTypes();
+		Class<?> tipoRetorno = method.getReturnType();
+		if (tiposParams.length == 0) {
+			if (nomeMetodo.equals("hashCode")) {
+				return new Despacho(Acao.HASH_CODE, null);
+			}
+			if (nomeMetodo.equals("toString")) {
+				return new Despacho(Acao.TO_STRING, null);
+			}
+			if (nomeMetodo.startsWith("is") && nomeMetodo.length() > 2 && tipoRetorno.equals(boolean.class)) { // isXXX()
+				return new Despacho(Acao.LER, getNomePropriedade(nomeMetodo.substring(2)));
+			}
+		}
+		if (tiposParams.length == 1) {
+			if (nomeMetodo.equals("equals")) {
+				return new Despacho(Acao.EQUALS, null);
+			}
+			if (tiposParams[0] == String.class) {
+				switch (nomeMetodo) {
+				case "getInt":
+					return new Despacho(Acao.LER_INT, null); // getInt(String)
+				case "getLong":
+					return new Despacho(Acao.LER_LONG, null); // getLong(String)
+				case "getDouble":
+					return new Despacho(Acao.LER_DOUBLE, null); // getDouble(String)
+				case "getBoolean":
+					return new Despacho(Acao.LER_BOOLEAN, null); // getBoolean(String)
+				}
+			}
+		}
+		if (tiposParams.length == 2 && tiposParams[0] == String.class && tiposParams[1].isPrimitive()) {
+			switch (nomeMetodo) {
+			case "setInt":
+				return new Despacho(Acao.ESCREVER_INT, null); // setInt(String,int)
+			case "setLong":
+				return new Despacho(Acao.ESCREVER_LONG, null); // setLong(String,long)
+			case "setDouble":
+				return new Despacho(Acao.ESCREVER_DOUBLE, null); // setDouble(String,double)
+			case "setBoolean":
+				return new Despacho(Acao.ESCREVER_BOOLEAN, null); // setBoolean(String,boolean)
+			}
+		}
+		if (nomeMetodo.startsWith("get")) {
+			if (nomeMetodo.length() > 3) {
+				return new Despacho(Acao.LER, getNomePropriedade(nomeMetodo.substring(3))); // getXXX()
+			}
+			if (tiposParams.length == 1) {
+				if (tiposParams[0] == String.class) {
+					return new Despacho(Acao.LER_PROPRIEDADE, null); // get(String)
+				}
+				return new Despacho(Acao.LER_PROPRIEDADES, null); // get(Collection)
+			}
+		}
+		if (nomeMetodo.startsWith("set")) {
+			if (nomeMetodo.length() > 3) {
+				return new Despacho(Acao.ESCREVER, getNomePropriedade(nomeMetodo.substring(3))); // setXXX(...)
+			}
+			if (tiposParams.length == 2) {
+				return new Despacho(Acao.ESCREVER_PROPRIEDADE, null); // set(String,Object)
+			}
+			return new Despacho(Acao.ESCREVER_PROPRIEDADES, null); // set(Map)
+		}
+		return new Despacho(Acao.NAO_SUPORTADA, null);
+	}
+
+	/**
+	 * Executa a chamada a este método consultando a tabela de despacho da classe
+	 * do <i>proxy</i>, sem analisar o método a cada chamada.
+	 */
+	@SuppressWarnings("unchecked")
+	public Object invoke(Object proxy, Method method, Object[] args) {
+		Despacho despacho = DESPACHOS.get(proxy.getClass()).get(method);
+		if (despacho == null) {
+			despacho = getDespacho(method);
+		}
+		switch (despacho.acao) {
+		case LER:
+			return get(despacho.propriedade);
+		case ESCREVER:
+			set(despacho.propriedade, args[0]);
+			return null;
+		case LER_PROPRIEDADE:
+			return get((String) args[0]);
+		case LER_PROPRIEDADES:
+			if (args[0] instanceof String) {
+				return get((String) args[0]);
+			}
+			return get((Collection<String>) args[0]);
+		case ESCREVER_PROPRIEDADE:
+			set((String) args[0], args[1]);
+			return null;
+		case ESCREVER_PROPRIEDADES:
+			set((Map<String, Object>) args[0]);
+			return null;
+		case LER_INT:
+			return getInt((String) args[0]);
+		case LER_LONG:
+			return getLong((String) args[0]);
+		case LER_DOUBLE:
+			return getDouble((String) args[0]);
+		case LER_BOOLEAN:
+			return getBoolean((String) args[0]);
+		case ESCREVER_INT:
+			setInt((String) args[0], (Integer) args[1]);
+			return null;
+		case ESCREVER_LONG:
+			setLong((String) args[0], (Long) args[1]);
+			return null;
+		case ESCREVER_DOUBLE:
+			setDouble((String) args[0], (Double) args[1]);
+			return null;
+		case ESCREVER_BOOLEAN:
+			setBoolean((String) args[0], (Boolean) args[1]);
+			return null;
+		case HASH_CODE:
+			return hashCode();
+		case EQUALS:
+			return proxy == args[0];
+		case TO_STRING:
+			return toString(proxy);
+		default:
+			throw new UnsupportedOperationException(proxy.getClass() + ": " + method.getName());
+		}
+	}
+
+	private String toString(Object proxy) {
+		StringBuffer sb = new StringBuffer();
+		String desc = proxy.getClass().toGenericString();
+		sb.append("--- INICIO ENTIDADE: " + desc + " ---\n");
+		sb.append("Interfaces:\n");
+		Class<?> tipos[] = proxy.getClass().getInterfaces();
+		for (Class<?> tipo : tipos) {
+			sb.append('-').append(tipo.getTypeName()).append('\n');
+		}
+		sb.append("Propriedades:\n");
+		List<String> lsProps = new ArrayList<String>(getNomesPropriedades());
+		ListIterator<String> iter = lsProps.listIterator();
+		props : while (iter.hasNext()) {
+			String prop = iter.next();
+			Object valor = get(prop);
+			if (valor != null && !(valor instanceof Entidade)) {
+				if (valor instanceof Collection<?>) {
+					Collection<?> cl = (Collection<?>)valor;
+					if (cl.isEmpty()) {
+						continue;
+					}
+					for (Object item : cl) {
+						if (item instanceof Entidade) {
+							continue props;
+						}
+						break;
+					}
+				}
+				sb.append('-').append(prop).append(": ").append(valor).append('\n');
+				iter.remove();
+			}
+		}
+		sb.append("Relacionamentos:\n");
+		iter = lsProps.listIterator();
+		while (iter.hasNext()) {
+			String prop = iter.next();
+			Object valor = get(prop);
+			if (valor != null) {
+				if (valor instanceof Collection<?> && ((Collection<?>)valor).isEmpty()) {
+					continue;
+				}
+				sb.append('-').append(prop).append('\n');
+				iter.remove();
+			}
+		}
+		sb.append("Não definido:\n");
+		for (String prop : lsProps) {
+			sb.append('-').append(prop).append('\n');
+		}
+		sb.append("------ FIM ENTIDADE: " + desc + " ---\n");
+		return sb.toString();
+	}
+}
@@ -1,110 +1,264 @@
-package meyn.util.modelo.entidade;
-
-import java.lang.reflect.*;
-
-import java.util.*;
-
-import meyn.util.beans.*;
-
-/**
- * Fabrica de entidades usveis como objetos de transferncia. Os mtodos que
- * no passam uma interface de acesso s propriedades da entidade retornam
- * instncias de {@link EntidadeMapeada EntidadeMapeada}. J os que passam uma
- * interface de acesso retornam instncias de entidade criadas atravs de
- * chamadas a
- * {@link Proxy#newProxyInstance(ClassLoader,Class[],InvocationHandler)
- * Proxy.newProxyInstance(ClassLoader,Class[],InvocationHandler)}, usando uma
- * instncia de {@link EntidadeInvocationHandler EntidadeInvocationHandler} como
- * <i>invocation handler</i>.
- *
- * @see EntidadeMapeada
- * @see EntidadeTipada
- */
-public final class FabricaEntidade {
-
-	private FabricaEntidade() {
-	}
-
-	/**
-	 * Ver {@link EntidadeMapeada#EntidadeMapeada(Collection)
-	 * EntidadeMapeada(Collection)}.
-	 */
-	public static Entidade getInstancia(Collection<String> clNomesProps) {
-		return new EntidadeMapeada(clNomesProps);
-	}
-
-	/**
-	 * Ver {@link EntidadeMapeada#EntidadeMapeada(Map) EntidadeMapeada(Map)}.
-	 */
-	public static Entidade getInstancia(Object bean) {
-		return new EntidadeMapeada(Componentes.getValoresPropriedades(bean));
-	}
-
-	/**
-	 * Ver {@link EntidadeMapeada#EntidadeMapeada(Map) EntidadeMapeada(Map)}.
-	 */
-	public static Entidade getInstancia(Map<String, Object> mpProps) {
-		return new EntidadeMapeada(mpProps);
-	}
-
-	/**
-	 * Ver {@link EntidadeTipada#EntidadeTipada(Class) EntidadeTipada(Class)}.
-	 */
-	public static <TipoEnt extends Entidade> TipoEnt getInstancia(Class<?> tipoAcessoProps) {
-		return getInstancia(new ArrayList<String>(), tipoAcessoProps);
-	}
-
-	/**
-	 * Ver {@link EntidadeTipada#EntidadeTipada(Collection,Class)
-	 * EntidadeTipada(Collection,Class)}.
-	 */
-	@SuppressWarnings("unchecked")
-	public static <TipoEnt extends Entidade> TipoEnt getInstancia(Collection<String> clNomesProps, Class<?> tipoAcessoProps) {
-		ClassLoader carregador = Thread.currentThread().getContextClassLoader();
-		InvocationHandler ih;
-		if (Proxy.isProxyClass(tipoAcessoProps)) {
-			ih = Proxy.getInvocationHandler(tipoAcessoProps);
-			if (ih instanceof EntidadeTipada) {
-				tipoAcessoProps = ((EntidadeTipada) ih).getTipoAcessoPropriedades();
-			}
-		}
-		Set<Class<?>> stTipos = new HashSet<Class<?>>();
-		stTipos.add(Entidade.class);
-		if (tipoAcessoProps.isInterface()) {
-			stTipos.add(tipoAcessoProps);
-		}
-		stTipos.addAll(Arrays.asList(tipoAcessoProps.getInterfaces()));
-		if (clNomesProps.isEmpty()) {
-			clNomesProps.addAll(Componentes.getDescritoresPropriedades(tipoAcessoProps).keySet());
-		}
-		ih = new EntidadeTipada(clNomesProps, tipoAcessoProps);
-		return (TipoEnt) Proxy.newProxyInstance(carregador, stTipos.toArray(new Class<?>[0]), ih);
-	}
-
-	/**
-	 * Ver {@link EntidadeTipada#EntidadeTipada(Map,Class)
-	 * EntidadeTipada(Map,Class)}.
-	 */
-	@SuppressWarnings("unchecked")
-	public static <TipoEnt extends Entidade> TipoEnt getInstancia(Map<String, Object> mpProps, Class<?> tipoAcessoProps) {
-		ClassLoader carregador = Thread.currentThread().getContextClassLoader();
-		InvocationHandler ih;
-		if (Proxy.isProxyClass(tipoAcessoProps)) {
-			ih = Proxy.getInvocationHandler(tipoAcessoProps);
-			if (ih instanceof EntidadeTipada) {
-				tipoAcessoProps = ((EntidadeTipada) ih).getTipoAcessoPropriedades();
-			}
-		}
-		Set<Class<?>> stTipos = new HashSet<Class<?>>();
-		stTipos.add(Entidade.class);
-		if (tipoAcessoProps.isInterface()) {
-			stTipos.add(tipoAcessoProps);
-		}
-		stTipos.addAll(Arrays.asList(tipoAcessoProps.getInterfaces()));
-		if (mpProps.isEmpty()) {
-			mpProps.putAll(Componentes.getDescritoresPropriedades(tipoAcessoProps));
-		}
-		ih = new EntidadeTipada(mpProps, tipoAcessoProps);
-		return (TipoEnt) Proxy.newProxyInstance(carregador, stTipos.toArray(new Class<?>[0]), ih);
-	}
-}
+package meyn.util.modelo.entidade;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.*;
+
+import java.util.*;
+
+import org.apache.logging.log4j.LogManager;
+
+import meyn.util.ErroExecucao;
+import meyn.util.beans.*;
+
+/**
+ * Fabrica de entidades usáveis como objetos de transferência. Os métodos que
+ * não passam uma interface de acesso às propriedades da entidade retornam
+ * instãncias de {@link EntidadeMapeada EntidadeMapeada}. Já os que passam uma
+ * interface de acesso retornam instâncias de entidade criadas através de
+ * chamadas a
+ * {@link Proxy#newProxyInstance(ClassLoader,Class[],InvocationHandler)
+ * Proxy.newProxyInstance(ClassLoader,Class[],InvocationHandler)}, usando uma
+ * instância de {@link EntidadeTipada EntidadeTipada} como
+ * <i>invocation handler</i>. Se a interface de acesso estiver anotada com
+ * {@link EntidadeGerada EntidadeGerada} e todas as suas propriedades forem
+ * pedidas, é retornada uma instância da classe gerada para a interface na
+ * compilação (ver {@link ProcessadorEntidades ProcessadorEntidades}), cujos
+ * métodos de acesso leem e escrevem campos diretamente; na falta da classe
+ * gerada, a entidade é criada como <i>proxy</i>.
+ * <p>
+ * A classe do <i>proxy</i>, o seu construtor, o construtor da classe gerada e
+ * o {@link EntidadeCompacta.Esquema esquema} com os nomes das propriedades são
+ * resolvidos uma única vez por interface de acesso e ficam associados a ela,
+ * sendo descartados junto com a classe. Os <i>proxies</i> são definidos no
+ * <i>class loader</i> da interface de acesso e guardam os valores das
+ * propriedades em um vetor, sem mapa próprio por entidade.
+ *
+ * @see EntidadeMapeada
+ * @see EntidadeTipada
+ * @see EntidadeGeradaImpl
+ */
+public final class FabricaEntidade {
+
+	/**
+	 * Fábrica das entidades de uma interface de acesso, resolvida uma única vez.
+	 */
+	private static final class Molde {
+		final Class<?> tipoAcesso;
+		final Map<String, PropertyDescriptor> mpDescritores;
+		final List<String> lsNomes;
+		// esquema das entidades com todas as propriedades da interface
+		final EntidadeCompacta.Esquema esquema;
+		// construtor da classe gerada, do tipo ()EntidadeGeradaImpl, ou null se não houver
+		final MethodHandle construtorGerado;
+		final Set<String> stNomesGerados;
+		// construtor do proxy, do tipo (InvocationHandler)Entidade, ou null se o proxy
+		// não puder ser definido no class loader da interface
+		final MethodHandle construtorProxy;
+		final Class<?>[] interfaces;
+
+		Molde(Class<?> tipoAcesso) {
+			this.tipoAcesso = tipoAcesso;
+			this.mpDescritores = Componentes.getDescritoresPropriedades(tipoAcesso);
+			this.lsNomes = Collections.unmodifiableList(new ArrayList<String>(mpDescritores.keySet()));
+			this.esquema = EntidadeCompacta.Esquema.getEsquema(lsNomes, tipoAcesso);
+			this.construtorGerado = getConstrutorGerado(tipoAcesso);
+			this.stNomesGerados = construtorGerado != null ? new HashSet<String>(mpDescritores.keySet()) : null;
+			Set<Class<?>> stTipos = new LinkedHashSet<Class<?>>();
+			stTipos.add(Entidade.class);
+			if (tipoAcesso.isInterface()) {
+				stTipos.add(tipoAcesso);
+			}
+			stTipos.addAll(Arrays.asList(tipoAcesso.getInterfaces()));
+			this.interfaces = stTipos.toArray(new Class<?>[0]);
+			this.construtorProxy = getConstrutorProxy(tipoAcesso.getClassLoader(), interfaces);
+		}
+
+		private static MethodHandle getConstrutorGerado(Class<?> tipo) {
+			if (!tipo.isInterface() || !tipo.isAnnotationPresent(EntidadeGerada.class)) {
+				return null;
+			}
+			try {
+				Class<?> classe = Class.forName(tipo.getName() + EntidadeGeradaImpl.SUFIXO, true, tipo.getClassLoader());
+				if (tipo.isAssignableFrom(classe) && EntidadeGeradaImpl.class.isAssignableFrom(classe)) {
+					return MethodHandles.publicLookup().findConstructor(classe, MethodType.methodType(void.class))
+					        .asType(MethodType.methodType(EntidadeGeradaImpl.class));
+				}
+			} catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
+				// compilado sem o processador de anotações
+			}
+			LogManager.getLogger(FabricaEntidade.class).warn("classe gerada não encontrada, usando proxy: {}", tipo.getName());
+			return null;
+		}
+
+		private static MethodHandle getConstrutorProxy(ClassLoader carregador, Class<?>[] interfaces) {
+			try {
+				Class<?> classe = Proxy.newProxyInstance(carregador, interfaces, (proxy, metodo, args) -> null).getClass();
+				Constructor<?> construtor = classe.getConstructor(InvocationHandler.class);
+				construtor.setAccessible(true);
+				return MethodHandles.lookup().unreflectConstructor(construtor).asType(MethodType.methodType(Entidade.class, InvocationHandler.class));
+			} catch (ReflectiveOperationException | RuntimeException e) {
+				// interfaces não visíveis pelo class loader ou proxy inacessível
+				LogManager.getLogger(FabricaEntidade.class).debug("proxy sem construtor em cache: {}", Arrays.toString(interfaces), e);
+				return null;
+			}
+		}
+
+		EntidadeGeradaImpl criarGerada() {
+			try {
+				return (EntidadeGeradaImpl) construtorGerado.invokeExact();
+			} catch (Throwable e) {
+				throw new ErroExecucao("Erro instanciando entidade gerada: " + tipoAcesso.getName(), e);
+			}
+		}
+
+		Entidade criarProxy(EntidadeTipada ih) {
+			if (construtorProxy == null) {
+				return (Entidade) Proxy.newProxyInstance(Thread.currentThread().getContextClassLoader(), interfaces, ih);
+			}
+			try {
+				return (Entidade) construtorProxy.invokeExact((InvocationHandler) ih);
+			} catch (Throwable e) {
+				throw new ErroExecucao("Erro instanciando entidade: " + tipoAcesso.getName(), e);
+			}
+		}
+
+		/**
+		 * Indica se estas são as propriedades da classe gerada, que são as dos
+		 * descritores da interface. As propriedades definidas em
+		 * {@link Entidade Entidade} podem ser omitidas.
+		 */
+		boolean isNomesGerados(Collection<String> clNomesProps) {
+			Set<String> stNomes = new HashSet<String>(clNomesProps);
+			stNomes.add("nomesPropriedades");
+			stNomes.add("tipoAcessoPropriedades");
+			return stNomesGerados.equals(stNomes);
+		}
+
+		Entidade criar(Collection<String> clNomesProps) {
+			if (construtorGerado != null) {
+				if (clNomesProps.isEmpty()) {
+					clNomesProps.addAll(stNomesGerados);
+					return criarGerada();
+				}
+				if (isNomesGerados(clNomesProps)) {
+					return criarGerada();
+				}
+			}
+			if (clNomesProps.isEmpty()) {
+				clNomesProps.addAll(lsNomes);
+				return criarProxy(new EntidadeTipada(esquema));
+			}
+			return criarProxy(new EntidadeTipada(clNomesProps, tipoAcesso));
+		}
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		Entidade criar(Map<String, Object> mpProps) {
+			if (construtorGerado != null && !mpProps.isEmpty() && isNomesGerados(mpProps.keySet())) {
+				EntidadeGeradaImpl ent = criarGerada();
+				ent.set(mpProps);
+				return ent;
+			}
+			if (mpProps.isEmpty()) {
+				mpProps.putAll((Map) mpDescritores);
+				return criarProxy(new EntidadeTipada(esquema));
+			}
+			return criarProxy(new EntidadeTipada(mpProps, tipoAcesso));
+		}
+	}
+
+	private static final ClassValue<Molde> MOLDES = new ClassValue<Molde>() {
+		@Override
+		protected Molde computeValue(Class<?> tipo) {
+			return new Molde(getTipoAcesso(tipo));
+		}
+	};
+
+	private FabricaEntidade() {
+	}
+
+	private static Class<?> getTipoAcesso(Class<?> tipoAcessoProps) {
+		if (Proxy.isProxyClass(tipoAcessoProps)) {
+			// os proxies criados pelos moldes implementam Entidade seguida da
+			// interface de acesso e de suas superinterfaces
+			for (Class<?> tipo : tipoAcessoProps.getInterfaces()) {
+				if (tipo != Entidade.class) {
+					return tipo;
+				}
+			}
+			return Entidade.class;
+		} else if (EntidadeGeradaImpl.class.isAssignableFrom(tipoAcessoProps)) {
+			return tipoAcessoProps.getInterfaces()[0];
+		}
+		return tipoAcessoProps;
+	}
+
+	/**
+	 * Ver {@link EntidadeMapeada#EntidadeMapeada(Collection)
+	 * EntidadeMapeada(Collection)}.
+	 */
+	public static Entidade getInstancia(Collection<String> clNomesProps) {
+		return new EntidadeMapeada(clNomesProps);
+	}
+
+	/**
+	 * Ver {@link EntidadeMapeada#EntidadeMapeada(Map) EntidadeMapeada(Map)}.
+	 */
+	public static Entidade getInstancia(Object bean) {
+		return new EntidadeMapeada(Componentes.getValoresPropriedades(bean));
+	}
+
+	/**
+	 * Ver {@link EntidadeMapeada#EntidadeMapeada(Map) EntidadeMapeada(Map)}.
+	 */
+	public static Entidade getInstancia(Map<String, Object> mpProps) {
+		return new EntidadeMapeada(mpProps);
+	}
+
+	/**
+	 * Ver {@link EntidadeTipada#EntidadeTipada(Class) EntidadeTipada(Class)}.
+	 */
+	public static <TipoEnt extends Entidade> TipoEnt getInstancia(Class<?> tipoAcessoProps) {
+		return getInstancia(new ArrayList<String>(), tipoAcessoProps);
+	}
+
+	/**
+	 * Ver {@link EntidadeTipada#EntidadeTipada(Collection,Class)
+	 * EntidadeTipada(Collection,Class)}.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <TipoEnt extends Entidade> TipoEnt getInstancia(Collection<String> clNomesProps, Class<?> tipoAcessoProps) {
+		return (TipoEnt) MOLDES.get(tipoAcessoProps).criar(clNomesProps);
+	}
+
+	/**
+	 * Ver {@link EntidadeTipada#EntidadeTipada(Map,Class)
+	 * EntidadeTipada(Map,Class)}.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <TipoEnt extends Entidade> TipoEnt getInstancia(Map<String, Object> mpProps, Class<?> tipoAcessoProps) {
+		return (TipoEnt) MOLDES.get(tipoAcessoProps).criar(mpProps);
+	}
+
+	/**
+	 * Cria estas tantas entidades com todas as propriedades desta interface de
+	 * acesso, resolvendo a interface uma única vez. Indicado para a carga do
+	 * resultado de consultas.
+	 *
+	 * @param quantidade      número de entidades
+	 * @param tipoAcessoProps interface de acesso às propriedades
+	 *
+	 * @return lista com as entidades criadas
+	 */
+	@SuppressWarnings("unchecked")
+	public static <TipoEnt extends Entidade> List<TipoEnt> getInstancias(int quantidade, Class<?> tipoAcessoProps) {
+		Molde molde = MOLDES.get(tipoAcessoProps);
+		List<TipoEnt> lsEntidades = new ArrayList<TipoEnt>(quantidade);
+		for (int i = 0; i < quantidade; i++) {
+			lsEntidades.add((TipoEnt) molde.criar(new ArrayList<String>()));
+		}
+		return lsEntidades;
+	}
+}
@@ -0,0 +1,318 @@
+package meyn.util.modelo.entidade;
+
+import java.beans.Introspector;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+import meyn.util.beans.AcessoPropriedades;
+
+/**
+ * Processador de anotações que gera, na compilação, uma classe de entidade
+ * para cada interface de acesso anotada com {@link EntidadeGerada
+ * EntidadeGerada}. A classe gerada estende {@link EntidadeGeradaImpl
+ * EntidadeGeradaImpl}, fica no pacote da interface e tem como nome o nome
+ * binário da interface seguido de {@value EntidadeGeradaImpl#SUFIXO}.
+ * <p>
+ * Cada par de métodos <tt>getXXX()</tt> (ou <tt>isXXX()</tt>, para
+ * <tt>boolean</tt>) e <tt>setXXX(...)</tt> da interface define uma
+ * propriedade, guardada em um campo. Os demais métodos abstratos, interfaces
+ * genéricas ou privadas e tipos diferentes entre os métodos de leitura e
+ * escrita de uma propriedade são reportados como erro de compilação. Os
+ * métodos tipados de {@link AcessoPropriedades AcessoPropriedades}, como
+ * <tt>getLong(String)</tt>, são gerados para as propriedades primitivas, que
+ * são lidas e escritas sem conversão para objeto. O
+ * processador é registrado como serviço na biblioteca, assim como
+ * {@link meyn.util.modelo.ProcessadorModelos ProcessadorModelos}.
+ */
+@SupportedAnnotationTypes("meyn.util.modelo.entidade.EntidadeGerada")
+public class ProcessadorEntidades extends AbstractProcessor {
+
+	/**
+	 * Propriedade da interface de acesso.
+	 */
+	private static class Propriedade {
+		final String nome;
+		final String campo;
+		TypeMirror tipo;
+		ExecutableElement leitura;
+		ExecutableElement escrita;
+
+		Propriedade(String nome) {
+			this.nome = nome;
+			this.campo = SourceVersion.isKeyword(nome) ? nome + '_' : nome;
+		}
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> anotacoes, RoundEnvironment ambiente) {
+		for (Element elemento : ambiente.getElementsAnnotatedWith(EntidadeGerada.class)) {
+			if (elemento.getKind() != ElementKind.INTERFACE) {
+				erro("@EntidadeGerada só pode anotar interfaces", elemento);
+				continue;
+			}
+			TypeElement tipo = (TypeElement) elemento;
+			if (!tipo.getTypeParameters().isEmpty() || tipo.getModifiers().contains(Modifier.PRIVATE)) {
+				erro("A interface de acesso não pode ser genérica nem privada", tipo);
+				continue;
+			}
+			Map<String, Propriedade> mpProps = getPropriedades(tipo);
+			if (mpProps != null) {
+				gerar(tipo, mpProps);
+			}
+		}
+		return false;
+	}
+
+	private void erro(String msg, Element elemento) {
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, msg, elemento);
+	}
+
+	private boolean isImplementado(ExecutableElement metodo) {
+		if (!metodo.getModifiers().contains(Modifier.ABSTRACT)) {
+			return true;
+		}
+		String declarante = ((TypeElement) metodo.getEnclosingElement()).getQualifiedName().toString();
+		return declarante.equals(Object.class.getName()) || declarante.equals(Entidade.class.getName())
+		        || declarante.equals(AcessoPropriedades.class.getName()) || declarante.equals(Serializable.class.getName());
+	}
+
+	/**
+	 * Extrai as propriedades da interface, na ordem de declaração dos métodos.
+	 *
+	 * @return propriedades ou <tt>null</tt> se algum erro foi reportado
+	 */
+	private Map<String, Propriedade> getPropriedades(TypeElement tipo) {
+		Map<String, Propriedade> mpProps = new LinkedHashMap<String, Propriedade>();
+		boolean valido = true;
+		for (ExecutableElement metodo : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(tipo))) {
+			if (isImplementado(metodo)) {
+				continue;
+			}
+			ExecutableType tipoMetodo = (ExecutableType) processingEnv.getTypeUtils().asMemberOf((DeclaredType) tipo.asType(), metodo);
+			String nomeMetodo = metodo.getSimpleName().toString();
+			int params = metodo.getParameters().size();
+			TypeKind retorno = tipoMetodo.getReturnType().getKind();
+			TypeMirror tipoProp;
+			String nome;
+			boolean leitura;
+			if (nomeMetodo.startsWith("get") && nomeMetodo.length() > 3 && params == 0 && retorno != TypeKind.VOID) {
+				nome = nomeMetodo.substring(3);
+				tipoProp = tipoMetodo.getReturnType();
+				leitura = true;
+			} else if (nomeMetodo.startsWith("is") && nomeMetodo.length() > 2 && params == 0 && retorno == TypeKind.BOOLEAN) {
+				nome = nomeMetodo.substring(2);
+				tipoProp = tipoMetodo.getReturnType();
+				leitura = true;
+			} else if (nomeMetodo.startsWith("set") && nomeMetodo.length() > 3 && params == 1 && retorno == TypeKind.VOID) {
+				nome = nomeMetodo.substring(3);
+				tipoProp = tipoMetodo.getParameterTypes().get(0);
+				leitura = false;
+			} else {
+				erro("Método não suportado em entidade gerada: " + nomeMetodo, metodo);
+				valido = false;
+				continue;
+			}
+			if (!metodo.getTypeParameters().isEmpty()) {
+				erro("Método de acesso genérico não suportado em entidade gerada: " + nomeMetodo, metodo);
+				valido = false;
+				continue;
+			}
+			nome = Introspector.decapitalize(nome);
+			Propriedade prop = mpProps.get(nome);
+			if (prop == null) {
+				mpProps.put(nome, prop = new Propriedade(nome));
+				prop.tipo = tipoProp;
+			} else if (!processingEnv.getTypeUtils().isSameType(prop.tipo, tipoProp)) {
+				erro("Tipos diferentes para a propriedade '" + nome + "': " + prop.tipo + ", " + tipoProp, metodo);
+				valido = false;
+			}
+			if (leitura) {
+				prop.leitura = metodo;
+			} else {
+				prop.escrita = metodo;
+			}
+		}
+		return valido ? mpProps : null;
+	}
+
+	private static boolean isNumerico(TypeMirror tipo) {
+		switch (tipo.getKind()) {
+		case BYTE:
+		case SHORT:
+		case INT:
+		case LONG:
+		case FLOAT:
+		case DOUBLE:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	private static String getValorPadrao(TypeMirror tipo) {
+		switch (tipo.getKind()) {
+		case BOOLEAN:
+			return "false";
+		case CHAR:
+			return "'\\0'";
+		case BYTE:
+			return "(byte) 0";
+		case SHORT:
+			return "(short) 0";
+		default:
+			return "0";
+		}
+	}
+
+	/**
+	 * Gera a sobrescrita de um método de leitura tipado de
+	 * {@link AcessoPropriedades AcessoPropriedades}, que lê diretamente os
+	 * campos destes tipos e repassa as demais propriedades à implementação
+	 * padrão.
+	 */
+	private static void gerarLeituraTipada(StringBuilder fonte, Map<String, Propriedade> mpProps, String tipo, String metodo,
+	        TypeKind... tiposCampos) {
+		StringBuilder casos = new StringBuilder();
+		for (Propriedade prop : mpProps.values()) {
+			if (Arrays.asList(tiposCampos).contains(prop.tipo.getKind())) {
+				casos.append("\t\tcase \"").append(prop.nome).append("\":\n\t\t\treturn this.").append(prop.campo).append(";\n");
+			}
+		}
+		if (casos.length() > 0) {
+			fonte.append("\n\t@Override\n\tpublic ").append(tipo).append(' ').append(metodo).append("(String nome) {\n\t\tswitch (nome) {\n")
+			        .append(casos).append("\t\tdefault:\n\t\t\treturn super.").append(metodo).append("(nome);\n\t\t}\n\t}\n");
+		}
+	}
+
+	/**
+	 * Gera a sobrescrita de um método de escrita tipado de
+	 * {@link AcessoPropriedades AcessoPropriedades}, que escreve diretamente nos
+	 * campos destes tipos e repassa as demais propriedades à implementação
+	 * padrão.
+	 */
+	private static void gerarEscritaTipada(StringBuilder fonte, Map<String, Propriedade> mpProps, String tipo, String metodo,
+	        TypeKind... tiposCampos) {
+		StringBuilder casos = new StringBuilder();
+		for (Propriedade prop : mpProps.values()) {
+			if (Arrays.asList(tiposCampos).contains(prop.tipo.getKind())) {
+				casos.append("\t\tcase \"").append(prop.nome).append("\":\n\t\t\tthis.").append(prop.campo)
+				        .append(" = valor;\n\t\t\treturn;\n");
+			}
+		}
+		if (casos.length() > 0) {
+			fonte.append("\n\t@Override\n\tpublic void ").append(metodo).append("(String nome, ").append(tipo)
+			        .append(" valor) {\n\t\tswitch (nome) {\n").append(casos).append("\t\tdefault:\n\t\t\tsuper.").append(metodo)
+			        .append("(nome, valor);\n\t\t}\n\t}\n");
+		}
+	}
+
+	private void gerar(TypeElement tipo, Map<String, Propriedade> mpProps) {
+		PackageElement pacote = processingEnv.getElementUtils().getPackageOf(tipo);
+		String nomeBinario = processingEnv.getElementUtils().getBinaryName(tipo).toString();
+		String nomeClasse = nomeBinario.substring(nomeBinario.lastIndexOf('.') + 1) + EntidadeGeradaImpl.SUFIXO;
+		String interfaceAcesso = tipo.getQualifiedName().toString();
+		StringBuilder fonte = new StringBuilder();
+		if (!pacote.isUnnamed()) {
+			fonte.append("package ").append(pacote.getQualifiedName()).append(";\n\n");
+		}
+		fonte.append("/**\n * Gerado por ").append(getClass().getName()).append(" a partir de {@link ").append(interfaceAcesso)
+		        .append("}.\n */\n");
+		fonte.append("public final class ").append(nomeClasse).append(" extends ").append(EntidadeGeradaImpl.class.getName())
+		        .append(" implements ").append(interfaceAcesso).append(" {\n\n");
+		fonte.append("\tprivate static final long serialVersionUID = 1L;\n\n");
+		fonte.append("\tprivate static final java.util.List<String> NOMES = java.util.Collections.unmodifiableList(java.util.Arrays.asList(");
+		String separador = "";
+		for (Propriedade prop : mpProps.values()) {
+			fonte.append(separador).append('"').append(prop.nome).append('"');
+			separador = ", ";
+		}
+		// as propriedades definidas em Entidade, como nos descritores da interface
+		fonte.append(separador).append("\"nomesPropriedades\", \"tipoAcessoPropriedades\"));\n\n");
+		for (Propriedade prop : mpProps.values()) {
+			fonte.append("\tprivate ").append(prop.tipo).append(' ').append(prop.campo).append(";\n");
+		}
+		fonte.append("\n\tpublic ").append(nomeClasse).append("() {\n\t}\n");
+		for (Propriedade prop : mpProps.values()) {
+			if (prop.leitura != null) {
+				fonte.append("\n\t@Override\n\tpublic ").append(prop.tipo).append(' ').append(prop.leitura.getSimpleName())
+				        .append("() {\n\t\treturn this.").append(prop.campo).append(";\n\t}\n");
+			}
+			if (prop.escrita != null) {
+				fonte.append("\n\t@Override\n\tpublic void ").append(prop.escrita.getSimpleName()).append('(').append(prop.tipo)
+				        .append(" valor) {\n\t\tthis.").append(prop.campo).append(" = valor;\n\t}\n");
+			}
+		}
+		fonte.append("\n\t@Override\n\tpublic java.util.Collection<String> getNomesPropriedades() {\n\t\treturn NOMES;\n\t}\n");
+		fonte.append("\n\t@Override\n\tpublic Class<?> getTipoAcessoPropriedades() {\n\t\treturn ").append(interfaceAcesso)
+		        .append(".class;\n\t}\n");
+		fonte.append("\n\t@Override\n\tpublic Object get(String nome) {\n\t\tswitch (nome) {\n");
+		for (Propriedade prop : mpProps.values()) {
+			fonte.append("\t\tcase \"").append(prop.nome).append("\":\n\t\t\treturn this.").append(prop.campo).append(";\n");
+		}
+		fonte.append("\t\tcase \"nomesPropriedades\":\n\t\t\treturn NOMES;\n");
+		fonte.append("\t\tcase \"tipoAcessoPropriedades\":\n\t\t\treturn ").append(interfaceAcesso).append(".class;\n");
+		fonte.append("\t\tdefault:\n\t\t\tthrow getErroPropriedade(nome);\n\t\t}\n\t}\n");
+		fonte.append("\n\t@Override\n\t@SuppressWarnings(\"unchecked\")\n\tpublic void set(String nome, Object valor) {\n\t\tswitch (nome) {\n");
+		for (Propriedade prop : mpProps.values()) {
+			fonte.append("\t\tcase \"").append(prop.nome).append("\":\n\t\t\tthis.").append(prop.campo).append(" = ");
+			if (isNumerico(prop.tipo)) {
+				// converte por Number, como EntidadeCompacta, aceitando qualquer tipo numérico
+				fonte.append("valor == null ? ").append(getValorPadrao(prop.tipo)).append(" : ((java.lang.Number) valor).").append(prop.tipo)
+				        .append("Value()");
+			} else if (prop.tipo.getKind().isPrimitive()) {
+				String tipoObjeto = processingEnv.getTypeUtils().boxedClass((PrimitiveType) prop.tipo).getQualifiedName().toString();
+				fonte.append("valor == null ? ").append(getValorPadrao(prop.tipo)).append(" : (").append(tipoObjeto).append(") valor");
+			} else {
+				fonte.append('(').append(prop.tipo).append(") valor");
+			}
+			fonte.append(";\n\t\t\treturn;\n");
+		}
+		// derivadas da classe: a escrita é ignorada, como na cópia entre entidades
+		fonte.append("\t\tcase \"nomesPropriedades\":\n\t\tcase \"tipoAcessoPropriedades\":\n\t\t\treturn;\n");
+		fonte.append("\t\tdefault:\n\t\t\tthrow getErroPropriedade(nome);\n\t\t}\n\t}\n");
+		gerarLeituraTipada(fonte, mpProps, "int", "getInt", TypeKind.INT, TypeKind.SHORT, TypeKind.BYTE);
+		gerarLeituraTipada(fonte, mpProps, "long", "getLong", TypeKind.LONG, TypeKind.INT, TypeKind.SHORT, TypeKind.BYTE);
+		gerarLeituraTipada(fonte, mpProps, "double", "getDouble", TypeKind.DOUBLE, TypeKind.FLOAT, TypeKind.LONG, TypeKind.INT,
+		        TypeKind.SHORT, TypeKind.BYTE);
+		gerarLeituraTipada(fonte, mpProps, "boolean", "getBoolean", TypeKind.BOOLEAN);
+		gerarEscritaTipada(fonte, mpProps, "int", "setInt", TypeKind.INT, TypeKind.LONG);
+		gerarEscritaTipada(fonte, mpProps, "long", "setLong", TypeKind.LONG);
+		gerarEscritaTipada(fonte, mpProps, "double", "setDouble", TypeKind.DOUBLE);
+		gerarEscritaTipada(fonte, mpProps, "boolean", "setBoolean", TypeKind.BOOLEAN);
+		fonte.append("}\n");
+		String nomeQualificado = pacote.isUnnamed() ? nomeClasse : pacote.getQualifiedName() + "." + nomeClasse;
+		try (Writer escritor = processingEnv.getFiler().createSourceFile(nomeQualificado, tipo).openWriter()) {
+			escritor.write(fonte.toString());
+		} catch (IOException e) {
+			erro("Erro gerando entidade: " + e, tipo);
+		}
+	}
+}